@@ -0,0 +1,71 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compare streaming a feed with {@link Feed#writeTo(java.io.OutputStream)} 
+ * against building the JSON Object tree with {@link Feed#toJSON()} and then 
+ * turning it into a string and bytes.  With the fragments cached, re-writing 
+ * the (unchanged) feed only copies the cached bytes of each item.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonWriterBenchmark {
+	private Feed feed = null;
+	private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256 * 1024);
+
+	@Setup
+	public void setup() throws IOException {
+		try (InputStream inputStream = JsonWriterBenchmark.class.getResourceAsStream("/daringfireball.com.json")) {
+			feed = Feed.parse(inputStream);
+		}
+	}
+
+	@Benchmark
+	public int writeTo() throws IOException {
+		outputStream.reset();
+		feed.writeTo(outputStream);
+		return(outputStream.size());
+	}
+
+	@Benchmark
+	public int writeToCachedFragments() throws IOException {
+		outputStream.reset();
+		feed.writeTo(outputStream, true);
+		return(outputStream.size());
+	}
+
+	@Benchmark
+	public int toJSON() {
+		return(feed.toJSON().toString().getBytes(StandardCharsets.UTF_8).length);
+	}
+}
@@ -0,0 +1,84 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Compare the throughput of the {@link Rfc3339Codec} against a shared
+ * SimpleDateFormat (which is how dates used to be parsed).  As the
+ * SimpleDateFormat is not thread-safe, it has to be synchronized to be shared
+ * between threads - run with more threads (e.g. '-t 4') to see the effect of
+ * the contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(4)
+public class Rfc3339CodecBenchmark {
+	private static final String DATE_UTC = "2017-05-28T00:37:21Z";
+	private static final String DATE_OFFSET = "2010-02-07T14:04:00-05:00";
+
+	private final SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+	private Date date = null;
+
+	@Setup
+	public void setup() throws ParseException {
+		date = Rfc3339Codec.parseDate(DATE_OFFSET);
+	}
+
+	@Benchmark
+	public long parseCodec() throws ParseException {
+		return(Rfc3339Codec.parseEpochMillis(DATE_UTC) + Rfc3339Codec.parseEpochMillis(DATE_OFFSET));
+	}
+
+	@Benchmark
+	public long parseCodecToDate() throws ParseException {
+		return(Rfc3339Codec.parse(DATE_UTC).getTime() + Rfc3339Codec.parse(DATE_OFFSET).getTime());
+	}
+
+	@Benchmark
+	public long parseSimpleDateFormat() throws ParseException {
+		synchronized(simpleDateFormat) {
+			return(simpleDateFormat.parse(DATE_UTC).getTime() + simpleDateFormat.parse(DATE_OFFSET).getTime());
+		}
+	}
+
+	@Benchmark
+	public String formatCodec() {
+		return(Rfc3339Codec.format(date));
+	}
+
+	@Benchmark
+	public String formatSimpleDateFormat() {
+		synchronized(simpleDateFormat) {
+			return(simpleDateFormat.format(date));
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compare validating a large feed on the calling thread against validating 
+ * its items in parallel on the common fork join pool.  The feed is built by 
+ * repeating the items of a real feed, so that it has the requested number of
+ * items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ValidationBenchmark {
+	@Param({ "1000", "50000" })
+	private int numItems;
+
+	private Feed feed = null;
+
+	@Setup
+	public void setup() throws IOException {
+		try (InputStream inputStream = ValidationBenchmark.class.getResourceAsStream("/daringfireball.com.json")) {
+			feed = Feed.parse(inputStream);
+		}
+
+		List<Item> items = new ArrayList<Item>(numItems);
+		List<Item> feedItems = feed.getItems();
+		for(int i = 0; i < numItems; i++) {
+			items.add(new Item(feedItems.get(i % feedItems.size()).toJSON()));
+		}
+		feed.setItems(items);
+	}
+
+	@Benchmark
+	public int validateSequential() {
+		return(feed.validate(ValidationOptions.DEFAULT).getNumErrors());
+	}
+
+	@Benchmark
+	public int validateParallel() {
+		return(feed.validate(ValidationOptions.PARALLEL).getNumErrors());
+	}
+}
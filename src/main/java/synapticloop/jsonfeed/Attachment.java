@@ -16,9 +16,10 @@ package synapticloop.jsonfeed;
  * this source code or binaries.
  */
 
+import java.io.IOException;
 import java.util.Map;
 
-import synapticloop.jsonfeed.exception.ValidationException;
+import synapticloop.jsonfeed.SymbolTable.Field;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -32,8 +33,6 @@ import org.slf4j.LoggerFactory;
 public class Attachment extends BaseJsonFeedObject {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Attachment.class);
 
-	private static final String VALIDATION_ERROR_KEYS_CANNOT_BE_NULL = "[%s] %s and %s cannot be null";
-
 
 	// url (required, string) specifies the location of the attachment.
 	private final String url;
@@ -44,9 +43,14 @@ public class Attachment extends BaseJsonFeedObject {
 	// the same thing. In this way a podcaster, for instance, might provide an audio recording in different formats.
 	private String title;
 	// size_in_bytes (optional, number) specifies how large the file is.
-	private Long sizeInBytes;
+	private long sizeInBytes;
 	// duration_in_seconds (optional, number) specifies how long the attachment takes to listen to or watch.
-	private Long durationInSeconds;
+	private long durationInSeconds;
+	// The numbers are held as primitives, the presentNumbers bits record which of them are set
+	private byte presentNumbers;
+
+	private static final byte SIZE_IN_BYTES = 1;
+	private static final byte DURATION_IN_SECONDS = 2;
 
 	/**
 	 * Instantiate a new attachment object
@@ -63,22 +67,35 @@ public class Attachment extends BaseJsonFeedObject {
 		this.url = url;
 		this.mimeType = mimeType;
 		this.title = title;
-		this.sizeInBytes = sizeInBytes;
-		this.durationInSeconds = durationInSeconds;
+		putSizeInBytes(sizeInBytes);
+		putDurationInSeconds(durationInSeconds);
 		this.extensions = extensions;
 	}
 
 	public Attachment(JSONObject jsonObject) {
-		this.url = readString(jsonObject, KEY_URL);
-		this.mimeType = readString(jsonObject, KEY_MIME_TYPE);
-		this.title = readString(jsonObject, KEY_TITLE);
-		this.sizeInBytes = readLong(jsonObject, KEY_SIZE_IN_BYTES);
-		this.durationInSeconds = readLong(jsonObject, KEY_DURATION_IN_SECONDS);
+		this(jsonObject, ParseOptions.DEFAULT);
+	}
+
+	/**
+	 * Create a new attachment from a JSON Object with the passed in parse options
+	 * 
+	 * @param jsonObject The JSON Object to parse
+	 * @param parseOptions The options to parse with
+	 * 
+	 * @see ParseOptions
+	 */
+	public Attachment(JSONObject jsonObject, ParseOptions parseOptions) {
+		ParseContext context = startParse(jsonObject, parseOptions);
+		this.url = readString(context, KEY_URL);
+		this.mimeType = readString(context, KEY_MIME_TYPE, Field.MIME_TYPE);
+		this.title = readString(context, KEY_TITLE);
+		putSizeInBytes(readLong(context, KEY_SIZE_IN_BYTES));
+		putDurationInSeconds(readLong(context, KEY_DURATION_IN_SECONDS));
 
 		// now go through the extensions and parse them
-		parseExtensions(jsonObject);
+		parseExtensions(context);
 
-		warnOnMissingKeys(jsonObject);
+		warnOnMissingKeys(context);
 	}
 
 	/**
@@ -92,15 +109,57 @@ public class Attachment extends BaseJsonFeedObject {
 
 	public String getTitle() { return title; }
 
-	public void setTitle(String title) { this.title = title; }
+	public void setTitle(String title) { this.title = title; invalidate(); }
 
-	public Long getSizeInBytes() { return sizeInBytes; }
+	public Long getSizeInBytes() { return(hasSizeInBytes() ? Long.valueOf(sizeInBytes) : null); }
 
-	public void setSizeInBytes(Long sizeInBytes) { this.sizeInBytes = sizeInBytes; }
+	public void setSizeInBytes(Long sizeInBytes) { putSizeInBytes(sizeInBytes); invalidate(); }
 
-	public Long getDurationInSeconds() { return durationInSeconds; }
+	public boolean hasSizeInBytes() { return((presentNumbers & SIZE_IN_BYTES) != 0); }
+
+	/**
+	 * Get the size of the attachment without boxing it
+	 * 
+	 * @param defaultValue the value to return if the size is not set
+	 * 
+	 * @return the size of the attachment in bytes, or the default value
+	 */
+	public long getSizeInBytes(long defaultValue) { return(hasSizeInBytes() ? sizeInBytes : defaultValue); }
+
+	public Long getDurationInSeconds() { return(hasDurationInSeconds() ? Long.valueOf(durationInSeconds) : null); }
+
+	public void setDurationInSeconds(Long durationInSeconds) { putDurationInSeconds(durationInSeconds); invalidate(); }
+
+	public boolean hasDurationInSeconds() { return((presentNumbers & DURATION_IN_SECONDS) != 0); }
+
+	/**
+	 * Get the duration of the attachment without boxing it
+	 * 
+	 * @param defaultValue the value to return if the duration is not set
+	 * 
+	 * @return the duration of the attachment in seconds, or the default value
+	 */
+	public long getDurationInSeconds(long defaultValue) { return(hasDurationInSeconds() ? durationInSeconds : defaultValue); }
+
+	private void putSizeInBytes(Long sizeInBytes) {
+		if(null == sizeInBytes) {
+			this.sizeInBytes = 0L;
+			presentNumbers &= ~SIZE_IN_BYTES;
+		} else {
+			this.sizeInBytes = sizeInBytes;
+			presentNumbers |= SIZE_IN_BYTES;
+		}
+	}
 
-	public void setDurationInSeconds(Long durationInSeconds) { this.durationInSeconds = durationInSeconds; }
+	private void putDurationInSeconds(Long durationInSeconds) {
+		if(null == durationInSeconds) {
+			this.durationInSeconds = 0L;
+			presentNumbers &= ~DURATION_IN_SECONDS;
+		} else {
+			this.durationInSeconds = durationInSeconds;
+			presentNumbers |= DURATION_IN_SECONDS;
+		}
+	}
 
 	@Override
 	protected Logger getLogger() {
@@ -113,33 +172,46 @@ public class Attachment extends BaseJsonFeedObject {
 		addKeyValue(jsonObject, KEY_URL, this.url);
 		addKeyValue(jsonObject, KEY_MIME_TYPE, this.mimeType);
 		addKeyValue(jsonObject, KEY_TITLE, this.title);
-		addKeyValue(jsonObject, KEY_SIZE_IN_BYTES, this.sizeInBytes);
-		addKeyValue(jsonObject, KEY_DURATION_IN_SECONDS, this.durationInSeconds);
+		if(hasSizeInBytes()) {
+			jsonObject.put(KEY_SIZE_IN_BYTES, this.sizeInBytes);
+		}
+		if(hasDurationInSeconds()) {
+			jsonObject.put(KEY_DURATION_IN_SECONDS, this.durationInSeconds);
+		}
 
 		addExtensionsToJSON(jsonObject);
 
 		return(jsonObject);
 	}
 
+	@Override
+	boolean isFragmentCacheable() { return(true); }
+
+	@Override
+	void writeJSON(JsonWriter jsonWriter) throws IOException {
+		jsonWriter.beginObject();
+		writeKeyValue(jsonWriter, NAME_URL, this.url);
+		writeKeyValue(jsonWriter, NAME_MIME_TYPE, this.mimeType);
+		writeKeyValue(jsonWriter, NAME_TITLE, this.title);
+		if(hasSizeInBytes()) {
+			jsonWriter.name(NAME_SIZE_IN_BYTES).value(this.sizeInBytes);
+		}
+		if(hasDurationInSeconds()) {
+			jsonWriter.name(NAME_DURATION_IN_SECONDS).value(this.durationInSeconds);
+		}
+		writeExtensions(jsonWriter);
+		jsonWriter.endObject();
+	}
+
 	@Override
 	public String toString() {
 		return(toJSON().toString());
 	}
 
 	@Override
-	public void validate() throws ValidationException {
-		validationErrors.clear();
-
-		boolean isInError = false;
-		isInError = validateRequiredInError(url, KEY_URL) || isInError;
-		isInError = validateRequiredInError(mimeType, KEY_MIME_TYPE) || isInError ;
-
-		if(isInError) {
-			String validationException = String.format(VALIDATION_ERROR_KEYS_CANNOT_BE_NULL, LOGGER.getName(), KEY_URL, KEY_MIME_TYPE);
-			LOGGER.error(validationException);
-
-			throw new ValidationException(validationException);
+	void validate(ValidationReport report) {
+		if(validateRequired(report, url, KEY_URL)) {
+			validateRequired(report, mimeType, KEY_MIME_TYPE);
 		}
-
 	}
 }
@@ -16,7 +16,9 @@ package synapticloop.jsonfeed;
  * this source code or binaries.
  */
 
-import synapticloop.jsonfeed.exception.ValidationException;
+import java.io.IOException;
+
+import synapticloop.jsonfeed.SymbolTable.Field;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -25,7 +27,7 @@ import org.slf4j.LoggerFactory;
 public class Author extends BaseJsonFeedObject {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Author.class);
 
-	private static final String VALIDATION_ERROR_AT_LEAST_ONE_OF_MUST_BE_PRESENT_ALL_VALUES_WERE_NULL = "[%s] At least one of %s, %s, %S _MUST_ be present, all values were null.";
+	private static final String VALIDATION_ERROR_AT_LEAST_ONE_OF_MUST_BE_PRESENT = "At least one of '" + KEY_NAME + "', '" + KEY_URL + "' or '" + KEY_AVATAR + "' _MUST_ be present";
 
 
 	// name (optional, string) is the author’s name.
@@ -46,24 +48,37 @@ public class Author extends BaseJsonFeedObject {
 	}
 
 	public Author(JSONObject jsonObject) {
-		this.name = readString(jsonObject, KEY_NAME);
-		this.url = readString(jsonObject, KEY_URL);
-		this.avatar = readString(jsonObject, KEY_AVATAR);
+		this(jsonObject, ParseOptions.DEFAULT);
+	}
 
-		warnOnMissingKeys(jsonObject);
+	/**
+	 * Create a new author from a JSON Object with the passed in parse options
+	 * 
+	 * @param jsonObject The JSON Object to parse
+	 * @param parseOptions The options to parse with
+	 * 
+	 * @see ParseOptions
+	 */
+	public Author(JSONObject jsonObject, ParseOptions parseOptions) {
+		ParseContext context = startParse(jsonObject, parseOptions);
+		this.name = readString(context, KEY_NAME, Field.AUTHOR_NAME);
+		this.url = readString(context, KEY_URL, Field.AUTHOR_URL);
+		this.avatar = readString(context, KEY_AVATAR, Field.AUTHOR_AVATAR);
+
+		warnOnMissingKeys(context);
 	}
 
 	public String getName() { return name; }
 
-	public void setName(String name) { this.name = name; }
+	public void setName(String name) { this.name = name; invalidate(); }
 
 	public String getUrl() { return url; }
 
-	public void setUrl(String url) { this.url = url; }
+	public void setUrl(String url) { this.url = url; invalidate(); }
 
 	public String getAvatar() { return avatar; }
 
-	public void setAvatar(String avatar) { this.avatar = avatar; }
+	public void setAvatar(String avatar) { this.avatar = avatar; invalidate(); }
 
 	@Override
 	public JSONObject toJSON() {
@@ -74,6 +89,18 @@ public class Author extends BaseJsonFeedObject {
 		return(jsonObject);
 	}
 
+	@Override
+	boolean isFragmentCacheable() { return(true); }
+
+	@Override
+	void writeJSON(JsonWriter jsonWriter) throws IOException {
+		jsonWriter.beginObject();
+		writeKeyValue(jsonWriter, NAME_NAME, this.name);
+		writeKeyValue(jsonWriter, NAME_URL, this.url);
+		writeKeyValue(jsonWriter, NAME_AVATAR, this.avatar);
+		jsonWriter.endObject();
+	}
+
 	@Override
 	protected Logger getLogger() {
 		return(LOGGER);
@@ -85,14 +112,9 @@ public class Author extends BaseJsonFeedObject {
 	}
 
 	@Override
-	public void validate() throws ValidationException {
-		validationErrors.clear();
-
+	void validate(ValidationReport report) {
 		if(null == this.name && null == this.url && null == this.avatar) {
-			String validationError = String.format(VALIDATION_ERROR_AT_LEAST_ONE_OF_MUST_BE_PRESENT_ALL_VALUES_WERE_NULL, LOGGER.getName(), KEY_NAME, KEY_URL, KEY_AVATAR);
-			LOGGER.error(validationError);
-			validationErrors.add(validationError);
-			throw new ValidationException(validationError);
+			report.error(null, VALIDATION_ERROR_AT_LEAST_ONE_OF_MUST_BE_PRESENT);
 		}
 	}
 }
\ No newline at end of file
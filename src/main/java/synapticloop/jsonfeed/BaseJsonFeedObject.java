@@ -16,16 +16,25 @@ package synapticloop.jsonfeed;
  * this source code or binaries.
  */
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
 
+import synapticloop.jsonfeed.SymbolTable.Field;
 import synapticloop.jsonfeed.exception.ValidationException;
 
 import org.json.JSONArray;
@@ -37,11 +46,15 @@ import org.slf4j.Logger;
  * addition of extensions at any level.
  */
 public abstract class BaseJsonFeedObject {
-	private static final String LOGGER_KEY_MUST_NOT_BE_NULL = "[%s] Key '%s' _MUST_NOT_ be null";
+	private static final String VALIDATION_ERROR_MUST_NOT_BE_NULL = "_MUST_NOT_ be null";
+	private static final String ERROR_COULD_NOT_VALIDATE = "Could not validate %s, %d error(s) found";
 	private static final String LOGGER_COULD_NOT_PARSE_ARRAY_FOR_KEY_VALUE_WAS_NOT_A_STRING = "Could not parse array for key '{}', value '{}' was not a string";
+	static final String LOGGER_COULD_NOT_PARSE_ARRAY_FOR_KEY_VALUE_WAS_NOT_AN_OBJECT = "Could not parse array for key '{}', value '{}' was not an object";
 	private static final String LOGGER_KEY_VALUE_ADDED_TO_STRING_ARRAY = "Key '{}', value '{}' added to string array";
 	private static final String LOGGER_KEY_REMOVED_FROM_JSON_OBJECT = "Key '{}' removed from JSON Object";
 	private static final String ERROR_KEY_WAS_NOT_MAPPED_WITH_VALUE = "Key '{}' was not mapped with value '{}'";
+	static final String LOGGER_EXTENSION_WAS_NOT_AN_OBJECT = "Extension '{}' was not an object, value was '{}', skipping";
+	static final String LOGGER_COULD_NOT_PARSE_DATE = "Could not parse '{}' to date, message was: {}";
 
 	protected static final String KEY_ATTACHMENTS = "attachments";
 	protected static final String KEY_AUTHOR =  "author";
@@ -75,34 +88,151 @@ public abstract class BaseJsonFeedObject {
 	protected static final String KEY_USER_COMMENT =  "user_comment";
 	protected static final String KEY_VERSION =  "version";
 
-	private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ssXXX";
-	private static final SimpleDateFormat SIMPLE_DATE_FORMAT = new SimpleDateFormat(DATE_FORMAT);
+	// the pre-encoded names (i.e. the quoted key and the colon) for the JSON writer
+	static final byte[] NAME_ATTACHMENTS = JsonWriter.encodeName(KEY_ATTACHMENTS);
+	static final byte[] NAME_AUTHOR = JsonWriter.encodeName(KEY_AUTHOR);
+	static final byte[] NAME_AVATAR = JsonWriter.encodeName(KEY_AVATAR);
+	static final byte[] NAME_BANNER_IMAGE = JsonWriter.encodeName(KEY_BANNER_IMAGE);
+	static final byte[] NAME_CONTENT_HTML = JsonWriter.encodeName(KEY_CONTENT_HTML);
+	static final byte[] NAME_CONTENT_TEXT = JsonWriter.encodeName(KEY_CONTENT_TEXT);
+	static final byte[] NAME_DATE_MODIFIED = JsonWriter.encodeName(KEY_DATE_MODIFIED);
+	static final byte[] NAME_DATE_PUBLISHED = JsonWriter.encodeName(KEY_DATE_PUBLISHED);
+	static final byte[] NAME_DESCRIPTION = JsonWriter.encodeName(KEY_DESCRIPTION);
+	static final byte[] NAME_DURATION_IN_SECONDS = JsonWriter.encodeName(KEY_DURATION_IN_SECONDS);
+	static final byte[] NAME_EXPIRED = JsonWriter.encodeName(KEY_EXPIRED);
+	static final byte[] NAME_EXTERNAL_URL = JsonWriter.encodeName(KEY_EXTERNAL_URL);
+	static final byte[] NAME_FAVICON = JsonWriter.encodeName(KEY_FAVICON);
+	static final byte[] NAME_FEED_URL = JsonWriter.encodeName(KEY_FEED_URL);
+	static final byte[] NAME_HOME_PAGE_URL = JsonWriter.encodeName(KEY_HOME_PAGE_URL);
+	static final byte[] NAME_HUBS = JsonWriter.encodeName(KEY_HUBS);
+	static final byte[] NAME_ICON = JsonWriter.encodeName(KEY_ICON);
+	static final byte[] NAME_ID = JsonWriter.encodeName(KEY_ID);
+	static final byte[] NAME_IMAGE = JsonWriter.encodeName(KEY_IMAGE);
+	static final byte[] NAME_ITEMS = JsonWriter.encodeName(KEY_ITEMS);
+	static final byte[] NAME_MIME_TYPE = JsonWriter.encodeName(KEY_MIME_TYPE);
+	static final byte[] NAME_NAME = JsonWriter.encodeName(KEY_NAME);
+	static final byte[] NAME_NEXT_URL = JsonWriter.encodeName(KEY_NEXT_URL);
+	static final byte[] NAME_SIZE_IN_BYTES = JsonWriter.encodeName(KEY_SIZE_IN_BYTES);
+	static final byte[] NAME_SUMMARY = JsonWriter.encodeName(KEY_SUMMARY);
+	static final byte[] NAME_TAGS = JsonWriter.encodeName(KEY_TAGS);
+	static final byte[] NAME_TITLE = JsonWriter.encodeName(KEY_TITLE);
+	static final byte[] NAME_TYPE = JsonWriter.encodeName(KEY_TYPE);
+	static final byte[] NAME_URL = JsonWriter.encodeName(KEY_URL);
+	static final byte[] NAME_USER_COMMENT = JsonWriter.encodeName(KEY_USER_COMMENT);
+	static final byte[] NAME_VERSION = JsonWriter.encodeName(KEY_VERSION);
 
-	// the list of all of the validation errors found
-	protected List<String> validationErrors = new ArrayList<String>();
+	// the table of known keys - the index of the key is its bit in the bitset of mapped keys
+	private static final String[] KNOWN_KEYS = { KEY_ATTACHMENTS, KEY_AUTHOR, KEY_AVATAR, KEY_BANNER_IMAGE, 
+			KEY_CONTENT_HTML, KEY_CONTENT_TEXT, KEY_DATE_MODIFIED, KEY_DATE_PUBLISHED, KEY_DESCRIPTION, 
+			KEY_DURATION_IN_SECONDS, KEY_EXPIRED, KEY_EXTERNAL_URL, KEY_FAVICON, KEY_FEED_URL, KEY_HOME_PAGE_URL, 
+			KEY_HUBS, KEY_ICON, KEY_ID, KEY_IMAGE, KEY_ITEMS, KEY_MIME_TYPE, KEY_NAME, KEY_NEXT_URL, 
+			KEY_SIZE_IN_BYTES, KEY_SUMMARY, KEY_TAGS, KEY_TITLE, KEY_TYPE, KEY_URL, KEY_USER_COMMENT, KEY_VERSION };
+	private static final Map<String, Integer> KNOWN_KEY_INDEXES = new HashMap<String, Integer>();
+	static {
+		for(int i = 0; i < KNOWN_KEYS.length; i++) {
+			KNOWN_KEY_INDEXES.put(KNOWN_KEYS[i], i);
+		}
+	}
+	// the bit that is set once the extensions have been parsed, which maps all of the keys that start with an '_'
+	private static final long MAPPED_EXTENSIONS = 1L << 63;
+
+	// the (shared and immutable) extensions of an object that has none, the map is only created when an extension 
+	// is added
+	static final Map<String, Extension> NO_EXTENSIONS = Collections.emptyMap();
+
+	// the list of all of the validation errors found, this is only created when there is an error
+	protected List<String> validationErrors = null;
 	// Publishers can use custom objects in JSON Feeds. Names must start with an _ character and be followed by a letter. 
 	// Custom objects can appear anywhere in a feed.
-	protected Map<String, Extension> extensions = new LinkedHashMap<String, Extension>();
+	protected Map<String, Extension> extensions = NO_EXTENSIONS;
 
 	protected abstract Logger getLogger();
 	public abstract JSONObject toJSON();
-	public abstract void validate() throws ValidationException;
+	abstract void writeJSON(JsonWriter jsonWriter) throws IOException;
+	abstract void validate(ValidationReport report);
 	private int numUnmappedKeys = 0;
 
+	// the cached serialized (UTF-8) bytes of this object, and the number of times
+	// that it has been modified (so that containing objects can tell whether 
+	// their cached bytes are still valid)
+	private volatile Fragment fragment = null;
+	private int modCount = 0;
+
+	// the cached fingerprint of this object, see getFingerprint()
+	private volatile Fingerprint fingerprint = null;
+
+	// the cached bytes and fingerprint are each published as a single immutable 
+	// object, so that an object that is not being changed (e.g. an item that is
+	// shared between feed snapshots) can be written by many threads at once
+	private static final class Fragment {
+		private final byte[] bytes;
+		private final int[] childModCounts;
+
+		private Fragment(byte[] bytes, int[] childModCounts) {
+			this.bytes = bytes;
+			this.childModCounts = childModCounts;
+		}
+	}
+
+	private static final class Fingerprint {
+		private final long value;
+		private final int[] childModCounts;
+
+		private Fingerprint(long value, int[] childModCounts) {
+			this.value = value;
+			this.childModCounts = childModCounts;
+		}
+	}
+
+	private static final int[] NO_CHILD_MOD_COUNTS = new int[0];
+
+	// the report of validating this object as it was parsed, see ParseOptions
+	private ValidationReport validationReport = null;
+
+	/**
+	 * The state of parsing an object from a JSON Object, which is passed to the
+	 * read methods, rather than being held by the object once it has been 
+	 * parsed
+	 */
+	protected static final class ParseContext {
+		private final JSONObject jsonObject;
+		private final ParseOptions parseOptions;
+		// (for non-destructive parsing) the bitset of the known keys that have been mapped
+		private long mappedKeys = 0L;
+
+		private ParseContext(JSONObject jsonObject, ParseOptions parseOptions) {
+			this.jsonObject = jsonObject;
+			this.parseOptions = parseOptions;
+		}
+	}
+
+	/**
+	 * Start parsing this object from a JSON Object with the passed in options, 
+	 * the returned context is passed to each of the read methods.
+	 * 
+	 * @param jsonObject The JSON Object to parse
+	 * @param parseOptions The options to parse with
+	 * 
+	 * @return The context of the parse
+	 */
+	protected static ParseContext startParse(JSONObject jsonObject, ParseOptions parseOptions) {
+		return(new ParseContext(jsonObject, parseOptions));
+	}
+
 	/**
 	 * Read a boolean value from the JSON Object with the specified key.  This 
 	 * key will lookup the boolean value - if it doesn't exist it will return null.
 	 * The key (if it exists) will be removed from the JSON Object.
 	 * 
-	 * @param jsonObject The JSON object to use as the look up
+	 * @param context The context of the JSON Object that is being parsed
 	 * @param key The key to look up on the JSON Object
 	 * 
 	 * @return The Boolean value or null if it doesn't exist
 	 */
-	protected Boolean readBoolean(JSONObject jsonObject, String key) {
-		if(jsonObject.has(key)) {
-			boolean booleanValue = jsonObject.getBoolean(key);
-			unmapKey(jsonObject, key);
+	protected Boolean readBoolean(ParseContext context, String key) {
+		if(context.jsonObject.has(key)) {
+			boolean booleanValue = context.jsonObject.getBoolean(key);
+			mapKey(context, key);
 			return(booleanValue);
 		} else {
 			return(null);
@@ -112,46 +242,57 @@ public abstract class BaseJsonFeedObject {
 	
 	/**
 	 * Read a date from the JSON Object with the specified key.  This will parse
-	 * the String into a date format {@link #SIMPLE_DATE_FORMAT} or return null.
-	 * The date format is {@link #DATE_FORMAT}. The key (if it exists) will be 
-	 * removed from the JSON Object.
+	 * the RFC 3339 formatted String into a date (with {@link Rfc3339Codec}) or 
+	 * return null.  The returned date keeps the offset that it was written 
+	 * with. The key (if it exists) will be removed from the JSON Object.
 	 * 
-	 * @param jsonObject The JSON Object to use as the look up
+	 * @param context The context of the JSON Object that is being parsed
 	 * @param key The key to look up on the JSON Object
 	 * 
 	 * @return The parsed Date, or null if it doesn't exist, or could not be
 	 *   parsed 
 	 */
-	protected Date readDate(JSONObject jsonObject, String key) {
-		String optString = jsonObject.optString(key, null);
-		jsonObject.remove(key);
+	protected Date readDate(ParseContext context, String key) {
+		String optString = context.jsonObject.optString(key, null);
+		mapKey(context, key);
 		if(null != optString) {
 			try {
-				return(SIMPLE_DATE_FORMAT.parse(optString));
+				return(parseDate(optString));
 			} catch (ParseException e) {
-				getLogger().error("Could not parse '{}' to date using format '{}'", optString, DATE_FORMAT);
+				getLogger().error(LOGGER_COULD_NOT_PARSE_DATE, optString, e.getMessage());
 			}
 		}
 
-		unmapKey(jsonObject, key);
-
 		return (null);
 	}
 
+	/**
+	 * Parse an RFC 3339 date string, this is safe to call from any thread.
+	 * 
+	 * @param dateString The date string to parse
+	 * 
+	 * @return The parsed date
+	 * 
+	 * @throws ParseException If the date string could not be parsed
+	 */
+	static Date parseDate(String dateString) throws ParseException {
+		return(Rfc3339Codec.parse(dateString));
+	}
+
 	/**
 	 * Read a Long from the JSON Object with the specified key.  This will lookup
 	 * the long value and if it does not exist will return null.  The key (if it
 	 * exists) will be removed from the JSON Object.
 	 * 
-	 * @param jsonObject The JSON object to use as the look up
+	 * @param context The context of the JSON Object that is being parsed
 	 * @param key The key to look up on the JSON Object
 	 * 
 	 * @return The Long value, or null if it doesn't exist
 	 */
-	protected Long readLong(JSONObject jsonObject, String key) {
-		if(jsonObject.has(key)) {
-			Long longValue = jsonObject.getLong(key);
-			unmapKey(jsonObject, key);
+	protected Long readLong(ParseContext context, String key) {
+		if(context.jsonObject.has(key)) {
+			Long longValue = context.jsonObject.getLong(key);
+			mapKey(context, key);
 			return(longValue);
 		} else {
 			return(null);
@@ -163,48 +304,45 @@ public abstract class BaseJsonFeedObject {
 	 * return it (or null if it doesn't exist).  The key (if it exists) will be 
 	 * removed from the JSON Object
 	 * 
-	 * @param jsonObject The JSON object to use as the look up
+	 * @param context The context of the JSON Object that is being parsed
 	 * @param key The key to look up on the JSON Object
 	 * 
 	 * @return The JSONObject value, or null if it doesn't exist
 	 */
-	protected JSONObject readObject(JSONObject jsonObject, String key) {
-		JSONObject optJSONObject = jsonObject.optJSONObject(key);
-		unmapKey(jsonObject, key);
+	protected JSONObject readObject(ParseContext context, String key) {
+		JSONObject optJSONObject = context.jsonObject.optJSONObject(key);
+		mapKey(context, key);
 		return(optJSONObject);
 	}
 
 	/**
-	 * Read an array of objects into a typed array
+	 * Read an array of objects into a typed array, the objects are created with 
+	 * the same parse options as this object by the factory - which is a 
+	 * constructor reference (e.g. <code>Item::new</code>), so no reflection is 
+	 * used and a missing constructor is a compile time error.  Any elements 
+	 * of the array that are not JSON Objects are skipped.
 	 * 
 	 * @param <T> the type of the object for the list
-	 * @param jsonObject The jsonObject to read from
+	 * @param context The context of the JSON Object that is being parsed
 	 * @param key The key to look up
-	 * @param objectClass The class of the object to instantiate
+	 * @param factory The factory that creates each object from its JSON Object
 	 * 
 	 * @return The list of objects as an array
 	 */
-	protected <T> List<T> readObjectArray(JSONObject jsonObject, String key, Class<T> objectClass) {
+	protected <T> List<T> readObjectArray(ParseContext context, String key, BiFunction<JSONObject, ParseOptions, T> factory) {
 		List<T> list = new ArrayList<T>();
-		if(jsonObject.has(key)) {
-			JSONArray jsonArray = jsonObject.getJSONArray(key);
+		if(context.jsonObject.has(key)) {
+			JSONArray jsonArray = context.jsonObject.getJSONArray(key);
 			for (Object object : jsonArray) {
-				try {
-					T newInstance = objectClass.getConstructor(JSONObject.class).newInstance((JSONObject)object);
-					list.add(newInstance);
-				} catch (InstantiationException | 
-						IllegalAccessException | 
-						IllegalArgumentException | 
-						InvocationTargetException | 
-						NoSuchMethodException | 
-						SecurityException e) {
-
-					getLogger().error("Could not parse JSONObject {} with value '{}', message was: {}", objectClass.getName(), object, e.getMessage());
+				if(object instanceof JSONObject) {
+					list.add(factory.apply((JSONObject)object, context.parseOptions));
+				} else if(context.parseOptions.isLogging()) {
+					getLogger().error(LOGGER_COULD_NOT_PARSE_ARRAY_FOR_KEY_VALUE_WAS_NOT_AN_OBJECT, key, object);
 				}
 			}
 		}
 
-		unmapKey(jsonObject, key);
+		mapKey(context, key);
 
 		return(list);
 	}
@@ -214,44 +352,86 @@ public abstract class BaseJsonFeedObject {
 	 * return the String value or null if it doesn't exist.  The key (if it
 	 * exists) will be removed from the JSON Object.
 	 * 
-	 * @param jsonObject The JSON object to use as the look up
+	 * @param context The context of the JSON Object that is being parsed
 	 * @param key The key to look up on the JSON object
 	 * 
 	 * @return The looked up value, or null if it doesn't exist
 	 */
-	protected String readString(JSONObject jsonObject, String key) {
-		String optString = jsonObject.optString(key, null);
+	protected String readString(ParseContext context, String key) {
+		String optString = context.jsonObject.optString(key, null);
 
-		unmapKey(jsonObject, key);
+		mapKey(context, key);
 
 		return (optString);
 	}
 
+	/**
+	 * Read a string from the JSON Object with the specified key, and look it up
+	 * in the symbol table of the field (if the parse options have one), see 
+	 * {@link #readString(ParseContext, String)}
+	 * 
+	 * @param context The context of the JSON Object that is being parsed
+	 * @param key The key to look up on the JSON object
+	 * @param field The field that the value is for
+	 * 
+	 * @return The looked up value, or null if it doesn't exist
+	 */
+	protected String readString(ParseContext context, String key, Field field) {
+		return(intern(context, readString(context, key), field));
+	}
+
+	private static String intern(ParseContext context, String value, Field field) {
+		SymbolTable symbolTable = context.parseOptions.getSymbolTable(field);
+		if(null == symbolTable) {
+			return(value);
+		}
+		return(symbolTable.intern(value));
+	}
+
 	/**
 	 * Read a JSON array of strings into a List&lt;String&gt;.  This will remove the 
 	 * JSONArray once parsed.
 	 *  
-	 * @param jsonObject The JSON Object to get the JSON array from
+	 * @param context The context of the JSON Object that is being parsed
 	 * @param key The key to look up on the JSON Object
 	 * 
 	 * @return A list of Strings (which may be null)
 	 */
-	protected List<String> readStringArray(JSONObject jsonObject, String key) {
+	protected List<String> readStringArray(ParseContext context, String key) {
+		return(readStringArray(context, key, null));
+	}
+
+	/**
+	 * Read a JSON array of strings into a List&lt;String&gt;, looking up each of
+	 * the strings in the symbol table of the field (if the parse options have 
+	 * one), see {@link #readStringArray(ParseContext, String)}
+	 * 
+	 * @param context The context of the JSON Object that is being parsed
+	 * @param key The key to look up on the JSON object
+	 * @param field The field that the values are for, or null if they are not
+	 *     to be looked up
+	 * 
+	 * @return The List of Strings, which may be empty, but never null
+	 */
+	protected List<String> readStringArray(ParseContext context, String key, Field field) {
+		SymbolTable symbolTable = null == field ? null : context.parseOptions.getSymbolTable(field);
 		List<String> list = new ArrayList<String>(); 
 
-		if(jsonObject.has(key)) {
-			JSONArray jsonArray = jsonObject.getJSONArray(key);
+		if(context.jsonObject.has(key)) {
+			JSONArray jsonArray = context.jsonObject.getJSONArray(key);
 			for (Object object : jsonArray) {
 				if(object instanceof String) {
-					list.add((String)object);
-					getLogger().trace(LOGGER_KEY_VALUE_ADDED_TO_STRING_ARRAY, key, object);
+					list.add(null == symbolTable ? (String)object : symbolTable.intern((String)object));
+					if(context.parseOptions.isLogging()) {
+						getLogger().trace(LOGGER_KEY_VALUE_ADDED_TO_STRING_ARRAY, key, object);
+					}
 				} else {
 					getLogger().error(LOGGER_COULD_NOT_PARSE_ARRAY_FOR_KEY_VALUE_WAS_NOT_A_STRING, key, object);
 				}
 			}
 		}
 
-		unmapKey(jsonObject, key);
+		mapKey(context, key);
 
 		return(list);
 	}
@@ -260,14 +440,51 @@ public abstract class BaseJsonFeedObject {
 	 * Warn (i.e. log a warning message to the log output) if there were any remaining keys that were not collected by 
 	 * the parsing of input JSON file.  The number of missing keys is kept as a variable {@link #numUnmappedKeys}
 	 * 
-	 * @param jsonObject The JSON object to inspect for missing keys.
+	 * When parsing non-destructively, the keys are not removed, so the un-mapped keys are the keys that are not in the 
+	 * bitset of mapped keys.
+	 * 
+	 * @param context The context of the JSON Object that is being parsed
 	 */
-	protected void warnOnMissingKeys(JSONObject jsonObject) {
+	protected void warnOnMissingKeys(ParseContext context) {
+		if(!context.parseOptions.isDestructive()) {
+			countUnmappedKeys(context);
+			return;
+		}
+
 		numUnmappedKeys = 0;
-		Iterator<String> keys = jsonObject.keys();
+		Iterator<String> keys = context.jsonObject.keys();
 		while (keys.hasNext()) {
 			String key = (String) keys.next();
-			getLogger().warn(ERROR_KEY_WAS_NOT_MAPPED_WITH_VALUE, key, jsonObject.get(key));
+			if(context.parseOptions.isLogging()) {
+				getLogger().warn(ERROR_KEY_WAS_NOT_MAPPED_WITH_VALUE, key, context.jsonObject.get(key));
+			}
+			numUnmappedKeys++;
+		}
+	}
+
+	/**
+	 * Count the keys in the JSON Object that were not mapped - i.e. the keys that 
+	 * are not in the bitset of mapped keys.  Once the extensions have been 
+	 * parsed, the keys that start with an '_' are mapped (in the same way that 
+	 * the destructive parsing removes them).  Un-mapped keys are logged if 
+	 * logging is turned on.
+	 * 
+	 * @param context The context of the JSON Object that is being parsed
+	 */
+	private void countUnmappedKeys(ParseContext context) {
+		numUnmappedKeys = 0;
+		for (String key : context.jsonObject.keySet()) {
+			Integer index = KNOWN_KEY_INDEXES.get(key);
+			if(null != index && (context.mappedKeys & (1L << index)) != 0) {
+				continue;
+			}
+			if((context.mappedKeys & MAPPED_EXTENSIONS) != 0 && key.startsWith("_")) {
+				continue;
+			}
+
+			if(context.parseOptions.isLogging()) {
+				getLogger().warn(ERROR_KEY_WAS_NOT_MAPPED_WITH_VALUE, key, context.jsonObject.get(key));
+			}
 			numUnmappedKeys++;
 		}
 	}
@@ -295,45 +512,86 @@ public abstract class BaseJsonFeedObject {
 
 	/**
 	 * Parse extensions from the JSON feed.  Extensions are un-mapped JSON keys
-	 * that always start with an '_' underscore character.
+	 * that always start with an '_' underscore character.  The extensions are 
+	 * only decoded when they are accessed, and extensions that are not JSON 
+	 * objects (or that are dropped by the {@link ExtensionCodecs} of the parse
+	 * options) are skipped.
 	 * 
-	 * @param jsonObject The JSON Object to parse for extensions
+	 * @param context The context of the JSON Object that is being parsed
 	 */
-	protected void parseExtensions(JSONObject jsonObject) {
+	protected void parseExtensions(ParseContext context) {
+		if(!context.parseOptions.isDestructive()) {
+			for (String key : context.jsonObject.keySet()) {
+				if(key.startsWith("_")) {
+					readExtension(context, key);
+				}
+			}
+			context.mappedKeys |= MAPPED_EXTENSIONS;
+			return;
+		}
+
 		List<String> toBeRemoved = new ArrayList<String>();
 		// anything that hasn't been picked up and starts with an underscore, followed by an alpha character is by 
-		// definition an extension
-		Iterator<String> keys = jsonObject.keys();
+		// definition an extension, anything else is left to be counted as un-mapped
+		Iterator<String> keys = context.jsonObject.keys();
 		while (keys.hasNext()) {
 			String key = (String) keys.next();
 			if(key.startsWith("_")) {
-				extensions.put(key, new Extension(jsonObject.getJSONObject(key)));
+				readExtension(context, key);
+				toBeRemoved.add(key);
 			}
-			toBeRemoved.add(key);
 		}
 
 		for (String key : toBeRemoved) {
-			unmapKey(jsonObject, key);
+			mapKey(context, key);
+		}
+	}
+
+	private void readExtension(ParseContext context, String key) {
+		ExtensionCodecs extensionCodecs = context.parseOptions.getExtensionCodecs();
+		if(!extensionCodecs.isKept(key)) {
+			return;
+		}
+
+		Object value = context.jsonObject.opt(key);
+		if(value instanceof JSONObject) {
+			putExtension(intern(context, key, Field.KEY), new Extension(value, extensionCodecs.getCodec(key)));
+		} else {
+			getLogger().error(LOGGER_EXTENSION_WAS_NOT_AN_OBJECT, key, value);
 		}
 	}
 
 	/**
-	 * Un-map (i.e. remove) a key from the JSON Object
+	 * Mark a key as mapped.  When parsing destructively, the key is removed from 
+	 * the JSON Object, otherwise the key's bit is set in the bitset of mapped keys 
+	 * and the JSON Object is left untouched.
 	 * 
-	 * @param jsonObject The JSON Object to remove the key from
-	 * @param key The key to remove
+	 * @param context The context of the JSON Object that is being parsed
+	 * @param key The key that was mapped
 	 */
-	private void unmapKey(JSONObject jsonObject, String key) {
-		jsonObject.remove(key);
-		getLogger().trace(LOGGER_KEY_REMOVED_FROM_JSON_OBJECT, key);
+	private void mapKey(ParseContext context, String key) {
+		if(!context.parseOptions.isDestructive()) {
+			Integer index = KNOWN_KEY_INDEXES.get(key);
+			if(null != index) {
+				context.mappedKeys |= 1L << index;
+			}
+			return;
+		}
+
+		context.jsonObject.remove(key);
+		if(context.parseOptions.isLogging()) {
+			getLogger().trace(LOGGER_KEY_REMOVED_FROM_JSON_OBJECT, key);
+		}
 	}
 
 	/**
-	 * Get all of the extensions that are available on this JSON Feed Object
+	 * Get all of the extensions that are available on this JSON Feed Object.
+	 * An object that has no extensions returns an empty map that can not be
+	 * changed, use {@link #addExtension(String, Extension)} to add one.
 	 * 
 	 * @return the map of extensions
 	 */
-	public Map<String, Extension> getExtensions() { return extensions; }
+	public Map<String, Extension> getExtensions() { return(extensions); }
 
 	/**
 	 * Get an extension by name
@@ -350,15 +608,40 @@ public abstract class BaseJsonFeedObject {
 		return(null);
 	}
 
+	/**
+	 * Get an extension by name, decoded into a typed object by the codec that
+	 * was registered for it when it was parsed, see {@link ExtensionCodecs}
+	 * 
+	 * @param <T> The type of the object
+	 * @param name The name of the extension (which _MUST_ start with an 
+	 *     underscore character - '_')
+	 * @param type The class of the object
+	 * 
+	 * @return The typed object, or null if the extension doesn't exist, or no
+	 *     codec was registered for it
+	 */
+	public <T> T getExtension(String name, Class<T> type) {
+		Extension extension = getExtension(name);
+		if(null == extension) {
+			return(null);
+		}
+		return(extension.decode(type));
+	}
+
 	/**
 	 * Set the extensions that are going to be added to this object
 	 * 
 	 * @param extensions The map of extensions to add to this object
 	 */
-	public void setExtensions(Map<String, Extension> extensions) { this.extensions = extensions; }
+	public void setExtensions(Map<String, Extension> extensions) { this.extensions = extensions; invalidate(); }
 
 	public void addExtension(String name, Extension extension) {
-		if(null == extensions) {
+		putExtension(name, extension);
+		invalidate();
+	}
+
+	private void putExtension(String name, Extension extension) {
+		if(null == extensions || NO_EXTENSIONS == extensions) {
 			extensions = new LinkedHashMap<String, Extension>();
 		}
 
@@ -380,35 +663,427 @@ public abstract class BaseJsonFeedObject {
 	}
 
 	/**
-	 * Validate the extensions.
+	 * Write a name and value to the JSON writer, provided that the value is not
+	 * null.  The value may be a String, Boolean, Long, Date or another JSON feed
+	 * object.
+	 * 
+	 * @param jsonWriter The JSON writer to write to
+	 * @param encodedName The pre-encoded name (one of the NAME_ constants)
+	 * @param value The value to write
 	 * 
-	 * @throws ValidationException If there was an error validating the extension
+	 * @throws IOException If there was an error writing
 	 */
-	protected void validateExtensions() throws ValidationException {
-		boolean isInError = false;
-		Iterator<String> iterator = extensions.keySet().iterator();
-		while (iterator.hasNext()) {
-			String key = (String) iterator.next();
-			Extension extension = extensions.get(key);
-			try {
-				extension.validate();
-			} catch (ValidationException e) {
-				validationErrors.addAll(extension.getValidationErrors());
-				isInError = true;
+	static void writeKeyValue(JsonWriter jsonWriter, byte[] encodedName, Object value) throws IOException {
+		if(null == value) {
+			return;
+		}
+
+		jsonWriter.name(encodedName);
+		if(value instanceof BaseJsonFeedObject) {
+			((BaseJsonFeedObject)value).write(jsonWriter);
+		} else {
+			jsonWriter.value(value);
+		}
+	}
+
+	/**
+	 * Write the extensions of this object to the JSON writer, as name/value 
+	 * pairs of the object that is currently being written.
+	 * 
+	 * @param jsonWriter The JSON writer to write the extensions to
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	void writeExtensions(JsonWriter jsonWriter) throws IOException {
+		if(null == extensions) {
+			return;
+		}
+
+		Map<String, Extension> orderedExtensions = extensions;
+		if(jsonWriter.isCanonical()) {
+			orderedExtensions = new TreeMap<String, Extension>(extensions);
+		}
+
+		for (Map.Entry<String, Extension> entry : orderedExtensions.entrySet()) {
+			jsonWriter.name(entry.getKey());
+			entry.getValue().write(jsonWriter);
+		}
+	}
+
+	/**
+	 * Write this object as UTF-8 encoded JSON straight to the output stream, 
+	 * without building the intermediate JSON Objects (see {@link #toJSON()}).  
+	 * The output stream is flushed, but not closed.
+	 * 
+	 * @param outputStream The output stream to write to
+	 * 
+	 * @throws IOException If there was an error writing to the output stream
+	 */
+	public void writeTo(OutputStream outputStream) throws IOException {
+		writeTo(outputStream, false);
+	}
+
+	/**
+	 * Write this object as UTF-8 encoded JSON straight to the output stream, 
+	 * optionally caching the serialized bytes of the items, authors and 
+	 * attachments (see {@link #invalidate()}), so that writing the same feed 
+	 * again only serializes the objects that have changed.  The output stream is
+	 * flushed, but not closed.
+	 * 
+	 * @param outputStream The output stream to write to
+	 * @param cacheFragments Whether to cache (and re-use) the serialized bytes 
+	 *     of the items, authors and attachments
+	 * 
+	 * @throws IOException If there was an error writing to the output stream
+	 */
+	public void writeTo(OutputStream outputStream, boolean cacheFragments) throws IOException {
+		JsonWriter jsonWriter = new JsonWriter(outputStream, cacheFragments);
+		write(jsonWriter);
+		jsonWriter.flush();
+	}
+
+	/**
+	 * Write this object as JSON straight to the writer, without building the 
+	 * intermediate JSON Objects (see {@link #toJSON()}).  The writer is flushed,
+	 * but not closed.
+	 * 
+	 * @param writer The writer to write to
+	 * 
+	 * @throws IOException If there was an error writing to the writer
+	 */
+	public void writeTo(Writer writer) throws IOException {
+		writeTo(writer, false);
+	}
+
+	/**
+	 * Write this object as JSON straight to the writer, optionally caching the
+	 * serialized bytes of the items, authors and attachments - see 
+	 * {@link #writeTo(OutputStream, boolean)}.  The writer is flushed, but not 
+	 * closed.
+	 * 
+	 * @param writer The writer to write to
+	 * @param cacheFragments Whether to cache (and re-use) the serialized bytes 
+	 *     of the items, authors and attachments
+	 * 
+	 * @throws IOException If there was an error writing to the writer
+	 */
+	public void writeTo(Writer writer, boolean cacheFragments) throws IOException {
+		JsonWriter jsonWriter = new JsonWriter(writer, cacheFragments);
+		write(jsonWriter);
+		jsonWriter.flush();
+	}
+
+	/**
+	 * Write this object to the JSON writer.  If the writer is caching fragments
+	 * and this object can be cached, then the cached bytes are written (and 
+	 * are serialized first if they are not valid).
+	 * 
+	 * @param jsonWriter The JSON writer to write to
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	final void write(JsonWriter jsonWriter) throws IOException {
+		if(!jsonWriter.isCachingFragments() || !isFragmentCacheable()) {
+			writeJSON(jsonWriter);
+			return;
+		}
+
+		Fragment cachedFragment = fragment;
+		if(null == cachedFragment || !Arrays.equals(cachedFragment.childModCounts, getChildModCounts())) {
+			int[] childModCounts = getChildModCounts();
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			JsonWriter fragmentWriter = new JsonWriter(outputStream, true);
+			writeJSON(fragmentWriter);
+			fragmentWriter.flush();
+			cachedFragment = new Fragment(outputStream.toByteArray(), childModCounts);
+			fragment = cachedFragment;
+		}
+
+		jsonWriter.rawValue(cachedFragment.bytes, 0, cachedFragment.bytes.length);
+	}
+
+	/**
+	 * Write the canonical form of this object as UTF-8 encoded JSON to the 
+	 * output stream.  The canonical form is always the same for the same 
+	 * content: the fields are written in a fixed order, the keys of the 
+	 * extensions (and of any objects within them) are sorted, dates are written
+	 * in UTC and absent fields are omitted - so the same feed parsed from 
+	 * differently ordered (or formatted) JSON is written as the same bytes.  
+	 * The output stream is flushed, but not closed.
+	 * 
+	 * @param outputStream The output stream to write to
+	 * 
+	 * @throws IOException If there was an error writing to the output stream
+	 */
+	public void writeCanonicalTo(OutputStream outputStream) throws IOException {
+		JsonWriter jsonWriter = JsonWriter.canonical(outputStream);
+		writeJSON(jsonWriter);
+		jsonWriter.flush();
+	}
+
+	/**
+	 * Get the 64 bit fingerprint of the content of this object, which is the 
+	 * xxHash64 of its canonical form (see {@link #writeCanonicalTo(OutputStream)}).
+	 * Two objects with the same content have the same fingerprint, so this can 
+	 * be used to detect which items of a feed have changed.
+	 * 
+	 * The fingerprints of items, authors and attachments are cached until they 
+	 * are changed (see {@link #invalidate()}), other objects are hashed every 
+	 * time.
+	 * 
+	 * @return The fingerprint of this object
+	 */
+	public long getFingerprint() {
+		if(!isFragmentCacheable()) {
+			return(computeFingerprint());
+		}
+
+		int[] childModCounts = getChildModCounts();
+		Fingerprint cachedFingerprint = fingerprint;
+		if(null == cachedFingerprint || !Arrays.equals(cachedFingerprint.childModCounts, childModCounts)) {
+			cachedFingerprint = new Fingerprint(computeFingerprint(), childModCounts);
+			fingerprint = cachedFingerprint;
+		}
+		return(cachedFingerprint.value);
+	}
+
+	/**
+	 * Compute the fingerprint of this object by hashing its canonical form
+	 * 
+	 * @return The fingerprint
+	 */
+	long computeFingerprint() {
+		XxHash64 xxHash64 = new XxHash64();
+		try {
+			writeCanonicalTo(xxHash64);
+		} catch (IOException ex) {
+			// the hash never throws an IOException
+			throw new UncheckedIOException(ex);
+		}
+		return(xxHash64.getValue());
+	}
+
+	/**
+	 * Invalidate the cached serialized bytes (and fingerprint) of this object, 
+	 * so that they will be serialized again the next time that they are 
+	 * written.  This is called by all of the setters, but must be called if any
+	 * of the lists (or the extensions) of this object are changed directly.
+	 */
+	public void invalidate() {
+		fragment = null;
+		fingerprint = null;
+		modCount++;
+	}
+
+	/**
+	 * Whether the serialized bytes of this object can be cached - only the 
+	 * items, authors and attachments are cached.
+	 * 
+	 * @return true if the serialized bytes can be cached
+	 */
+	boolean isFragmentCacheable() { return(false); }
+
+	/**
+	 * Whether the cached serialized bytes of this object are valid, i.e. they 
+	 * have been cached and none of the contained objects have changed since.
+	 * 
+	 * @return true if the cached bytes are valid
+	 */
+	boolean isFragmentValid() {
+		Fragment cachedFragment = fragment;
+		return(null != cachedFragment && Arrays.equals(cachedFragment.childModCounts, getChildModCounts()));
+	}
+
+	/**
+	 * Get the modification counts of the cacheable objects that this object 
+	 * contains (e.g. the author and attachments of an item), which are recorded
+	 * when the serialized bytes (or fingerprint) are cached so that a change to
+	 * any of them can be detected.
+	 * 
+	 * @return The modification counts of the contained objects
+	 */
+	int[] getChildModCounts() {
+		if(null == extensions || extensions.isEmpty()) {
+			return(NO_CHILD_MOD_COUNTS);
+		}
+		return(new int[] { getExtensionsModCount() });
+	}
+
+	/**
+	 * Get the total of the modification counts of the extensions of this 
+	 * object, which changes whenever any one of them is changed (as the counts
+	 * only ever increase)
+	 * 
+	 * @return The total of the modification counts of the extensions
+	 */
+	int getExtensionsModCount() {
+		int extensionsModCount = 0;
+		if(null != extensions) {
+			for (Extension extension : extensions.values()) {
+				if(null != extension) {
+					extensionsModCount += extension.getModCount();
+				}
+			}
+		}
+		return(extensionsModCount);
+	}
+
+	/**
+	 * Get the modification count of this object, including the changes to its 
+	 * extensions - which is what an object that contains this one records
+	 * 
+	 * @return The modification count of this object and its extensions
+	 */
+	int getDeepModCount() { return(modCount + getExtensionsModCount()); }
+
+	/**
+	 * Get the number of times that this object has been modified (invalidated)
+	 * 
+	 * @return The modification count
+	 */
+	int getModCount() { return(modCount); }
+
+	/**
+	 * Validate this object, and all of the objects that it contains, collecting
+	 * all of the errors (see {@link #getValidationErrors()}), each of which is 
+	 * logged.  This is a convenience wrapper around 
+	 * {@link #validate(ValidationOptions)}, which should be used when 
+	 * validating in bulk as it neither logs nor throws.
+	 * 
+	 * @throws ValidationException If this object (or any of the objects that it
+	 *     contains) was not valid
+	 */
+	public void validate() throws ValidationException {
+		validationErrors = null;
+
+		ValidationReport report = validate(ValidationOptions.DEFAULT);
+		if(report.isValid()) {
+			return;
+		}
+
+		for (ValidationError validationError : report.getErrors()) {
+			addValidationErrorAndLog(validationError.toString());
+		}
+		throw new ValidationException(String.format(ERROR_COULD_NOT_VALIDATE, getClass().getSimpleName(), report.getNumErrors()));
+	}
+
+	/**
+	 * Validate this object, and all of the objects that it contains, returning
+	 * the errors that were found (with the path to each of them).  Nothing is 
+	 * logged or thrown, and the cost of an error is only the building of its 
+	 * path - so this is suitable for validating untrusted feeds in bulk.
+	 * 
+	 * @param validationOptions The options that control the validation, e.g. 
+	 *     the maximum number of errors to collect, or to fail fast
+	 * 
+	 * @return The report of the errors that were found
+	 */
+	public ValidationReport validate(ValidationOptions validationOptions) {
+		ValidationReport report = new ValidationReport(validationOptions);
+		validate(report);
+		return(report);
+	}
+
+	/**
+	 * Get the report of validating this object as it was parsed (see 
+	 * {@link ParseOptions#withValidation(ValidationOptions)}), the report of the
+	 * feed includes the errors of all of its items.
+	 * 
+	 * @return The report, or null if this object was not validated as it was 
+	 *     parsed
+	 */
+	public ValidationReport getValidationReport() { return(validationReport); }
+
+	void setValidationReport(ValidationReport validationReport) { this.validationReport = validationReport; }
+
+	/**
+	 * Validate that the required object is not null, adding an error to the 
+	 * report if it is.
+	 * 
+	 * @param report The report to add the error to
+	 * @param object The object to evaluate
+	 * @param key The key of the object
+	 * 
+	 * @return false if validation should stop
+	 */
+	static boolean validateRequired(ValidationReport report, Object object, String key) {
+		if(null == object) {
+			return(report.error(key, VALIDATION_ERROR_MUST_NOT_BE_NULL));
+		}
+		return(true);
+	}
+
+	/**
+	 * Validate a child object, adding any errors to the report under the key
+	 * 
+	 * @param report The report to add the errors to
+	 * @param child The child object to validate
+	 * @param key The key of the child object
+	 * 
+	 * @return false if validation should stop
+	 */
+	static boolean validateChild(ValidationReport report, BaseJsonFeedObject child, String key) {
+		report.enter(key);
+		child.validate(report);
+		report.exit();
+		return(!report.isStopped());
+	}
+
+	/**
+	 * Validate a list of child objects, adding any errors to the report under 
+	 * the key and the index of the child
+	 * 
+	 * @param report The report to add the errors to
+	 * @param children The child objects to validate
+	 * @param key The key of the list of child objects
+	 * 
+	 * @return false if validation should stop
+	 */
+	static boolean validateChildren(ValidationReport report, List<? extends BaseJsonFeedObject> children, String key) {
+		int index = 0;
+		for (BaseJsonFeedObject child : children) {
+			report.enter(key, index++);
+			child.validate(report);
+			report.exit();
+			if(report.isStopped()) {
+				return(false);
 			}
 		}
+		return(true);
+	}
+
+	/**
+	 * Validate the extensions, adding any errors to the report under the key of
+	 * each extension
+	 * 
+	 * @param report The report to add the errors to
+	 * 
+	 * @return false if validation should stop
+	 */
+	boolean validateExtensions(ValidationReport report) {
+		if(null == extensions) {
+			return(true);
+		}
 
-		if(isInError) {
-			throw new ValidationException("Could not validate extensions");
+		for (Map.Entry<String, Extension> entry : extensions.entrySet()) {
+			if(!validateChild(report, entry.getValue(), entry.getKey())) {
+				return(false);
+			}
 		}
+		return(true);
 	}
-	
+
 	/**
 	 * Get the list of validation errors
 	 * 
 	 * @return The list of validation errors
 	 */
-	public List<String> getValidationErrors() { return(validationErrors); }
+	public List<String> getValidationErrors() {
+		if(null == validationErrors) {
+			return(Collections.emptyList());
+		}
+		return(validationErrors);
+	}
 
 	/**
 	 * Return the number of un-mapped keys found.  Un-mapped keys are keys that 
@@ -417,26 +1092,19 @@ public abstract class BaseJsonFeedObject {
 	 * @return The number of un-mapped keys
 	 */
 	public int getUnMappedKeys() { return numUnmappedKeys; }
-	
+
 	/**
-	 * Validate that the required object is not null.  If it is null, add it to 
-	 * the validation error list.
-	 *  
-	 * @param object The object to evaluate 
-	 * @param key The key that was looked up
+	 * Set the number of un-mapped keys, this is used by the {@link FeedParser} 
+	 * which counts the keys as it streams through the JSON.
 	 * 
-	 * @return true if this is required and is null, false if not null
+	 * @param numUnmappedKeys The number of un-mapped keys
 	 */
-	protected boolean validateRequiredInError(Object object, String key) {
-		if(null == object) {
-			addValidationErrorAndLog(String.format(LOGGER_KEY_MUST_NOT_BE_NULL, getLogger().getName(), key));
-			return(true);
-		}
-
-		return(false);
-	}
+	void setUnMappedKeys(int numUnmappedKeys) { this.numUnmappedKeys = numUnmappedKeys; }
 	
 	protected void addValidationErrorAndLog(String validationError) {
+		if(null == validationErrors) {
+			validationErrors = new ArrayList<String>();
+		}
 		validationErrors.add(validationError);
 		getLogger().error(validationError);
 	}
@@ -0,0 +1,144 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reader that decodes UTF-8 straight out of a byte buffer (heap, direct or 
+ * mapped) into the caller's character array, so the bytes are never copied 
+ * into an intermediate array or string.  The passed in buffer is duplicated, so
+ * its position and limit are not changed.
+ * 
+ * Sub-classes may supply the input as a sequence of buffers (for example, 
+ * windows onto a memory mapped file) by overriding {@link #isLastBuffer()} and
+ * {@link #nextBuffer(ByteBuffer)}.
+ * 
+ * Malformed input is replaced with the replacement character, in the same way
+ * as an InputStreamReader.
+ * 
+ * @author synapticloop
+ */
+class ByteBufferReader extends Reader {
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private ByteBuffer buffer;
+	// a character that has been decoded, but did not fit into the caller's array 
+	// (i.e. the low surrogate of a pair when only one character was asked for)
+	private final CharBuffer pending = CharBuffer.allocate(2);
+	private boolean endOfInput = false;
+	private boolean flushed = false;
+
+	/**
+	 * Create a new reader over the remaining bytes of the buffer
+	 * 
+	 * @param buffer The buffer to decode
+	 */
+	ByteBufferReader(ByteBuffer buffer) {
+		this.buffer = buffer.duplicate();
+		this.pending.flip();
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		if(len == 0) {
+			return(0);
+		}
+
+		CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+		while(pending.hasRemaining() && out.hasRemaining()) {
+			out.put(pending.get());
+		}
+
+		decode(out);
+
+		if(out.position() == off && !flushed) {
+			// there wasn't enough room for a surrogate pair, decode it into the 
+			// pending buffer and hand it out one character at a time
+			pending.clear();
+			decode(pending);
+			pending.flip();
+			if(pending.hasRemaining()) {
+				out.put(pending.get());
+			}
+		}
+
+		int numRead = out.position() - off;
+		return(numRead == 0 && flushed ? -1 : numRead);
+	}
+
+	private void decode(CharBuffer out) throws IOException {
+		while(!endOfInput) {
+			boolean lastBuffer = isLastBuffer();
+			if(!decoder.decode(buffer, out, lastBuffer).isUnderflow()) {
+				// there is no more room in the output
+				break;
+			}
+
+			if(lastBuffer) {
+				endOfInput = true;
+			} else {
+				buffer = nextBuffer(buffer);
+			}
+		}
+
+		if(endOfInput && !flushed && decoder.flush(out).isUnderflow()) {
+			flushed = true;
+		}
+	}
+
+	/**
+	 * Whether the current buffer is the last buffer of the input
+	 * 
+	 * @return true if there are no more buffers after the current one
+	 */
+	protected boolean isLastBuffer() {
+		return(true);
+	}
+
+	/**
+	 * Get the next buffer of the input, this is called once all of the complete
+	 * characters in the current buffer have been decoded.  Any bytes remaining 
+	 * in the current buffer (i.e. the start of a multi-byte character that is 
+	 * split across the buffers) must be at the start of the next buffer.
+	 * 
+	 * @param current The current buffer, positioned after the last byte that 
+	 *     was decoded
+	 * 
+	 * @return The next buffer
+	 * 
+	 * @throws IOException If the next buffer could not be read
+	 */
+	protected ByteBuffer nextBuffer(ByteBuffer current) throws IOException {
+		throw new IllegalStateException("There are no more buffers");
+	}
+
+	@Override
+	public void close() throws IOException {
+		buffer = null;
+		endOfInput = true;
+		flushed = true;
+	}
+}
@@ -0,0 +1,123 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A read-only source of bytes that can be addressed with a long offset - 
+ * either a single byte buffer, or a file that has been memory mapped as a 
+ * number of windows (as a single mapping is limited to 2GB).  Once mapped, the
+ * windows do not depend on the file channel, which may be closed.
+ * 
+ * @author synapticloop
+ */
+final class ByteSource {
+	/** The default size of each of the mapped windows (1GB) */
+	static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+	private final ByteBuffer[] windows;
+	private final int windowSize;
+	private final long size;
+
+	/**
+	 * Create a new byte source over the remaining bytes of the buffer, the 
+	 * position and limit of the buffer are not changed.
+	 * 
+	 * @param byteBuffer The buffer to read the bytes from
+	 */
+	ByteSource(ByteBuffer byteBuffer) {
+		this(new ByteBuffer[] { byteBuffer.slice() }, Integer.MAX_VALUE, byteBuffer.remaining());
+	}
+
+	private ByteSource(ByteBuffer[] windows, int windowSize, long size) {
+		this.windows = windows;
+		this.windowSize = windowSize;
+		this.size = size;
+	}
+
+	/**
+	 * Memory map the whole of a file, a window at a time
+	 * 
+	 * @param fileChannel The channel of the file to map
+	 * @param windowSize The size of each of the windows
+	 * 
+	 * @return The byte source for the file
+	 * 
+	 * @throws IOException If the file could not be mapped
+	 */
+	static ByteSource map(FileChannel fileChannel, int windowSize) throws IOException {
+		long size = fileChannel.size();
+		ByteBuffer[] windows = new ByteBuffer[(int)((size + windowSize - 1) / windowSize)];
+		for(int i = 0; i < windows.length; i++) {
+			long start = (long)i * windowSize;
+			windows[i] = fileChannel.map(MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+		}
+		return(new ByteSource(windows, windowSize, size));
+	}
+
+	long size() { return(size); }
+
+	int getWindowSize() { return(windowSize); }
+
+	/**
+	 * Get one of the windows - the returned buffer must not be modified (i.e. 
+	 * only the absolute get methods may be used).
+	 * 
+	 * @param index The index of the window
+	 * 
+	 * @return The window
+	 */
+	ByteBuffer getWindow(int index) { return(windows[index]); }
+
+	/**
+	 * Get a buffer over the bytes from start (inclusive) to end (exclusive).  If
+	 * all of the bytes are within one window, then the buffer shares the bytes
+	 * of the window, otherwise they are copied into a new buffer.
+	 * 
+	 * @param start The offset of the first byte
+	 * @param end The offset after the last byte
+	 * 
+	 * @return The buffer, positioned at the first byte
+	 */
+	ByteBuffer slice(long start, long end) {
+		int startWindow = (int)(start / windowSize);
+		int startOffset = (int)(start % windowSize);
+		if(end - start <= windowSize - startOffset) {
+			ByteBuffer slice = windows[startWindow].duplicate();
+			slice.limit(startOffset + (int)(end - start)).position(startOffset);
+			return(slice);
+		}
+
+		// the bytes span more than one window
+		ByteBuffer copy = ByteBuffer.allocate((int)(end - start));
+		long position = start;
+		while(position < end) {
+			ByteBuffer window = windows[(int)(position / windowSize)].duplicate();
+			int offset = (int)(position % windowSize);
+			int length = (int)Math.min(window.limit() - offset, end - position);
+			window.limit(offset + length).position(offset);
+			copy.put(window);
+			position += length;
+		}
+		copy.flip();
+		return(copy);
+	}
+}
@@ -16,43 +16,143 @@ package synapticloop.jsonfeed;
  * this source code or binaries.
  */
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-import synapticloop.jsonfeed.exception.ValidationException;
-
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * A custom object that can appear anywhere in a feed, held as the map of its 
+ * keys and values.  Extensions that are parsed from a feed are only decoded 
+ * the first time that they are accessed - until then they are held as the 
+ * JSON text (or the JSON Object) that they were parsed from, which is what 
+ * is written out (unless it is written canonically).  An extension 
+ * with a registered {@link ExtensionCodec} can also be decoded (once) into a
+ * typed object, see {@link #decode(Class)}.
+ * 
+ * @author synapticloop
+ */
 public class Extension extends BaseJsonFeedObject {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Extension.class);
 
-	private static final String VALIDATION_ERROR_KEY_MUST_NOT_START_WITH_AN_UNDERSCORE_CHARACTER = "[%s] key '%s' _MUST_NOT_ start with an underscore character '_'";
-	private static final String VALIDATION_ERROR_KEY_MUST_NOT_CONTAIN_A_FULL_STOP_CHARACTER = "[%s] key '%s' _MUST_NOT_ contain a full-stop character '.'";
-	private static final String VALIDATION_ERROR_KEYS_WERE_NOT_CORRECTLY_NAMED = "[%s] Keys were not correctly named";
+	private static final String VALIDATION_ERROR_KEY_MUST_NOT_START_WITH_AN_UNDERSCORE_CHARACTER = "_MUST_NOT_ start with an underscore character '_'";
+	private static final String VALIDATION_ERROR_KEY_MUST_NOT_CONTAIN_A_FULL_STOP_CHARACTER = "_MUST_NOT_ contain a full-stop character '.'";
 
-	private Map<String, Object> keyValues = new LinkedHashMap<String, Object>();
+	// the keys and values, or null if they have not been decoded from the source yet
+	private volatile Map<String, Object> keyValues = null;
+	// the JSON text, or JSON Object, that the extension has not been decoded from yet
+	private Object source = null;
+	// the codec for the typed object, and the typed object once it has been decoded
+	private final ExtensionCodec<?> codec;
+	private volatile Object decoded = null;
 
 	public Extension(Map<String, Object> keyValues) {
 		this.keyValues = keyValues;
+		this.codec = null;
 	}
 
 	public Extension(JSONObject jsonObject) {
+		this.keyValues = toMap(jsonObject);
+		this.codec = null;
+	}
+
+	/**
+	 * Create a new extension that is only decoded when it is first accessed
+	 * 
+	 * @param source The JSON text (a String) or the JSON Object of the extension
+	 * @param codec The codec to decode the typed object with, or null if there
+	 *     is none
+	 */
+	Extension(Object source, ExtensionCodec<?> codec) {
+		this.source = source;
+		this.codec = codec;
+	}
+
+	private static Map<String, Object> toMap(JSONObject jsonObject) {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
 		Iterator<String> keys = jsonObject.keys();
 		while (keys.hasNext()) {
 			String key = (String) keys.next();
-			keyValues.put(key, jsonObject.get(key));
+			map.put(key, jsonObject.get(key));
 		}
+		return(map);
 	}
 
+	private Map<String, Object> keyValues() {
+		Map<String, Object> map = keyValues;
+		if(null == map && null != source) {
+			synchronized(this) {
+				map = keyValues;
+				if(null == map) {
+					map = toMap(sourceObject());
+					keyValues = map;
+					source = null;
+				}
+			}
+		}
+		return(map);
+	}
+
+	private JSONObject sourceObject() {
+		if(source instanceof JSONObject) {
+			return((JSONObject)source);
+		}
+		return(new JSONObject((String)source));
+	}
+
+	/**
+	 * Return whether the keys and values of this extension have been decoded
+	 * 
+	 * @return whether the keys and values have been decoded
+	 */
+	boolean isDecoded() { return(null != keyValues || null == source); }
+
 	public void addKeyValue(String key, Object value) {
-		keyValues.put(key, value);
+		keyValues().put(key, value);
+		decoded = null;
+		// the object that holds this extension sees the change in the mod count
+		invalidate();
 	}
 
 	public Object getValue(String key) {
-		return(keyValues.get(key));
+		return(keyValues().get(key));
+	}
+
+	/**
+	 * Decode this extension into a typed object with the codec that was 
+	 * registered for it when it was parsed, the typed object is only decoded
+	 * once.  Changes to the typed object are not written back to the extension.
+	 * 
+	 * @param <T> The type of the object
+	 * @param type The class of the object
+	 * 
+	 * @return the typed object, or null if no codec was registered for this 
+	 *     extension
+	 * 
+	 * @throws ClassCastException if the codec does not decode to the type
+	 */
+	public <T> T decode(Class<T> type) {
+		if(null == codec) {
+			return(null);
+		}
+
+		Object object = decoded;
+		if(null == object) {
+			synchronized(this) {
+				object = decoded;
+				if(null == object) {
+					Map<String, Object> map = keyValues;
+					object = codec.decode(null == map ? sourceObject() : new JSONObject(map));
+					decoded = object;
+				}
+			}
+		}
+		return(type.cast(object));
 	}
 
 	@Override
@@ -63,34 +163,49 @@ public class Extension extends BaseJsonFeedObject {
 	@Override
 	public JSONObject toJSON() {
 		JSONObject jsonObject = new JSONObject();
-		Iterator<String> keys = keyValues.keySet().iterator();
+		Map<String, Object> map = keyValues();
+		Iterator<String> keys = map.keySet().iterator();
 		while (keys.hasNext()) {
 			String key = (String) keys.next();
-			jsonObject.put(key, keyValues.get(key));
+			jsonObject.put(key, map.get(key));
 		}
 		return(jsonObject);
 	}
 
 	@Override
-	public void validate() throws ValidationException {
-		validationErrors.clear();
-		boolean isInError = false;
-		Iterator<String> iterator = keyValues.keySet().iterator();
-		while (iterator.hasNext()) {
-			String key = (String) iterator.next();
-			if(key.startsWith("_")) {
-				addValidationErrorAndLog(String.format(VALIDATION_ERROR_KEY_MUST_NOT_START_WITH_AN_UNDERSCORE_CHARACTER, LOGGER.getName(), key));
-				isInError = true;
+	void writeJSON(JsonWriter jsonWriter) throws IOException {
+		// an extension that has not been decoded is written from its source, 
+		// unless the keys need to be sorted for a canonical writer
+		Map<String, Object> map = keyValues;
+		Object raw = source;
+		if(null == map && !jsonWriter.isCanonical()) {
+			if(raw instanceof String) {
+				byte[] bytes = ((String)raw).getBytes(StandardCharsets.UTF_8);
+				jsonWriter.rawValue(bytes, 0, bytes.length);
+				return;
+			} else if(raw instanceof JSONObject) {
+				jsonWriter.value(raw);
+				return;
 			}
+		}
+		jsonWriter.value(keyValues());
+	}
 
-			if(key.contains(".")) {
-				addValidationErrorAndLog(String.format(VALIDATION_ERROR_KEY_MUST_NOT_CONTAIN_A_FULL_STOP_CHARACTER, LOGGER.getName(), key));
-				isInError = true;
-			}
+	@Override
+	void validate(ValidationReport report) {
+		Map<String, Object> map = keyValues();
+		if(null == map) {
+			return;
 		}
 
-		if(isInError) {
-			throw new ValidationException(String.format(VALIDATION_ERROR_KEYS_WERE_NOT_CORRECTLY_NAMED, LOGGER.getName()));
+		for (String key : map.keySet()) {
+			if(key.startsWith("_") && !report.error(key, VALIDATION_ERROR_KEY_MUST_NOT_START_WITH_AN_UNDERSCORE_CHARACTER)) {
+				return;
+			}
+
+			if(key.contains(".") && !report.error(key, VALIDATION_ERROR_KEY_MUST_NOT_CONTAIN_A_FULL_STOP_CHARACTER)) {
+				return;
+			}
 		}
 	}
 
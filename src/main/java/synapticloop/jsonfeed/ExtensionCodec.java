@@ -0,0 +1,42 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import org.json.JSONObject;
+
+/**
+ * Decodes an extension (e.g. <code>_itunes</code>) into a typed object.  A
+ * codec is registered against the name of the extension with 
+ * {@link ExtensionCodecs#with(String, ExtensionCodec)}, and the extension is
+ * only decoded the first time that it is asked for, see
+ * {@link BaseJsonFeedObject#getExtension(String, Class)}.
+ * 
+ * @param <T> The type that the extension is decoded into
+ * 
+ * @author synapticloop
+ */
+@FunctionalInterface
+public interface ExtensionCodec<T> {
+	/**
+	 * Decode the extension
+	 * 
+	 * @param jsonObject The JSON Object of the extension
+	 * 
+	 * @return the decoded extension
+	 */
+	T decode(JSONObject jsonObject);
+}
@@ -0,0 +1,93 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The registry of the codecs that decode extensions into typed objects, keyed
+ * on the name of the extension.  The registry is immutable, each of the 
+ * <code>with</code> methods returns a new registry, so that it can be safely
+ * shared between threads (as part of the {@link ParseOptions}).
+ * 
+ * Extensions that do not have a registered codec are kept (and can be read as
+ * an {@link Extension}) by default, or they can be dropped when they are 
+ * parsed, which saves both the time to copy them and the memory to hold them.
+ * 
+ * @author synapticloop
+ */
+public class ExtensionCodecs {
+	/** No codecs, with all extensions kept, which is how extensions have always been parsed */
+	public static final ExtensionCodecs NONE = new ExtensionCodecs(Collections.<String, ExtensionCodec<?>>emptyMap(), true);
+
+	private final Map<String, ExtensionCodec<?>> codecs;
+	private final boolean keepUnregistered;
+
+	private ExtensionCodecs(Map<String, ExtensionCodec<?>> codecs, boolean keepUnregistered) {
+		this.codecs = codecs;
+		this.keepUnregistered = keepUnregistered;
+	}
+
+	/**
+	 * Return a copy of this registry with the codec registered for the 
+	 * extension
+	 * 
+	 * @param name The name of the extension (which starts with an underscore 
+	 *     character - '_')
+	 * @param codec The codec to decode the extension with
+	 * 
+	 * @return the new registry
+	 */
+	public ExtensionCodecs with(String name, ExtensionCodec<?> codec) {
+		Map<String, ExtensionCodec<?>> newCodecs = new HashMap<String, ExtensionCodec<?>>(codecs);
+		newCodecs.put(name, codec);
+		return(new ExtensionCodecs(Collections.unmodifiableMap(newCodecs), keepUnregistered));
+	}
+
+	/**
+	 * Return a copy of this registry that keeps (or drops) the extensions that
+	 * do not have a registered codec
+	 * 
+	 * @param keepUnregistered Whether to keep the extensions that do not have a
+	 *     registered codec
+	 * 
+	 * @return the new registry
+	 */
+	public ExtensionCodecs withKeepUnregistered(boolean keepUnregistered) {
+		return(new ExtensionCodecs(codecs, keepUnregistered));
+	}
+
+	/**
+	 * Get the codec for an extension
+	 * 
+	 * @param name The name of the extension
+	 * 
+	 * @return the codec, or null if none is registered
+	 */
+	public ExtensionCodec<?> getCodec(String name) { return(codecs.get(name)); }
+
+	/**
+	 * Return whether an extension is kept when it is parsed
+	 * 
+	 * @param name The name of the extension
+	 * 
+	 * @return whether the extension is kept
+	 */
+	public boolean isKept(String name) { return(keepUnregistered || codecs.containsKey(name)); }
+}
@@ -16,10 +16,20 @@ package synapticloop.jsonfeed;
  * this source code or binaries.
  */
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import synapticloop.jsonfeed.exception.ValidationException;
+import synapticloop.jsonfeed.SymbolTable.Field;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -34,6 +44,7 @@ import org.slf4j.LoggerFactory;
  */
 public class Feed extends BaseJsonFeedObject {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Feed.class);
+	private static final String FORMAT_ETAG = "\"%016x\"";
 
 	// version (required, string) is the URL of the version of the format the feed uses. This should appear at the very 
 	// top, though we recognize that not all JSON generators allow for ordering.
@@ -122,27 +133,201 @@ public class Feed extends BaseJsonFeedObject {
 	}
 
 	public Feed(JSONObject jsonObject) {
-		this.version = readString(jsonObject, KEY_VERSION);
-		this.title = readString(jsonObject, KEY_TITLE);
-		this.homePageUrl = readString(jsonObject, KEY_HOME_PAGE_URL);
-		this.feedUrl = readString(jsonObject, KEY_FEED_URL);
-		this.description = readString(jsonObject, KEY_DESCRIPTION);
-		this.userComment = readString(jsonObject, KEY_USER_COMMENT);
-		this.nextUrl = readString(jsonObject, KEY_NEXT_URL);
-		this.icon = readString(jsonObject, KEY_ICON);
-		this.favicon = readString(jsonObject, KEY_FAVICON);
-		this.expired = readBoolean(jsonObject, KEY_EXPIRED);
-		this.items = readObjectArray(jsonObject, KEY_ITEMS, Item.class);
-		this.hubs = readObjectArray(jsonObject, KEY_HUBS, Hub.class);
-
-		JSONObject tempAuthorObject = readObject(jsonObject, KEY_AUTHOR);
+		this(jsonObject, ParseOptions.DEFAULT);
+	}
+
+	/**
+	 * Create a new feed from a JSON Object with the passed in parse options
+	 * 
+	 * @param jsonObject The JSON Object to parse
+	 * @param parseOptions The options to parse with
+	 * 
+	 * @see ParseOptions
+	 */
+	public Feed(JSONObject jsonObject, ParseOptions parseOptions) {
+		ParseContext context = startParse(jsonObject, parseOptions);
+		this.version = readString(context, KEY_VERSION, Field.VERSION);
+		this.title = readString(context, KEY_TITLE);
+		this.homePageUrl = readString(context, KEY_HOME_PAGE_URL);
+		this.feedUrl = readString(context, KEY_FEED_URL);
+		this.description = readString(context, KEY_DESCRIPTION);
+		this.userComment = readString(context, KEY_USER_COMMENT);
+		this.nextUrl = readString(context, KEY_NEXT_URL);
+		this.icon = readString(context, KEY_ICON);
+		this.favicon = readString(context, KEY_FAVICON);
+		this.expired = readBoolean(context, KEY_EXPIRED);
+		this.items = readObjectArray(context, KEY_ITEMS, Item::new);
+		this.hubs = readObjectArray(context, KEY_HUBS, Hub::new);
+
+		JSONObject tempAuthorObject = readObject(context, KEY_AUTHOR);
 		if(null != tempAuthorObject) {
-			this.author = new Author(tempAuthorObject);
+			this.author = new Author(tempAuthorObject, parseOptions);
+		}
+
+
+		parseExtensions(context);
+		warnOnMissingKeys(context);
+
+		if(parseOptions.isValidating()) {
+			InlineValidator inlineValidator = new InlineValidator(parseOptions);
+			List<Item> validatedItems = new ArrayList<Item>(items.size());
+			for (Item item : items) {
+				Item validatedItem = inlineValidator.item(item);
+				if(null != validatedItem) {
+					validatedItems.add(validatedItem);
+				}
+			}
+			this.items = validatedItems;
+			inlineValidator.feed(this);
 		}
+	}
+
+	/**
+	 * Parse a feed directly from a character stream, without building an 
+	 * intermediate JSON Object - see {@link FeedParser}.
+	 * 
+	 * @param reader The reader to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error reading from the reader
+	 */
+	public static Feed parse(Reader reader) throws IOException {
+		return(new FeedParser().parse(reader));
+	}
 
+	/**
+	 * Parse a feed directly from a UTF-8 encoded input stream - see 
+	 * {@link FeedParser#parse(InputStream)}.
+	 * 
+	 * @param inputStream The input stream to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error reading from the input stream
+	 */
+	public static Feed parse(InputStream inputStream) throws IOException {
+		return(new FeedParser().parse(inputStream));
+	}
 
-		parseExtensions(jsonObject);
-		warnOnMissingKeys(jsonObject);
+	/**
+	 * Parse a feed directly from a UTF-8 encoded channel - see 
+	 * {@link FeedParser#parse(ReadableByteChannel)}.
+	 * 
+	 * @param channel The channel to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error reading from the channel
+	 */
+	public static Feed parse(ReadableByteChannel channel) throws IOException {
+		return(new FeedParser().parse(channel));
+	}
+
+	/**
+	 * Parse a feed directly from a UTF-8 encoded byte buffer - see 
+	 * {@link FeedParser#parse(ByteBuffer)}.
+	 * 
+	 * @param byteBuffer The buffer to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error decoding the buffer
+	 */
+	public static Feed parse(ByteBuffer byteBuffer) throws IOException {
+		return(new FeedParser().parse(byteBuffer));
+	}
+
+	/**
+	 * Parse a feed directly from a UTF-8 encoded file, which is memory mapped - 
+	 * see {@link FeedParser#parse(Path)}.
+	 * 
+	 * @param path The path of the file to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error mapping or reading the file
+	 */
+	public static Feed parse(Path path) throws IOException {
+		return(new FeedParser().parse(path));
+	}
+
+	/**
+	 * Parse a feed lazily from a UTF-8 encoded byte buffer, the items are only 
+	 * decoded when they are accessed - see {@link FeedParser#parseLazy(ByteBuffer)}.
+	 * 
+	 * @param byteBuffer The buffer to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error decoding the buffer
+	 */
+	public static Feed parseLazy(ByteBuffer byteBuffer) throws IOException {
+		return(new FeedParser().parseLazy(byteBuffer));
+	}
+
+	/**
+	 * Parse a feed lazily from a UTF-8 encoded file, the items are only decoded
+	 * when they are accessed - see {@link FeedParser#parseLazy(Path)}.
+	 * 
+	 * @param path The path of the file to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error mapping or reading the file
+	 */
+	public static Feed parseLazy(Path path) throws IOException {
+		return(new FeedParser().parseLazy(path));
+	}
+
+	/**
+	 * Create an unmodifiable copy of this feed with the same fields and the 
+	 * passed in items - the hubs and extensions are copied into collections 
+	 * that can not be changed (the author, hubs and extensions themselves are 
+	 * shared, not copied)
+	 * 
+	 * @param items The items of the copy
+	 * 
+	 * @return the copy of this feed
+	 */
+	Feed copy(List<Item> items) {
+		return(copy(items, true));
+	}
+
+	/**
+	 * Create a copy of this feed with the same fields and the passed in items,
+	 * with its own (modifiable) copies of the hubs and extensions
+	 * 
+	 * @param items The items of the copy
+	 * 
+	 * @return the copy of this feed
+	 */
+	Feed mutableCopy(List<Item> items) {
+		return(copy(items, false));
+	}
+
+	private Feed copy(List<Item> items, boolean unmodifiable) {
+		Feed feed = new Feed(version, title, homePageUrl, feedUrl, description, userComment, nextUrl, icon, favicon, expired, author, copyOf(hubs, unmodifiable), copyOf(extensions, unmodifiable));
+
+		Map<String, Extension> namedExtensions = super.extensions;
+		if(unmodifiable) {
+			// even when there are no extensions, so that one can not be added to the copy
+			namedExtensions = Collections.unmodifiableMap(null == namedExtensions ? new LinkedHashMap<String, Extension>() : new LinkedHashMap<String, Extension>(namedExtensions));
+		} else if(null != namedExtensions && NO_EXTENSIONS != namedExtensions) {
+			namedExtensions = new LinkedHashMap<String, Extension>(namedExtensions);
+		}
+		((BaseJsonFeedObject)feed).extensions = namedExtensions;
+		feed.items = items;
+		return(feed);
+	}
+
+	private static <T> List<T> copyOf(List<T> list, boolean unmodifiable) {
+		if(null == list) {
+			return(null);
+		}
+
+		List<T> copy = new ArrayList<T>(list);
+		return(unmodifiable ? Collections.unmodifiableList(copy) : copy);
 	}
 
 	public void addItem(Item item) {
@@ -167,39 +352,39 @@ public class Feed extends BaseJsonFeedObject {
 
 	public String getHomePageUrl() { return homePageUrl; }
 
-	public void setHomePageUrl(String homePageUrl) { this.homePageUrl = homePageUrl; }
+	public void setHomePageUrl(String homePageUrl) { this.homePageUrl = homePageUrl; invalidate(); }
 
 	public String getFeedUrl() { return feedUrl; }
 
-	public void setFeedUrl(String feedUrl) { this.feedUrl = feedUrl; }
+	public void setFeedUrl(String feedUrl) { this.feedUrl = feedUrl; invalidate(); }
 
 	public String getDescription() { return description; }
 
-	public void setDescription(String description) { this.description = description; }
+	public void setDescription(String description) { this.description = description; invalidate(); }
 
 	public String getUserComment() { return userComment; }
 
-	public void setUserComment(String userComment) { this.userComment = userComment; }
+	public void setUserComment(String userComment) { this.userComment = userComment; invalidate(); }
 
 	public String getNextUrl() { return nextUrl; }
 
-	public void setNextUrl(String nextUrl) { this.nextUrl = nextUrl; }
+	public void setNextUrl(String nextUrl) { this.nextUrl = nextUrl; invalidate(); }
 
 	public String getIcon() { return icon; }
 
-	public void setIcon(String icon) { this.icon = icon; }
+	public void setIcon(String icon) { this.icon = icon; invalidate(); }
 
 	public String getFavicon() { return favicon; }
 
-	public void setFavicon(String favicon) { this.favicon = favicon; }
+	public void setFavicon(String favicon) { this.favicon = favicon; invalidate(); }
 
 	public Boolean getExpired() { return expired; }
 
-	public void setExpired(Boolean expired) { this.expired = expired; }
+	public void setExpired(Boolean expired) { this.expired = expired; invalidate(); }
 
 	public Author getAuthor() { return author; }
 
-	public void setAuthor(Author author) { this.author = author; }
+	public void setAuthor(Author author) { this.author = author; invalidate(); }
 
 	public String getVersion() { return version; }
 
@@ -207,11 +392,11 @@ public class Feed extends BaseJsonFeedObject {
 
 	public List<Item> getItems() { return items; }
 
-	public void setItems(List<Item> items) { this.items = items; }
+	public void setItems(List<Item> items) { this.items = items; invalidate(); }
 
 	public List<Hub> getHubs() { return hubs; }
 
-	public void setHubs(List<Hub> hubs) { this.hubs = hubs; }
+	public void setHubs(List<Hub> hubs) { this.hubs = hubs; invalidate(); }
 
 	@Override
 	protected Logger getLogger() {
@@ -237,7 +422,7 @@ public class Feed extends BaseJsonFeedObject {
 		addKeyValue(jsonObject, KEY_FAVICON, favicon);
 		addKeyValue(jsonObject, KEY_EXPIRED, expired);
 		addKeyValue(jsonObject, KEY_HUBS, hubs);
-		addKeyValue(jsonObject, KEY_AUTHOR, author.toJSON());
+		addKeyValue(jsonObject, KEY_AUTHOR, author);
 
 		JSONArray itemsArray = new JSONArray();
 		for (Item item : items) {
@@ -263,46 +448,131 @@ public class Feed extends BaseJsonFeedObject {
 	}
 
 	@Override
-	public void validate() throws ValidationException {
-		validationErrors.clear();
-
-		boolean isInError = false;
-		isInError = validateRequiredInError(version, KEY_VERSION) || isInError;
-		isInError = validateRequiredInError(title, KEY_TITLE) || isInError;
-
-		if(null != author) {
-			try {
-				author.validate();
-			} catch(ValidationException ex) {
-				validationErrors.addAll(author.getValidationErrors());
-				isInError = true;
+	void writeJSON(JsonWriter jsonWriter) throws IOException {
+		writeJSON(jsonWriter, true);
+	}
+
+	/**
+	 * Write this feed to the JSON writer, optionally leaving the items array 
+	 * empty.
+	 * 
+	 * @param jsonWriter The JSON writer to write to
+	 * @param writeItems Whether to write the items
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	private void writeJSON(JsonWriter jsonWriter, boolean writeItems) throws IOException {
+		jsonWriter.beginObject();
+		writeKeyValue(jsonWriter, NAME_VERSION, version);
+		writeKeyValue(jsonWriter, NAME_TITLE, title);
+		writeKeyValue(jsonWriter, NAME_HOME_PAGE_URL, homePageUrl);
+		writeKeyValue(jsonWriter, NAME_FEED_URL, feedUrl);
+		writeKeyValue(jsonWriter, NAME_DESCRIPTION, description);
+		writeKeyValue(jsonWriter, NAME_USER_COMMENT, userComment);
+		writeKeyValue(jsonWriter, NAME_NEXT_URL, nextUrl);
+		writeKeyValue(jsonWriter, NAME_ICON, icon);
+		writeKeyValue(jsonWriter, NAME_FAVICON, favicon);
+		writeKeyValue(jsonWriter, NAME_EXPIRED, expired);
+		writeKeyValue(jsonWriter, NAME_AUTHOR, author);
+
+		if(null != hubs && !hubs.isEmpty()) {
+			jsonWriter.name(NAME_HUBS).beginArray();
+			for (Hub hub : hubs) {
+				hub.write(jsonWriter);
 			}
+			jsonWriter.endArray();
 		}
 
-		for (Item item : items) {
-			try {
-				item.validate();
-			} catch(ValidationException ex) {
-				validationErrors.addAll(item.getValidationErrors());
+		// the items are required, so are always written
+		jsonWriter.name(NAME_ITEMS).beginArray();
+		if(writeItems && null != items) {
+			for (Item item : items) {
+				item.write(jsonWriter);
 			}
 		}
+		jsonWriter.endArray();
+
+		writeExtensions(jsonWriter);
+		jsonWriter.endObject();
+	}
+
+	/**
+	 * The fingerprint of a feed is the hash of its canonical form without the 
+	 * items, followed by the fingerprints of each of the items (in order).  As 
+	 * the fingerprints of the items are cached until they are changed, only the 
+	 * items that have changed are serialized again.
+	 */
+	@Override
+	long computeFingerprint() {
+		XxHash64 xxHash64 = new XxHash64();
+		try {
+			JsonWriter jsonWriter = JsonWriter.canonical(xxHash64);
+			writeJSON(jsonWriter, false);
+			jsonWriter.flush();
+		} catch (IOException ex) {
+			// the hash never throws an IOException
+			throw new UncheckedIOException(ex);
+		}
 
-		for (Hub hub : hubs) {
-			try {
-				hub.validate();
-			} catch(ValidationException ex) {
-				validationErrors.addAll(hub.getValidationErrors());
+		if(null != items) {
+			for (Item item : items) {
+				xxHash64.writeLong(item.getFingerprint());
 			}
 		}
+		return(xxHash64.getValue());
+	}
 
-		try {
-			validateExtensions();
-		} catch(ValidationException ex) {
-			isInError = true;
+	/**
+	 * Get a strong HTTP entity tag for this feed, which is the quoted 
+	 * hexadecimal fingerprint (see {@link #getFingerprint()}), so it only 
+	 * changes when the content of the feed changes.
+	 * 
+	 * @return The entity tag, e.g. "0123456789abcdef" (including the quotes)
+	 */
+	public String getETag() {
+		return(String.format(FORMAT_ETAG, getFingerprint()));
+	}
+
+	@Override
+	void validate(ValidationReport report) {
+		validate(report, null);
+	}
+
+	/**
+	 * Validate this feed, optionally with items that have already been 
+	 * validated (when validating inline, see {@link InlineValidator}), in which
+	 * case only the reports of the invalid items are added.
+	 * 
+	 * @param report The report to add the errors to
+	 * @param itemReports The reports of the invalid items, or null to validate 
+	 *     the items
+	 */
+	void validate(ValidationReport report, List<ValidationReport> itemReports) {
+		if(!validateRequired(report, version, KEY_VERSION) || 
+				!validateRequired(report, title, KEY_TITLE)) {
+			return;
 		}
 
-		if(isInError) {
-			throw new ValidationException("Could not validate feed.");
+		if(null != author && !validateChild(report, author, KEY_AUTHOR)) {
+			return;
 		}
+
+		if(null != itemReports) {
+			for (ValidationReport itemReport : itemReports) {
+				if(!report.addAll(itemReport)) {
+					return;
+				}
+			}
+		} else if(null != items && !(report.getValidationOptions().isParallel() ? 
+				ParallelValidator.validateChildren(report, items, KEY_ITEMS) : 
+				validateChildren(report, items, KEY_ITEMS))) {
+			return;
+		}
+
+		if(null != hubs && !validateChildren(report, hubs, KEY_HUBS)) {
+			return;
+		}
+
+		validateExtensions(report);
 	}
 }
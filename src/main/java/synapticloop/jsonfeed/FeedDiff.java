@@ -0,0 +1,355 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The differences between two versions of a feed - the items that were added,
+ * removed and modified.  Items are matched on their id through a hash index, 
+ * so computing the difference takes linear time in the number of items.
+ * 
+ * An item is modified if either version has a <code>date_modified</code> and 
+ * the dates are not the same instant, otherwise (when neither has one) if the
+ * content fingerprints (see {@link BaseJsonFeedObject#getFingerprint()}) are 
+ * not the same.  The content of the items is never compared directly.
+ * 
+ * Items without an id can't be matched, so are always treated as added (or 
+ * removed).  If more than one item has the same id, only the first is used.
+ * 
+ * To diff an incoming stream of items against a stored version of a feed 
+ * without keeping all of the items, take a {@link Snapshot} of the feed and
+ * pass the incoming items to a {@link SnapshotDiff}.
+ * 
+ * @author synapticloop
+ */
+public final class FeedDiff {
+	// the value recorded for an item without a date_modified
+	private static final long NO_DATE_MODIFIED = Long.MIN_VALUE;
+
+	private final List<Item> added;
+	private final List<Item> removed;
+	private final List<Item> modified;
+
+	private FeedDiff(List<Item> added, List<Item> removed, List<Item> modified) {
+		this.added = Collections.unmodifiableList(added);
+		this.removed = Collections.unmodifiableList(removed);
+		this.modified = Collections.unmodifiableList(modified);
+	}
+
+	/**
+	 * Compute the differences between two versions of a feed
+	 * 
+	 * @param previous The previous version of the feed
+	 * @param current The current version of the feed
+	 * 
+	 * @return The differences between the feeds
+	 */
+	public static FeedDiff compute(Feed previous, Feed current) {
+		return(compute(previous.getItems(), current.getItems()));
+	}
+
+	/**
+	 * Compute the differences between two versions of a list of items
+	 * 
+	 * @param previous The previous items
+	 * @param current The current items
+	 * 
+	 * @return The differences between the items
+	 */
+	public static FeedDiff compute(List<Item> previous, List<Item> current) {
+		if(!(previous instanceof RandomAccess)) {
+			previous = new ArrayList<Item>(previous);
+		}
+
+		List<Item> added = new ArrayList<Item>();
+		List<Item> removed = new ArrayList<Item>();
+		List<Item> modified = new ArrayList<Item>();
+
+		// the index of the (first) previous item with each id
+		int numPrevious = previous.size();
+		Map<String, Integer> previousIndexes = new HashMap<String, Integer>(capacity(numPrevious));
+		for(int i = 0; i < numPrevious; i++) {
+			String id = previous.get(i).getId();
+			if(null != id) {
+				previousIndexes.putIfAbsent(id, i);
+			}
+		}
+
+		boolean[] matched = new boolean[numPrevious];
+		Set<String> currentIds = new HashSet<String>(capacity(current.size()));
+		for (Item item : current) {
+			String id = item.getId();
+			if(null == id) {
+				added.add(item);
+				continue;
+			}
+
+			if(!currentIds.add(id)) {
+				continue;
+			}
+
+			Integer index = previousIndexes.get(id);
+			if(null == index) {
+				added.add(item);
+				continue;
+			}
+
+			matched[index] = true;
+			Item previousItem = previous.get(index);
+			long previousDateModified = dateModified(previousItem);
+			long currentDateModified = dateModified(item);
+			if(hasDateModified(previousDateModified, currentDateModified) ? 
+					previousDateModified != currentDateModified : 
+					previousItem.getFingerprint() != item.getFingerprint()) {
+				modified.add(item);
+			}
+		}
+
+		for(int i = 0; i < numPrevious; i++) {
+			Item item = previous.get(i);
+			String id = item.getId();
+			if(null == id || (!matched[i] && previousIndexes.get(id) == i)) {
+				removed.add(item);
+			}
+		}
+
+		return(new FeedDiff(added, removed, modified));
+	}
+
+	/**
+	 * Take a snapshot of the feed to diff later versions of the feed against
+	 * 
+	 * @param feed The feed to take the snapshot of
+	 * 
+	 * @return The snapshot
+	 */
+	public static Snapshot snapshot(Feed feed) {
+		return(snapshot(feed.getItems()));
+	}
+
+	/**
+	 * Take a snapshot of the items to diff later versions of the items against
+	 * 
+	 * @param items The items to take the snapshot of
+	 * 
+	 * @return The snapshot
+	 */
+	public static Snapshot snapshot(List<Item> items) {
+		return(new Snapshot(items));
+	}
+
+	/**
+	 * Get the items that are in the current feed, but were not in the previous
+	 * 
+	 * @return The added items
+	 */
+	public List<Item> getAdded() { return(added); }
+
+	/**
+	 * Get the items that were in the previous feed, but are not in the current
+	 * 
+	 * @return The removed items (from the previous feed)
+	 */
+	public List<Item> getRemoved() { return(removed); }
+
+	/**
+	 * Get the items that are in both feeds, but have been modified
+	 * 
+	 * @return The modified items (from the current feed)
+	 */
+	public List<Item> getModified() { return(modified); }
+
+	/**
+	 * Whether there are any differences between the feeds
+	 * 
+	 * @return true if any items were added, removed or modified
+	 */
+	public boolean hasChanges() { return(!added.isEmpty() || !removed.isEmpty() || !modified.isEmpty()); }
+
+	// whether the modification of an item is decided on the date_modified, 
+	// rather than the fingerprint
+	private static boolean hasDateModified(long previousDateModified, long currentDateModified) {
+		return(previousDateModified != NO_DATE_MODIFIED || currentDateModified != NO_DATE_MODIFIED);
+	}
+
+	private static long dateModified(Item item) {
+		return(item.hasDateModified() ? item.getDateModifiedMillis() : NO_DATE_MODIFIED);
+	}
+
+	private static int capacity(int size) {
+		return(Math.max(16, (int)(size / 0.75f) + 1));
+	}
+
+	/**
+	 * A compact snapshot of the items of a feed, which only records the id, 
+	 * <code>date_modified</code> and (for items without a 
+	 * <code>date_modified</code>) the fingerprint of each item - the items 
+	 * themselves are not kept.  Items without an id are not recorded.
+	 * 
+	 * A snapshot is immutable, so it can be shared between threads and diffed 
+	 * against any number of later versions of the feed.
+	 */
+	public static final class Snapshot {
+		private final String[] ids;
+		private final long[] datesModified;
+		private final long[] fingerprints;
+		private final Map<String, Integer> indexes;
+
+		private Snapshot(List<Item> items) {
+			int size = items.size();
+			String[] ids = new String[size];
+			long[] datesModified = new long[size];
+			long[] fingerprints = new long[size];
+			this.indexes = new HashMap<String, Integer>(capacity(size));
+
+			int numItems = 0;
+			for (Item item : items) {
+				String id = item.getId();
+				if(null == id || null != indexes.putIfAbsent(id, numItems)) {
+					continue;
+				}
+
+				ids[numItems] = id;
+				datesModified[numItems] = dateModified(item);
+				// the fingerprint is only needed when there is no date
+				if(datesModified[numItems] == NO_DATE_MODIFIED) {
+					fingerprints[numItems] = item.getFingerprint();
+				}
+				numItems++;
+			}
+
+			this.ids = Arrays.copyOf(ids, numItems);
+			this.datesModified = Arrays.copyOf(datesModified, numItems);
+			this.fingerprints = Arrays.copyOf(fingerprints, numItems);
+		}
+
+		/**
+		 * Start a new diff of this snapshot against an incoming stream of items
+		 * 
+		 * @return The diff, which the incoming items should be passed to
+		 */
+		public SnapshotDiff diff() { return(new SnapshotDiff(this)); }
+
+		/**
+		 * Whether the snapshot has an item with the id
+		 * 
+		 * @param id The id of the item
+		 * 
+		 * @return true if the snapshot has an item with the id
+		 */
+		public boolean contains(String id) { return(indexes.containsKey(id)); }
+
+		/**
+		 * Get the number of items in the snapshot
+		 * 
+		 * @return The number of items
+		 */
+		public int size() { return(ids.length); }
+	}
+
+	/**
+	 * The differences between a {@link Snapshot} and an incoming stream of 
+	 * items, which are classified as they are accepted - so this can be passed
+	 * straight to a {@link FeedPushParser}, and only the added and modified 
+	 * items are kept.  Once all of the items have been accepted, the ids of the
+	 * items that were removed are available from {@link #getRemovedIds()}.
+	 * 
+	 * This is not thread-safe.
+	 */
+	public static final class SnapshotDiff implements Consumer<Item> {
+		private final Snapshot snapshot;
+		private final boolean[] matched;
+		private final Set<String> ids = new HashSet<String>();
+		private final List<Item> added = new ArrayList<Item>();
+		private final List<Item> modified = new ArrayList<Item>();
+
+		private SnapshotDiff(Snapshot snapshot) {
+			this.snapshot = snapshot;
+			this.matched = new boolean[snapshot.size()];
+		}
+
+		@Override
+		public void accept(Item item) {
+			String id = item.getId();
+			if(null == id) {
+				added.add(item);
+				return;
+			}
+
+			if(!ids.add(id)) {
+				return;
+			}
+
+			Integer index = snapshot.indexes.get(id);
+			if(null == index) {
+				added.add(item);
+				return;
+			}
+
+			matched[index] = true;
+			long previousDateModified = snapshot.datesModified[index];
+			long currentDateModified = dateModified(item);
+			if(hasDateModified(previousDateModified, currentDateModified) ? 
+					previousDateModified != currentDateModified : 
+					snapshot.fingerprints[index] != item.getFingerprint()) {
+				modified.add(item);
+			}
+		}
+
+		/**
+		 * Get the items that have been accepted, but were not in the snapshot
+		 * 
+		 * @return The added items
+		 */
+		public List<Item> getAdded() { return(Collections.unmodifiableList(added)); }
+
+		/**
+		 * Get the items that have been accepted and were in the snapshot, but have
+		 * been modified
+		 * 
+		 * @return The modified items
+		 */
+		public List<Item> getModified() { return(Collections.unmodifiableList(modified)); }
+
+		/**
+		 * Get the ids of the items in the snapshot that have not been accepted, 
+		 * in the order that they were in the snapshot.  This should only be 
+		 * called once all of the incoming items have been accepted.
+		 * 
+		 * @return The ids of the removed items
+		 */
+		public List<String> getRemovedIds() {
+			List<String> removedIds = new ArrayList<String>();
+			for(int i = 0; i < matched.length; i++) {
+				if(!matched[i]) {
+					removedIds.add(snapshot.ids[i]);
+				}
+			}
+			return(removedIds);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+/**
+ * The header of a feed - the fields that identify a feed and the number of 
+ * items in it - as returned by {@link FeedParser#probe(java.io.Reader)}, which
+ * reads these without creating any of the items.
+ * 
+ * @author synapticloop
+ */
+public class FeedHeader {
+	private final String version;
+	private final String title;
+	private final String feedUrl;
+	private final String nextUrl;
+	private final int numItems;
+
+	/**
+	 * Create a new feed header
+	 * 
+	 * @param version The version of the feed
+	 * @param title The title of the feed
+	 * @param feedUrl The URL of the feed
+	 * @param nextUrl The URL of the next page of the feed
+	 * @param numItems The number of items in the feed
+	 */
+	public FeedHeader(String version, String title, String feedUrl, String nextUrl, int numItems) {
+		this.version = version;
+		this.title = title;
+		this.feedUrl = feedUrl;
+		this.nextUrl = nextUrl;
+		this.numItems = numItems;
+	}
+
+	public String getVersion() { return(version); }
+
+	public String getTitle() { return(title); }
+
+	public String getFeedUrl() { return(feedUrl); }
+
+	public String getNextUrl() { return(nextUrl); }
+
+	public int getNumItems() { return(numItems); }
+}
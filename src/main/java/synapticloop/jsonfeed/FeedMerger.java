@@ -0,0 +1,277 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Merge the items of many feeds into a single stream of items, newest first
+ * (by <code>date_published</code>, with the items that have no 
+ * date_published last).  This is a k-way merge - the items of each source 
+ * <em>MUST</em> already be newest first, and a heap holds the next item of 
+ * each source, so merging k sources only ever holds k items, and only pulls 
+ * an item from a source when the previous one is merged.  Getting the latest 
+ * n items of k sources touches at most n + k items, rather than 
+ * concatenating and sorting all of them.
+ * 
+ * Items that were published before the <em>since</em> cut-off end the source
+ * that they come from (as all of the following items of the source are older)
+ * and items with an <code>id</code> that has already been merged can be 
+ * dropped.
+ * 
+ * A merger is not thread-safe, and its sources can only be merged once.
+ * 
+ * @author synapticloop
+ */
+public class FeedMerger {
+	private static final String ERROR_SOURCES_ALREADY_MERGED = "The sources of this merger have already been merged";
+
+	static final Comparator<Item> NEWEST_FIRST = (first, second) -> Long.compare(datePublished(second), datePublished(first));
+
+	private final List<Iterator<Item>> sources = new ArrayList<Iterator<Item>>();
+	private final List<Stream<Item>> streams = new ArrayList<Stream<Item>>();
+	private boolean hasSince = false;
+	private long sinceMillis = Long.MIN_VALUE;
+	private boolean deduplicate = false;
+	private boolean merged = false;
+
+	/**
+	 * Only merge the items that were published at (or after) the cut-off, items
+	 * without a date_published are not merged
+	 * 
+	 * @param sinceMillis the cut-off in milliseconds since the epoch
+	 * 
+	 * @return this merger
+	 */
+	public FeedMerger since(long sinceMillis) {
+		this.hasSince = true;
+		this.sinceMillis = sinceMillis;
+		return(this);
+	}
+
+	public FeedMerger since(Date since) { return(since(since.getTime())); }
+
+	/**
+	 * Whether to drop the items with an id that has already been merged (i.e.
+	 * only the newest of the items with the same id are merged).  Items without
+	 * an id are never dropped.
+	 * 
+	 * @param deduplicate whether to drop the items with a merged id
+	 * 
+	 * @return this merger
+	 */
+	public FeedMerger deduplicate(boolean deduplicate) {
+		this.deduplicate = deduplicate;
+		return(this);
+	}
+
+	/**
+	 * Add the items of a feed as a source.  If the items of the feed are not 
+	 * newest first, a sorted copy of them is merged instead.
+	 * 
+	 * @param feed The feed to add the items of
+	 * 
+	 * @return this merger
+	 */
+	public FeedMerger addFeed(Feed feed) {
+		List<Item> items = feed.getItems();
+		if(null == items || items.isEmpty()) {
+			return(this);
+		}
+
+		if(!isNewestFirst(items)) {
+			items = new ArrayList<Item>(items);
+			items.sort(NEWEST_FIRST);
+		}
+		return(addItems(items.iterator()));
+	}
+
+	/**
+	 * Add a stream of items as a source, which is only consumed as its items are
+	 * merged, and is closed when the merged stream is closed.  The items 
+	 * <em>MUST</em> be newest first.
+	 * 
+	 * @param items The stream of (non-null) items
+	 * 
+	 * @return this merger
+	 */
+	public FeedMerger addItems(Stream<Item> items) {
+		streams.add(items);
+		return(addItems(items.iterator()));
+	}
+
+	/**
+	 * Add an iterator of items as a source.  The items <em>MUST</em> be newest
+	 * first.
+	 * 
+	 * @param items The iterator of (non-null) items
+	 * 
+	 * @return this merger
+	 */
+	public FeedMerger addItems(Iterator<Item> items) {
+		if(merged) {
+			throw new IllegalStateException(ERROR_SOURCES_ALREADY_MERGED);
+		}
+		sources.add(items);
+		return(this);
+	}
+
+	/**
+	 * Merge the sources into a lazy stream of items, newest first.  No item is
+	 * pulled from any of the sources until the stream is consumed, and closing
+	 * the stream closes all of the streams that were added as sources.
+	 * 
+	 * @return the stream of merged items
+	 */
+	public Stream<Item> merge() {
+		if(merged) {
+			throw new IllegalStateException(ERROR_SOURCES_ALREADY_MERGED);
+		}
+		merged = true;
+
+		Spliterator<Item> spliterator = Spliterators.spliteratorUnknownSize(new MergeIterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+		return(StreamSupport.stream(spliterator, false).onClose(() -> streams.forEach(Stream::close)));
+	}
+
+	/**
+	 * Get the latest items of the sources, pulling only as many items from the
+	 * sources as are needed
+	 * 
+	 * @param numItems The (maximum) number of items to return
+	 * 
+	 * @return the latest items, newest first
+	 */
+	public List<Item> latest(int numItems) {
+		try (Stream<Item> stream = merge()) {
+			return(stream.limit(numItems).collect(Collectors.toList()));
+		}
+	}
+
+	private static long datePublished(Item item) {
+		return(item.hasDatePublished() ? item.getDatePublishedMillis() : Long.MIN_VALUE);
+	}
+
+	private static boolean isNewestFirst(List<Item> items) {
+		long previous = Long.MAX_VALUE;
+		for (Item item : items) {
+			long current = datePublished(item);
+			if(current > previous) {
+				return(false);
+			}
+			previous = current;
+		}
+		return(true);
+	}
+
+	/**
+	 * The next item of a source, which is re-used (and re-queued) for each of 
+	 * the items of the source
+	 */
+	private static final class Head {
+		private final Iterator<Item> iterator;
+		private final int index;
+		private Item item;
+		private long datePublished;
+
+		private Head(Iterator<Item> iterator, int index) {
+			this.iterator = iterator;
+			this.index = index;
+		}
+	}
+
+	private final class MergeIterator implements Iterator<Item> {
+		private PriorityQueue<Head> heads = null;
+		private Set<String> ids = null;
+		private Item next = null;
+
+		@Override
+		public boolean hasNext() {
+			if(null == heads) {
+				start();
+			}
+
+			while(null == next && !heads.isEmpty()) {
+				Head head = heads.poll();
+				Item item = head.item;
+				advance(head);
+
+				if(null == ids || null == item.getId() || ids.add(item.getId())) {
+					next = item;
+				}
+			}
+			return(null != next);
+		}
+
+		@Override
+		public Item next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			Item item = next;
+			next = null;
+			return(item);
+		}
+
+		private void start() {
+			// newest first, then in the order that the sources were added
+			heads = new PriorityQueue<Head>(Math.max(1, sources.size()), (first, second) -> {
+				int compare = Long.compare(second.datePublished, first.datePublished);
+				return(0 != compare ? compare : Integer.compare(first.index, second.index));
+			});
+
+			if(deduplicate) {
+				ids = new HashSet<String>();
+			}
+
+			for(int i = 0; i < sources.size(); i++) {
+				advance(new Head(sources.get(i), i));
+			}
+		}
+
+		private void advance(Head head) {
+			head.item = null;
+			if(!head.iterator.hasNext()) {
+				return;
+			}
+
+			Item item = head.iterator.next();
+			long datePublished = datePublished(item);
+			if(hasSince && (!item.hasDatePublished() || datePublished < sinceMillis)) {
+				// the rest of the items of this source are older
+				return;
+			}
+
+			head.item = item;
+			head.datePublished = datePublished;
+			heads.offer(head);
+		}
+	}
+}
@@ -0,0 +1,937 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import synapticloop.jsonfeed.SymbolTable.Field;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A streaming parser for JSON feeds.  Rather than building a complete
+ * org.json document and then copying the values out of it (which is what the
+ * {@link Feed#Feed(String)} and {@link Feed#Feed(org.json.JSONObject)}
+ * constructors do), this reads the tokens straight from the character stream
+ * and fills in the {@link Feed}, {@link Item}, {@link Author},
+ * {@link Attachment}, {@link Hub} and {@link Extension} objects as it goes.
+ * 
+ * The resulting objects are the same as those created by the constructors.
+ * 
+ * @author synapticloop
+ */
+public class FeedParser {
+	private static final Logger LOGGER = LoggerFactory.getLogger(FeedParser.class);
+
+	private static final String LOGGER_KEY_WAS_NOT_MAPPED = "Key '{}' was not mapped for '{}'";
+
+	// the bits that are set as the header fields are found when probing
+	private static final int PROBE_VERSION = 1;
+	private static final int PROBE_TITLE = 1 << 1;
+	private static final int PROBE_FEED_URL = 1 << 2;
+	private static final int PROBE_NEXT_URL = 1 << 3;
+	private static final int PROBE_ITEMS = 1 << 4;
+	private static final int PROBE_ALL = PROBE_VERSION | PROBE_TITLE | PROBE_FEED_URL | PROBE_NEXT_URL | PROBE_ITEMS;
+
+	private final ParseOptions parseOptions;
+	// the item fields to parse, or null for all of the fields
+	private final Set<String> itemFields;
+
+	/**
+	 * Create a new feed parser with the default parse options
+	 */
+	public FeedParser() {
+		this(ParseOptions.DEFAULT);
+	}
+
+	/**
+	 * Create a new feed parser with the passed in parse options.  As there is no
+	 * JSON Object to remove keys from, only the logging option is used - if
+	 * logging is turned off, the un-mapped keys are counted, but not logged.
+	 * 
+	 * @param parseOptions The options to parse with
+	 */
+	public FeedParser(ParseOptions parseOptions) {
+		this(parseOptions, null);
+	}
+
+	private FeedParser(ParseOptions parseOptions, Set<String> itemFields) {
+		this.parseOptions = parseOptions;
+		this.itemFields = itemFields;
+	}
+
+	/**
+	 * Return a copy of this parser that will only parse the passed in fields 
+	 * (keys) of each item, for example:
+	 * 
+	 * <pre>
+	 * new FeedParser().withFields("id", "url", "title", "date_published", "date_modified");
+	 * </pre>
+	 * 
+	 * All other fields of the item (including any extensions that are not 
+	 * named) are skipped by the tokenizer without the strings (or objects) for 
+	 * their values ever being created - which is where the time goes for the 
+	 * large <code>content_html</code> and <code>content_text</code> fields.  
+	 * Skipped fields are not counted as un-mapped keys.  The top-level fields of
+	 * the feed are always parsed.
+	 * 
+	 * @param fields The keys of the item fields to parse
+	 * 
+	 * @return The new parser
+	 */
+	public FeedParser withFields(String... fields) {
+		return(new FeedParser(parseOptions, Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(fields)))));
+	}
+
+	/**
+	 * Get the item fields that this parser will parse
+	 * 
+	 * @return The set of item fields, or null if all of the fields are parsed
+	 */
+	public Set<String> getFields() { return(itemFields); }
+
+	/**
+	 * Get the options that this parser parses with
+	 * 
+	 * @return The parse options
+	 */
+	public ParseOptions getParseOptions() { return(parseOptions); }
+
+	private SymbolTable symbols(Field field) {
+		return(parseOptions.getSymbolTable(field));
+	}
+
+	/**
+	 * Parse a feed from the reader.  The reader is read to the end of the
+	 * document, but is not closed.
+	 * 
+	 * @param reader The reader to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error reading from the reader
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public Feed parse(Reader reader) throws IOException {
+		JsonTokenizer tokenizer = new JsonTokenizer(reader);
+		Feed feed = readFeed(tokenizer);
+		if(tokenizer.peek() != JsonTokenizer.TOKEN_END_DOCUMENT) {
+			throw tokenizer.syntaxError("Expected the end of the document");
+		}
+		return(feed);
+	}
+
+	/**
+	 * Parse a feed from a UTF-8 encoded input stream.  The bytes are decoded as 
+	 * they are parsed (through a fixed size buffer), so the document never 
+	 * exists as a single string.  The input stream is not closed.
+	 * 
+	 * @param inputStream The input stream to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error reading from the input stream
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public Feed parse(InputStream inputStream) throws IOException {
+		return(parse(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Parse a feed from a UTF-8 encoded channel.  The bytes are decoded as they
+	 * are parsed (through a fixed size buffer), so the document never exists as
+	 * a single string.  The channel is not closed.
+	 * 
+	 * @param channel The channel to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error reading from the channel
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public Feed parse(ReadableByteChannel channel) throws IOException {
+		return(parse(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1)));
+	}
+
+	/**
+	 * Parse a feed from the remaining bytes of a UTF-8 encoded buffer, which may
+	 * be a heap, direct or mapped buffer.  The bytes are decoded straight out of
+	 * the buffer as they are parsed and the position of the buffer is not 
+	 * changed.
+	 * 
+	 * @param byteBuffer The buffer to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error decoding the buffer
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public Feed parse(ByteBuffer byteBuffer) throws IOException {
+		return(parse(new ByteBufferReader(byteBuffer)));
+	}
+
+	/**
+	 * Parse a feed from a UTF-8 encoded file.  The file is memory mapped (in 
+	 * windows, so there is no limit on the size of the file) and the strings are
+	 * decoded straight out of the mapping, so the bytes of the file are never 
+	 * copied onto the heap.
+	 * 
+	 * @param path The path of the file to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error mapping or reading the file
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public Feed parse(Path path) throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return(parse(new MappedFileReader(fileChannel, MappedFileReader.DEFAULT_WINDOW_SIZE)));
+		}
+	}
+
+	/**
+	 * Parse a feed lazily from the remaining bytes of a UTF-8 encoded buffer, 
+	 * caching the items as they are decoded - see 
+	 * {@link #parseLazy(ByteBuffer, boolean)}.
+	 * 
+	 * @param byteBuffer The buffer to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error decoding the buffer
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public Feed parseLazy(ByteBuffer byteBuffer) throws IOException {
+		return(parseLazy(byteBuffer, true));
+	}
+
+	/**
+	 * Parse a feed lazily from the remaining bytes of a UTF-8 encoded buffer.  
+	 * The top-level fields of the feed are parsed, but for the items only the 
+	 * byte offsets of where each one starts and ends are recorded.  The items 
+	 * of the returned feed are a read-only list, which decodes each item from
+	 * the buffer when it is first accessed.  The buffer must not be changed 
+	 * while the feed is in use.
+	 * 
+	 * @param byteBuffer The buffer to parse the feed from
+	 * @param cacheItems Whether to cache the items once they have been decoded, 
+	 *     if not, each access decodes the item again
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error decoding the buffer
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public Feed parseLazy(ByteBuffer byteBuffer, boolean cacheItems) throws IOException {
+		return(parseLazy(new ByteSource(byteBuffer), cacheItems));
+	}
+
+	/**
+	 * Parse a feed lazily from a UTF-8 encoded file, caching the items as they 
+	 * are decoded - see {@link #parseLazy(Path, boolean)}.
+	 * 
+	 * @param path The path of the file to parse the feed from
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error mapping or reading the file
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public Feed parseLazy(Path path) throws IOException {
+		return(parseLazy(path, true));
+	}
+
+	/**
+	 * Parse a feed lazily from a UTF-8 encoded file, which is memory mapped. The
+	 * items are decoded straight out of the mapping when they are first accessed
+	 * - see {@link #parseLazy(ByteBuffer, boolean)}.  The file must not be 
+	 * changed while the feed is in use.
+	 * 
+	 * @param path The path of the file to parse the feed from
+	 * @param cacheItems Whether to cache the items once they have been decoded
+	 * 
+	 * @return The parsed feed
+	 * 
+	 * @throws IOException If there was an error mapping or reading the file
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public Feed parseLazy(Path path, boolean cacheItems) throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return(parseLazy(ByteSource.map(fileChannel, ByteSource.DEFAULT_WINDOW_SIZE), cacheItems));
+		}
+	}
+
+	Feed parseLazy(ByteSource byteSource, boolean cacheItems) throws IOException {
+		JsonSpanScanner scanner = new JsonSpanScanner(byteSource);
+		FeedFields feedFields = new FeedFields();
+		long[] spans = new long[64];
+		int numItems = 0;
+
+		if(scanner.nextNonWhitespace() != '{') {
+			throw scanner.syntaxError("Expected '{'");
+		}
+
+		int character = scanner.nextNonWhitespace();
+		while(character != '}') {
+			if(character != '"') {
+				throw scanner.syntaxError("Expected a name");
+			}
+
+			long nameStart = scanner.getPosition() - 1;
+			scanner.skipString();
+			String key = scanner.asciiString(nameStart, scanner.getPosition());
+			if(null == key) {
+				key = tokenizer(byteSource, nameStart, scanner.getPosition()).nextString();
+			}
+
+			if(scanner.nextNonWhitespace() != ':') {
+				throw scanner.syntaxError("Expected ':'");
+			}
+
+			character = scanner.nextNonWhitespace();
+			long valueStart = scanner.getPosition() - 1;
+			if(BaseJsonFeedObject.KEY_ITEMS.equals(key) && character == '[') {
+				// record the spans of the items
+				character = scanner.nextNonWhitespace();
+				while(character != ']') {
+					long itemStart = scanner.getPosition() - 1;
+					scanner.skipValue(character);
+					if(character != '{') {
+						// the same as the streaming parser, an item that is not an object is skipped
+						skipIfNotAnObject(tokenizer(byteSource, itemStart, scanner.getPosition()), BaseJsonFeedObject.KEY_ITEMS);
+					} else {
+						if(numItems * 2 == spans.length) {
+							spans = Arrays.copyOf(spans, spans.length * 2);
+						}
+						spans[numItems * 2] = itemStart;
+						spans[numItems * 2 + 1] = scanner.getPosition();
+						numItems++;
+					}
+
+					character = scanner.nextNonWhitespace();
+					if(character == ',') {
+						character = scanner.nextNonWhitespace();
+						if(character == ']') {
+							throw scanner.syntaxError("Expected a value");
+						}
+					} else if(character != ']') {
+						throw scanner.syntaxError("Expected ',' or ']'");
+					}
+				}
+			} else {
+				scanner.skipValue(character);
+				JsonTokenizer tokenizer = tokenizer(byteSource, valueStart, scanner.getPosition());
+				if(BaseJsonFeedObject.KEY_ITEMS.equals(key)) {
+					if(tokenizer.peek() != JsonTokenizer.TOKEN_NULL) {
+						throw tokenizer.syntaxError("Expected an array of items");
+					}
+				} else {
+					readFeedField(tokenizer, key, feedFields);
+				}
+			}
+
+			character = scanner.nextNonWhitespace();
+			if(character == ',') {
+				character = scanner.nextNonWhitespace();
+				if(character == '}') {
+					throw scanner.syntaxError("Expected a name");
+				}
+			} else if(character != '}') {
+				throw scanner.syntaxError("Expected ',' or '}'");
+			}
+		}
+
+		if(scanner.nextNonWhitespace() != -1) {
+			throw scanner.syntaxError("Expected the end of the document");
+		}
+
+		return(feedFields.toFeed(new LazyItemList(this, byteSource, spans, numItems, cacheItems)));
+	}
+
+	/**
+	 * Read a single item from a span of bytes - this is used by the lazy list 
+	 * of items to decode an item when it is accessed.
+	 * 
+	 * @param byteSource The source of the bytes
+	 * @param start The offset of the first byte of the item
+	 * @param end The offset after the last byte of the item
+	 * 
+	 * @return The item
+	 */
+	Item readItem(ByteSource byteSource, long start, long end) {
+		try {
+			return(readItem(tokenizer(byteSource, start, end)));
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	JsonTokenizer tokenizer(ByteSource byteSource, long start, long end) {
+		// there is no need for a buffer larger than the span
+		int bufferSize = (int)Math.min(JsonTokenizer.DEFAULT_BUFFER_SIZE, Math.max(16, end - start));
+		return(new JsonTokenizer(new ByteBufferReader(byteSource.slice(start, end)), bufferSize));
+	}
+
+	/**
+	 * Probe the header of a feed - i.e. read the version, title, feed URL and 
+	 * next URL and count the number of items, without creating any of the items
+	 * (or the strings within them).  Reading stops as soon as all of the header 
+	 * fields have been found and the items counted, so the rest of the document 
+	 * is not read (or checked for well-formedness).  The reader is not closed.
+	 * 
+	 * @param reader The reader to probe the feed from
+	 * 
+	 * @return The header of the feed
+	 * 
+	 * @throws IOException If there was an error reading from the reader
+	 * @throws org.json.JSONException If the JSON was not well-formed
+	 */
+	public FeedHeader probe(Reader reader) throws IOException {
+		JsonTokenizer tokenizer = new JsonTokenizer(reader);
+		String version = null;
+		String title = null;
+		String feedUrl = null;
+		String nextUrl = null;
+		int numItems = 0;
+		int found = 0;
+
+		tokenizer.beginObject();
+		while(found != PROBE_ALL && tokenizer.hasNext()) {
+			String key = tokenizer.nextName(symbols(Field.KEY));
+			switch (key) {
+			case BaseJsonFeedObject.KEY_VERSION:
+				version = tokenizer.nextString(symbols(Field.VERSION));
+				found |= PROBE_VERSION;
+				break;
+			case BaseJsonFeedObject.KEY_TITLE:
+				title = tokenizer.nextString();
+				found |= PROBE_TITLE;
+				break;
+			case BaseJsonFeedObject.KEY_FEED_URL:
+				feedUrl = tokenizer.nextString();
+				found |= PROBE_FEED_URL;
+				break;
+			case BaseJsonFeedObject.KEY_NEXT_URL:
+				nextUrl = tokenizer.nextString();
+				found |= PROBE_NEXT_URL;
+				break;
+			case BaseJsonFeedObject.KEY_ITEMS:
+				if(tokenizer.peek() == JsonTokenizer.TOKEN_BEGIN_ARRAY) {
+					tokenizer.beginArray();
+					while(tokenizer.hasNext()) {
+						tokenizer.skipValue();
+						numItems++;
+					}
+					tokenizer.endArray();
+				} else {
+					tokenizer.skipValue();
+				}
+				found |= PROBE_ITEMS;
+				break;
+			default:
+				tokenizer.skipValue();
+				break;
+			}
+		}
+
+		return(new FeedHeader(version, title, feedUrl, nextUrl, numItems));
+	}
+
+	Feed readFeed(JsonTokenizer tokenizer) throws IOException {
+		FeedFields feedFields = new FeedFields();
+		List<Item> items = new ArrayList<Item>();
+		InlineValidator inlineValidator = parseOptions.isValidating() ? new InlineValidator(parseOptions) : null;
+
+		tokenizer.beginObject();
+		while(tokenizer.hasNext()) {
+			String key = tokenizer.nextName(symbols(Field.KEY));
+			if(BaseJsonFeedObject.KEY_ITEMS.equals(key)) {
+				if(tokenizer.peek() == JsonTokenizer.TOKEN_NULL) {
+					tokenizer.skipValue();
+					continue;
+				}
+				tokenizer.beginArray();
+				while(tokenizer.hasNext()) {
+					if(skipIfNotAnObject(tokenizer, BaseJsonFeedObject.KEY_ITEMS)) {
+						continue;
+					}
+					Item item = readItem(tokenizer);
+					if(null != inlineValidator) {
+						// an invalid item is either skipped, or rejects the feed
+						item = inlineValidator.item(item);
+					}
+					if(null != item) {
+						items.add(item);
+					}
+				}
+				tokenizer.endArray();
+			} else {
+				readFeedField(tokenizer, key, feedFields);
+			}
+		}
+		tokenizer.endObject();
+
+		Feed feed = feedFields.toFeed(items);
+		return(null == inlineValidator ? feed : inlineValidator.feed(feed));
+	}
+
+	/**
+	 * Read a single top-level field (other than the items) of the feed into the
+	 * feed fields.
+	 * 
+	 * @param tokenizer The tokenizer to read from
+	 * @param key The key that was read
+	 * @param feedFields The feed fields to update
+	 * 
+	 * @throws IOException If there was an error reading from the tokenizer
+	 */
+	void readFeedField(JsonTokenizer tokenizer, String key, FeedFields feedFields) throws IOException {
+		switch (key) {
+		case BaseJsonFeedObject.KEY_VERSION:
+			feedFields.version = tokenizer.nextString(symbols(Field.VERSION));
+			break;
+		case BaseJsonFeedObject.KEY_TITLE:
+			feedFields.title = tokenizer.nextString();
+			break;
+		case BaseJsonFeedObject.KEY_HOME_PAGE_URL:
+			feedFields.homePageUrl = tokenizer.nextString();
+			break;
+		case BaseJsonFeedObject.KEY_FEED_URL:
+			feedFields.feedUrl = tokenizer.nextString();
+			break;
+		case BaseJsonFeedObject.KEY_DESCRIPTION:
+			feedFields.description = tokenizer.nextString();
+			break;
+		case BaseJsonFeedObject.KEY_USER_COMMENT:
+			feedFields.userComment = tokenizer.nextString();
+			break;
+		case BaseJsonFeedObject.KEY_NEXT_URL:
+			feedFields.nextUrl = tokenizer.nextString();
+			break;
+		case BaseJsonFeedObject.KEY_ICON:
+			feedFields.icon = tokenizer.nextString();
+			break;
+		case BaseJsonFeedObject.KEY_FAVICON:
+			feedFields.favicon = tokenizer.nextString();
+			break;
+		case BaseJsonFeedObject.KEY_EXPIRED:
+			feedFields.expired = readBoolean(tokenizer);
+			break;
+		case BaseJsonFeedObject.KEY_AUTHOR:
+			feedFields.author = readAuthor(tokenizer);
+			break;
+		case BaseJsonFeedObject.KEY_HUBS:
+			if(tokenizer.peek() == JsonTokenizer.TOKEN_NULL) {
+				tokenizer.skipValue();
+				break;
+			}
+			tokenizer.beginArray();
+			while(tokenizer.hasNext()) {
+				if(!skipIfNotAnObject(tokenizer, BaseJsonFeedObject.KEY_HUBS)) {
+					feedFields.hubs.add(readHub(tokenizer));
+				}
+			}
+			tokenizer.endArray();
+			break;
+		default:
+			feedFields.numUnmappedKeys += readExtensionOrSkip(tokenizer, key, feedFields.extensions, "feed");
+			break;
+		}
+	}
+
+	Item readItem(JsonTokenizer tokenizer) throws IOException {
+		String id = null;
+		String url = null;
+		String externalUrl = null;
+		String title = null;
+		String contentHtml = null;
+		String contentText = null;
+		String summary = null;
+		String image = null;
+		String bannerImage = null;
+		Date datePublished = null;
+		Date dateModified = null;
+		Author author = null;
+		List<String> tags = new ArrayList<String>();
+		List<Attachment> attachments = new ArrayList<Attachment>();
+		Map<String, Extension> extensions = new LinkedHashMap<String, Extension>();
+		int numUnmappedKeys = 0;
+
+		tokenizer.beginObject();
+		while(tokenizer.hasNext()) {
+			String key = tokenizer.nextName(symbols(Field.KEY));
+			if(null != itemFields && !itemFields.contains(key)) {
+				tokenizer.skipValue();
+				continue;
+			}
+
+			switch (key) {
+			case BaseJsonFeedObject.KEY_ID:
+				id = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_URL:
+				url = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_EXTERNAL_URL:
+				externalUrl = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_TITLE:
+				title = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_CONTENT_HTML:
+				contentHtml = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_CONTENT_TEXT:
+				contentText = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_SUMMARY:
+				summary = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_IMAGE:
+				image = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_BANNER_IMAGE:
+				bannerImage = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_DATE_PUBLISHED:
+				datePublished = readDate(tokenizer);
+				break;
+			case BaseJsonFeedObject.KEY_DATE_MODIFIED:
+				dateModified = readDate(tokenizer);
+				break;
+			case BaseJsonFeedObject.KEY_AUTHOR:
+				author = readAuthor(tokenizer);
+				break;
+			case BaseJsonFeedObject.KEY_TAGS:
+				readStringArray(tokenizer, tags, symbols(Field.TAG));
+				break;
+			case BaseJsonFeedObject.KEY_ATTACHMENTS:
+				if(tokenizer.peek() == JsonTokenizer.TOKEN_NULL) {
+					tokenizer.skipValue();
+					break;
+				}
+				tokenizer.beginArray();
+				while(tokenizer.hasNext()) {
+					if(!skipIfNotAnObject(tokenizer, BaseJsonFeedObject.KEY_ATTACHMENTS)) {
+						attachments.add(readAttachment(tokenizer));
+					}
+				}
+				tokenizer.endArray();
+				break;
+			default:
+				numUnmappedKeys += readExtensionOrSkip(tokenizer, key, extensions, "item");
+				break;
+			}
+		}
+		tokenizer.endObject();
+
+		Item item = new Item(id, url, externalUrl, title, contentHtml, contentText, summary, image, bannerImage, datePublished, dateModified, author, tags, attachments, retainedExtensions(extensions));
+		item.setUnMappedKeys(numUnmappedKeys);
+		return(item);
+	}
+
+	Author readAuthor(JsonTokenizer tokenizer) throws IOException {
+		if(tokenizer.peek() != JsonTokenizer.TOKEN_BEGIN_OBJECT) {
+			// the same as the optJSONObject() that is used by the JSON Object parsing
+			tokenizer.skipValue();
+			return(null);
+		}
+
+		String name = null;
+		String url = null;
+		String avatar = null;
+		int numUnmappedKeys = 0;
+
+		tokenizer.beginObject();
+		while(tokenizer.hasNext()) {
+			String key = tokenizer.nextName(symbols(Field.KEY));
+			switch (key) {
+			case BaseJsonFeedObject.KEY_NAME:
+				name = tokenizer.nextString(symbols(Field.AUTHOR_NAME));
+				break;
+			case BaseJsonFeedObject.KEY_URL:
+				url = tokenizer.nextString(symbols(Field.AUTHOR_URL));
+				break;
+			case BaseJsonFeedObject.KEY_AVATAR:
+				avatar = tokenizer.nextString(symbols(Field.AUTHOR_AVATAR));
+				break;
+			default:
+				logUnmappedKey(key, "author");
+				tokenizer.skipValue();
+				numUnmappedKeys++;
+				break;
+			}
+		}
+		tokenizer.endObject();
+
+		Author author = new Author(name, url, avatar);
+		author.setUnMappedKeys(numUnmappedKeys);
+		return(author);
+	}
+
+	Attachment readAttachment(JsonTokenizer tokenizer) throws IOException {
+		String url = null;
+		String mimeType = null;
+		String title = null;
+		Long sizeInBytes = null;
+		Long durationInSeconds = null;
+		Map<String, Extension> extensions = new LinkedHashMap<String, Extension>();
+		int numUnmappedKeys = 0;
+
+		tokenizer.beginObject();
+		while(tokenizer.hasNext()) {
+			String key = tokenizer.nextName(symbols(Field.KEY));
+			switch (key) {
+			case BaseJsonFeedObject.KEY_URL:
+				url = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_MIME_TYPE:
+				mimeType = tokenizer.nextString(symbols(Field.MIME_TYPE));
+				break;
+			case BaseJsonFeedObject.KEY_TITLE:
+				title = tokenizer.nextString();
+				break;
+			case BaseJsonFeedObject.KEY_SIZE_IN_BYTES:
+				sizeInBytes = readLong(tokenizer);
+				break;
+			case BaseJsonFeedObject.KEY_DURATION_IN_SECONDS:
+				durationInSeconds = readLong(tokenizer);
+				break;
+			default:
+				numUnmappedKeys += readExtensionOrSkip(tokenizer, key, extensions, "attachment");
+				break;
+			}
+		}
+		tokenizer.endObject();
+
+		Attachment attachment = new Attachment(url, mimeType, title, sizeInBytes, durationInSeconds, retainedExtensions(extensions));
+		attachment.setUnMappedKeys(numUnmappedKeys);
+		return(attachment);
+	}
+
+	Hub readHub(JsonTokenizer tokenizer) throws IOException {
+		String type = null;
+		String url = null;
+		Map<String, Extension> extensions = new LinkedHashMap<String, Extension>();
+		int numUnmappedKeys = 0;
+
+		tokenizer.beginObject();
+		while(tokenizer.hasNext()) {
+			String key = tokenizer.nextName(symbols(Field.KEY));
+			switch (key) {
+			case BaseJsonFeedObject.KEY_TYPE:
+				type = tokenizer.nextString(symbols(Field.HUB_TYPE));
+				break;
+			case BaseJsonFeedObject.KEY_URL:
+				url = tokenizer.nextString();
+				break;
+			default:
+				numUnmappedKeys += readExtensionOrSkip(tokenizer, key, extensions, "hub");
+				break;
+			}
+		}
+		tokenizer.endObject();
+
+		Hub hub = new Hub(url, type);
+		hub.setExtensions(retainedExtensions(extensions));
+		hub.setUnMappedKeys(numUnmappedKeys);
+		return(hub);
+	}
+
+	private static Map<String, Extension> retainedExtensions(Map<String, Extension> extensions) {
+		// most objects have no extensions, so don't keep an empty map for each of them
+		return(extensions.isEmpty() ? BaseJsonFeedObject.NO_EXTENSIONS : extensions);
+	}
+
+	/**
+	 * Read the value for a key that is not one of the known keys for the object.
+	 * If the key starts with an underscore it is an extension and is read into
+	 * the map of extensions, otherwise the value is skipped.
+	 * 
+	 * @param tokenizer The tokenizer to read from
+	 * @param key The key that was read
+	 * @param extensions The map of extensions to add to
+	 * @param objectName The name of the object that is being parsed (for logging)
+	 * 
+	 * @return 1 if the key was not mapped, 0 if it was an extension
+	 * 
+	 * @throws IOException If there was an error reading from the tokenizer
+	 */
+	private int readExtensionOrSkip(JsonTokenizer tokenizer, String key, Map<String, Extension> extensions, String objectName) throws IOException {
+		if(key.startsWith("_")) {
+			readExtension(tokenizer, key, extensions);
+			return(0);
+		}
+
+		logUnmappedKey(key, objectName);
+		tokenizer.skipValue();
+		return(1);
+	}
+
+	/**
+	 * Skip (and log) an element of an array of objects that is not an object,
+	 * the same as the JSON Object parsing does
+	 * 
+	 * @param tokenizer The tokenizer that is positioned at the element
+	 * @param key The key of the array
+	 * 
+	 * @return whether the element was skipped
+	 * 
+	 * @throws IOException if there was an error reading from the tokenizer
+	 */
+	boolean skipIfNotAnObject(JsonTokenizer tokenizer, String key) throws IOException {
+		if(tokenizer.peek() == JsonTokenizer.TOKEN_BEGIN_OBJECT) {
+			return(false);
+		}
+
+		if(parseOptions.isLogging()) {
+			LOGGER.error(BaseJsonFeedObject.LOGGER_COULD_NOT_PARSE_ARRAY_FOR_KEY_VALUE_WAS_NOT_AN_OBJECT, key, tokenizer.nextValue());
+		} else {
+			tokenizer.skipValue();
+		}
+		return(true);
+	}
+
+	private void logUnmappedKey(String key, String objectName) {
+		if(parseOptions.isLogging()) {
+			LOGGER.warn(LOGGER_KEY_WAS_NOT_MAPPED, key, objectName);
+		}
+	}
+
+	private void readExtension(JsonTokenizer tokenizer, String name, Map<String, Extension> extensions) throws IOException {
+		ExtensionCodecs extensionCodecs = parseOptions.getExtensionCodecs();
+		if(!extensionCodecs.isKept(name)) {
+			tokenizer.skipValue();
+			return;
+		}
+
+		if(tokenizer.peek() != JsonTokenizer.TOKEN_BEGIN_OBJECT) {
+			LOGGER.error(BaseJsonFeedObject.LOGGER_EXTENSION_WAS_NOT_AN_OBJECT, name, tokenizer.nextValue());
+			return;
+		}
+
+		// the extension is only decoded when it is accessed
+		extensions.put(name, new Extension(tokenizer.nextRawObject(), extensionCodecs.getCodec(name)));
+	}
+
+	private Date readDate(JsonTokenizer tokenizer) throws IOException {
+		String dateString = tokenizer.nextString();
+		if(null != dateString) {
+			try {
+				return(BaseJsonFeedObject.parseDate(dateString));
+			} catch (ParseException ex) {
+				LOGGER.error(BaseJsonFeedObject.LOGGER_COULD_NOT_PARSE_DATE, dateString, ex.getMessage());
+			}
+		}
+		return(null);
+	}
+
+	private Boolean readBoolean(JsonTokenizer tokenizer) throws IOException {
+		if(tokenizer.peek() == JsonTokenizer.TOKEN_NULL) {
+			tokenizer.skipValue();
+			return(null);
+		}
+		return(tokenizer.nextBoolean());
+	}
+
+	private Long readLong(JsonTokenizer tokenizer) throws IOException {
+		if(tokenizer.peek() == JsonTokenizer.TOKEN_NULL) {
+			tokenizer.skipValue();
+			return(null);
+		}
+		return(tokenizer.nextLong());
+	}
+
+	private void readStringArray(JsonTokenizer tokenizer, List<String> list, SymbolTable symbolTable) throws IOException {
+		if(tokenizer.peek() != JsonTokenizer.TOKEN_BEGIN_ARRAY) {
+			tokenizer.skipValue();
+			return;
+		}
+
+		tokenizer.beginArray();
+		while(tokenizer.hasNext()) {
+			if(tokenizer.peek() == JsonTokenizer.TOKEN_STRING) {
+				list.add(tokenizer.nextString(symbolTable));
+			} else {
+				LOGGER.error("Could not parse array for key '{}', value was not a string", BaseJsonFeedObject.KEY_TAGS);
+				tokenizer.skipValue();
+			}
+		}
+		tokenizer.endArray();
+	}
+
+	/**
+	 * The top-level fields of a feed (other than the items), these are collected 
+	 * as they are parsed and then turned into a feed.
+	 */
+	static class FeedFields {
+		String version = null;
+		String title = null;
+		String homePageUrl = null;
+		String feedUrl = null;
+		String description = null;
+		String userComment = null;
+		String nextUrl = null;
+		String icon = null;
+		String favicon = null;
+		Boolean expired = null;
+		Author author = null;
+		List<Hub> hubs = new ArrayList<Hub>();
+		Map<String, Extension> extensions = new LinkedHashMap<String, Extension>();
+		int numUnmappedKeys = 0;
+
+		Feed toFeed(List<Item> items) {
+			Feed feed = new Feed(version, title);
+			feed.setHomePageUrl(homePageUrl);
+			feed.setFeedUrl(feedUrl);
+			feed.setDescription(description);
+			feed.setUserComment(userComment);
+			feed.setNextUrl(nextUrl);
+			feed.setIcon(icon);
+			feed.setFavicon(favicon);
+			feed.setExpired(expired);
+			feed.setAuthor(author);
+			feed.setItems(items);
+			feed.setHubs(hubs);
+			feed.setExtensions(extensions);
+			feed.setUnMappedKeys(numUnmappedKeys);
+			return(feed);
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Publishes the current snapshot of a feed, so that any number of threads can
+ * read it while other threads change it.  Readers get the current snapshot 
+ * (which is wait-free) and can use it for as long as they like, writers 
+ * create a new snapshot from the current one and atomically swap it in - 
+ * retrying (with the newly current snapshot) if another writer swapped in a 
+ * snapshot first.
+ * 
+ * @author synapticloop
+ */
+public class FeedPublisher {
+	private final AtomicReference<FeedSnapshot> current;
+
+	/**
+	 * Create a new publisher
+	 * 
+	 * @param feedSnapshot The snapshot to publish first
+	 */
+	public FeedPublisher(FeedSnapshot feedSnapshot) {
+		this.current = new AtomicReference<FeedSnapshot>(feedSnapshot);
+	}
+
+	/**
+	 * Get the current snapshot
+	 * 
+	 * @return the current snapshot
+	 */
+	public FeedSnapshot get() { return(current.get()); }
+
+	/**
+	 * Append the item to the current snapshot, and publish the new snapshot
+	 * 
+	 * @param item The item to append
+	 * 
+	 * @return the new snapshot
+	 */
+	public FeedSnapshot addItem(Item item) {
+		return(current.updateAndGet(feedSnapshot -> feedSnapshot.withItem(item)));
+	}
+
+	/**
+	 * Create a new snapshot from the current one and publish it, the update 
+	 * may be called more than once (if another thread publishes a snapshot 
+	 * while the update is running), so must have no side effects
+	 * 
+	 * @param update The function that creates the new snapshot
+	 * 
+	 * @return the new snapshot
+	 */
+	public FeedSnapshot update(UnaryOperator<FeedSnapshot> update) {
+		return(current.updateAndGet(update));
+	}
+
+	/**
+	 * Publish the new snapshot only if the current snapshot is the expected one
+	 * 
+	 * @param expected The snapshot that is expected to be current
+	 * @param feedSnapshot The new snapshot
+	 * 
+	 * @return whether the new snapshot was published
+	 */
+	public boolean compareAndSet(FeedSnapshot expected, FeedSnapshot feedSnapshot) {
+		return(current.compareAndSet(expected, feedSnapshot));
+	}
+
+	/**
+	 * Publish the new snapshot, regardless of which snapshot is current
+	 * 
+	 * @param feedSnapshot The new snapshot
+	 */
+	public void publish(FeedSnapshot feedSnapshot) {
+		current.set(feedSnapshot);
+	}
+}
@@ -0,0 +1,432 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.json.JSONException;
+
+/**
+ * A push parser for UTF-8 encoded JSON feeds, for when the bytes of the feed 
+ * arrive in chunks (for example from non-blocking I/O).  Each chunk is pushed 
+ * in with {@link #feed(ByteBuffer)} as it arrives, and each item is handed to
+ * the callback as soon as its last byte has been pushed in.  Chunks may be 
+ * split anywhere - in the middle of a string, an escape or a multi-byte 
+ * character.
+ * 
+ * Only the bytes of the value that is currently being read (i.e. the current 
+ * item, or a top-level field of the feed) are kept, never the whole document.
+ * Once all of the bytes have been pushed in, {@link #end()} returns the feed, 
+ * with all of its top-level fields, but without the items (which have already
+ * been handed to the callback).
+ * 
+ * Syntax errors are thrown as an org.json JSONException.  This class is not 
+ * thread-safe, each document needs its own push parser.
+ * 
+ * @author synapticloop
+ */
+public class FeedPushParser {
+	private static final int STATE_BEFORE_FEED = 0;
+	private static final int STATE_BEFORE_NAME = 1;
+	private static final int STATE_NAME = 2;
+	private static final int STATE_AFTER_NAME = 3;
+	private static final int STATE_BEFORE_VALUE = 4;
+	private static final int STATE_VALUE = 5;
+	private static final int STATE_AFTER_VALUE = 6;
+	private static final int STATE_BEFORE_ITEM = 7;
+	private static final int STATE_ITEM = 8;
+	private static final int STATE_AFTER_ITEM = 9;
+	private static final int STATE_AFTER_FEED = 10;
+
+	// the value needs more bytes
+	private static final int VALUE_CONTINUE = 0;
+	// the value was completed by the byte
+	private static final int VALUE_COMPLETE = 1;
+	// the value (a number or literal) had already ended, the byte is not part of it
+	private static final int VALUE_ENDED = 2;
+
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	// the buffer is shrunk back down after a value that is larger than this
+	private static final int MAXIMUM_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+	private final FeedParser feedParser;
+	private final Consumer<Item> itemConsumer;
+	private final FeedParser.FeedFields feedFields = new FeedParser.FeedFields();
+	// validates each item before it is handed over, if the parser is validating
+	private final InlineValidator inlineValidator;
+
+	private int state = STATE_BEFORE_FEED;
+	// whether the current object or array is still empty
+	private boolean empty = true;
+	// the number of bytes that have been pushed in
+	private long position = 0L;
+	private int numItems = 0;
+
+	// the bytes of the name or value that is currently being read
+	private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+	private int length = 0;
+	private String name = null;
+
+	// the structure of the value that is currently being read
+	private int depth = 0;
+	private boolean inString = false;
+	private boolean escaped = false;
+
+	/**
+	 * Create a new push parser, which will parse the items with the default 
+	 * parser.
+	 * 
+	 * @param itemConsumer The callback to hand each item to, as it is completed
+	 */
+	public FeedPushParser(Consumer<Item> itemConsumer) {
+		this(new FeedParser(), itemConsumer);
+	}
+
+	/**
+	 * Create a new push parser, which will parse the items (and top-level 
+	 * fields) with the passed in parser - for example one that only parses some
+	 * of the fields, see {@link FeedParser#withFields(String...)}.
+	 * 
+	 * @param feedParser The parser to parse the items with
+	 * @param itemConsumer The callback to hand each item to, as it is completed
+	 */
+	public FeedPushParser(FeedParser feedParser, Consumer<Item> itemConsumer) {
+		this.feedParser = feedParser;
+		this.itemConsumer = itemConsumer;
+		this.inlineValidator = feedParser.getParseOptions().isValidating() ? new InlineValidator(feedParser.getParseOptions()) : null;
+	}
+
+	/**
+	 * Push in the next chunk of the feed, all of the remaining bytes of the 
+	 * chunk are consumed.  Any items that are completed by this chunk are handed
+	 * to the callback before this method returns.
+	 * 
+	 * @param chunk The next chunk of bytes of the feed
+	 * 
+	 * @throws JSONException If the JSON is not well-formed
+	 */
+	public void feed(ByteBuffer chunk) {
+		while(chunk.hasRemaining()) {
+			byte character = chunk.get();
+			// a number or literal only ends when the byte after it is seen, which 
+			// then needs to be pushed through again
+			while(!push(character)) {
+				// the byte is pushed through the next state
+			}
+			position++;
+		}
+	}
+
+	/**
+	 * Signal that all of the bytes of the feed have been pushed in.  If the 
+	 * parser is validating, then the validation report of the feed (including 
+	 * the errors of the items) is attached to the feed.
+	 * 
+	 * @return The feed, with all of its top-level fields, but without the items
+	 * 
+	 * @throws JSONException If the feed was not complete
+	 */
+	public Feed end() {
+		if(state != STATE_AFTER_FEED) {
+			throw syntaxError("Unexpected end of input");
+		}
+		Feed feed = getFeed();
+		return(null == inlineValidator ? feed : inlineValidator.feed(feed));
+	}
+
+	/**
+	 * Get the feed with the top-level fields that have been read so far, but 
+	 * without any items.
+	 * 
+	 * @return The feed
+	 */
+	public Feed getFeed() {
+		return(feedFields.toFeed(new ArrayList<Item>()));
+	}
+
+	/**
+	 * Get the number of items that have been handed to the callback
+	 * 
+	 * @return The number of items
+	 */
+	public int getNumItems() { return(numItems); }
+
+	/**
+	 * Push a single byte through the state machine
+	 * 
+	 * @param character The byte to push
+	 * 
+	 * @return whether the byte was consumed
+	 */
+	private boolean push(byte character) {
+		if(isWhitespace(character) && state != STATE_NAME && state != STATE_VALUE && state != STATE_ITEM) {
+			return(true);
+		}
+
+		switch (state) {
+		case STATE_BEFORE_FEED:
+			expect(character, '{');
+			state = STATE_BEFORE_NAME;
+			return(true);
+		case STATE_BEFORE_NAME:
+			if(character == '}' && empty) {
+				state = STATE_AFTER_FEED;
+				return(true);
+			}
+			expect(character, '"');
+			startValue();
+			readValue(character);
+			state = STATE_NAME;
+			return(true);
+		case STATE_NAME:
+			if(readValue(character) == VALUE_COMPLETE) {
+				name = decodeName();
+				state = STATE_AFTER_NAME;
+			}
+			return(true);
+		case STATE_AFTER_NAME:
+			expect(character, ':');
+			state = STATE_BEFORE_VALUE;
+			return(true);
+		case STATE_BEFORE_VALUE:
+			if(character == '[' && BaseJsonFeedObject.KEY_ITEMS.equals(name)) {
+				empty = true;
+				state = STATE_BEFORE_ITEM;
+				return(true);
+			}
+			startValue();
+			state = STATE_VALUE;
+			return(false);
+		case STATE_VALUE:
+			int fieldResult = readValue(character);
+			if(fieldResult == VALUE_CONTINUE) {
+				return(true);
+			}
+			completeField();
+			state = STATE_AFTER_VALUE;
+			return(fieldResult == VALUE_COMPLETE);
+		case STATE_AFTER_VALUE:
+			if(character == '}') {
+				state = STATE_AFTER_FEED;
+				return(true);
+			}
+			expect(character, ',');
+			empty = false;
+			state = STATE_BEFORE_NAME;
+			return(true);
+		case STATE_BEFORE_ITEM:
+			if(character == ']' && empty) {
+				state = STATE_AFTER_VALUE;
+				return(true);
+			}
+			startValue();
+			state = STATE_ITEM;
+			return(false);
+		case STATE_ITEM:
+			int itemResult = readValue(character);
+			if(itemResult == VALUE_CONTINUE) {
+				return(true);
+			}
+			completeItem();
+			state = STATE_AFTER_ITEM;
+			return(itemResult == VALUE_COMPLETE);
+		case STATE_AFTER_ITEM:
+			if(character == ']') {
+				state = STATE_AFTER_VALUE;
+				return(true);
+			}
+			expect(character, ',');
+			empty = false;
+			state = STATE_BEFORE_ITEM;
+			return(true);
+		default:
+			throw syntaxError("Expected the end of the document");
+		}
+	}
+
+	/**
+	 * Read the next byte of the current value, keeping track of its structure
+	 * so that the end of the value can be found.
+	 * 
+	 * @param character The byte to read
+	 * 
+	 * @return whether the value needs more bytes, was completed by the byte, or
+	 *     had already ended
+	 */
+	private int readValue(byte character) {
+		if(length == 0) {
+			switch (character) {
+			case '"':
+				inString = true;
+				break;
+			case '{':
+			case '[':
+				depth = 1;
+				break;
+			case '}':
+			case ']':
+			case ',':
+			case ':':
+				throw syntaxError("Expected a value");
+			default:
+				break;
+			}
+			append(character);
+			return(VALUE_CONTINUE);
+		}
+
+		if(inString) {
+			append(character);
+			if(escaped) {
+				escaped = false;
+			} else if(character == '\\') {
+				escaped = true;
+			} else if(character == '"') {
+				inString = false;
+				if(depth == 0) {
+					return(VALUE_COMPLETE);
+				}
+			}
+			return(VALUE_CONTINUE);
+		}
+
+		if(depth > 0) {
+			append(character);
+			switch (character) {
+			case '"':
+				inString = true;
+				break;
+			case '{':
+			case '[':
+				depth++;
+				break;
+			case '}':
+			case ']':
+				depth--;
+				if(depth == 0) {
+					return(VALUE_COMPLETE);
+				}
+				break;
+			default:
+				break;
+			}
+			return(VALUE_CONTINUE);
+		}
+
+		// a number or a literal, which ends at the next delimiter
+		if(isWhitespace(character) || character == ',' || character == '}' || character == ']') {
+			return(VALUE_ENDED);
+		}
+		append(character);
+		return(VALUE_CONTINUE);
+	}
+
+	private void startValue() {
+		if(buffer.length > MAXIMUM_RETAINED_BUFFER_SIZE) {
+			buffer = new byte[INITIAL_BUFFER_SIZE];
+		}
+		length = 0;
+		depth = 0;
+		inString = false;
+		escaped = false;
+	}
+
+	private void append(byte character) {
+		if(length == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		buffer[length++] = character;
+	}
+
+	private String decodeName() {
+		// (almost) all names are ASCII without escapes
+		char[] characters = new char[length - 2];
+		for(int i = 0; i < characters.length; i++) {
+			byte character = buffer[i + 1];
+			if(character == '\\' || character < 0) {
+				try {
+					return(tokenizer().nextString());
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}
+			characters[i] = (char)character;
+		}
+		return(new String(characters));
+	}
+
+	private void completeField() {
+		try {
+			JsonTokenizer tokenizer = tokenizer();
+			if(BaseJsonFeedObject.KEY_ITEMS.equals(name)) {
+				if(tokenizer.peek() != JsonTokenizer.TOKEN_NULL) {
+					throw syntaxError("Expected an array of items");
+				}
+			} else {
+				feedParser.readFeedField(tokenizer, name, feedFields);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private void completeItem() {
+		Item item;
+		try {
+			JsonTokenizer tokenizer = tokenizer();
+			if(feedParser.skipIfNotAnObject(tokenizer, BaseJsonFeedObject.KEY_ITEMS)) {
+				// the same as the JSON Object parsing, an item that is not an object is skipped
+				return;
+			}
+			item = feedParser.readItem(tokenizer);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		if(null != inlineValidator) {
+			// an invalid item is either skipped, or rejects the feed
+			item = inlineValidator.item(item);
+			if(null == item) {
+				return;
+			}
+		}
+		itemConsumer.accept(item);
+		numItems++;
+	}
+
+	private JsonTokenizer tokenizer() {
+		return(feedParser.tokenizer(new ByteSource(ByteBuffer.wrap(buffer, 0, length)), 0, length));
+	}
+
+	private void expect(byte character, char expected) {
+		if(character != expected) {
+			throw syntaxError("Expected '" + expected + "'");
+		}
+	}
+
+	private static boolean isWhitespace(byte character) {
+		return(character == ' ' || character == '\n' || character == '\r' || character == '\t');
+	}
+
+	private JSONException syntaxError(String message) {
+		return(new JSONException(message + " at byte " + position));
+	}
+}
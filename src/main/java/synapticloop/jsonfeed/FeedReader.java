@@ -0,0 +1,446 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Read the items of a feed one at a time.  Only the current item is held in
+ * memory, so the memory used stays the same no matter how many items are in
+ * the feed's <code>items</code> array.
+ * 
+ * The top-level fields of the feed are available through {@link #getFeed()}
+ * as soon as they have been read - fields that appear before the items are
+ * available once iteration has started, fields that appear after the items are
+ * available once iteration has finished.
+ * 
+ * Syntax errors are thrown as an org.json JSONException, and errors reading
+ * from the underlying stream are thrown as an {@link UncheckedIOException}.
+ * 
+ * @author synapticloop
+ */
+public class FeedReader implements Iterator<Item>, Closeable {
+	private static final int DEFAULT_BATCH_SIZE = 64;
+	private static final int DEFAULT_MAX_OUTSTANDING_BATCHES = Math.max(2, ForkJoinPool.getCommonPoolParallelism() * 2);
+	// how long to wait for a batch to be consumed, with no items consumed at 
+	// all, before no more batches are handed off
+	private static final long NO_PROGRESS_TIMEOUT_MILLIS = 100L;
+
+	private static final int STATE_NOT_STARTED = 0;
+	private static final int STATE_IN_ITEMS = 1;
+	private static final int STATE_FINISHED = 2;
+
+	private final Reader reader;
+	private final JsonTokenizer tokenizer;
+	private final FeedParser feedParser;
+	private final FeedParser.FeedFields feedFields = new FeedParser.FeedFields();
+
+	private int state = STATE_NOT_STARTED;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private int maxOutstandingBatches = DEFAULT_MAX_OUTSTANDING_BATCHES;
+
+	// the permits for the batches that have been handed off by a split, and the
+	// number of items of those batches that have been consumed
+	private Semaphore batchPermits = null;
+	private final LongAdder numConsumed = new LongAdder();
+
+	/**
+	 * Create a new feed reader over a character stream.
+	 * 
+	 * @param reader The reader to read the feed from
+	 */
+	public FeedReader(Reader reader) {
+		this(reader, new FeedParser());
+	}
+
+	/**
+	 * Create a new feed reader over a character stream, which will parse the 
+	 * items with the passed in parser (for example, one that only parses some 
+	 * of the fields, see {@link FeedParser#withFields(String...)}).
+	 * 
+	 * @param reader The reader to read the feed from
+	 * @param feedParser The parser to parse the items with
+	 */
+	public FeedReader(Reader reader, FeedParser feedParser) {
+		this.reader = reader;
+		this.tokenizer = new JsonTokenizer(reader);
+		this.feedParser = feedParser;
+	}
+
+	/**
+	 * Create a feed reader that will iterate over the items in the UTF-8
+	 * encoded input stream.
+	 * 
+	 * @param inputStream The input stream to read the feed from
+	 * 
+	 * @return The feed reader
+	 */
+	public static FeedReader items(InputStream inputStream) {
+		return(new FeedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Create a feed reader that will iterate over the items in the reader
+	 * 
+	 * @param reader The reader to read the feed from
+	 * 
+	 * @return The feed reader
+	 */
+	public static FeedReader items(Reader reader) {
+		return(new FeedReader(reader));
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			if(state == STATE_NOT_STARTED) {
+				tokenizer.beginObject();
+				state = STATE_IN_ITEMS;
+				advanceToItems();
+			}
+
+			while(state == STATE_IN_ITEMS) {
+				if(tokenizer.hasNext()) {
+					if(feedParser.skipIfNotAnObject(tokenizer, BaseJsonFeedObject.KEY_ITEMS)) {
+						continue;
+					}
+					return(true);
+				}
+
+				// we have reached the end of the items array, read the remaining fields
+				tokenizer.endArray();
+				advanceToItems();
+			}
+
+			return(false);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@Override
+	public Item next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		try {
+			return(feedParser.readItem(tokenizer));
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Read the top-level fields until the start of the next items array, or the
+	 * end of the feed.
+	 * 
+	 * @return true if the start of an items array was found
+	 * 
+	 * @throws IOException If there was an error reading the feed
+	 */
+	private boolean advanceToItems() throws IOException {
+		while(tokenizer.hasNext()) {
+			String key = tokenizer.nextName();
+			if(BaseJsonFeedObject.KEY_ITEMS.equals(key) && tokenizer.peek() == JsonTokenizer.TOKEN_BEGIN_ARRAY) {
+				tokenizer.beginArray();
+				return(true);
+			} else if(BaseJsonFeedObject.KEY_ITEMS.equals(key)) {
+				tokenizer.skipValue();
+			} else {
+				feedParser.readFeedField(tokenizer, key, feedFields);
+			}
+		}
+
+		tokenizer.endObject();
+		state = STATE_FINISHED;
+		return(false);
+	}
+
+	/**
+	 * Get the feed with all of the top-level fields that have been read so far.
+	 * The returned feed does not contain any items.
+	 * 
+	 * @return The feed with the top-level fields that have been read so far
+	 */
+	public Feed getFeed() {
+		return(feedFields.toFeed(new ArrayList<Item>()));
+	}
+
+	/**
+	 * Return whether all of the feed has been read, i.e. all of the top-level
+	 * fields are available through {@link #getFeed()}
+	 * 
+	 * @return whether all of the feed has been read
+	 */
+	public boolean isFinished() { return(state == STATE_FINISHED); }
+
+	/**
+	 * Set the number of items that are handed off together when the stream is
+	 * split for parallel processing.
+	 * 
+	 * @param batchSize The number of items per batch
+	 */
+	public void setBatchSize(int batchSize) {
+		if(batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		this.batchSize = batchSize;
+	}
+
+	public int getBatchSize() { return(batchSize); }
+
+	/**
+	 * Set the maximum number of batches that have been handed off, but not yet
+	 * consumed, when the stream is split for parallel processing.  Once there 
+	 * are this many, splitting waits until one of them has been consumed.
+	 * 
+	 * @param maxOutstandingBatches The maximum number of outstanding batches
+	 */
+	public void setMaxOutstandingBatches(int maxOutstandingBatches) {
+		if(maxOutstandingBatches < 1) {
+			throw new IllegalArgumentException("Maximum outstanding batches must be at least 1");
+		}
+		this.maxOutstandingBatches = maxOutstandingBatches;
+	}
+
+	public int getMaxOutstandingBatches() { return(maxOutstandingBatches); }
+
+	/**
+	 * Get a spliterator over the items.  When split, the spliterator hands off a
+	 * fixed size batch of items (see {@link #setBatchSize(int)}), and waits 
+	 * while the maximum number of batches have been handed off but not 
+	 * consumed (see {@link #setMaxOutstandingBatches(int)}), so that a parallel
+	 * stream holds at most <code>(maxOutstandingBatches + 1) * batchSize</code>
+	 * items that have been read but not consumed.
+	 * 
+	 * If none of the outstanding items are consumed for a while (for example 
+	 * when a short-circuiting operation, such as <code>findAny</code>, has 
+	 * abandoned them), the spliterator stops splitting, and the rest of the 
+	 * items are read by the thread that holds it.
+	 * 
+	 * @return The spliterator over the items
+	 */
+	public Spliterator<Item> spliterator() {
+		return(new ItemSpliterator());
+	}
+
+	/**
+	 * Get a sequential stream of the items, closing the stream will close the
+	 * underlying reader.
+	 * 
+	 * @return The stream of items
+	 */
+	public Stream<Item> stream() {
+		return(StreamSupport.stream(spliterator(), false).onClose(this::closeUnchecked));
+	}
+
+	/**
+	 * Get a parallel stream of the items, closing the stream will close the
+	 * underlying reader.
+	 * 
+	 * @return The parallel stream of items
+	 */
+	public Stream<Item> parallelStream() {
+		return(StreamSupport.stream(spliterator(), true).onClose(this::closeUnchecked));
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private void closeUnchecked() {
+		try {
+			close();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private class ItemSpliterator implements Spliterator<Item> {
+		@Override
+		public boolean tryAdvance(Consumer<? super Item> action) {
+			if(!hasNext()) {
+				return(false);
+			}
+			action.accept(next());
+			return(true);
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super Item> action) {
+			while(hasNext()) {
+				action.accept(next());
+			}
+		}
+
+		@Override
+		public Spliterator<Item> trySplit() {
+			if(!hasNext() || !acquireBatchPermit()) {
+				return(null);
+			}
+
+			Item[] batch = new Item[batchSize];
+			int size = 0;
+			while(size < batchSize && hasNext()) {
+				batch[size++] = next();
+			}
+			return(new BatchSpliterator(batch, size));
+		}
+
+		@Override
+		public long estimateSize() {
+			// the number of items is not known until all of them have been read
+			return(isFinished() ? 0L : Long.MAX_VALUE);
+		}
+
+		@Override
+		public int characteristics() {
+			return(Spliterator.ORDERED | Spliterator.NONNULL);
+		}
+
+		private boolean acquireBatchPermit() {
+			if(null == batchPermits) {
+				batchPermits = new Semaphore(maxOutstandingBatches);
+			}
+
+			BatchPermit batchPermit = new BatchPermit();
+			try {
+				ForkJoinPool.managedBlock(batchPermit);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return(batchPermit.acquired);
+		}
+	}
+
+	/**
+	 * Wait for a batch permit - which, in a fork join pool, allows the pool to
+	 * run another thread to consume the outstanding batches
+	 */
+	private class BatchPermit implements ForkJoinPool.ManagedBlocker {
+		private boolean acquired = false;
+
+		@Override
+		public boolean block() throws InterruptedException {
+			while(!acquired) {
+				long numConsumedBefore = numConsumed.sum();
+				acquired = batchPermits.tryAcquire(NO_PROGRESS_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				if(!acquired && numConsumed.sum() == numConsumedBefore) {
+					// nothing is consuming the outstanding batches, give up
+					return(true);
+				}
+			}
+			return(true);
+		}
+
+		@Override
+		public boolean isReleasable() {
+			return(acquired || (acquired = batchPermits.tryAcquire()));
+		}
+	}
+
+	/**
+	 * The items handed off by a split, which releases its permit (and each of 
+	 * the items) as they are consumed
+	 */
+	private class BatchSpliterator implements Spliterator<Item> {
+		private final Item[] items;
+		private final int size;
+		private int index = 0;
+		private boolean released = false;
+
+		private BatchSpliterator(Item[] items, int size) {
+			this.items = items;
+			this.size = size;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Item> action) {
+			if(index == size) {
+				release();
+				return(false);
+			}
+
+			Item item = items[index];
+			items[index++] = null;
+			numConsumed.increment();
+			try {
+				action.accept(item);
+			} finally {
+				if(index == size) {
+					release();
+				}
+			}
+			return(true);
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super Item> action) {
+			try {
+				while(index < size) {
+					Item item = items[index];
+					items[index++] = null;
+					numConsumed.increment();
+					action.accept(item);
+				}
+			} finally {
+				release();
+			}
+		}
+
+		@Override
+		public Spliterator<Item> trySplit() {
+			return(null);
+		}
+
+		@Override
+		public long estimateSize() {
+			return(size - index);
+		}
+
+		@Override
+		public int characteristics() {
+			return(Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED | Spliterator.SUBSIZED);
+		}
+
+		private void release() {
+			if(!released) {
+				released = true;
+				batchPermits.release();
+			}
+		}
+	}
+}
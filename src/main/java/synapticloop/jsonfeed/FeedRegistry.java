@@ -0,0 +1,221 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * A registry of the current snapshot of each of many feeds, keyed on the 
+ * <code>feed_url</code> of the feed.  The snapshots are held in a 
+ * ConcurrentHashMap, so that reads never lock, and writes only contend with 
+ * writes to the feeds that hash to the same bin.  Updates are optimistic - the
+ * new snapshot is created from the current one outside of any lock, and is
+ * swapped in with a compare-and-swap, which is retried (with the newly current
+ * snapshot) if another writer updated the feed first.
+ * 
+ * The number of updates, and the number of times an update had to be retried
+ * (i.e. contended with another writer) are counted, for monitoring.
+ * 
+ * @author synapticloop
+ */
+public class FeedRegistry {
+	private static final String ERROR_FEED_URL_MUST_NOT_BE_NULL = "The feed_url of the feed must not be null";
+	private static final String ERROR_FEED_URL_CHANGED = "The feed_url of the new snapshot '%s' is not the feed_url of the feed '%s'";
+
+	private final ConcurrentHashMap<String, FeedSnapshot> feedSnapshots = new ConcurrentHashMap<String, FeedSnapshot>();
+	private final LongAdder numUpdates = new LongAdder();
+	private final LongAdder numRetries = new LongAdder();
+	private final LongAdder numFailedCompareAndSets = new LongAdder();
+
+	/**
+	 * Get the current snapshot of a feed
+	 * 
+	 * @param feedUrl The feed_url of the feed
+	 * 
+	 * @return the current snapshot, or null if the feed is not registered
+	 */
+	public FeedSnapshot get(String feedUrl) {
+		return(feedSnapshots.get(feedUrl));
+	}
+
+	/**
+	 * Register (or replace) the current snapshot of a feed, keyed on the 
+	 * feed_url of its feed
+	 * 
+	 * @param feedSnapshot The snapshot of the feed
+	 * 
+	 * @return the previous snapshot, or null if the feed was not registered
+	 */
+	public FeedSnapshot put(FeedSnapshot feedSnapshot) {
+		FeedSnapshot previous = feedSnapshots.put(feedUrl(feedSnapshot), feedSnapshot);
+		numUpdates.increment();
+		return(previous);
+	}
+
+	/**
+	 * Register the snapshot of a feed, only if the feed is not already 
+	 * registered
+	 * 
+	 * @param feedSnapshot The snapshot of the feed
+	 * 
+	 * @return the current snapshot (which is the passed in snapshot if the feed
+	 *     was not registered)
+	 */
+	public FeedSnapshot putIfAbsent(FeedSnapshot feedSnapshot) {
+		FeedSnapshot current = feedSnapshots.putIfAbsent(feedUrl(feedSnapshot), feedSnapshot);
+		if(null == current) {
+			numUpdates.increment();
+			return(feedSnapshot);
+		}
+		return(current);
+	}
+
+	/**
+	 * Replace the current snapshot of a feed, only if it is the expected 
+	 * snapshot (snapshots are compared by identity)
+	 * 
+	 * @param expected The snapshot that is expected to be current
+	 * @param feedSnapshot The new snapshot, which must have the same feed_url
+	 * 
+	 * @return whether the new snapshot was registered
+	 * 
+	 * @throws IllegalArgumentException If the new snapshot has a different 
+	 *     feed_url
+	 */
+	public boolean compareAndSet(FeedSnapshot expected, FeedSnapshot feedSnapshot) {
+		String feedUrl = feedUrl(expected);
+		checkFeedUrl(feedUrl, feedSnapshot);
+		if(feedSnapshots.replace(feedUrl, expected, feedSnapshot)) {
+			numUpdates.increment();
+			return(true);
+		}
+		numFailedCompareAndSets.increment();
+		return(false);
+	}
+
+	/**
+	 * Create a new snapshot of a registered feed from its current snapshot, and
+	 * register it.  The update may be called more than once (if another writer
+	 * updates the feed while the update is running), so must have no side 
+	 * effects.
+	 * 
+	 * @param feedUrl The feed_url of the feed
+	 * @param update The function that creates the new snapshot, which must 
+	 *     have the same feed_url
+	 * 
+	 * @return the new snapshot, or null if the feed is not registered
+	 * 
+	 * @throws IllegalArgumentException If the new snapshot has a different 
+	 *     feed_url
+	 */
+	public FeedSnapshot update(String feedUrl, UnaryOperator<FeedSnapshot> update) {
+		while(true) {
+			FeedSnapshot current = feedSnapshots.get(feedUrl);
+			if(null == current) {
+				return(null);
+			}
+
+			FeedSnapshot updated = update.apply(current);
+			checkFeedUrl(feedUrl, updated);
+			if(feedSnapshots.replace(feedUrl, current, updated)) {
+				numUpdates.increment();
+				return(updated);
+			}
+			numRetries.increment();
+		}
+	}
+
+	/**
+	 * Append an item to a registered feed
+	 * 
+	 * @param feedUrl The feed_url of the feed
+	 * @param item The item to append
+	 * 
+	 * @return the new snapshot, or null if the feed is not registered
+	 */
+	public FeedSnapshot addItem(String feedUrl, Item item) {
+		return(update(feedUrl, feedSnapshot -> feedSnapshot.withItem(item)));
+	}
+
+	/**
+	 * Remove a feed from the registry
+	 * 
+	 * @param feedUrl The feed_url of the feed
+	 * 
+	 * @return the snapshot that was removed, or null if the feed was not 
+	 *     registered
+	 */
+	public FeedSnapshot remove(String feedUrl) {
+		return(feedSnapshots.remove(feedUrl));
+	}
+
+	/**
+	 * Pass the current snapshot of each of the feeds to the consumer.  This 
+	 * does not block writers, and reflects the registry at some point during 
+	 * the iteration - a feed that is updated during the iteration may be 
+	 * passed as either its old or new snapshot (but only once).
+	 * 
+	 * @param consumer The consumer of the feed_urls and snapshots
+	 */
+	public void forEach(BiConsumer<String, FeedSnapshot> consumer) {
+		feedSnapshots.forEach(consumer);
+	}
+
+	public int size() { return(feedSnapshots.size()); }
+
+	/**
+	 * Get the number of times that a feed has been registered or updated
+	 * 
+	 * @return the number of updates
+	 */
+	public long getNumUpdates() { return(numUpdates.sum()); }
+
+	/**
+	 * Get the number of times that an update had to be retried because another
+	 * writer updated the feed first, which is a measure of the contention 
+	 * between writers
+	 * 
+	 * @return the number of retries
+	 */
+	public long getNumRetries() { return(numRetries.sum()); }
+
+	/**
+	 * Get the number of compare-and-sets that failed, because the expected 
+	 * snapshot was no longer current
+	 * 
+	 * @return the number of failed compare-and-sets
+	 */
+	public long getNumFailedCompareAndSets() { return(numFailedCompareAndSets.sum()); }
+
+	private static String feedUrl(FeedSnapshot feedSnapshot) {
+		String feedUrl = feedSnapshot.getFeed().getFeedUrl();
+		if(null == feedUrl) {
+			throw new IllegalArgumentException(ERROR_FEED_URL_MUST_NOT_BE_NULL);
+		}
+		return(feedUrl);
+	}
+
+	private static void checkFeedUrl(String feedUrl, FeedSnapshot feedSnapshot) {
+		String newFeedUrl = feedUrl(feedSnapshot);
+		if(!feedUrl.equals(newFeedUrl)) {
+			throw new IllegalArgumentException(String.format(ERROR_FEED_URL_CHANGED, newFeedUrl, feedUrl));
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * An immutable version of a feed, which can be read (and written out) by any
+ * number of threads without locking.  A snapshot is never changed - each 
+ * change creates a new snapshot that shares the items (and the structure of
+ * the list of items) of the snapshot that it was created from, so appending an
+ * item is amortised O(1) and replacing one is O(log n), see 
+ * {@link PersistentList}.  Publish each new snapshot with a
+ * {@link FeedPublisher} (or, for many feeds, a {@link FeedRegistry}).
+ * 
+ * The feed (and the items) of a snapshot <em>MUST NOT</em> be changed, 
+ * replace them instead - the list of items, the hubs and the extensions of 
+ * the feed can not be changed and throw an UnsupportedOperationException.
+ * 
+ * @author synapticloop
+ */
+public final class FeedSnapshot {
+	private final Feed feed;
+	private final PersistentList<Item> items;
+
+	private FeedSnapshot(Feed feed, PersistentList<Item> items) {
+		this.feed = feed;
+		this.items = items;
+	}
+
+	/**
+	 * Create a snapshot of the feed, the fields, hubs, extensions and items of
+	 * the feed are copied (but the hubs, extensions and items themselves are 
+	 * not)
+	 * 
+	 * @param feed The feed to create the snapshot of
+	 * 
+	 * @return the snapshot
+	 */
+	public static FeedSnapshot of(Feed feed) {
+		PersistentList<Item> items = null == feed.getItems() ? PersistentList.<Item>empty() : PersistentList.of(feed.getItems());
+		return(new FeedSnapshot(feed.copy(items), items));
+	}
+
+	/**
+	 * Get the feed of this snapshot, which must not be changed
+	 * 
+	 * @return the feed
+	 */
+	public Feed getFeed() { return(feed); }
+
+	public PersistentList<Item> getItems() { return(items); }
+
+	public int size() { return(items.size()); }
+
+	/**
+	 * Return a new snapshot with the item appended
+	 * 
+	 * @param item The item to append
+	 * 
+	 * @return the new snapshot
+	 */
+	public FeedSnapshot withItem(Item item) {
+		PersistentList<Item> newItems = items.plus(item);
+		return(new FeedSnapshot(feed.copy(newItems), newItems));
+	}
+
+	/**
+	 * Return a new snapshot with the item at the index replaced
+	 * 
+	 * @param index The index of the item to replace
+	 * @param item The item to replace it with
+	 * 
+	 * @return the new snapshot
+	 */
+	public FeedSnapshot withItem(int index, Item item) {
+		PersistentList<Item> newItems = items.with(index, item);
+		return(new FeedSnapshot(feed.copy(newItems), newItems));
+	}
+
+	/**
+	 * Get a builder to make a number of changes to this snapshot at once
+	 * 
+	 * @return the builder, which starts with the fields and items of this 
+	 *     snapshot
+	 */
+	public Builder toBuilder() {
+		return(new Builder(this));
+	}
+
+	/**
+	 * Builds a new snapshot from an existing one, the fields of the feed are 
+	 * only copied when they are changed, and the items are appended to (or 
+	 * replaced in) the persistent list of items.  A builder is not thread-safe.
+	 */
+	public static final class Builder {
+		private Feed feed;
+		private boolean copied = false;
+		private PersistentList<Item> items;
+
+		private Builder(FeedSnapshot feedSnapshot) {
+			this.feed = feedSnapshot.feed;
+			this.items = feedSnapshot.items;
+		}
+
+		/**
+		 * Change the fields of the feed, e.g. 
+		 * <code>builder.feed(feed -&gt; feed.setDescription("..."))</code>, the 
+		 * items must be changed through the builder
+		 * 
+		 * @param changes The changes to make to (a copy of) the feed
+		 * 
+		 * @return this builder
+		 */
+		public Builder feed(Consumer<Feed> changes) {
+			if(!copied) {
+				feed = feed.mutableCopy(items);
+				copied = true;
+			}
+			changes.accept(feed);
+			return(this);
+		}
+
+		public Builder addItem(Item item) {
+			items = items.plus(item);
+			return(this);
+		}
+
+		public Builder addItems(Collection<Item> newItems) {
+			for (Item item : newItems) {
+				items = items.plus(item);
+			}
+			return(this);
+		}
+
+		public Builder setItem(int index, Item item) {
+			items = items.with(index, item);
+			return(this);
+		}
+
+		/**
+		 * Build the new snapshot, the builder can continue to be used afterwards
+		 * 
+		 * @return the new snapshot
+		 */
+		public FeedSnapshot build() {
+			return(new FeedSnapshot(feed.copy(items), items));
+		}
+	}
+}
@@ -16,7 +16,9 @@ package synapticloop.jsonfeed;
  * this source code or binaries.
  */
 
-import synapticloop.jsonfeed.exception.ValidationException;
+import java.io.IOException;
+
+import synapticloop.jsonfeed.SymbolTable.Field;
 
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -25,7 +27,6 @@ import org.slf4j.LoggerFactory;
 public class Hub extends BaseJsonFeedObject {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Hub.class);
 
-	private static final String COULD_NOT_VALIDATE_HUB = "Could not validate " + Hub.class.getSimpleName() + ".";
 
 	private static final String VALIDATION_ERROR_BOTH_KEYS_MUST_NOT_BE_NULL_VALUES_WERE = "[%s] Both keys '%s' and '%s' _MUST_NOT_ be null, values were '%s' and '%s'";
 
@@ -40,11 +41,24 @@ public class Hub extends BaseJsonFeedObject {
 	}
 
 	public Hub(JSONObject jsonObject) {
-		this.type = readString(jsonObject, KEY_TYPE);
-		this.url = readString(jsonObject, KEY_URL);
+		this(jsonObject, ParseOptions.DEFAULT);
+	}
 
-		parseExtensions(jsonObject);
-		warnOnMissingKeys(jsonObject);
+	/**
+	 * Create a new hub from a JSON Object with the passed in parse options
+	 * 
+	 * @param jsonObject The JSON Object to parse
+	 * @param parseOptions The options to parse with
+	 * 
+	 * @see ParseOptions
+	 */
+	public Hub(JSONObject jsonObject, ParseOptions parseOptions) {
+		ParseContext context = startParse(jsonObject, parseOptions);
+		this.type = readString(context, KEY_TYPE, Field.HUB_TYPE);
+		this.url = readString(context, KEY_URL);
+
+		parseExtensions(context);
+		warnOnMissingKeys(context);
 	}
 
 	public String getType() { return type; }
@@ -70,15 +84,18 @@ public class Hub extends BaseJsonFeedObject {
 	}
 
 	@Override
-	public void validate() throws ValidationException {
-		validationErrors.clear();
-
-		boolean isInError = false;
-		isInError = validateRequiredInError(url, KEY_URL) || isInError;
-		isInError = validateRequiredInError(type, KEY_TYPE) || isInError;
+	void writeJSON(JsonWriter jsonWriter) throws IOException {
+		jsonWriter.beginObject();
+		writeKeyValue(jsonWriter, NAME_TYPE, this.type);
+		writeKeyValue(jsonWriter, NAME_URL, this.url);
+		writeExtensions(jsonWriter);
+		jsonWriter.endObject();
+	}
 
-		if(isInError) {
-			throw new ValidationException(COULD_NOT_VALIDATE_HUB);
+	@Override
+	void validate(ValidationReport report) {
+		if(validateRequired(report, url, KEY_URL)) {
+			validateRequired(report, type, KEY_TYPE);
 		}
 	}
 
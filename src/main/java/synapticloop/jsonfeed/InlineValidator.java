@@ -0,0 +1,105 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+
+/**
+ * Validate a feed as it is being parsed (see 
+ * {@link ParseOptions#withValidation(ValidationOptions)}).  Each item is 
+ * validated as soon as it has been parsed - so an invalid item can be skipped
+ * (or the feed rejected) straight away - and the rest of the feed is validated
+ * once the feed has been parsed, without validating the items again.
+ * 
+ * The item reports address their errors from the feed (e.g. 
+ * <code>$.items[3].id</code>), using the position of the item in the parsed
+ * JSON, whether or not any items before it were skipped.
+ * 
+ * @author synapticloop
+ */
+final class InlineValidator {
+	private static final String ERROR_INVALID_ITEM = "Item %d is not valid, %s";
+
+	private final ParseOptions parseOptions;
+	// the report that the item reports are created from, which is only used for its path
+	private final ValidationReport itemsReport;
+	// the reports of the items that were not valid, in order
+	private final List<ValidationReport> invalidItemReports = new ArrayList<ValidationReport>();
+	private int index = 0;
+
+	/**
+	 * Create a new inline validator
+	 * 
+	 * @param parseOptions The parse options, which must be validating
+	 */
+	InlineValidator(ParseOptions parseOptions) {
+		this.parseOptions = parseOptions;
+		this.itemsReport = new ValidationReport(parseOptions.getValidationOptions());
+	}
+
+	/**
+	 * Validate the next item that was parsed, attaching the report to it
+	 * 
+	 * @param item The item that was parsed
+	 * 
+	 * @return The item, or null if it is not valid and should be skipped
+	 * 
+	 * @throws JSONException If the item is not valid and the feed should be 
+	 *     rejected
+	 */
+	Item item(Item item) {
+		itemsReport.enter(BaseJsonFeedObject.KEY_ITEMS, index);
+		ValidationReport report = new ValidationReport(itemsReport, null);
+		itemsReport.exit();
+
+		item.validate(report);
+		item.setValidationReport(report);
+		index++;
+
+		if(report.isValid()) {
+			return(item);
+		}
+
+		invalidItemReports.add(report);
+		switch (parseOptions.getInvalidItems()) {
+		case SKIP:
+			return(null);
+		case REJECT:
+			throw new JSONException(String.format(ERROR_INVALID_ITEM, index - 1, report.getErrors().get(0)));
+		default:
+			return(item);
+		}
+	}
+
+	/**
+	 * Validate the feed once it has been parsed, adding the errors of the items 
+	 * (which have already been validated) in order, and attach the report to it.
+	 * 
+	 * @param feed The feed that was parsed
+	 * 
+	 * @return The feed
+	 */
+	Feed feed(Feed feed) {
+		ValidationReport report = new ValidationReport(parseOptions.getValidationOptions());
+		feed.validate(report, invalidItemReports);
+		feed.setValidationReport(report);
+		return(feed);
+	}
+}
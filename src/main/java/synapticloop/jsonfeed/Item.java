@@ -16,13 +16,15 @@ package synapticloop.jsonfeed;
  * this source code or binaries.
  */
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
-import synapticloop.jsonfeed.exception.ValidationException;
+import synapticloop.jsonfeed.SymbolTable.Field;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +32,8 @@ import org.slf4j.LoggerFactory;
 public class Item extends BaseJsonFeedObject {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Item.class);
 
+	private static final String VALIDATION_ERROR_CONTENT_MUST_BE_PRESENT = "One of '" + KEY_CONTENT_HTML + "' or '" + KEY_CONTENT_TEXT + "' _MUST_ be present";
+
 	// id (required, string) is unique for that item for that feed over time. If an item is ever updated, the id should 
 	// be unchanged. New items should never use a previously-used id. If an id is presented as a number or other type, a 
 	// JSON Feed reader must coerce it to a string. Ideally, the id is the full URL of the resource described by the item, 
@@ -62,9 +66,14 @@ public class Item extends BaseJsonFeedObject {
 	// possibly with the title overlaid.
 	private String bannerImage;
 	// date_published (optional, string) specifies the date in RFC 3339 format. (Example: 2010-02-07T14:04:00-05:00.)
-	private Date datePublished;
 	// date_modified (optional, string) specifies the modification date in RFC 3339 format.
-	private Date dateModified;
+	// The dates are held as the milliseconds since the epoch and the offset (in minutes) that they were written 
+	// with, rather than as Date objects, the presentDates bits record which of the dates are set
+	private long datePublishedMillis;
+	private long dateModifiedMillis;
+	private short datePublishedOffset;
+	private short dateModifiedOffset;
+	private byte presentDates;
 	// author (optional, object) has the same structure as the top-level  author. If not specified in an item, then the 
 	// top-level author, if present, is the author of the item.
 	private Author author;
@@ -75,27 +84,45 @@ public class Item extends BaseJsonFeedObject {
 	// An individual item may have one or more attachments.
 	private List<Attachment> attachments =  new ArrayList<Attachment>();
 
+	private static final byte DATE_PUBLISHED = 1;
+	private static final byte DATE_MODIFIED = 2;
+
 	public Item(JSONObject jsonObject) {
-		this.id = readString(jsonObject, KEY_ID);
-		this.url = readString(jsonObject, KEY_URL);
-		this.externalUrl = readString(jsonObject, KEY_EXTERNAL_URL);
-		this.title = readString(jsonObject, KEY_TITLE);
-		this.contentHtml = readString(jsonObject, KEY_CONTENT_HTML);
-		this.contentText = readString(jsonObject, KEY_CONTENT_TEXT);
-		this.summary = readString(jsonObject, KEY_SUMMARY);
-		this.image = readString(jsonObject, KEY_IMAGE);
-		this.bannerImage = readString(jsonObject, KEY_BANNER_IMAGE);
-		this.datePublished = readDate(jsonObject, KEY_DATE_PUBLISHED);
-		this.dateModified = readDate(jsonObject, KEY_DATE_MODIFIED);
-
-		JSONObject tempAuthorObject = readObject(jsonObject, KEY_AUTHOR);
+		this(jsonObject, ParseOptions.DEFAULT);
+	}
+
+	/**
+	 * Create a new item from a JSON Object with the passed in parse options
+	 * 
+	 * @param jsonObject The JSON Object to parse
+	 * @param parseOptions The options to parse with
+	 * 
+	 * @see ParseOptions
+	 */
+	public Item(JSONObject jsonObject, ParseOptions parseOptions) {
+		ParseContext context = startParse(jsonObject, parseOptions);
+		this.id = readString(context, KEY_ID);
+		this.url = readString(context, KEY_URL);
+		this.externalUrl = readString(context, KEY_EXTERNAL_URL);
+		this.title = readString(context, KEY_TITLE);
+		this.contentHtml = readString(context, KEY_CONTENT_HTML);
+		this.contentText = readString(context, KEY_CONTENT_TEXT);
+		this.summary = readString(context, KEY_SUMMARY);
+		this.image = readString(context, KEY_IMAGE);
+		this.bannerImage = readString(context, KEY_BANNER_IMAGE);
+		putDatePublished(readDate(context, KEY_DATE_PUBLISHED));
+		putDateModified(readDate(context, KEY_DATE_MODIFIED));
+
+		JSONObject tempAuthorObject = readObject(context, KEY_AUTHOR);
 		if(null != tempAuthorObject) {
-			this.author = new Author(tempAuthorObject);
+			this.author = new Author(tempAuthorObject, parseOptions);
 		}
 
-		this.tags = readStringArray(jsonObject, KEY_TAGS);
-		this.attachments = readObjectArray(jsonObject, KEY_ATTACHMENTS, Attachment.class);
-		parseExtensions(jsonObject);
+		this.tags = readStringArray(context, KEY_TAGS, Field.TAG);
+		this.attachments = readObjectArray(context, KEY_ATTACHMENTS, Attachment::new);
+		parseExtensions(context);
+
+		warnOnMissingKeys(context);
 	}
 
 	public Item(String id) { 
@@ -128,8 +155,8 @@ public class Item extends BaseJsonFeedObject {
 		this.summary = summary;
 		this.image = image;
 		this.bannerImage = bannerImage;
-		this.datePublished = datePublished;
-		this.dateModified = dateModified;
+		putDatePublished(datePublished);
+		putDateModified(dateModified);
 		this.author = author;
 		this.tags = tags;
 		this.attachments = attachments;
@@ -138,57 +165,126 @@ public class Item extends BaseJsonFeedObject {
 
 	public String getUrl() { return url; }
 
-	public void setUrl(String url) { this.url = url; }
+	public void setUrl(String url) { this.url = url; invalidate(); }
 
 	public String getExternalUrl() { return externalUrl; }
 
-	public void setExternalUrl(String externalUrl) { this.externalUrl = externalUrl; }
+	public void setExternalUrl(String externalUrl) { this.externalUrl = externalUrl; invalidate(); }
 
 	public String getTitle() { return title; }
 
-	public void setTitle(String title) { this.title = title; }
+	public void setTitle(String title) { this.title = title; invalidate(); }
 
 	public String getContentHtml() { return contentHtml; }
 
-	public void setContentHtml(String contentHtml) { this.contentHtml = contentHtml; }
+	public void setContentHtml(String contentHtml) { this.contentHtml = contentHtml; invalidate(); }
 
 	public String getContentText() { return contentText; }
 
-	public void setContentText(String contentText) { this.contentText = contentText; }
+	public void setContentText(String contentText) { this.contentText = contentText; invalidate(); }
 
 	public String getSummary() { return summary; }
 
-	public void setSummary(String summary) { this.summary = summary; }
+	public void setSummary(String summary) { this.summary = summary; invalidate(); }
 
 	public String getImage() { return image; }
 
-	public void setImage(String image) { this.image = image; }
+	public void setImage(String image) { this.image = image; invalidate(); }
 
 	public String getBannerImage() { return bannerImage; }
 
-	public void setBannerImage(String bannerImage) { this.bannerImage = bannerImage; }
-
-	public Date getDatePublished() { return datePublished; }
-
-	public void setDatePublished(Date datePublished) { this.datePublished = datePublished; }
+	public void setBannerImage(String bannerImage) { this.bannerImage = bannerImage; invalidate(); }
+
+	/**
+	 * Get the date that this item was published, a new date is returned on 
+	 * every call (which keeps the offset that it was written with), so use
+	 * {@link #hasDatePublished()} and {@link #getDatePublishedMillis()} to 
+	 * compare dates without creating them.
+	 * 
+	 * @return the date that this item was published, or null if not set
+	 */
+	public Date getDatePublished() { return(hasDatePublished() ? new Rfc3339Date(datePublishedMillis, datePublishedOffset) : null); }
+
+	public void setDatePublished(Date datePublished) { putDatePublished(datePublished); invalidate(); }
+
+	public boolean hasDatePublished() { return((presentDates & DATE_PUBLISHED) != 0); }
+
+	/**
+	 * Get the date that this item was published as the number of milliseconds
+	 * since the epoch, this is only meaningful if {@link #hasDatePublished()}
+	 * 
+	 * @return the milliseconds since the epoch, or 0 if not set
+	 */
+	public long getDatePublishedMillis() { return(datePublishedMillis); }
+
+	short getDatePublishedOffset() { return(datePublishedOffset); }
+
+	/**
+	 * Get the date that this item was modified, a new date is returned on 
+	 * every call (which keeps the offset that it was written with), so use
+	 * {@link #hasDateModified()} and {@link #getDateModifiedMillis()} to 
+	 * compare dates without creating them.
+	 * 
+	 * @return the date that this item was modified, or null if not set
+	 */
+	public Date getDateModified() { return(hasDateModified() ? new Rfc3339Date(dateModifiedMillis, dateModifiedOffset) : null); }
+
+	public void setDateModified(Date dateModified) { putDateModified(dateModified); invalidate(); }
+
+	public boolean hasDateModified() { return((presentDates & DATE_MODIFIED) != 0); }
+
+	/**
+	 * Get the date that this item was modified as the number of milliseconds
+	 * since the epoch, this is only meaningful if {@link #hasDateModified()}
+	 * 
+	 * @return the milliseconds since the epoch, or 0 if not set
+	 */
+	public long getDateModifiedMillis() { return(dateModifiedMillis); }
+
+	short getDateModifiedOffset() { return(dateModifiedOffset); }
+
+	private void putDatePublished(Date date) {
+		if(null == date) {
+			datePublishedMillis = 0L;
+			datePublishedOffset = 0;
+			presentDates &= ~DATE_PUBLISHED;
+		} else {
+			datePublishedMillis = date.getTime();
+			datePublishedOffset = offsetMinutes(date);
+			presentDates |= DATE_PUBLISHED;
+		}
+	}
 
-	public Date getDateModified() { return dateModified; }
+	private void putDateModified(Date date) {
+		if(null == date) {
+			dateModifiedMillis = 0L;
+			dateModifiedOffset = 0;
+			presentDates &= ~DATE_MODIFIED;
+		} else {
+			dateModifiedMillis = date.getTime();
+			dateModifiedOffset = offsetMinutes(date);
+			presentDates |= DATE_MODIFIED;
+		}
+	}
 
-	public void setDateModified(Date dateModified) { this.dateModified = dateModified; }
+	private static short offsetMinutes(Date date) {
+		// offsets are at most +/- 23:59, so will always fit in a short
+		return(date instanceof Rfc3339Date ? (short)((Rfc3339Date)date).getOffsetMinutes() : 0);
+	}
 
 	public Author getAuthor() { return author; }
 
-	public void setAuthor(Author author) { this.author = author; }
+	public void setAuthor(Author author) { this.author = author; invalidate(); }
 
 	public List<String> getTags() { return tags; }
 
-	public void setTags(List<String> tags) { this.tags = tags; }
+	public void setTags(List<String> tags) { this.tags = tags; invalidate(); }
 
 	public String getId() { return id; }
 
 	public List<Attachment> getAttachments() { return attachments; }
 
-	public void setAttachments(List<Attachment> attachments) { this.attachments = attachments; }
+	public void setAttachments(List<Attachment> attachments) { this.attachments = attachments; invalidate(); }
 
 	@Override
 	protected Logger getLogger() {
@@ -197,52 +293,117 @@ public class Item extends BaseJsonFeedObject {
 
 	@Override
 	public JSONObject toJSON() {
-		// TODO Auto-generated method stub
-		return null;
+		JSONObject jsonObject = new JSONObject();
+		addKeyValue(jsonObject, KEY_ID, id);
+		addKeyValue(jsonObject, KEY_URL, url);
+		addKeyValue(jsonObject, KEY_EXTERNAL_URL, externalUrl);
+		addKeyValue(jsonObject, KEY_TITLE, title);
+		addKeyValue(jsonObject, KEY_CONTENT_HTML, contentHtml);
+		addKeyValue(jsonObject, KEY_CONTENT_TEXT, contentText);
+		addKeyValue(jsonObject, KEY_SUMMARY, summary);
+		addKeyValue(jsonObject, KEY_IMAGE, image);
+		addKeyValue(jsonObject, KEY_BANNER_IMAGE, bannerImage);
+		if(hasDatePublished()) {
+			addKeyValue(jsonObject, KEY_DATE_PUBLISHED, Rfc3339Codec.format(datePublishedMillis, datePublishedOffset));
+		}
+		if(hasDateModified()) {
+			addKeyValue(jsonObject, KEY_DATE_MODIFIED, Rfc3339Codec.format(dateModifiedMillis, dateModifiedOffset));
+		}
+		addKeyValue(jsonObject, KEY_AUTHOR, author);
+
+		if(null != tags && !tags.isEmpty()) {
+			addKeyValue(jsonObject, KEY_TAGS, new JSONArray(tags));
+		}
+
+		if(null != attachments && !attachments.isEmpty()) {
+			JSONArray attachmentsArray = new JSONArray();
+			for (Attachment attachment : attachments) {
+				attachmentsArray.put(attachment.toJSON());
+			}
+			addKeyValue(jsonObject, KEY_ATTACHMENTS, attachmentsArray);
+		}
+
+		addExtensionsToJSON(jsonObject);
+
+		return(jsonObject);
 	}
 
 	@Override
-	public void validate() throws ValidationException {
-		validationErrors.clear();
+	boolean isFragmentCacheable() { return(true); }
 
-		boolean isInError = false;
-		if(null == id) {
-			String validationError = String.format("[%s] Key '{}' _MUST_NOT_ be null", LOGGER.getName(), KEY_ID);
-			LOGGER.error(validationError);
-			validationErrors.add(validationError);
-			isInError = true;
+	@Override
+	int[] getChildModCounts() {
+		// the cached bytes (and fingerprint) include the author, the 
+		// attachments and the extensions, which may have been changed since
+		int numAttachments = null == attachments ? 0 : attachments.size();
+		int[] childModCounts = new int[numAttachments + 2];
+		childModCounts[0] = null == author ? -1 : author.getDeepModCount();
+		for(int i = 0; i < numAttachments; i++) {
+			childModCounts[i + 1] = attachments.get(i).getDeepModCount();
 		}
+		childModCounts[numAttachments + 1] = getExtensionsModCount();
+		return(childModCounts);
+	}
 
-		try {
-			author.validate();
-		} catch(ValidationException ex) {
-			validationErrors.addAll(author.getValidationErrors());
-			isInError = true;
+	@Override
+	void writeJSON(JsonWriter jsonWriter) throws IOException {
+		jsonWriter.beginObject();
+		writeKeyValue(jsonWriter, NAME_ID, id);
+		writeKeyValue(jsonWriter, NAME_URL, url);
+		writeKeyValue(jsonWriter, NAME_EXTERNAL_URL, externalUrl);
+		writeKeyValue(jsonWriter, NAME_TITLE, title);
+		writeKeyValue(jsonWriter, NAME_CONTENT_HTML, contentHtml);
+		writeKeyValue(jsonWriter, NAME_CONTENT_TEXT, contentText);
+		writeKeyValue(jsonWriter, NAME_SUMMARY, summary);
+		writeKeyValue(jsonWriter, NAME_IMAGE, image);
+		writeKeyValue(jsonWriter, NAME_BANNER_IMAGE, bannerImage);
+		if(hasDatePublished()) {
+			jsonWriter.name(NAME_DATE_PUBLISHED).dateValue(datePublishedMillis, datePublishedOffset);
 		}
+		if(hasDateModified()) {
+			jsonWriter.name(NAME_DATE_MODIFIED).dateValue(dateModifiedMillis, dateModifiedOffset);
+		}
+		writeKeyValue(jsonWriter, NAME_AUTHOR, author);
 
-		if(null == contentHtml && null == contentText) {
-			String validationError = String.format("[%s] One of '{}' or '{}' _MUST_NOT_ be null", LOGGER.getName(), KEY_CONTENT_HTML, KEY_CONTENT_TEXT);
-			validationErrors.add(validationError);
-			isInError = true;
+		if(null != tags && !tags.isEmpty()) {
+			jsonWriter.name(NAME_TAGS).beginArray();
+			for (String tag : tags) {
+				jsonWriter.value(tag);
+			}
+			jsonWriter.endArray();
 		}
 
-		for (Attachment attachment : attachments) {
-			try {
-				attachment.validate();
-			} catch(ValidationException ex) {
-				validationErrors.addAll(attachment.getValidationErrors());
+		if(null != attachments && !attachments.isEmpty()) {
+			jsonWriter.name(NAME_ATTACHMENTS).beginArray();
+			for (Attachment attachment : attachments) {
+				attachment.write(jsonWriter);
 			}
+			jsonWriter.endArray();
 		}
 
-		try {
-			validateExtensions();
-		} catch(ValidationException ex) {
-			isInError = true;
+		writeExtensions(jsonWriter);
+		jsonWriter.endObject();
+	}
+
+	@Override
+	void validate(ValidationReport report) {
+		if(!validateRequired(report, id, KEY_ID)) {
+			return;
+		}
+
+		if(null != author && !validateChild(report, author, KEY_AUTHOR)) {
+			return;
+		}
+
+		if(null == contentHtml && null == contentText && !report.error(null, VALIDATION_ERROR_CONTENT_MUST_BE_PRESENT)) {
+			return;
 		}
 
-		if(isInError) {
-			throw new ValidationException("Could not validate Item");
+		if(null != attachments && !validateChildren(report, attachments, KEY_ATTACHMENTS)) {
+			return;
 		}
+
+		validateExtensions(report);
 	}
 
 
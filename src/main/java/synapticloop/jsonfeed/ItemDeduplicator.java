@@ -0,0 +1,523 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drop the items that have already been seen (in any feed) as they are 
+ * ingested.  An item has been seen if its <code>id</code>, 
+ * <code>url</code> or <code>external_url</code> (see {@link Key}) matches any
+ * of the keys of a seen item.  No strings are held - each key is hashed to a 
+ * 64-bit fingerprint (with xxHash), which is held in two tiers:
+ * 
+ * <ul>
+ *   <li>an exact, lock-free hash table of the most recently seen 
+ *     fingerprints, which is replaced with an empty one when it fills up, 
+ *     and</li>
+ *   <li>a scalable Bloom filter of all of the seen fingerprints, which adds a 
+ *     larger filter (with a lower false positive rate) each time that the 
+ *     last one reaches its capacity, until the maximum size of the filters is 
+ *     reached.  From then on, the oldest filters are retired to make room for
+ *     each new one, so that the fingerprints that were only held by them are 
+ *     forgotten (rather than the filters filling up until every key is 
+ *     found).</li>
+ * </ul>
+ * 
+ * A recently seen item is always found as a duplicate (and of two threads 
+ * adding the same item at the same time, only one adds it).  An item that is 
+ * only in the Bloom filter is probably a duplicate - it may be a false 
+ * positive, at the (estimated) rate returned by 
+ * {@link #getEstimatedFalsePositiveRate()}.  An item that has been forgotten
+ * is added again.
+ * 
+ * @author synapticloop
+ */
+public class ItemDeduplicator {
+	/**
+	 * The keys of an item that identify it
+	 */
+	public enum Key { ID, URL, EXTERNAL_URL }
+
+	private static final String ERROR_RECENT_CAPACITY_MUST_BE_POSITIVE = "The recent capacity must be greater than zero";
+	private static final String ERROR_EXPECTED_ITEMS_MUST_BE_POSITIVE = "The number of expected items must be greater than zero";
+	private static final String ERROR_FALSE_POSITIVE_RATE_OUT_OF_RANGE = "The false positive rate must be between 0 and 1 (exclusive)";
+
+	public static final int DEFAULT_RECENT_CAPACITY = 1 << 16;
+	public static final long DEFAULT_EXPECTED_ITEMS = 1L << 20;
+	public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001d;
+
+	// the empty slot of the recent table, and the fingerprint that a key which
+	// hashes to it is replaced with
+	private static final long EMPTY = 0L;
+	private static final long EMPTY_REPLACEMENT = 0x9E3779B97F4A7C15L;
+
+	// the most bits of a single Bloom filter (the most longs of an array)
+	private static final long MAX_FILTER_BITS = (long)(Integer.MAX_VALUE - 8) * Long.SIZE;
+
+	private final int recentCapacity;
+	private final long expectedItems;
+	private final double falsePositiveRate;
+	private final long maxBloomBits;
+	private final Key[] keys;
+
+	private final AtomicReference<RecentTable> recentTable;
+	private volatile BloomFilter[] bloomFilters;
+	private volatile int numRetiredBloomFilters = 0;
+
+	private final LongAdder numItems = new LongAdder();
+	private final LongAdder numExactDuplicates = new LongAdder();
+	private final LongAdder numProbableDuplicates = new LongAdder();
+
+	/**
+	 * Create a deduplicator with the default recent capacity, expected number
+	 * of items and false positive rate, with no maximum size, on all of the 
+	 * keys of an item
+	 */
+	public ItemDeduplicator() {
+		this(DEFAULT_RECENT_CAPACITY, DEFAULT_EXPECTED_ITEMS, DEFAULT_FALSE_POSITIVE_RATE, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Create a deduplicator
+	 * 
+	 * @param recentCapacity The number of fingerprints that are held exactly
+	 * @param expectedItems The number of fingerprints of the first Bloom filter
+	 *     (each further filter holds twice as many as the one before)
+	 * @param falsePositiveRate The false positive rate of the Bloom filters 
+	 *     (while they are not full)
+	 * @param maxBloomBytes The most bytes that the Bloom filters may use, once
+	 *     it is reached the oldest filters are retired
+	 * @param keys The keys of an item that identify it, if none are passed in,
+	 *     all of the keys are used
+	 */
+	public ItemDeduplicator(int recentCapacity, long expectedItems, double falsePositiveRate, long maxBloomBytes, Key... keys) {
+		if(recentCapacity <= 0) {
+			throw new IllegalArgumentException(ERROR_RECENT_CAPACITY_MUST_BE_POSITIVE);
+		}
+		if(expectedItems <= 0) {
+			throw new IllegalArgumentException(ERROR_EXPECTED_ITEMS_MUST_BE_POSITIVE);
+		}
+		if(!(falsePositiveRate > 0d && falsePositiveRate < 1d)) {
+			throw new IllegalArgumentException(ERROR_FALSE_POSITIVE_RATE_OUT_OF_RANGE);
+		}
+
+		this.recentCapacity = recentCapacity;
+		this.expectedItems = expectedItems;
+		this.falsePositiveRate = falsePositiveRate;
+		this.maxBloomBits = maxBloomBytes > Long.MAX_VALUE / Byte.SIZE ? Long.MAX_VALUE : Math.max(Long.SIZE, maxBloomBytes * Byte.SIZE);
+		this.keys = keys.length == 0 ? Key.values() : EnumSet.copyOf(Arrays.asList(keys)).toArray(new Key[0]);
+
+		this.recentTable = new AtomicReference<RecentTable>(new RecentTable(recentCapacity));
+		this.bloomFilters = new BloomFilter[] { newBloomFilter(expectedItems, falsePositiveRate / 2d, Math.min(MAX_FILTER_BITS, maxBloomBits)) };
+	}
+
+	/**
+	 * Add an item, unless it has already been seen
+	 * 
+	 * @param item The item to add
+	 * 
+	 * @return true if the item had not been seen (or has none of the keys), 
+	 *     false if it is a duplicate
+	 */
+	public boolean add(Item item) {
+		long[] fingerprints = fingerprints(item);
+		numItems.increment();
+		if(fingerprints.length == 0) {
+			return(true);
+		}
+
+		boolean exact = false;
+		boolean probable = false;
+		RecentTable recent = recentTable.get();
+		for (long fingerprint : fingerprints) {
+			// look in the Bloom filters first, another thread adding the same 
+			// fingerprint puts it in them once it has been added to the table
+			boolean seen = mightContain(fingerprint);
+			if(!recent.add(fingerprint)) {
+				exact = true;
+			} else if(seen) {
+				probable = true;
+			}
+		}
+
+		if(exact) {
+			numExactDuplicates.increment();
+		} else if(probable) {
+			numProbableDuplicates.increment();
+		}
+
+		for (long fingerprint : fingerprints) {
+			put(fingerprint);
+		}
+
+		if(recent.size() > recentCapacity) {
+			// the fingerprints are all in the Bloom filters, start again
+			recentTable.compareAndSet(recent, new RecentTable(recentCapacity));
+		}
+
+		return(!exact && !probable);
+	}
+
+	/**
+	 * Whether an item has (probably) been seen, without adding it
+	 * 
+	 * @param item The item to look for
+	 * 
+	 * @return whether any of the keys of the item have (probably) been seen
+	 */
+	public boolean mightContain(Item item) {
+		RecentTable recent = recentTable.get();
+		for (long fingerprint : fingerprints(item)) {
+			if(recent.contains(fingerprint) || mightContain(fingerprint)) {
+				return(true);
+			}
+		}
+		return(false);
+	}
+
+	/**
+	 * Get the number of items that have been added
+	 * 
+	 * @return the number of items
+	 */
+	public long getNumItems() { return(numItems.sum()); }
+
+	/**
+	 * Get the number of items that were duplicates of recently seen items, 
+	 * which are always duplicates
+	 * 
+	 * @return the number of exact duplicates
+	 */
+	public long getNumExactDuplicates() { return(numExactDuplicates.sum()); }
+
+	/**
+	 * Get the number of items that were only found in the Bloom filters, some
+	 * of which may be false positives (see 
+	 * {@link #getEstimatedFalsePositiveRate()})
+	 * 
+	 * @return the number of probable duplicates
+	 */
+	public long getNumProbableDuplicates() { return(numProbableDuplicates.sum()); }
+
+	/**
+	 * Get the estimated rate that a key that has not been seen is found in the
+	 * Bloom filters, from the number of bits that are set in each of them
+	 * 
+	 * @return the estimated false positive rate
+	 */
+	public double getEstimatedFalsePositiveRate() {
+		double notFound = 1d;
+		for (BloomFilter bloomFilter : bloomFilters) {
+			notFound *= 1d - bloomFilter.getFalsePositiveRate();
+		}
+		return(1d - notFound);
+	}
+
+	/**
+	 * Get the estimated number of false positives so far, which is the 
+	 * estimated false positive rate of the probable duplicates
+	 * 
+	 * @return the estimated number of false positives
+	 */
+	public double getEstimatedNumFalsePositives() {
+		return(getEstimatedFalsePositiveRate() * (getNumItems() - getNumExactDuplicates()));
+	}
+
+	public int getNumBloomFilters() { return(bloomFilters.length); }
+
+	/**
+	 * Get the number of Bloom filters that have been retired to make room for 
+	 * new ones, once the maximum size of the filters was reached
+	 * 
+	 * @return the number of retired Bloom filters
+	 */
+	public int getNumRetiredBloomFilters() { return(numRetiredBloomFilters); }
+
+	/**
+	 * Get the number of bytes used by the bits of the Bloom filters
+	 * 
+	 * @return the number of bytes
+	 */
+	public long getBloomSizeInBytes() {
+		long numBits = 0L;
+		for (BloomFilter bloomFilter : bloomFilters) {
+			numBits += bloomFilter.numBits;
+		}
+		return(numBits / Byte.SIZE);
+	}
+
+	private long[] fingerprints(Item item) {
+		long[] fingerprints = new long[keys.length];
+		int numFingerprints = 0;
+		for (Key key : keys) {
+			String value;
+			switch (key) {
+			case ID:
+				value = item.getId();
+				break;
+			case URL:
+				value = item.getUrl();
+				break;
+			default:
+				value = item.getExternalUrl();
+				break;
+			}
+
+			if(null == value) {
+				continue;
+			}
+
+			// the keys are often the same (e.g. an id that is the url)
+			long fingerprint = fingerprint(value);
+			boolean repeated = false;
+			for(int i = 0; i < numFingerprints; i++) {
+				repeated |= fingerprints[i] == fingerprint;
+			}
+			if(!repeated) {
+				fingerprints[numFingerprints++] = fingerprint;
+			}
+		}
+		return(numFingerprints == fingerprints.length ? fingerprints : Arrays.copyOf(fingerprints, numFingerprints));
+	}
+
+	static long fingerprint(String value) {
+		XxHash64 xxHash64 = new XxHash64();
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		xxHash64.write(bytes, 0, bytes.length);
+		long fingerprint = xxHash64.getValue();
+		return(fingerprint == EMPTY ? EMPTY_REPLACEMENT : fingerprint);
+	}
+
+	private boolean mightContain(long fingerprint) {
+		for (BloomFilter bloomFilter : bloomFilters) {
+			if(bloomFilter.mightContain(fingerprint)) {
+				return(true);
+			}
+		}
+		return(false);
+	}
+
+	private void put(long fingerprint) {
+		BloomFilter[] current = bloomFilters;
+		BloomFilter last = current[current.length - 1];
+		if(last.put(fingerprint) && last.isFull()) {
+			grow(current);
+		}
+	}
+
+	private synchronized void grow(BloomFilter[] current) {
+		if(current != bloomFilters) {
+			// another thread has already grown the filters
+			return;
+		}
+
+		long usedBits = 0L;
+		for (BloomFilter bloomFilter : current) {
+			usedBits += bloomFilter.numBits;
+		}
+
+		// each filter has twice the capacity and half the false positive rate of
+		// the one before, so that the false positive rate of all of them is at 
+		// most the requested rate
+		BloomFilter last = current[current.length - 1];
+		long capacity = last.capacity > Long.MAX_VALUE / 4 ? last.capacity : last.capacity << 1;
+		double rate = last.rate / 2d;
+		if(getNumBits(capacity, rate) <= Math.min(MAX_FILTER_BITS, maxBloomBits - usedBits)) {
+			BloomFilter[] grown = Arrays.copyOf(current, current.length + 1);
+			grown[current.length] = newBloomFilter(capacity, rate, MAX_FILTER_BITS);
+			bloomFilters = grown;
+			return;
+		}
+
+		// no room for a larger filter - add one like the last (of at most half of
+		// the maximum size, so that two generations are kept), retiring the 
+		// oldest filters to make room for it
+		BloomFilter next = newBloomFilter(last.capacity, last.rate, Math.min(last.numBits, maxBloomBits / 2));
+		int numRetired = 0;
+		while(numRetired < current.length && usedBits + next.numBits > maxBloomBits) {
+			usedBits -= current[numRetired++].numBits;
+		}
+
+		BloomFilter[] rotated = Arrays.copyOfRange(current, numRetired, current.length + 1);
+		rotated[rotated.length - 1] = next;
+		bloomFilters = rotated;
+		numRetiredBloomFilters += numRetired;
+	}
+
+	/**
+	 * Create a Bloom filter of the capacity at the false positive rate, if it 
+	 * would have more than the maximum number of bits, it has the maximum 
+	 * number, and a smaller capacity at the same rate
+	 */
+	private static BloomFilter newBloomFilter(long capacity, double rate, long maxBits) {
+		long numBits = getNumBits(capacity, rate);
+		if(numBits > maxBits) {
+			numBits = Math.max(Long.SIZE, maxBits & -Long.SIZE);
+			capacity = Math.max(1L, (long)(numBits * Math.log(2d) * Math.log(2d) / -Math.log(rate)));
+		}
+		return(new BloomFilter(numBits, capacity, rate));
+	}
+
+	private static long getNumBits(long capacity, double rate) {
+		double numBits = Math.ceil(-capacity * Math.log(rate) / (Math.log(2d) * Math.log(2d)));
+		return(numBits >= Long.MAX_VALUE ? Long.MAX_VALUE : (long)numBits);
+	}
+
+	/**
+	 * An open addressed (linear probing) hash set of fingerprints, which is 
+	 * never resized - it is replaced when it is full
+	 */
+	private static final class RecentTable {
+		private final AtomicLongArray slots;
+		private final int mask;
+		private final AtomicInteger size = new AtomicInteger();
+
+		private RecentTable(int capacity) {
+			// at most half full
+			int numSlots = Integer.highestOneBit(Math.min(capacity, 1 << 29) - 1) << 2;
+			this.slots = new AtomicLongArray(Math.max(2, numSlots));
+			this.mask = slots.length() - 1;
+		}
+
+		/**
+		 * @return true if the fingerprint was added, false if it was already in 
+		 *     the table
+		 */
+		private boolean add(long fingerprint) {
+			int index = (int)fingerprint & mask;
+			for(int i = 0; i <= mask; i++) {
+				long slot = slots.get(index);
+				if(slot == fingerprint) {
+					return(false);
+				}
+
+				if(slot == EMPTY) {
+					if(slots.compareAndSet(index, EMPTY, fingerprint)) {
+						size.incrementAndGet();
+						return(true);
+					}
+					// another thread took the slot, check it again
+					i--;
+					continue;
+				}
+				index = (index + 1) & mask;
+			}
+			// full, the fingerprint is only held by the Bloom filters
+			return(true);
+		}
+
+		private boolean contains(long fingerprint) {
+			int index = (int)fingerprint & mask;
+			for(int i = 0; i <= mask; i++) {
+				long slot = slots.get(index);
+				if(slot == fingerprint) {
+					return(true);
+				}
+				if(slot == EMPTY) {
+					return(false);
+				}
+				index = (index + 1) & mask;
+			}
+			return(false);
+		}
+
+		private int size() { return(size.get()); }
+	}
+
+	/**
+	 * A Bloom filter of fingerprints, with the bits for a fingerprint derived by
+	 * double hashing
+	 */
+	private static final class BloomFilter {
+		private final AtomicLongArray bits;
+		private final long numBits;
+		private final int numHashes;
+		private final long capacity;
+		private final double rate;
+		private final AtomicLong numBitsSet = new AtomicLong();
+		private final AtomicLong numPut = new AtomicLong();
+
+		private BloomFilter(long numBits, long capacity, double rate) {
+			int numLongs = (int)((Math.max(numBits, Long.SIZE) + Long.SIZE - 1) / Long.SIZE);
+			this.bits = new AtomicLongArray(numLongs);
+			this.numBits = (long)numLongs * Long.SIZE;
+			this.numHashes = (int)Math.max(1L, Math.min(32L, Math.round((double)this.numBits / capacity * Math.log(2d))));
+			this.capacity = capacity;
+			this.rate = rate;
+		}
+
+		private boolean mightContain(long fingerprint) {
+			long hash = fingerprint;
+			long increment = increment(fingerprint);
+			for(int i = 0; i < numHashes; i++) {
+				long index = (hash >>> 1) % numBits;
+				if((bits.get((int)(index >>> 6)) & (1L << index)) == 0L) {
+					return(false);
+				}
+				hash += increment;
+			}
+			return(true);
+		}
+
+		/**
+		 * @return true if any of the bits for the fingerprint were set
+		 */
+		private boolean put(long fingerprint) {
+			boolean changed = false;
+			long hash = fingerprint;
+			long increment = increment(fingerprint);
+			for(int i = 0; i < numHashes; i++) {
+				long index = (hash >>> 1) % numBits;
+				int longIndex = (int)(index >>> 6);
+				long mask = 1L << index;
+				long current;
+				while(((current = bits.get(longIndex)) & mask) == 0L) {
+					if(bits.compareAndSet(longIndex, current, current | mask)) {
+						numBitsSet.incrementAndGet();
+						changed = true;
+						break;
+					}
+				}
+				hash += increment;
+			}
+
+			if(changed) {
+				numPut.incrementAndGet();
+			}
+			return(changed);
+		}
+
+		private boolean isFull() { return(numPut.get() >= capacity); }
+
+		private double getFalsePositiveRate() {
+			return(Math.pow((double)numBitsSet.get() / numBits, numHashes));
+		}
+
+		private static long increment(long fingerprint) {
+			long increment = (fingerprint ^ (fingerprint >>> 31)) * 0xBF58476D1CE4E5B9L;
+			return((increment ^ (increment >>> 29)) | 1L);
+		}
+	}
+}
@@ -0,0 +1,421 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A columnar store of the items of many feeds.  Rather than holding an 
+ * {@link Item} object (and its Strings and Lists) for each item, each field
+ * is held in a column of primitive arrays:
+ * 
+ * <ul>
+ *   <li>the ids, URLs and titles are held as UTF-8 bytes, one after the other
+ *     in a single byte array per column, and are only decoded when read</li>
+ *   <li>URLs that start with the <code>home_page_url</code> of their feed are
+ *     held without it</li>
+ *   <li>tags and author names are dictionary encoded, so each distinct value
+ *     is held once, and each item only holds the int ids</li>
+ *   <li>the dates are held as the milliseconds since the epoch, and the 
+ *     offsets that they were written with</li>
+ *   <li>the feed of each item is held as the index of the feed in this 
+ *     store</li>
+ * </ul>
+ * 
+ * Items are read through a (re-usable) {@link ItemView}, or by index, and 
+ * can be turned back into an {@link Item} with {@link #getItem(int)}.  Only
+ * the fields above are stored, the content, attachments and extensions of the
+ * items are not.
+ * 
+ * This is not thread-safe, feeds must not be added while the store is being 
+ * read.
+ * 
+ * @author synapticloop
+ */
+public class ItemStore {
+	/** The value of a date column for an item that does not have the date */
+	public static final long NO_DATE = Long.MIN_VALUE;
+
+	private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+	private int size = 0;
+	private int capacity;
+
+	// the columns of the items
+	private int[] feedIndexes;
+	private final Utf8Column ids;
+	private final Utf8Column urls;
+	// the bits that are set for the URLs that are held without the home page URL of their feed
+	private final BitSet relativeUrls = new BitSet();
+	private final Utf8Column titles;
+	private long[] datesPublished;
+	private long[] datesModified;
+	private short[] datePublishedOffsets;
+	private short[] dateModifiedOffsets;
+	private int[] authorNameIds;
+	// the tag ids of all of the items, one after the other, with the end offset of each item's tag ids
+	private int[] tagIds;
+	private int numTagIds = 0;
+	private int[] tagEnds;
+
+	private final StringDictionary authorNames = new StringDictionary();
+	private final StringDictionary tags = new StringDictionary();
+
+	// the feeds
+	private final List<String> feedUrls = new ArrayList<String>();
+	private final List<String> homePageUrls = new ArrayList<String>();
+
+	public ItemStore() {
+		this(DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Create a new item store
+	 * 
+	 * @param initialCapacity The number of items that the store can hold before
+	 *     it needs to grow
+	 */
+	public ItemStore(int initialCapacity) {
+		this.capacity = Math.max(initialCapacity, 1);
+		this.feedIndexes = new int[capacity];
+		this.ids = new Utf8Column(capacity);
+		this.urls = new Utf8Column(capacity);
+		this.titles = new Utf8Column(capacity);
+		this.datesPublished = new long[capacity];
+		this.datesModified = new long[capacity];
+		this.datePublishedOffsets = new short[capacity];
+		this.dateModifiedOffsets = new short[capacity];
+		this.authorNameIds = new int[capacity];
+		this.tagIds = new int[capacity];
+		this.tagEnds = new int[capacity];
+	}
+
+	/**
+	 * Add a feed, and all of its items, to the store
+	 * 
+	 * @param feed The feed to add
+	 * 
+	 * @return the index of the feed in the store
+	 * 
+	 * @throws IllegalStateException If the store is full (e.g. a column holds
+	 *     2 GB of bytes)
+	 */
+	public int addFeed(Feed feed) {
+		int feedIndex = addFeed(feed.getFeedUrl(), feed.getHomePageUrl());
+		List<Item> items = feed.getItems();
+		if(null != items) {
+			for (Item item : items) {
+				addItem(feedIndex, item);
+			}
+		}
+		return(feedIndex);
+	}
+
+	/**
+	 * Add a feed (without any items) to the store, the items can then be added
+	 * with {@link #addItem(int, Item)}
+	 * 
+	 * @param feedUrl The URL of the feed
+	 * @param homePageUrl The home page URL of the feed, which is the prefix that
+	 *     is removed from the URLs of its items
+	 * 
+	 * @return the index of the feed in the store
+	 */
+	public int addFeed(String feedUrl, String homePageUrl) {
+		feedUrls.add(feedUrl);
+		homePageUrls.add(null == homePageUrl || homePageUrl.isEmpty() ? null : homePageUrl);
+		return(feedUrls.size() - 1);
+	}
+
+	/**
+	 * Add an item to the store
+	 * 
+	 * @param feedIndex The index of the feed that the item belongs to
+	 * @param item The item to add
+	 * 
+	 * @return the index of the item in the store
+	 * 
+	 * @throws IllegalStateException If the store is full (e.g. a column holds
+	 *     2 GB of bytes), in which case the item is not added
+	 */
+	public int addItem(int feedIndex, Item item) {
+		if(feedIndex < 0 || feedIndex >= feedUrls.size()) {
+			throw new IndexOutOfBoundsException("Feed index: " + feedIndex + ", Number of feeds: " + feedUrls.size());
+		}
+
+		if(size == capacity) {
+			grow();
+		}
+
+		// the item is added to all of the columns, or none of them - otherwise the
+		// columns would no longer line up
+		int numTagIdsBefore = numTagIds;
+		try {
+			feedIndexes[size] = feedIndex;
+			ids.add(item.getId());
+
+			String url = item.getUrl();
+			String homePageUrl = homePageUrls.get(feedIndex);
+			if(null != url && null != homePageUrl && url.startsWith(homePageUrl)) {
+				urls.add(url, homePageUrl.length());
+				relativeUrls.set(size);
+			} else {
+				urls.add(url);
+			}
+
+			titles.add(item.getTitle());
+
+			datesPublished[size] = item.hasDatePublished() ? item.getDatePublishedMillis() : NO_DATE;
+			datePublishedOffsets[size] = item.getDatePublishedOffset();
+			datesModified[size] = item.hasDateModified() ? item.getDateModifiedMillis() : NO_DATE;
+			dateModifiedOffsets[size] = item.getDateModifiedOffset();
+
+			Author author = item.getAuthor();
+			authorNameIds[size] = authorNames.intern(null == author ? null : author.getName());
+
+			List<String> itemTags = item.getTags();
+			if(null != itemTags) {
+				for (String tag : itemTags) {
+					if(numTagIds == tagIds.length) {
+						tagIds = Arrays.copyOf(tagIds, Utf8Column.newLength(tagIds.length, numTagIds + 1L));
+					}
+					tagIds[numTagIds++] = tags.intern(tag);
+				}
+			}
+			tagEnds[size] = numTagIds;
+		} catch (RuntimeException ex) {
+			ids.truncate(size);
+			urls.truncate(size);
+			titles.truncate(size);
+			relativeUrls.clear(size);
+			numTagIds = numTagIdsBefore;
+			throw ex;
+		}
+
+		return(size++);
+	}
+
+	private void grow() {
+		capacity = Utf8Column.newLength(capacity, capacity + 1L);
+		feedIndexes = Arrays.copyOf(feedIndexes, capacity);
+		datesPublished = Arrays.copyOf(datesPublished, capacity);
+		datesModified = Arrays.copyOf(datesModified, capacity);
+		datePublishedOffsets = Arrays.copyOf(datePublishedOffsets, capacity);
+		dateModifiedOffsets = Arrays.copyOf(dateModifiedOffsets, capacity);
+		authorNameIds = Arrays.copyOf(authorNameIds, capacity);
+		tagEnds = Arrays.copyOf(tagEnds, capacity);
+	}
+
+	/**
+	 * Release the spare capacity of the store, once all of the feeds have been
+	 * added.  More feeds may still be added afterwards.
+	 */
+	public void trimToSize() {
+		capacity = Math.max(size, 1);
+		feedIndexes = Arrays.copyOf(feedIndexes, capacity);
+		ids.trimToSize();
+		urls.trimToSize();
+		titles.trimToSize();
+		datesPublished = Arrays.copyOf(datesPublished, capacity);
+		datesModified = Arrays.copyOf(datesModified, capacity);
+		datePublishedOffsets = Arrays.copyOf(datePublishedOffsets, capacity);
+		dateModifiedOffsets = Arrays.copyOf(dateModifiedOffsets, capacity);
+		authorNameIds = Arrays.copyOf(authorNameIds, capacity);
+		tagIds = Arrays.copyOf(tagIds, Math.max(numTagIds, 1));
+		tagEnds = Arrays.copyOf(tagEnds, capacity);
+	}
+
+	/**
+	 * Get the number of items in the store
+	 * 
+	 * @return the number of items
+	 */
+	public int size() { return(size); }
+
+	/**
+	 * Get the number of feeds in the store
+	 * 
+	 * @return the number of feeds
+	 */
+	public int getNumFeeds() { return(feedUrls.size()); }
+
+	public String getFeedUrl(int feedIndex) { return(feedUrls.get(feedIndex)); }
+
+	public String getHomePageUrl(int feedIndex) { return(homePageUrls.get(feedIndex)); }
+
+	/**
+	 * Get a view of the item at the index, the view can be moved to other items
+	 * with {@link ItemView#moveTo(int)}
+	 * 
+	 * @param index The index of the item
+	 * 
+	 * @return the view of the item
+	 */
+	public ItemView view(int index) {
+		return(new ItemView(this).moveTo(index));
+	}
+
+	/**
+	 * Pass a view of each of the items in the store to the consumer, in the 
+	 * order that they were added.  The same view is moved from item to item, so
+	 * the consumer must not hold on to it.
+	 * 
+	 * @param consumer The consumer of the views
+	 */
+	public void forEach(Consumer<ItemView> consumer) {
+		ItemView itemView = new ItemView(this);
+		for(int i = 0; i < size; i++) {
+			consumer.accept(itemView.moveTo(i));
+		}
+	}
+
+	/**
+	 * Create a new item from the fields of the item at the index that are held
+	 * in this store
+	 * 
+	 * @param index The index of the item
+	 * 
+	 * @return the new item
+	 */
+	public Item getItem(int index) {
+		String authorName = getAuthorName(index);
+		return(new Item(getId(index), 
+				getUrl(index), 
+				null, 
+				getTitle(index), 
+				null, 
+				null, 
+				null, 
+				null, 
+				null, 
+				getDatePublished(index), 
+				getDateModified(index), 
+				null == authorName ? null : new Author(authorName, null, null), 
+				getTags(index), 
+				new ArrayList<Attachment>(), 
+				BaseJsonFeedObject.NO_EXTENSIONS));
+	}
+
+	void checkIndex(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	public int getFeedIndex(int index) { checkIndex(index); return(feedIndexes[index]); }
+
+	public String getId(int index) { checkIndex(index); return(ids.get(index)); }
+
+	public String getUrl(int index) {
+		checkIndex(index);
+		if(relativeUrls.get(index)) {
+			return(homePageUrls.get(feedIndexes[index]) + urls.get(index));
+		}
+		return(urls.get(index));
+	}
+
+	public String getTitle(int index) { checkIndex(index); return(titles.get(index)); }
+
+	/**
+	 * Get the date that the item was published, as the number of milliseconds 
+	 * since the epoch, without creating a date
+	 * 
+	 * @param index The index of the item
+	 * 
+	 * @return The milliseconds since the epoch, or NO_DATE if it was not set
+	 */
+	public long getDatePublishedMillis(int index) { checkIndex(index); return(datesPublished[index]); }
+
+	public Date getDatePublished(int index) {
+		long millis = getDatePublishedMillis(index);
+		return(NO_DATE == millis ? null : new Rfc3339Date(millis, datePublishedOffsets[index]));
+	}
+
+	/**
+	 * Get the date that the item was modified, as the number of milliseconds 
+	 * since the epoch, without creating a date
+	 * 
+	 * @param index The index of the item
+	 * 
+	 * @return The milliseconds since the epoch, or NO_DATE if it was not set
+	 */
+	public long getDateModifiedMillis(int index) { checkIndex(index); return(datesModified[index]); }
+
+	public Date getDateModified(int index) {
+		long millis = getDateModifiedMillis(index);
+		return(NO_DATE == millis ? null : new Rfc3339Date(millis, dateModifiedOffsets[index]));
+	}
+
+	public String getAuthorName(int index) { checkIndex(index); return(authorNames.get(authorNameIds[index])); }
+
+	public int getNumTags(int index) {
+		checkIndex(index);
+		return(tagEnds[index] - tagStart(index));
+	}
+
+	/**
+	 * Get the dictionary id of one of the tags of an item, ids can be compared
+	 * without decoding the tags, see {@link #getTagId(String)}
+	 * 
+	 * @param index The index of the item
+	 * @param tagIndex The index of the tag of the item
+	 * 
+	 * @return The id of the tag
+	 */
+	public int getTagId(int index, int tagIndex) {
+		if(tagIndex < 0 || tagIndex >= getNumTags(index)) {
+			throw new IndexOutOfBoundsException("Tag index: " + tagIndex + ", Number of tags: " + getNumTags(index));
+		}
+		return(tagIds[tagStart(index) + tagIndex]);
+	}
+
+	public List<String> getTags(int index) {
+		int numTags = getNumTags(index);
+		List<String> itemTags = new ArrayList<String>(numTags);
+		for(int i = tagStart(index); i < tagEnds[index]; i++) {
+			itemTags.add(tags.get(tagIds[i]));
+		}
+		return(itemTags);
+	}
+
+	private int tagStart(int index) {
+		return(0 == index ? 0 : tagEnds[index - 1]);
+	}
+
+	/**
+	 * Get the dictionary id of a tag
+	 * 
+	 * @param tag The tag to look up
+	 * 
+	 * @return the id of the tag, or -1 if no item in the store has the tag
+	 */
+	public int getTagId(String tag) { return(tags.getId(tag)); }
+
+	/**
+	 * Get a tag from its dictionary id
+	 * 
+	 * @param tagId The id of the tag
+	 * 
+	 * @return the tag
+	 */
+	public String getTag(int tagId) { return(tags.get(tagId)); }
+}
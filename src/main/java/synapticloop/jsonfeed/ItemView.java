@@ -0,0 +1,84 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A flyweight view of one of the items in an {@link ItemStore}.  The view 
+ * holds nothing but the store and the index of the item, and reads the fields
+ * straight from the columns of the store, so one view can be moved over all
+ * of the items of the store without creating any objects (other than the 
+ * Strings, Dates and Lists that are returned).
+ * 
+ * @author synapticloop
+ */
+public class ItemView {
+	private final ItemStore itemStore;
+	private int index = -1;
+
+	ItemView(ItemStore itemStore) {
+		this.itemStore = itemStore;
+	}
+
+	/**
+	 * Move this view to another item in the store
+	 * 
+	 * @param index The index of the item
+	 * 
+	 * @return this view
+	 */
+	public ItemView moveTo(int index) {
+		itemStore.checkIndex(index);
+		this.index = index;
+		return(this);
+	}
+
+	public int getIndex() { return(index); }
+
+	public int getFeedIndex() { return(itemStore.getFeedIndex(index)); }
+
+	public String getId() { return(itemStore.getId(index)); }
+
+	public String getUrl() { return(itemStore.getUrl(index)); }
+
+	public String getTitle() { return(itemStore.getTitle(index)); }
+
+	public long getDatePublishedMillis() { return(itemStore.getDatePublishedMillis(index)); }
+
+	public Date getDatePublished() { return(itemStore.getDatePublished(index)); }
+
+	public long getDateModifiedMillis() { return(itemStore.getDateModifiedMillis(index)); }
+
+	public Date getDateModified() { return(itemStore.getDateModified(index)); }
+
+	public String getAuthorName() { return(itemStore.getAuthorName(index)); }
+
+	public int getNumTags() { return(itemStore.getNumTags(index)); }
+
+	public int getTagId(int tagIndex) { return(itemStore.getTagId(index, tagIndex)); }
+
+	public List<String> getTags() { return(itemStore.getTags(index)); }
+
+	/**
+	 * Create a new item from the stored fields of the item that this view is on
+	 * 
+	 * @return the new item
+	 */
+	public Item toItem() { return(itemStore.getItem(index)); }
+}
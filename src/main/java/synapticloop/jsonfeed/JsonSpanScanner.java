@@ -0,0 +1,199 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.nio.ByteBuffer;
+
+import org.json.JSONException;
+
+/**
+ * A scanner that finds the spans (i.e. the start and end byte offsets) of JSON
+ * values in UTF-8 encoded bytes, without decoding them.  As no byte of a 
+ * multi-byte UTF-8 character can be a quote, a backslash or a bracket, the 
+ * structure of the document can be found by looking at the bytes alone.
+ * 
+ * Only the structure is checked - the contents of the values are checked when
+ * they are decoded.  Syntax errors are reported as a {@link JSONException}.
+ * 
+ * @author synapticloop
+ */
+final class JsonSpanScanner {
+	private final ByteSource byteSource;
+	private final long size;
+
+	// the current window of the byte source
+	private ByteBuffer window = null;
+	private long windowStart = 0L;
+	private int windowLimit = 0;
+
+	// the offset of the next byte to read
+	private long position = 0L;
+
+	/**
+	 * Create a new scanner, starting at the first byte of the source
+	 * 
+	 * @param byteSource The source of the bytes
+	 */
+	JsonSpanScanner(ByteSource byteSource) {
+		this.byteSource = byteSource;
+		this.size = byteSource.size();
+	}
+
+	/**
+	 * Get the offset of the next byte that will be read
+	 * 
+	 * @return The offset of the next byte
+	 */
+	long getPosition() { return(position); }
+
+	/**
+	 * Read the next byte that is not whitespace
+	 * 
+	 * @return The byte, or -1 if the end of the source has been reached
+	 */
+	int nextNonWhitespace() {
+		int character;
+		do {
+			character = read();
+		} while(character == ' ' || character == '\n' || character == '\r' || character == '\t');
+		return(character);
+	}
+
+	/**
+	 * Skip over a value, the first byte of which has already been read.  After
+	 * this, the position is the offset of the byte after the value.
+	 * 
+	 * @param first The first byte of the value
+	 */
+	void skipValue(int first) {
+		switch (first) {
+		case '"':
+			skipString();
+			break;
+		case '{':
+		case '[':
+			int depth = 1;
+			while(depth > 0) {
+				int character = read();
+				switch (character) {
+				case '"':
+					skipString();
+					break;
+				case '{':
+				case '[':
+					depth++;
+					break;
+				case '}':
+				case ']':
+					depth--;
+					break;
+				case -1:
+					throw syntaxError("Unexpected end of input");
+				default:
+					break;
+				}
+			}
+			break;
+		case ',':
+		case ':':
+		case '}':
+		case ']':
+			throw syntaxError("Expected a value");
+		case -1:
+			throw syntaxError("Unexpected end of input");
+		default:
+			// a number or a literal, which ends at the next delimiter
+			int character;
+			do {
+				character = read();
+			} while(character != -1 && character != ',' && character != '}' && character != ']' && 
+					character != ' ' && character != '\n' && character != '\r' && character != '\t');
+			if(character != -1) {
+				position--;
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Skip over the rest of a string, the opening quote has already been read
+	 */
+	void skipString() {
+		int character;
+		while((character = read()) != '"') {
+			if(character == '\\') {
+				character = read();
+			}
+			if(character == -1) {
+				throw syntaxError("Unterminated string");
+			}
+		}
+	}
+
+	/**
+	 * Get the contents of a string (including its quotes) if it is made up of 
+	 * only ASCII characters and has no escapes - which is true of (almost) all 
+	 * keys.
+	 * 
+	 * @param start The offset of the opening quote
+	 * @param end The offset after the closing quote
+	 * 
+	 * @return The string, or null if it has escapes or non-ASCII characters
+	 */
+	String asciiString(long start, long end) {
+		char[] characters = new char[(int)(end - start - 2)];
+		for(int i = 0; i < characters.length; i++) {
+			int character = byteAt(start + 1 + i);
+			if(character == '\\' || character >= 0x80) {
+				return(null);
+			}
+			characters[i] = (char)character;
+		}
+		return(new String(characters));
+	}
+
+	/**
+	 * Create a syntax error with the current position in the source
+	 * 
+	 * @param message the message for the error
+	 * 
+	 * @return the exception (which should be thrown by the caller)
+	 */
+	JSONException syntaxError(String message) {
+		return(new JSONException(message + " at byte " + position));
+	}
+
+	private int read() {
+		if(position >= size) {
+			return(-1);
+		}
+
+		int character = byteAt(position);
+		position++;
+		return(character);
+	}
+
+	private int byteAt(long offset) {
+		if(offset < windowStart || offset - windowStart >= windowLimit) {
+			int index = (int)(offset / byteSource.getWindowSize());
+			window = byteSource.getWindow(index);
+			windowStart = (long)index * byteSource.getWindowSize();
+			windowLimit = window.limit();
+		}
+		return(window.get((int)(offset - windowStart)) & 0xff);
+	}
+}
@@ -0,0 +1,725 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A pull tokenizer that reads JSON tokens directly from a character stream,
+ * without building an intermediate document.  The characters are read in
+ * blocks into a re-usable buffer, and values are only turned into Strings
+ * when they are asked for - skipped values are scanned and discarded.
+ * 
+ * Syntax errors are reported as a {@link JSONException}, which is the same
+ * exception that the org.json parser throws.
+ */
+final class JsonTokenizer {
+	static final int TOKEN_BEGIN_OBJECT = 1;
+	static final int TOKEN_END_OBJECT = 2;
+	static final int TOKEN_BEGIN_ARRAY = 3;
+	static final int TOKEN_END_ARRAY = 4;
+	static final int TOKEN_NAME = 5;
+	static final int TOKEN_STRING = 6;
+	static final int TOKEN_NUMBER = 7;
+	static final int TOKEN_TRUE = 8;
+	static final int TOKEN_FALSE = 9;
+	static final int TOKEN_NULL = 10;
+	static final int TOKEN_END_DOCUMENT = 11;
+
+	private static final int TOKEN_NONE = 0;
+
+	private static final int SCOPE_EMPTY_ARRAY = 1;
+	private static final int SCOPE_NONEMPTY_ARRAY = 2;
+	private static final int SCOPE_EMPTY_OBJECT = 3;
+	private static final int SCOPE_DANGLING_NAME = 4;
+	private static final int SCOPE_NONEMPTY_OBJECT = 5;
+	private static final int SCOPE_EMPTY_DOCUMENT = 6;
+	private static final int SCOPE_NONEMPTY_DOCUMENT = 7;
+
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final Reader reader;
+	private final char[] buffer;
+	private int pos = 0;
+	private int limit = 0;
+	// the number of characters that were read before the current buffer
+	private long consumed = 0;
+
+	private int[] stack = new int[32];
+	private int stackSize = 0;
+	private int peeked = TOKEN_NONE;
+
+	// the scratch buffer is used for strings that contain escapes, or span a
+	// buffer boundary
+	private char[] scratch = new char[256];
+	private int scratchLength = 0;
+
+	// the characters of the raw value that is being captured (or null if none 
+	// is), and the start of the characters in the buffer that are still to be
+	// appended to it
+	private StringBuilder capture = null;
+	private int captureStart = 0;
+
+	JsonTokenizer(Reader reader) {
+		this(reader, DEFAULT_BUFFER_SIZE);
+	}
+
+	JsonTokenizer(Reader reader, int bufferSize) {
+		this.reader = reader;
+		this.buffer = new char[bufferSize];
+		stack[stackSize++] = SCOPE_EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Peek at the type of the next token, without consuming it.
+	 * 
+	 * @return the type of the next token (one of the TOKEN_* constants)
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	int peek() throws IOException {
+		if(peeked == TOKEN_NONE) {
+			peeked = doPeek();
+		}
+		return(peeked);
+	}
+
+	/**
+	 * Return whether there is another element in the current array or object
+	 * 
+	 * @return true if there is another element
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	boolean hasNext() throws IOException {
+		int token = peek();
+		return(token != TOKEN_END_OBJECT && token != TOKEN_END_ARRAY && token != TOKEN_END_DOCUMENT);
+	}
+
+	void beginObject() throws IOException {
+		expect(TOKEN_BEGIN_OBJECT, "Expected '{'");
+		push(SCOPE_EMPTY_OBJECT);
+	}
+
+	void endObject() throws IOException {
+		expect(TOKEN_END_OBJECT, "Expected '}'");
+		stackSize--;
+	}
+
+	void beginArray() throws IOException {
+		expect(TOKEN_BEGIN_ARRAY, "Expected '['");
+		push(SCOPE_EMPTY_ARRAY);
+	}
+
+	void endArray() throws IOException {
+		expect(TOKEN_END_ARRAY, "Expected ']'");
+		stackSize--;
+	}
+
+	/**
+	 * Read the next name in the current object
+	 * 
+	 * @return the name
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	String nextName() throws IOException {
+		return(nextName(null));
+	}
+
+	/**
+	 * Read the next name in the current object, looking it up in the symbol 
+	 * table
+	 * 
+	 * @param symbolTable The symbol table to look the name up in, or null to
+	 *     always create a new String
+	 * 
+	 * @return the name
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	String nextName(SymbolTable symbolTable) throws IOException {
+		expect(TOKEN_NAME, "Expected a name");
+		return(readString(symbolTable));
+	}
+
+	/**
+	 * Read the next value as a String.  In the same way as the org.json
+	 * <code>optString</code> method, numbers and booleans are coerced to a
+	 * String, objects and arrays are coerced to their JSON text and a JSON null
+	 * value is returned as null.
+	 * 
+	 * @return The String value, or null if the value was a JSON null
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	String nextString() throws IOException {
+		return(nextString(null));
+	}
+
+	/**
+	 * Read the next value as a String (see {@link #nextString()}), looking up 
+	 * string values in the symbol table
+	 * 
+	 * @param symbolTable The symbol table to look the value up in, or null to
+	 *     always create a new String
+	 * 
+	 * @return The String value, or null if the value was a JSON null
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	String nextString(SymbolTable symbolTable) throws IOException {
+		int token = peek();
+		peeked = TOKEN_NONE;
+		switch (token) {
+		case TOKEN_STRING:
+			return(readString(symbolTable));
+		case TOKEN_NUMBER:
+			return(readNumber());
+		case TOKEN_TRUE:
+			return("true");
+		case TOKEN_FALSE:
+			return("false");
+		case TOKEN_NULL:
+			return(null);
+		case TOKEN_BEGIN_OBJECT:
+		case TOKEN_BEGIN_ARRAY:
+			peeked = token;
+			return(nextValue().toString());
+		default:
+			peeked = token;
+			throw syntaxError("Expected a string value");
+		}
+	}
+
+	/**
+	 * Read the next value as a boolean, a String value of 'true' or 'false'
+	 * will also be accepted (as per the org.json <code>getBoolean</code>)
+	 * 
+	 * @return the boolean value
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	boolean nextBoolean() throws IOException {
+		int token = peek();
+		peeked = TOKEN_NONE;
+		switch (token) {
+		case TOKEN_TRUE:
+			return(true);
+		case TOKEN_FALSE:
+			return(false);
+		case TOKEN_STRING:
+			String value = readString();
+			if("true".equalsIgnoreCase(value)) {
+				return(true);
+			} else if("false".equalsIgnoreCase(value)) {
+				return(false);
+			}
+			throw syntaxError("Expected a boolean value");
+		default:
+			throw syntaxError("Expected a boolean value");
+		}
+	}
+
+	/**
+	 * Read the next value as a long, a numeric String will also be accepted (as
+	 * per the org.json <code>getLong</code>)
+	 * 
+	 * @return the long value
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	long nextLong() throws IOException {
+		int token = peek();
+		peeked = TOKEN_NONE;
+		String value = null;
+		if(token == TOKEN_NUMBER) {
+			value = readNumber();
+		} else if(token == TOKEN_STRING) {
+			value = readString();
+		} else {
+			throw syntaxError("Expected a numeric value");
+		}
+
+		try {
+			if(value.indexOf('.') != -1 || value.indexOf('e') != -1 || value.indexOf('E') != -1) {
+				return((long)Double.parseDouble(value));
+			}
+			return(Long.parseLong(value));
+		} catch(NumberFormatException ex) {
+			throw syntaxError("Expected a numeric value, found '" + value + "'");
+		}
+	}
+
+	/**
+	 * Read the next value as an org.json compatible object, i.e. one of
+	 * JSONObject, JSONArray, String, Number, Boolean or JSONObject.NULL.  This
+	 * is used for the free-form values that are held by extensions.
+	 * 
+	 * @return the org.json compatible value
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	Object nextValue() throws IOException {
+		switch (peek()) {
+		case TOKEN_BEGIN_OBJECT:
+			JSONObject jsonObject = new JSONObject();
+			beginObject();
+			while(hasNext()) {
+				String name = nextName();
+				jsonObject.put(name, nextValue());
+			}
+			endObject();
+			return(jsonObject);
+		case TOKEN_BEGIN_ARRAY:
+			JSONArray jsonArray = new JSONArray();
+			beginArray();
+			while(hasNext()) {
+				jsonArray.put(nextValue());
+			}
+			endArray();
+			return(jsonArray);
+		case TOKEN_NUMBER:
+			peeked = TOKEN_NONE;
+			return(JSONObject.stringToValue(readNumber()));
+		case TOKEN_NULL:
+			peeked = TOKEN_NONE;
+			return(JSONObject.NULL);
+		case TOKEN_TRUE:
+		case TOKEN_FALSE:
+			return(nextBoolean());
+		default:
+			return(nextString());
+		}
+	}
+
+	/**
+	 * Skip over the next value, including any nested objects or arrays.  No
+	 * Strings are created for any of the skipped content.
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	void skipValue() throws IOException {
+		int depth = 0;
+		do {
+			int token = peek();
+			peeked = TOKEN_NONE;
+			switch (token) {
+			case TOKEN_BEGIN_OBJECT:
+				push(SCOPE_EMPTY_OBJECT);
+				depth++;
+				break;
+			case TOKEN_BEGIN_ARRAY:
+				push(SCOPE_EMPTY_ARRAY);
+				depth++;
+				break;
+			case TOKEN_END_OBJECT:
+			case TOKEN_END_ARRAY:
+				stackSize--;
+				depth--;
+				break;
+			case TOKEN_NAME:
+			case TOKEN_STRING:
+				skipString();
+				break;
+			case TOKEN_NUMBER:
+				skipNumber();
+				break;
+			case TOKEN_END_DOCUMENT:
+				throw syntaxError("Unexpected end of input");
+			default:
+				// literals have already been consumed
+				break;
+			}
+		} while(depth > 0);
+	}
+
+	/**
+	 * Read the next value, which must be an object, as its raw JSON text - the
+	 * object is scanned (in the same way as it is skipped), rather than being
+	 * parsed into values.
+	 * 
+	 * @return the JSON text of the object
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	String nextRawObject() throws IOException {
+		if(peek() != TOKEN_BEGIN_OBJECT) {
+			throw syntaxError("Expected '{'");
+		}
+
+		// the opening brace has already been consumed by the peek
+		capture = new StringBuilder();
+		captureStart = pos - 1;
+		try {
+			skipValue();
+			capture.append(buffer, captureStart, pos - captureStart);
+			return(capture.toString());
+		} finally {
+			capture = null;
+		}
+	}
+
+	/**
+	 * Return the number of characters that have been consumed so far
+	 * 
+	 * @return the number of characters consumed
+	 */
+	long getPosition() {
+		return(consumed + pos);
+	}
+
+	/**
+	 * Create a syntax error with the current position in the stream
+	 * 
+	 * @param message the message for the error
+	 * 
+	 * @return the exception (which should be thrown by the caller)
+	 */
+	JSONException syntaxError(String message) {
+		return(new JSONException(message + " at character " + getPosition()));
+	}
+
+	private void expect(int token, String message) throws IOException {
+		if(peek() != token) {
+			throw syntaxError(message);
+		}
+		peeked = TOKEN_NONE;
+	}
+
+	private void push(int scope) {
+		if(stackSize == stack.length) {
+			int[] newStack = new int[stackSize * 2];
+			System.arraycopy(stack, 0, newStack, 0, stackSize);
+			stack = newStack;
+		}
+		stack[stackSize++] = scope;
+	}
+
+	private int doPeek() throws IOException {
+		int scope = stack[stackSize - 1];
+		int character;
+
+		switch (scope) {
+		case SCOPE_EMPTY_ARRAY:
+			stack[stackSize - 1] = SCOPE_NONEMPTY_ARRAY;
+			character = nextNonWhitespace();
+			if(character == ']') {
+				return(TOKEN_END_ARRAY);
+			}
+			return(peekValue(character));
+		case SCOPE_NONEMPTY_ARRAY:
+			character = nextNonWhitespace();
+			if(character == ']') {
+				return(TOKEN_END_ARRAY);
+			} else if(character != ',') {
+				throw syntaxError("Expected ',' or ']'");
+			}
+			return(peekValue(nextNonWhitespace()));
+		case SCOPE_EMPTY_OBJECT:
+		case SCOPE_NONEMPTY_OBJECT:
+			character = nextNonWhitespace();
+			if(character == '}') {
+				return(TOKEN_END_OBJECT);
+			}
+
+			if(scope == SCOPE_NONEMPTY_OBJECT) {
+				if(character != ',') {
+					throw syntaxError("Expected ',' or '}'");
+				}
+				character = nextNonWhitespace();
+			}
+
+			if(character != '"') {
+				throw syntaxError("Expected a name");
+			}
+			stack[stackSize - 1] = SCOPE_DANGLING_NAME;
+			return(TOKEN_NAME);
+		case SCOPE_DANGLING_NAME:
+			stack[stackSize - 1] = SCOPE_NONEMPTY_OBJECT;
+			if(nextNonWhitespace() != ':') {
+				throw syntaxError("Expected ':'");
+			}
+			return(peekValue(nextNonWhitespace()));
+		case SCOPE_EMPTY_DOCUMENT:
+			stack[stackSize - 1] = SCOPE_NONEMPTY_DOCUMENT;
+			return(peekValue(nextNonWhitespace()));
+		default:
+			if(nextNonWhitespace() == -1) {
+				return(TOKEN_END_DOCUMENT);
+			}
+			throw syntaxError("Unexpected content after the end of the document");
+		}
+	}
+
+	private int peekValue(int character) throws IOException {
+		switch (character) {
+		case '{':
+			return(TOKEN_BEGIN_OBJECT);
+		case '[':
+			return(TOKEN_BEGIN_ARRAY);
+		case '"':
+			return(TOKEN_STRING);
+		case 't':
+			expectLiteral("rue");
+			return(TOKEN_TRUE);
+		case 'f':
+			expectLiteral("alse");
+			return(TOKEN_FALSE);
+		case 'n':
+			expectLiteral("ull");
+			return(TOKEN_NULL);
+		case -1:
+			throw syntaxError("Unexpected end of input");
+		default:
+			if(character == '-' || (character >= '0' && character <= '9')) {
+				// un-read the first character of the number
+				pos--;
+				return(TOKEN_NUMBER);
+			}
+			throw syntaxError("Unexpected character '" + (char)character + "'");
+		}
+	}
+
+	private void expectLiteral(String remaining) throws IOException {
+		for(int i = 0; i < remaining.length(); i++) {
+			if(nextChar() != remaining.charAt(i)) {
+				throw syntaxError("Unexpected literal value");
+			}
+		}
+	}
+
+	private int nextChar() throws IOException {
+		if(pos == limit && !fill()) {
+			return(-1);
+		}
+		return(buffer[pos++]);
+	}
+
+	private int nextNonWhitespace() throws IOException {
+		while(true) {
+			if(pos == limit && !fill()) {
+				return(-1);
+			}
+
+			char character = buffer[pos++];
+			if(character != ' ' && character != '\n' && character != '\r' && character != '\t') {
+				return(character);
+			}
+		}
+	}
+
+	private boolean fill() throws IOException {
+		if(null != capture) {
+			capture.append(buffer, captureStart, limit - captureStart);
+			captureStart = 0;
+		}
+		consumed += limit;
+		pos = 0;
+		limit = 0;
+
+		int read;
+		do {
+			read = reader.read(buffer, 0, buffer.length);
+		} while(read == 0);
+
+		if(read == -1) {
+			return(false);
+		}
+
+		limit = read;
+		return(true);
+	}
+
+	/**
+	 * Read the contents of a string, the opening quote has already been
+	 * consumed.  Strings that are wholly within the buffer and contain no
+	 * escapes are created directly from the buffer.
+	 * 
+	 * @return the string
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	private String readString() throws IOException {
+		return(readString(null));
+	}
+
+	/**
+	 * Read the contents of a string, looking it up in the symbol table (so that
+	 * a string that is already in the table is not created again)
+	 * 
+	 * @param symbolTable The symbol table to look the string up in, or null to
+	 *     always create a new String
+	 * 
+	 * @return the string
+	 * 
+	 * @throws IOException if there was an error reading from the underlying reader
+	 */
+	private String readString(SymbolTable symbolTable) throws IOException {
+		scratchLength = 0;
+		int start = pos;
+
+		while(true) {
+			int position = pos;
+			while(position < limit) {
+				char character = buffer[position++];
+				if(character == '"') {
+					pos = position;
+					if(scratchLength == 0) {
+						return(newString(symbolTable, buffer, start, position - start - 1));
+					}
+					appendScratch(buffer, start, position - start - 1);
+					return(newString(symbolTable, scratch, 0, scratchLength));
+				} else if(character == '\\') {
+					appendScratch(buffer, start, position - start - 1);
+					pos = position;
+					appendScratch(readEscape());
+					position = pos;
+					start = pos;
+				}
+			}
+
+			appendScratch(buffer, start, position - start);
+			pos = position;
+			if(!fill()) {
+				throw syntaxError("Unterminated string");
+			}
+			start = pos;
+		}
+	}
+
+	private static String newString(SymbolTable symbolTable, char[] characters, int offset, int length) {
+		if(null == symbolTable) {
+			return(new String(characters, offset, length));
+		}
+		return(symbolTable.lookup(characters, offset, length));
+	}
+
+	private void skipString() throws IOException {
+		while(true) {
+			int character = nextChar();
+			if(character == '"') {
+				return;
+			} else if(character == '\\') {
+				readEscape();
+			} else if(character == -1) {
+				throw syntaxError("Unterminated string");
+			}
+		}
+	}
+
+	private char readEscape() throws IOException {
+		int character = nextChar();
+		switch (character) {
+		case 'u':
+			int value = 0;
+			for(int i = 0; i < 4; i++) {
+				int hex = Character.digit(nextChar(), 16);
+				if(hex == -1) {
+					throw syntaxError("Illegal unicode escape");
+				}
+				value = (value << 4) + hex;
+			}
+			return((char)value);
+		case 'b':
+			return('\b');
+		case 'f':
+			return('\f');
+		case 'n':
+			return('\n');
+		case 'r':
+			return('\r');
+		case 't':
+			return('\t');
+		case '"':
+		case '\\':
+		case '/':
+		case '\'':
+			return((char)character);
+		case -1:
+			throw syntaxError("Unterminated escape sequence");
+		default:
+			throw syntaxError("Illegal escape sequence '\\" + (char)character + "'");
+		}
+	}
+
+	private String readNumber() throws IOException {
+		scratchLength = 0;
+		while(true) {
+			if(pos == limit && !fill()) {
+				break;
+			}
+			char character = buffer[pos];
+			if(!isNumberCharacter(character)) {
+				break;
+			}
+			appendScratch(character);
+			pos++;
+		}
+		return(new String(scratch, 0, scratchLength));
+	}
+
+	private void skipNumber() throws IOException {
+		while(true) {
+			if(pos == limit && !fill()) {
+				return;
+			}
+			if(!isNumberCharacter(buffer[pos])) {
+				return;
+			}
+			pos++;
+		}
+	}
+
+	private static boolean isNumberCharacter(char character) {
+		return((character >= '0' && character <= '9') ||
+				character == '-' ||
+				character == '+' ||
+				character == '.' ||
+				character == 'e' ||
+				character == 'E');
+	}
+
+	private void appendScratch(char character) {
+		if(scratchLength == scratch.length) {
+			growScratch(scratchLength + 1);
+		}
+		scratch[scratchLength++] = character;
+	}
+
+	private void appendScratch(char[] source, int offset, int length) {
+		if(length <= 0) {
+			return;
+		}
+		if(scratchLength + length > scratch.length) {
+			growScratch(scratchLength + length);
+		}
+		System.arraycopy(source, offset, scratch, scratchLength, length);
+		scratchLength += length;
+	}
+
+	private void growScratch(int minimumLength) {
+		char[] newScratch = new char[Math.max(minimumLength, scratch.length * 2)];
+		System.arraycopy(scratch, 0, newScratch, 0, scratchLength);
+		scratch = newScratch;
+	}
+}
@@ -0,0 +1,561 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * A streaming JSON writer that encodes straight to UTF-8 bytes in a re-usable 
+ * buffer, which is written to the output stream (or decoded to the writer) as
+ * it fills.  No intermediate JSON Objects (or strings) are created - names are
+ * written from pre-encoded bytes (see {@link #encodeName(String)}) and values 
+ * are encoded as they are written.
+ * 
+ * The writer keeps track of where the commas go, but does not otherwise check
+ * that the JSON is well-formed.
+ * 
+ * A canonical writer (see {@link #canonical(OutputStream)}) always writes the
+ * same bytes for the same content - the keys of objects and extensions are 
+ * written in sorted order, dates are written in UTC and no cached fragments 
+ * are used - so that the output can be hashed, see 
+ * {@link BaseJsonFeedObject#getFingerprint()}.
+ * 
+ * @author synapticloop
+ */
+final class JsonWriter implements Flushable, Closeable {
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+	// the maximum number of bytes a single character (or surrogate pair) encodes to
+	private static final int MAXIMUM_CHARACTER_BYTES = 6;
+
+	private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] LITERAL_NULL = "null".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] LITERAL_TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] LITERAL_FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+	private final OutputStream outputStream;
+	private final Writer writer;
+	private final CharsetDecoder decoder;
+	private final CharBuffer charBuffer;
+
+	private final byte[] buffer;
+	private int position = 0;
+
+	// whether the current object or array is still empty (one bit per depth), 
+	// which grows as the objects and arrays are nested more deeply
+	private long[] emptyStack = new long[1];
+	private int depth = 0;
+	// whether a name has just been written, so the value does not need a comma
+	private boolean afterName = false;
+
+	private final char[] dateCharacters = new char[29];
+
+	// whether the objects that can be cached should write their cached fragments
+	private final boolean cacheFragments;
+	// whether the output is canonical (sorted keys and UTC dates)
+	private final boolean canonical;
+
+	/**
+	 * Create a new writer that writes UTF-8 bytes to the output stream
+	 * 
+	 * @param outputStream The output stream to write to
+	 */
+	JsonWriter(OutputStream outputStream) {
+		this(outputStream, false);
+	}
+
+	/**
+	 * Create a new writer that writes UTF-8 bytes to the output stream
+	 * 
+	 * @param outputStream The output stream to write to
+	 * @param cacheFragments Whether the objects that are written should cache 
+	 *     (and re-use) their serialized bytes
+	 */
+	JsonWriter(OutputStream outputStream, boolean cacheFragments) {
+		this(outputStream, cacheFragments, false);
+	}
+
+	private JsonWriter(OutputStream outputStream, boolean cacheFragments, boolean canonical) {
+		this.cacheFragments = cacheFragments;
+		this.canonical = canonical;
+		this.outputStream = outputStream;
+		this.writer = null;
+		this.decoder = null;
+		this.charBuffer = null;
+		this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+	}
+
+	/**
+	 * Create a new writer that writes characters to the writer
+	 * 
+	 * @param writer The writer to write to
+	 */
+	JsonWriter(Writer writer) {
+		this(writer, false);
+	}
+
+	/**
+	 * Create a new writer that writes characters to the writer
+	 * 
+	 * @param writer The writer to write to
+	 * @param cacheFragments Whether the objects that are written should cache 
+	 *     (and re-use) their serialized bytes
+	 */
+	JsonWriter(Writer writer, boolean cacheFragments) {
+		this.cacheFragments = cacheFragments;
+		this.canonical = false;
+		this.outputStream = null;
+		this.writer = writer;
+		this.decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.charBuffer = CharBuffer.allocate(DEFAULT_BUFFER_SIZE);
+		this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+	}
+
+	/**
+	 * Create a new writer that writes the canonical UTF-8 bytes to the output 
+	 * stream - the keys of objects are sorted, dates are written in UTC and no
+	 * cached fragments are used.
+	 * 
+	 * @param outputStream The output stream to write to
+	 * 
+	 * @return The canonical writer
+	 */
+	static JsonWriter canonical(OutputStream outputStream) {
+		return(new JsonWriter(outputStream, false, true));
+	}
+
+	/**
+	 * Encode a name, so that it can be written (many times) with 
+	 * {@link #name(byte[])} without being encoded again.
+	 * 
+	 * @param name The name to encode
+	 * 
+	 * @return The UTF-8 bytes of the quoted and escaped name, followed by a colon
+	 */
+	static byte[] encodeName(String name) {
+		StringBuilder stringBuilder = new StringBuilder();
+		stringBuilder.append(JSONObject.quote(name)).append(':');
+		return(stringBuilder.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	boolean isCachingFragments() { return(cacheFragments); }
+
+	boolean isCanonical() { return(canonical); }
+
+	JsonWriter beginObject() throws IOException {
+		return(open('{'));
+	}
+
+	JsonWriter endObject() throws IOException {
+		return(close('}'));
+	}
+
+	JsonWriter beginArray() throws IOException {
+		return(open('['));
+	}
+
+	JsonWriter endArray() throws IOException {
+		return(close(']'));
+	}
+
+	/**
+	 * Write a pre-encoded name, see {@link #encodeName(String)}
+	 * 
+	 * @param encodedName The encoded name
+	 * 
+	 * @return this writer
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	JsonWriter name(byte[] encodedName) throws IOException {
+		beforeValue();
+		writeBytes(encodedName, 0, encodedName.length);
+		afterName = true;
+		return(this);
+	}
+
+	/**
+	 * Write a name that has not been pre-encoded (e.g. an extension key)
+	 * 
+	 * @param name The name
+	 * 
+	 * @return this writer
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	JsonWriter name(String name) throws IOException {
+		beforeValue();
+		writeString(name);
+		writeByte(':');
+		afterName = true;
+		return(this);
+	}
+
+	JsonWriter value(String value) throws IOException {
+		beforeValue();
+		if(null == value) {
+			writeBytes(LITERAL_NULL, 0, LITERAL_NULL.length);
+		} else {
+			writeString(value);
+		}
+		return(this);
+	}
+
+	JsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		byte[] literal = value ? LITERAL_TRUE : LITERAL_FALSE;
+		writeBytes(literal, 0, literal.length);
+		return(this);
+	}
+
+	JsonWriter value(long value) throws IOException {
+		beforeValue();
+		if(value == Long.MIN_VALUE) {
+			writeAscii(Long.toString(value));
+			return(this);
+		}
+
+		if(value < 0) {
+			writeByte('-');
+			value = -value;
+		}
+
+		ensureCapacity(19);
+		int numDigits = 1;
+		for(long remaining = value / 10; remaining > 0; remaining /= 10) {
+			numDigits++;
+		}
+		for(int i = position + numDigits - 1; i >= position; i--) {
+			buffer[i] = (byte)('0' + value % 10);
+			value /= 10;
+		}
+		position += numDigits;
+		return(this);
+	}
+
+	/**
+	 * Write a date as an RFC 3339 string, see {@link Rfc3339Codec#format(Date)},
+	 * a canonical writer always writes the date in UTC.
+	 * 
+	 * @param date The date to write
+	 * 
+	 * @return this writer
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	JsonWriter value(Date date) throws IOException {
+		return(dateValue(date.getTime(), date instanceof Rfc3339Date ? ((Rfc3339Date)date).getOffsetMinutes() : 0));
+	}
+
+	/**
+	 * Write an instant as an RFC 3339 string in the passed in offset, without 
+	 * having to create a date, a canonical writer always writes the date in UTC.
+	 * 
+	 * @param epochMillis The number of milliseconds since the epoch (UTC)
+	 * @param offsetMinutes The offset from UTC in minutes
+	 * 
+	 * @return this writer
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	JsonWriter dateValue(long epochMillis, int offsetMinutes) throws IOException {
+		int length = Rfc3339Codec.format(epochMillis, canonical ? 0 : offsetMinutes, dateCharacters, 0);
+		beforeValue();
+		ensureCapacity(length + 2);
+		buffer[position++] = '"';
+		for(int i = 0; i < length; i++) {
+			buffer[position++] = (byte)dateCharacters[i];
+		}
+		buffer[position++] = '"';
+		return(this);
+	}
+
+	/**
+	 * Write any of the values that org.json uses (JSONObject, JSONArray, String,
+	 * Boolean, Number and JSONObject.NULL), or a map or collection of them, 
+	 * which is how the values of extensions are held.
+	 * 
+	 * @param value The value to write
+	 * 
+	 * @return this writer
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	JsonWriter value(Object value) throws IOException {
+		if(null == value || JSONObject.NULL.equals(value)) {
+			return(value((String)null));
+		} else if(value instanceof String) {
+			return(value((String)value));
+		} else if(value instanceof Boolean) {
+			return(value(((Boolean)value).booleanValue()));
+		} else if(value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return(value(((Number)value).longValue()));
+		} else if(value instanceof Number) {
+			beforeValue();
+			writeAscii(JSONObject.numberToString((Number)value));
+		} else if(value instanceof Date) {
+			return(value((Date)value));
+		} else if(value instanceof JSONObject) {
+			JSONObject jsonObject = (JSONObject)value;
+			beginObject();
+			for (String key : canonical ? new TreeSet<String>(jsonObject.keySet()) : jsonObject.keySet()) {
+				name(key).value(jsonObject.opt(key));
+			}
+			endObject();
+		} else if(value instanceof Map) {
+			beginObject();
+			if(canonical) {
+				Map<String, Object> sorted = new TreeMap<String, Object>();
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+					sorted.put(String.valueOf(entry.getKey()), entry.getValue());
+				}
+				value = sorted;
+			}
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+				name(String.valueOf(entry.getKey())).value(entry.getValue());
+			}
+			endObject();
+		} else if(value instanceof JSONArray) {
+			beginArray();
+			for (Object object : (JSONArray)value) {
+				value(object);
+			}
+			endArray();
+		} else if(value instanceof Collection) {
+			beginArray();
+			for (Object object : (Collection<?>)value) {
+				value(object);
+			}
+			endArray();
+		} else {
+			value(value.toString());
+		}
+		return(this);
+	}
+
+	/**
+	 * Write the bytes of an already serialized value (e.g. a cached fragment)
+	 * 
+	 * @param bytes The UTF-8 bytes of the serialized value
+	 * @param offset The offset of the first byte
+	 * @param length The number of bytes
+	 * 
+	 * @return this writer
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	JsonWriter rawValue(byte[] bytes, int offset, int length) throws IOException {
+		beforeValue();
+		writeBytes(bytes, offset, length);
+		return(this);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		drain();
+		if(null != outputStream) {
+			outputStream.flush();
+		} else {
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Flush all of the buffered bytes - the underlying stream is not closed
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+	}
+
+	private JsonWriter open(char character) throws IOException {
+		beforeValue();
+		writeByte(character);
+		if(depth >>> 6 == emptyStack.length) {
+			emptyStack = Arrays.copyOf(emptyStack, emptyStack.length * 2);
+		}
+		emptyStack[depth >>> 6] |= 1L << depth;
+		depth++;
+		return(this);
+	}
+
+	private JsonWriter close(char character) throws IOException {
+		depth--;
+		emptyStack[depth >>> 6] &= ~(1L << depth);
+		writeByte(character);
+		afterName = false;
+		return(this);
+	}
+
+	private void beforeValue() throws IOException {
+		if(afterName) {
+			afterName = false;
+			return;
+		}
+
+		if(depth > 0) {
+			int index = (depth - 1) >>> 6;
+			long bit = 1L << (depth - 1);
+			if((emptyStack[index] & bit) != 0) {
+				emptyStack[index] &= ~bit;
+			} else {
+				writeByte(',');
+			}
+		}
+	}
+
+	private void writeString(String value) throws IOException {
+		writeByte('"');
+		int length = value.length();
+		for(int i = 0; i < length; i++) {
+			ensureCapacity(MAXIMUM_CHARACTER_BYTES);
+			char character = value.charAt(i);
+			if(character < 0x80) {
+				if(character >= 0x20 && character != '"' && character != '\\') {
+					buffer[position++] = (byte)character;
+					continue;
+				}
+
+				buffer[position++] = '\\';
+				switch (character) {
+				case '"':
+				case '\\':
+					buffer[position++] = (byte)character;
+					break;
+				case '\n':
+					buffer[position++] = 'n';
+					break;
+				case '\r':
+					buffer[position++] = 'r';
+					break;
+				case '\t':
+					buffer[position++] = 't';
+					break;
+				case '\b':
+					buffer[position++] = 'b';
+					break;
+				case '\f':
+					buffer[position++] = 'f';
+					break;
+				default:
+					buffer[position++] = 'u';
+					buffer[position++] = '0';
+					buffer[position++] = '0';
+					buffer[position++] = HEX_DIGITS[character >> 4];
+					buffer[position++] = HEX_DIGITS[character & 0xf];
+					break;
+				}
+			} else if(character < 0x800) {
+				buffer[position++] = (byte)(0xc0 | (character >> 6));
+				buffer[position++] = (byte)(0x80 | (character & 0x3f));
+			} else if(Character.isHighSurrogate(character) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(character, value.charAt(++i));
+				buffer[position++] = (byte)(0xf0 | (codePoint >> 18));
+				buffer[position++] = (byte)(0x80 | ((codePoint >> 12) & 0x3f));
+				buffer[position++] = (byte)(0x80 | ((codePoint >> 6) & 0x3f));
+				buffer[position++] = (byte)(0x80 | (codePoint & 0x3f));
+			} else if(Character.isSurrogate(character)) {
+				// an unpaired surrogate can't be encoded
+				buffer[position++] = '?';
+			} else {
+				buffer[position++] = (byte)(0xe0 | (character >> 12));
+				buffer[position++] = (byte)(0x80 | ((character >> 6) & 0x3f));
+				buffer[position++] = (byte)(0x80 | (character & 0x3f));
+			}
+		}
+		writeByte('"');
+	}
+
+	private void writeAscii(String value) throws IOException {
+		int length = value.length();
+		ensureCapacity(length);
+		if(length > buffer.length) {
+			writeBytes(value.getBytes(StandardCharsets.US_ASCII), 0, length);
+			return;
+		}
+		for(int i = 0; i < length; i++) {
+			buffer[position++] = (byte)value.charAt(i);
+		}
+	}
+
+	private void writeByte(char character) throws IOException {
+		ensureCapacity(1);
+		buffer[position++] = (byte)character;
+	}
+
+	private void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+		while(length > 0) {
+			ensureCapacity(1);
+			int numBytes = Math.min(length, buffer.length - position);
+			System.arraycopy(bytes, offset, buffer, position, numBytes);
+			position += numBytes;
+			offset += numBytes;
+			length -= numBytes;
+		}
+	}
+
+	private void ensureCapacity(int numBytes) throws IOException {
+		if(buffer.length - position < numBytes) {
+			drain();
+		}
+	}
+
+	/**
+	 * Write the buffered bytes to the output stream, or decode them to the 
+	 * writer.  When decoding, the bytes of a character that is split at the end
+	 * of the buffer are kept until the rest of it is written.
+	 * 
+	 * @throws IOException If there was an error writing
+	 */
+	private void drain() throws IOException {
+		if(null != outputStream) {
+			outputStream.write(buffer, 0, position);
+			position = 0;
+			return;
+		}
+
+		// there are never more characters than bytes, so this decodes all of the 
+		// complete characters in one go
+		ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, position);
+		decoder.decode(byteBuffer, charBuffer, false);
+		writer.write(charBuffer.array(), 0, charBuffer.position());
+		charBuffer.clear();
+
+		int remaining = byteBuffer.remaining();
+		System.arraycopy(buffer, byteBuffer.position(), buffer, 0, remaining);
+		position = remaining;
+	}
+}
@@ -0,0 +1,150 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A read-only list of items that only records where each item is in the 
+ * (UTF-8 encoded) bytes of the feed.  Each item is decoded when it is first 
+ * accessed and, optionally, cached so that it is only decoded once - so getting
+ * the first page of items of a large feed only costs the decoding of that page.
+ * 
+ * Items that are not well-formed are only found when they are accessed, when a
+ * JSONException is thrown.
+ * 
+ * @author synapticloop
+ */
+class LazyItemList extends AbstractList<Item> implements RandomAccess {
+	private final FeedParser feedParser;
+	private final ByteSource byteSource;
+	// the start and end offsets of each of the items, one after the other
+	private final long[] spans;
+	private final int size;
+	// the decoded items, or null if they are not cached
+	private final AtomicReferenceArray<Item> items;
+
+	/**
+	 * Create a new lazy list of items
+	 * 
+	 * @param feedParser The parser to decode the items with
+	 * @param byteSource The source of the bytes of the items
+	 * @param spans The start and end offsets of each item, one after the other
+	 * @param size The number of items
+	 * @param cacheItems Whether to cache the items once they have been decoded
+	 */
+	LazyItemList(FeedParser feedParser, ByteSource byteSource, long[] spans, int size, boolean cacheItems) {
+		this.feedParser = feedParser;
+		this.byteSource = byteSource;
+		this.spans = spans;
+		this.size = size;
+		this.items = cacheItems ? new AtomicReferenceArray<Item>(size) : null;
+	}
+
+	@Override
+	public Item get(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+
+		if(null == items) {
+			return(decode(index));
+		}
+
+		Item item = items.get(index);
+		if(null == item) {
+			// if another thread got there first, then use its item
+			items.compareAndSet(index, null, decode(index));
+			item = items.get(index);
+		}
+		return(item);
+	}
+
+	@Override
+	public int size() {
+		return(size);
+	}
+
+	/**
+	 * Split on the indexes of the items (rather than on the iterator, which is
+	 * the default for a list), so that each part of a split decodes its own 
+	 * items, e.g. when validating in parallel.
+	 */
+	@Override
+	public Spliterator<Item> spliterator() {
+		return(new IndexSpliterator(0, size));
+	}
+
+	/**
+	 * Whether the item at the index has been decoded and cached
+	 * 
+	 * @param index The index of the item
+	 * 
+	 * @return true if the item is in the cache
+	 */
+	boolean isCached(int index) {
+		return(null != items && null != items.get(index));
+	}
+
+	private Item decode(int index) {
+		return(feedParser.readItem(byteSource, spans[index * 2], spans[index * 2 + 1]));
+	}
+
+	private class IndexSpliterator implements Spliterator<Item> {
+		private int index;
+		private final int end;
+
+		private IndexSpliterator(int index, int end) {
+			this.index = index;
+			this.end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Item> action) {
+			if(index >= end) {
+				return(false);
+			}
+			action.accept(get(index++));
+			return(true);
+		}
+
+		@Override
+		public Spliterator<Item> trySplit() {
+			int middle = (index + end) >>> 1;
+			if(middle <= index) {
+				return(null);
+			}
+			IndexSpliterator prefix = new IndexSpliterator(index, middle);
+			index = middle;
+			return(prefix);
+		}
+
+		@Override
+		public long estimateSize() {
+			return(end - index);
+		}
+
+		@Override
+		public int characteristics() {
+			return(ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * A reader that decodes a UTF-8 file by memory mapping it a window at a time, 
+ * so that files of any size (including those larger than the 2GB that a single
+ * mapping can cover) can be read without the bytes being copied onto the heap.
+ * 
+ * The channel is not closed by this reader.
+ * 
+ * @author synapticloop
+ */
+class MappedFileReader extends ByteBufferReader {
+	/** The default size of each of the mapped windows (64MB) */
+	static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+	private final FileChannel fileChannel;
+	private final long size;
+	private final int windowSize;
+	// the offset in the file of the start of the current window
+	private long windowStart = 0L;
+
+	/**
+	 * Create a new reader over the file channel
+	 * 
+	 * @param fileChannel The channel of the file to map
+	 * @param windowSize The maximum number of bytes to map at a time, which must
+	 *     be at least 4 bytes (the longest UTF-8 character)
+	 * 
+	 * @throws IOException If the file could not be mapped
+	 */
+	MappedFileReader(FileChannel fileChannel, int windowSize) throws IOException {
+		this(fileChannel, fileChannel.size(), windowSize);
+	}
+
+	private MappedFileReader(FileChannel fileChannel, long size, int windowSize) throws IOException {
+		super(map(fileChannel, 0L, size, windowSize));
+		if(windowSize < 4) {
+			throw new IllegalArgumentException("The window size must be at least 4 bytes");
+		}
+		this.fileChannel = fileChannel;
+		this.size = size;
+		this.windowSize = windowSize;
+	}
+
+	@Override
+	protected boolean isLastBuffer() {
+		return(windowStart + windowSize >= size);
+	}
+
+	@Override
+	protected ByteBuffer nextBuffer(ByteBuffer current) throws IOException {
+		windowStart += current.position();
+		return(map(fileChannel, windowStart, size, windowSize));
+	}
+
+	private static ByteBuffer map(FileChannel fileChannel, long start, long size, int windowSize) throws IOException {
+		return(fileChannel.map(MapMode.READ_ONLY, start, Math.min(windowSize, size - start)));
+	}
+}
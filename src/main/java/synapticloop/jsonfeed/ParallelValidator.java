@@ -0,0 +1,146 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validate a (large) list of objects in parallel.  The list is split with its
+ * spliterator into chunks, each of which is validated into its own report on 
+ * the executor of the validation options.  The chunk reports are then added 
+ * to the report in order, so the errors are the same (and in the same order)
+ * as if the list had been validated sequentially.
+ * 
+ * When a chunk finds as many errors as are still wanted (e.g. the first error
+ * when failing fast), all of the chunks after it are cancelled as their 
+ * errors would never be reported - the chunks before it still run to 
+ * completion, as their errors come first.
+ * 
+ * @author synapticloop
+ */
+final class ParallelValidator {
+	// lists smaller than this are not worth splitting
+	static final int MINIMUM_PARALLEL_SIZE = 1024;
+	// the smallest number of objects in a chunk
+	private static final int MINIMUM_CHUNK_SIZE = 256;
+	// the number of chunks per thread, so that a slow chunk doesn't hold up the rest
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private ParallelValidator() {}
+
+	/**
+	 * Validate the list of child objects, adding the errors to the report under
+	 * the key and the index of each child.  If the list is too small (or its 
+	 * size isn't known) then it is validated on the calling thread.
+	 * 
+	 * @param report The report to add the errors to
+	 * @param children The child objects to validate
+	 * @param key The key of the list of child objects
+	 * 
+	 * @return false if validation should stop
+	 */
+	static boolean validateChildren(ValidationReport report, List<? extends BaseJsonFeedObject> children, String key) {
+		Spliterator<? extends BaseJsonFeedObject> spliterator = children.spliterator();
+		long size = spliterator.getExactSizeIfKnown();
+		if(size < MINIMUM_PARALLEL_SIZE || !spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+			return(BaseJsonFeedObject.validateChildren(report, children, key));
+		}
+
+		int parallelism = report.getValidationOptions().getExecutor() instanceof ForkJoinPool ? 
+				((ForkJoinPool)report.getValidationOptions().getExecutor()).getParallelism() : 
+				Runtime.getRuntime().availableProcessors();
+		long chunkSize = Math.max(MINIMUM_CHUNK_SIZE, size / (parallelism * CHUNKS_PER_THREAD));
+
+		List<Spliterator<? extends BaseJsonFeedObject>> chunks = new ArrayList<Spliterator<? extends BaseJsonFeedObject>>();
+		split(spliterator, chunkSize, chunks);
+
+		// the index of the first chunk that found all of the errors that are wanted
+		AtomicInteger firstFullChunk = new AtomicInteger(Integer.MAX_VALUE);
+		List<CompletableFuture<ValidationReport>> futures = new ArrayList<CompletableFuture<ValidationReport>>(chunks.size());
+		int startIndex = 0;
+		for(int i = 0; i < chunks.size(); i++) {
+			Spliterator<? extends BaseJsonFeedObject> chunk = chunks.get(i);
+			int chunkIndex = i;
+			int chunkStartIndex = startIndex;
+			// the size must be taken before the chunk is handed over
+			startIndex += (int)chunk.getExactSizeIfKnown();
+
+			ValidationReport chunkReport = new ValidationReport(report, () -> firstFullChunk.get() < chunkIndex);
+			futures.add(CompletableFuture.supplyAsync(() -> {
+				validateChunk(chunkReport, chunk, chunkStartIndex, key);
+				if(!chunkReport.isComplete()) {
+					firstFullChunk.accumulateAndGet(chunkIndex, Math::min);
+				}
+				return(chunkReport);
+			}, report.getValidationOptions().getExecutor()));
+		}
+
+		boolean isContinuing = true;
+		for (CompletableFuture<ValidationReport> future : futures) {
+			ValidationReport chunkReport = join(future);
+			if(isContinuing) {
+				isContinuing = report.addAll(chunkReport);
+			}
+		}
+		return(isContinuing);
+	}
+
+	// split the spliterator into chunks (in order) of at most the chunk size
+	private static void split(Spliterator<? extends BaseJsonFeedObject> spliterator, long chunkSize, List<Spliterator<? extends BaseJsonFeedObject>> chunks) {
+		if(spliterator.estimateSize() > chunkSize) {
+			Spliterator<? extends BaseJsonFeedObject> prefix = spliterator.trySplit();
+			if(null != prefix) {
+				split(prefix, chunkSize, chunks);
+				split(spliterator, chunkSize, chunks);
+				return;
+			}
+		}
+		chunks.add(spliterator);
+	}
+
+	private static void validateChunk(ValidationReport report, Spliterator<? extends BaseJsonFeedObject> chunk, int startIndex, String key) {
+		int[] index = { startIndex };
+		while(!report.isStopped() && chunk.tryAdvance(child -> {
+			report.enter(key, index[0]++);
+			child.validate(report);
+			report.exit();
+		})) {
+			// validated the next child
+		}
+	}
+
+	// wait for the chunk, re-throwing anything that it threw
+	private static ValidationReport join(CompletableFuture<ValidationReport> future) {
+		try {
+			return(future.join());
+		} catch (CompletionException ex) {
+			if(ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)ex.getCause();
+			}
+			if(ex.getCause() instanceof Error) {
+				throw (Error)ex.getCause();
+			}
+			throw ex;
+		}
+	}
+}
@@ -0,0 +1,209 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import synapticloop.jsonfeed.SymbolTable.Field;
+
+/**
+ * The options that control how a JSON feed is parsed.  The options are
+ * immutable, each of the <code>with</code> methods returns a new set of
+ * options, so they can be safely shared between threads.
+ * 
+ * <ul>
+ *   <li><code>destructive</code> - whether the keys are removed from the
+ *     passed in JSON Object as they are mapped (the default).  When this is
+ *     false the JSON Object is left untouched and the mapped keys are tracked
+ *     in a bitset instead.</li>
+ *   <li><code>logging</code> - whether every mapped key is trace logged and
+ *     every un-mapped key is logged as a warning (the default).  When this is
+ *     false the un-mapped keys are only counted, see
+ *     {@link BaseJsonFeedObject#getUnMappedKeys()}.</li>
+ *   <li><code>validationOptions</code> - if set, each item is validated as 
+ *     soon as it has been parsed (and the rest of the feed once the feed has 
+ *     been parsed), and the reports are attached to the feed and the items,
+ *     see {@link BaseJsonFeedObject#getValidationReport()}.  There is no need
+ *     to validate the feed again afterwards.  Feeds that are parsed lazily 
+ *     are not validated, as their items are only parsed when accessed.</li>
+ *   <li><code>invalidItems</code> - what to do with an item that is not 
+ *     valid when validating inline - keep it (the default), skip it (so it
+ *     is never added to the feed) or reject the whole feed, by throwing a 
+ *     JSONException.</li>
+ *   <li><code>symbolTable</code> - if set, the values of the configured 
+ *     fields (e.g. tags and author names) are looked up in the symbol table,
+ *     so that each repeated value is only held once, see 
+ *     {@link SymbolTable}.</li>
+ *   <li><code>extensionCodecs</code> - the codecs that decode extensions into
+ *     typed objects, and whether extensions without a codec are kept (the 
+ *     default) or dropped, see {@link ExtensionCodecs}.</li>
+ * </ul>
+ * 
+ * @author synapticloop
+ */
+public class ParseOptions {
+	/**
+	 * What to do with an item that is not valid when validating inline
+	 */
+	public enum InvalidItems {
+		/** Keep the invalid item in the feed */
+		KEEP,
+		/** Skip the invalid item, so that it is never added to the feed */
+		SKIP,
+		/** Reject the whole feed by throwing a JSONException */
+		REJECT
+	}
+
+	/** The default options - destructive with logging, which is how the objects have always been parsed */
+	public static final ParseOptions DEFAULT = new ParseOptions(true, true, null, InvalidItems.KEEP, null, EnumSet.noneOf(Field.class), ExtensionCodecs.NONE);
+	/** Leave the JSON Object untouched and count (rather than log) the un-mapped keys */
+	public static final ParseOptions NON_DESTRUCTIVE = new ParseOptions(false, false, null, InvalidItems.KEEP, null, EnumSet.noneOf(Field.class), ExtensionCodecs.NONE);
+
+	private final boolean destructive;
+	private final boolean logging;
+	private final ValidationOptions validationOptions;
+	private final InvalidItems invalidItems;
+	private final SymbolTable symbolTable;
+	// the fields that are looked up in the symbol table, this is never changed once set
+	private final EnumSet<Field> symbolFields;
+	private final ExtensionCodecs extensionCodecs;
+
+	private ParseOptions(boolean destructive, boolean logging, ValidationOptions validationOptions, InvalidItems invalidItems, SymbolTable symbolTable, EnumSet<Field> symbolFields, ExtensionCodecs extensionCodecs) {
+		this.destructive = destructive;
+		this.logging = logging;
+		this.validationOptions = validationOptions;
+		this.invalidItems = invalidItems;
+		this.symbolTable = symbolTable;
+		this.symbolFields = symbolFields;
+		this.extensionCodecs = extensionCodecs;
+	}
+
+	/**
+	 * Return a copy of these options with the destructive flag set
+	 * 
+	 * @param destructive whether keys are removed from the JSON Object as they
+	 *     are mapped
+	 * 
+	 * @return the new options
+	 */
+	public ParseOptions withDestructive(boolean destructive) {
+		return(new ParseOptions(destructive, logging, validationOptions, invalidItems, symbolTable, symbolFields, extensionCodecs));
+	}
+
+	/**
+	 * Return a copy of these options with the logging flag set
+	 * 
+	 * @param logging whether mapped keys are trace logged and un-mapped keys
+	 *     are logged as warnings
+	 * 
+	 * @return the new options
+	 */
+	public ParseOptions withLogging(boolean logging) {
+		return(new ParseOptions(destructive, logging, validationOptions, invalidItems, symbolTable, symbolFields, extensionCodecs));
+	}
+
+	/**
+	 * Return a copy of these options that validates inline with the validation
+	 * options
+	 * 
+	 * @param validationOptions the options to validate with, or null to not 
+	 *     validate inline
+	 * 
+	 * @return the new options
+	 */
+	public ParseOptions withValidation(ValidationOptions validationOptions) {
+		return(new ParseOptions(destructive, logging, validationOptions, invalidItems, symbolTable, symbolFields, extensionCodecs));
+	}
+
+	/**
+	 * Return a copy of these options with what to do with invalid items set, 
+	 * this is only used when validating inline
+	 * 
+	 * @param invalidItems what to do with an item that is not valid
+	 * 
+	 * @return the new options
+	 */
+	public ParseOptions withInvalidItems(InvalidItems invalidItems) {
+		return(new ParseOptions(destructive, logging, validationOptions, invalidItems, symbolTable, symbolFields, extensionCodecs));
+	}
+
+	/**
+	 * Return a copy of these options that looks up the values of all of the 
+	 * fields in the symbol table
+	 * 
+	 * @param symbolTable the symbol table to look up the values in, or null to 
+	 *     not use a symbol table
+	 * 
+	 * @return the new options
+	 */
+	public ParseOptions withSymbolTable(SymbolTable symbolTable) {
+		return(withSymbolTable(symbolTable, Field.values()));
+	}
+
+	/**
+	 * Return a copy of these options that looks up the values of the passed in
+	 * fields in the symbol table
+	 * 
+	 * @param symbolTable the symbol table to look up the values in, or null to 
+	 *     not use a symbol table
+	 * @param fields the fields whose values are looked up
+	 * 
+	 * @return the new options
+	 */
+	public ParseOptions withSymbolTable(SymbolTable symbolTable, Field... fields) {
+		EnumSet<Field> symbolFields = EnumSet.noneOf(Field.class);
+		if(null != symbolTable) {
+			symbolFields.addAll(Arrays.asList(fields));
+		}
+		return(new ParseOptions(destructive, logging, validationOptions, invalidItems, symbolTable, symbolFields, extensionCodecs));
+	}
+
+	/**
+	 * Return a copy of these options that decodes extensions with the codecs 
+	 * (and drops the extensions that the codecs do not keep)
+	 * 
+	 * @param extensionCodecs the registry of the extension codecs
+	 * 
+	 * @return the new options
+	 */
+	public ParseOptions withExtensionCodecs(ExtensionCodecs extensionCodecs) {
+		return(new ParseOptions(destructive, logging, validationOptions, invalidItems, symbolTable, symbolFields, extensionCodecs));
+	}
+
+	public boolean isDestructive() { return(destructive); }
+
+	public boolean isLogging() { return(logging); }
+
+	public ValidationOptions getValidationOptions() { return(validationOptions); }
+
+	public boolean isValidating() { return(null != validationOptions); }
+
+	public InvalidItems getInvalidItems() { return(invalidItems); }
+
+	/**
+	 * Get the symbol table to look up the values of the field in
+	 * 
+	 * @param field the field
+	 * 
+	 * @return the symbol table, or null if the values of the field are not 
+	 *     looked up
+	 */
+	public SymbolTable getSymbolTable(Field field) { return(symbolFields.contains(field) ? symbolTable : null); }
+
+	public ExtensionCodecs getExtensionCodecs() { return(extensionCodecs); }
+}
@@ -0,0 +1,212 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list that is changed by creating a new list, which shares all
+ * of the structure of the old list that did not change - so both lists can be
+ * read (by any number of threads, without locking) while the new list is 
+ * being created.  The elements are held in a tree of 32 element arrays (a bit
+ * partitioned vector trie) with the last (up to) 32 elements in a separate 
+ * tail array, so:
+ * 
+ * <ul>
+ *   <li>{@link #get(int)} is O(log32 n), which is at most 6 array lookups</li>
+ *   <li>{@link #plus(Object)} (append) copies at most the tail, and is 
+ *     amortised O(1)</li>
+ *   <li>{@link #with(int, Object)} (replace) copies one path through the 
+ *     tree, and is O(log32 n)</li>
+ * </ul>
+ * 
+ * All of the mutating methods of {@link java.util.List} throw an 
+ * UnsupportedOperationException.
+ * 
+ * @param <E> The type of the elements
+ * 
+ * @author synapticloop
+ */
+public final class PersistentList<E> extends AbstractList<E> implements RandomAccess {
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private static final Object[] EMPTY_ARRAY = new Object[0];
+	private static final PersistentList<Object> EMPTY = new PersistentList<Object>(0, BITS, new Object[WIDTH], EMPTY_ARRAY);
+
+	private final int size;
+	// the number of bits to shift the index by to get the index of the root's child
+	private final int shift;
+	private final Object[] root;
+	private final Object[] tail;
+
+	private PersistentList(int size, int shift, Object[] root, Object[] tail) {
+		this.size = size;
+		this.shift = shift;
+		this.root = root;
+		this.tail = tail;
+	}
+
+	/**
+	 * Get the empty list
+	 * 
+	 * @param <E> The type of the elements
+	 * 
+	 * @return the empty list
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentList<E> empty() {
+		return((PersistentList<E>)EMPTY);
+	}
+
+	/**
+	 * Create a list of the elements of the collection, in its iteration order
+	 * 
+	 * @param <E> The type of the elements
+	 * @param elements The elements of the list
+	 * 
+	 * @return the list
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> PersistentList<E> of(Collection<? extends E> elements) {
+		if(elements instanceof PersistentList) {
+			return((PersistentList<E>)elements);
+		}
+
+		PersistentList<E> list = empty();
+		for (E element : elements) {
+			list = list.plus(element);
+		}
+		return(list);
+	}
+
+	@Override
+	public int size() { return(size); }
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		checkIndex(index);
+		return((E)arrayFor(index)[index & MASK]);
+	}
+
+	/**
+	 * Return a new list with the element appended to the end of this list
+	 * 
+	 * @param element The element to append
+	 * 
+	 * @return the new list
+	 */
+	public PersistentList<E> plus(E element) {
+		// there is room in the tail
+		if(size - tailOffset() < WIDTH) {
+			Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+			newTail[tail.length] = element;
+			return(new PersistentList<E>(size + 1, shift, root, newTail));
+		}
+
+		// the full tail is pushed into the tree, which grows a level if the root is full
+		Object[] newRoot;
+		int newShift = shift;
+		if((size >>> BITS) > (1 << shift)) {
+			newRoot = new Object[WIDTH];
+			newRoot[0] = root;
+			newRoot[1] = newPath(shift, tail);
+			newShift += BITS;
+		} else {
+			newRoot = pushTail(shift, root, tail);
+		}
+		return(new PersistentList<E>(size + 1, newShift, newRoot, new Object[] { element }));
+	}
+
+	/**
+	 * Return a new list with the element at the index replaced
+	 * 
+	 * @param index The index of the element to replace
+	 * @param element The element to replace it with
+	 * 
+	 * @return the new list
+	 */
+	public PersistentList<E> with(int index, E element) {
+		checkIndex(index);
+		if(index >= tailOffset()) {
+			Object[] newTail = tail.clone();
+			newTail[index & MASK] = element;
+			return(new PersistentList<E>(size, shift, root, newTail));
+		}
+		return(new PersistentList<E>(size, shift, replace(shift, root, index, element), tail));
+	}
+
+	private void checkIndex(int index) {
+		if(index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	// the index of the first element in the tail
+	private int tailOffset() {
+		return(size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS);
+	}
+
+	private Object[] arrayFor(int index) {
+		if(index >= tailOffset()) {
+			return(tail);
+		}
+
+		Object[] node = root;
+		for(int level = shift; level > 0; level -= BITS) {
+			node = (Object[])node[(index >>> level) & MASK];
+		}
+		return(node);
+	}
+
+	private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+		int childIndex = ((size - 1) >>> level) & MASK;
+		Object[] newParent = parent.clone();
+		if(level == BITS) {
+			newParent[childIndex] = tailNode;
+		} else {
+			Object[] child = (Object[])parent[childIndex];
+			newParent[childIndex] = null == child ? newPath(level - BITS, tailNode) : pushTail(level - BITS, child, tailNode);
+		}
+		return(newParent);
+	}
+
+	private static Object[] newPath(int level, Object[] node) {
+		if(level == 0) {
+			return(node);
+		}
+		Object[] path = new Object[WIDTH];
+		path[0] = newPath(level - BITS, node);
+		return(path);
+	}
+
+	private static Object[] replace(int level, Object[] node, int index, Object element) {
+		Object[] newNode = node.clone();
+		if(level == 0) {
+			newNode[index & MASK] = element;
+		} else {
+			int childIndex = (index >>> level) & MASK;
+			newNode[childIndex] = replace(level - BITS, (Object[])node[childIndex], index, element);
+		}
+		return(newNode);
+	}
+}
@@ -0,0 +1,335 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.text.ParseException;
+import java.util.Date;
+
+/**
+ * Parse and format RFC 3339 date-times (e.g. 2010-02-07T14:04:00-05:00) which
+ * is the format that the JSON feed specification uses for all dates.
+ * 
+ * This is hand-rolled and holds no state at all, so (unlike a shared
+ * SimpleDateFormat) it is safe to use from any number of threads at the same
+ * time without locking.  Fractional seconds are accepted (and kept to the
+ * millisecond), as are both the 'Z' and the numeric offset forms.
+ * 
+ * @author synapticloop
+ */
+public final class Rfc3339Codec {
+	private static final long MILLIS_PER_SECOND = 1000L;
+	private static final long MILLIS_PER_MINUTE = 60L * MILLIS_PER_SECOND;
+	private static final long MILLIS_PER_DAY = 24L * 60L * MILLIS_PER_MINUTE;
+
+	private static final int[] DAYS_IN_MONTH = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+	private static final String ERROR_INVALID_DATE = "Could not parse '%s' as an RFC 3339 date, %s";
+	private static final String ERROR_YEAR_OUT_OF_RANGE = "Could not format the year %d as an RFC 3339 date, the year must be between 0000 and 9999";
+
+	private Rfc3339Codec() {}
+
+	/**
+	 * Parse an RFC 3339 date-time into a date which keeps the original offset.
+	 * 
+	 * @param text The text to parse
+	 * 
+	 * @return The parsed date
+	 * 
+	 * @throws ParseException If the text was not a valid RFC 3339 date-time
+	 */
+	public static Rfc3339Date parse(CharSequence text) throws ParseException {
+		int offsetMinutes = parseOffsetMinutes(text);
+		return(new Rfc3339Date(parseEpochMillis(text, offsetMinutes), offsetMinutes));
+	}
+
+	/**
+	 * Parse an RFC 3339 date-time into the number of milliseconds since the
+	 * epoch (UTC).  No objects are created, unless the text is invalid.
+	 * 
+	 * @param text The text to parse
+	 * 
+	 * @return The number of milliseconds since the epoch
+	 * 
+	 * @throws ParseException If the text was not a valid RFC 3339 date-time
+	 */
+	public static long parseEpochMillis(CharSequence text) throws ParseException {
+		return(parseEpochMillis(text, parseOffsetMinutes(text)));
+	}
+
+	/**
+	 * Parse the offset (in minutes from UTC) from an RFC 3339 date-time.
+	 * 
+	 * @param text The text to parse
+	 * 
+	 * @return The offset from UTC in minutes (0 for 'Z')
+	 * 
+	 * @throws ParseException If the offset was not valid
+	 */
+	public static int parseOffsetMinutes(CharSequence text) throws ParseException {
+		int length = text.length();
+		if(length < 20) {
+			throw parseError(text, "it is too short", 0);
+		}
+
+		char last = text.charAt(length - 1);
+		if(last == 'Z' || last == 'z') {
+			return(0);
+		}
+
+		int signIndex = length - 6;
+		char sign = text.charAt(signIndex);
+		if((sign != '+' && sign != '-') || text.charAt(length - 3) != ':') {
+			throw parseError(text, "expected an offset of 'Z' or '+hh:mm'", signIndex);
+		}
+
+		int hours = digits(text, signIndex + 1, 2);
+		int minutes = digits(text, signIndex + 4, 2);
+		if(hours > 23 || minutes > 59) {
+			throw parseError(text, "the offset is out of range", signIndex);
+		}
+
+		int offsetMinutes = hours * 60 + minutes;
+		return(sign == '-' ? -offsetMinutes : offsetMinutes);
+	}
+
+	private static long parseEpochMillis(CharSequence text, int offsetMinutes) throws ParseException {
+		// yyyy-MM-ddTHH:mm:ss
+		int year = digits(text, 0, 4);
+		expect(text, 4, '-');
+		int month = digits(text, 5, 2);
+		expect(text, 7, '-');
+		int day = digits(text, 8, 2);
+
+		char separator = text.charAt(10);
+		if(separator != 'T' && separator != 't' && separator != ' ') {
+			throw parseError(text, "expected 'T' between the date and the time", 10);
+		}
+
+		int hour = digits(text, 11, 2);
+		expect(text, 13, ':');
+		int minute = digits(text, 14, 2);
+		expect(text, 16, ':');
+		int second = digits(text, 17, 2);
+
+		if(month < 1 || month > 12) {
+			throw parseError(text, "the month is out of range", 5);
+		}
+
+		if(day < 1 || day > DAYS_IN_MONTH[month - 1] || (month == 2 && day == 29 && !isLeapYear(year))) {
+			throw parseError(text, "the day is out of range", 8);
+		}
+
+		// allow for a leap second (60), which rolls over to the next minute
+		if(hour > 23 || minute > 59 || second > 60) {
+			throw parseError(text, "the time is out of range", 11);
+		}
+
+		// optional fractional seconds, kept to the millisecond
+		int millis = 0;
+		int index = 19;
+		if(text.charAt(index) == '.') {
+			index++;
+			int start = index;
+			int multiplier = 100;
+			char character;
+			while(index < text.length() && (character = text.charAt(index)) >= '0' && character <= '9') {
+				millis += (character - '0') * multiplier;
+				multiplier /= 10;
+				index++;
+			}
+
+			if(index == start) {
+				throw parseError(text, "expected digits after the '.'", index);
+			}
+		}
+
+		// the rest of the text must be the offset
+		int offsetLength = text.length() - index;
+		char offsetStart = text.charAt(index);
+		if(offsetLength == 1 ? (offsetStart != 'Z' && offsetStart != 'z') : (offsetLength != 6 || (offsetStart != '+' && offsetStart != '-'))) {
+			throw parseError(text, "unexpected characters before the offset", index);
+		}
+
+		long epochDays = daysFromCivil(year, month, day);
+		long epochMillis = epochDays * MILLIS_PER_DAY +
+				hour * 60L * MILLIS_PER_MINUTE +
+				minute * MILLIS_PER_MINUTE +
+				second * MILLIS_PER_SECOND +
+				millis;
+
+		return(epochMillis - offsetMinutes * MILLIS_PER_MINUTE);
+	}
+
+	/**
+	 * Parse an RFC 3339 date-time into a date, this is a convenience method for
+	 * {@link #parse(CharSequence)}.
+	 * 
+	 * @param text The text to parse
+	 * 
+	 * @return The parsed date
+	 * 
+	 * @throws ParseException If the text was not a valid RFC 3339 date-time
+	 */
+	public static Date parseDate(CharSequence text) throws ParseException {
+		return(parse(text));
+	}
+
+	/**
+	 * Format a date as an RFC 3339 date-time.  If the date is a
+	 * {@link Rfc3339Date}, then it will be formatted with its original offset,
+	 * otherwise it will be formatted in UTC.
+	 * 
+	 * @param date The date to format
+	 * 
+	 * @return The formatted date
+	 * 
+	 * @throws IllegalArgumentException If the year is not between 0000 and 9999
+	 */
+	public static String format(Date date) {
+		int offsetMinutes = 0;
+		if(date instanceof Rfc3339Date) {
+			offsetMinutes = ((Rfc3339Date)date).getOffsetMinutes();
+		}
+		return(format(date.getTime(), offsetMinutes));
+	}
+
+	/**
+	 * Format an instant as an RFC 3339 date-time in the passed in offset.  The
+	 * milliseconds are only written if they are not zero.
+	 * 
+	 * @param epochMillis The number of milliseconds since the epoch (UTC)
+	 * @param offsetMinutes The offset from UTC in minutes
+	 * 
+	 * @return The formatted date
+	 * 
+	 * @throws IllegalArgumentException If the year is not between 0000 and 9999
+	 */
+	public static String format(long epochMillis, int offsetMinutes) {
+		char[] buffer = new char[29];
+		int length = format(epochMillis, offsetMinutes, buffer, 0);
+		return(new String(buffer, 0, length));
+	}
+
+	/**
+	 * Format an instant as an RFC 3339 date-time into a character buffer, which
+	 * must have at least 29 characters of space from the offset.
+	 * 
+	 * @param epochMillis The number of milliseconds since the epoch (UTC)
+	 * @param offsetMinutes The offset from UTC in minutes
+	 * @param buffer The buffer to write the characters into
+	 * @param offset The offset in the buffer to start writing at
+	 * 
+	 * @return The number of characters written
+	 * 
+	 * @throws IllegalArgumentException If the year is not between 0000 and 9999
+	 */
+	public static int format(long epochMillis, int offsetMinutes, char[] buffer, int offset) {
+		long localMillis = epochMillis + offsetMinutes * MILLIS_PER_MINUTE;
+		long epochDays = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+		int millisOfDay = (int)Math.floorMod(localMillis, MILLIS_PER_DAY);
+
+		// civil from days (see http://howardhinnant.github.io/date_algorithms.html)
+		long shifted = epochDays + 719468;
+		long era = Math.floorDiv(shifted, 146097);
+		long dayOfEra = shifted - era * 146097;
+		long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		long monthIndex = (5 * dayOfYear + 2) / 153;
+		int day = (int)(dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+		int month = (int)(monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+		long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		if(year < 0 || year > 9999) {
+			// RFC 3339 only has four digit years
+			throw new IllegalArgumentException(String.format(ERROR_YEAR_OUT_OF_RANGE, year));
+		}
+
+		int position = offset;
+		position = writeDigits(buffer, position, (int)year, 4);
+		buffer[position++] = '-';
+		position = writeDigits(buffer, position, month, 2);
+		buffer[position++] = '-';
+		position = writeDigits(buffer, position, day, 2);
+		buffer[position++] = 'T';
+		position = writeDigits(buffer, position, millisOfDay / 3600000, 2);
+		buffer[position++] = ':';
+		position = writeDigits(buffer, position, (millisOfDay / 60000) % 60, 2);
+		buffer[position++] = ':';
+		position = writeDigits(buffer, position, (millisOfDay / 1000) % 60, 2);
+
+		int millis = millisOfDay % 1000;
+		if(millis != 0) {
+			buffer[position++] = '.';
+			position = writeDigits(buffer, position, millis, 3);
+		}
+
+		if(offsetMinutes == 0) {
+			buffer[position++] = 'Z';
+		} else {
+			int absoluteOffset = Math.abs(offsetMinutes);
+			buffer[position++] = offsetMinutes < 0 ? '-' : '+';
+			position = writeDigits(buffer, position, absoluteOffset / 60, 2);
+			buffer[position++] = ':';
+			position = writeDigits(buffer, position, absoluteOffset % 60, 2);
+		}
+
+		return(position - offset);
+	}
+
+	private static int writeDigits(char[] buffer, int position, int value, int numDigits) {
+		for(int i = numDigits - 1; i >= 0; i--) {
+			buffer[position + i] = (char)('0' + value % 10);
+			value /= 10;
+		}
+		return(position + numDigits);
+	}
+
+	private static long daysFromCivil(int year, int month, int day) {
+		// see http://howardhinnant.github.io/date_algorithms.html
+		int adjustedYear = month <= 2 ? year - 1 : year;
+		long era = Math.floorDiv(adjustedYear, 400);
+		long yearOfEra = adjustedYear - era * 400;
+		long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return(era * 146097 + dayOfEra - 719468);
+	}
+
+	private static boolean isLeapYear(int year) {
+		return((year % 4 == 0 && year % 100 != 0) || year % 400 == 0);
+	}
+
+	private static int digits(CharSequence text, int start, int length) throws ParseException {
+		int value = 0;
+		for(int i = start; i < start + length; i++) {
+			char character = text.charAt(i);
+			if(character < '0' || character > '9') {
+				throw parseError(text, "expected a digit", i);
+			}
+			value = value * 10 + (character - '0');
+		}
+		return(value);
+	}
+
+	private static void expect(CharSequence text, int index, char expected) throws ParseException {
+		if(text.charAt(index) != expected) {
+			throw parseError(text, "expected '" + expected + "'", index);
+		}
+	}
+
+	private static ParseException parseError(CharSequence text, String reason, int index) {
+		return(new ParseException(String.format(ERROR_INVALID_DATE, text, reason), index));
+	}
+}
@@ -0,0 +1,63 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.Date;
+
+/**
+ * A date that remembers the UTC offset that it was written with, so that it
+ * can be formatted back out in the same offset that it was read in.  As this
+ * is a {@link Date}, the instant in time is the same as any other date with
+ * the same time value (and they are equal to each other).
+ * 
+ * @author synapticloop
+ */
+public class Rfc3339Date extends Date {
+	private static final long serialVersionUID = -2215093614358765482L;
+
+	// the offset from UTC in minutes
+	private final int offsetMinutes;
+
+	/**
+	 * Create a new date
+	 * 
+	 * @param epochMillis The number of milliseconds since the epoch (UTC)
+	 * @param offsetMinutes The offset from UTC (in minutes) that the date was
+	 *     written with
+	 */
+	public Rfc3339Date(long epochMillis, int offsetMinutes) {
+		super(epochMillis);
+		this.offsetMinutes = offsetMinutes;
+	}
+
+	/**
+	 * Get the offset from UTC in minutes that this date was written with
+	 * 
+	 * @return the offset from UTC in minutes
+	 */
+	public int getOffsetMinutes() { return(offsetMinutes); }
+
+	/**
+	 * Return the RFC 3339 representation of this date, in the original offset
+	 * 
+	 * @return The RFC 3339 representation of this date
+	 */
+	@Override
+	public String toString() {
+		return(Rfc3339Codec.format(getTime(), offsetMinutes));
+	}
+}
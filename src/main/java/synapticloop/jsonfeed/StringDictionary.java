@@ -0,0 +1,92 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A dictionary of strings that encodes each distinct string as an int id, 
+ * so that a string that is repeated many times (a tag, or the name of an 
+ * author) is only held once, and the things that refer to it only need an 
+ * int.  The ids are allocated from 0 in the order that the strings are first
+ * added.
+ * 
+ * This is not thread-safe.
+ * 
+ * @author synapticloop
+ */
+class StringDictionary {
+	/** The id of a null string, or of a string that is not in the dictionary */
+	static final int NO_ID = -1;
+
+	private final Map<String, Integer> ids = new HashMap<String, Integer>();
+	private String[] values = new String[16];
+
+	/**
+	 * Get the id of the value, adding it to the dictionary if it is not 
+	 * already there
+	 * 
+	 * @param value The value to look up
+	 * 
+	 * @return The id of the value, or NO_ID if the value was null
+	 */
+	int intern(String value) {
+		if(null == value) {
+			return(NO_ID);
+		}
+
+		Integer id = ids.get(value);
+		if(null != id) {
+			return(id);
+		}
+
+		int size = ids.size();
+		if(size == values.length) {
+			values = Arrays.copyOf(values, size * 2);
+		}
+		values[size] = value;
+		ids.put(value, size);
+		return(size);
+	}
+
+	/**
+	 * Get the id of the value, without adding it to the dictionary
+	 * 
+	 * @param value The value to look up
+	 * 
+	 * @return The id of the value, or NO_ID if it is not in the dictionary
+	 */
+	int getId(String value) {
+		Integer id = ids.get(value);
+		return(null == id ? NO_ID : id);
+	}
+
+	/**
+	 * Get the value of an id
+	 * 
+	 * @param id The id of the value
+	 * 
+	 * @return The value, or null if the id was NO_ID
+	 */
+	String get(int id) {
+		return(NO_ID == id ? null : values[id]);
+	}
+
+	int size() { return(ids.size()); }
+}
@@ -0,0 +1,172 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded table of canonical String instances for the values that repeat 
+ * across the items of a feed, and across feeds - the names, URLs and avatars
+ * of authors, tags, mime types, hub types, object keys and the version URL.
+ * 
+ * A value is looked up straight from the characters that it is being parsed 
+ * from, so a value that is already in the table is returned without creating
+ * a String.  The table is a fixed size array of slots, and a value that 
+ * hashes to a slot that holds another value replaces it, so the table never
+ * grows beyond its capacity (the worst case is that a value is created, as it
+ * would have been without the table).  Values longer than the maximum length
+ * are never held.
+ * 
+ * The table is thread-safe, and may be shared by any number of parsers, see
+ * {@link ParseOptions#withSymbolTable(SymbolTable, Field...)}.
+ * 
+ * @author synapticloop
+ */
+public class SymbolTable {
+	/**
+	 * The fields whose values may be looked up in a symbol table
+	 */
+	public enum Field {
+		/** The version URL of the feed */
+		VERSION,
+		/** The keys of the objects, including the names of extensions and the keys within them */
+		KEY,
+		/** The name of an author */
+		AUTHOR_NAME,
+		/** The URL of an author */
+		AUTHOR_URL,
+		/** The avatar of an author */
+		AUTHOR_AVATAR,
+		/** The tags of an item */
+		TAG,
+		/** The mime type of an attachment */
+		MIME_TYPE,
+		/** The type of a hub */
+		HUB_TYPE
+	}
+
+	private static final String ERROR_CAPACITY_MUST_BE_POSITIVE = "The capacity must be at least 1, was %d";
+
+	private static final int DEFAULT_CAPACITY = 4096;
+	private static final int DEFAULT_MAX_LENGTH = 256;
+
+	private final AtomicReferenceArray<String> symbols;
+	private final int mask;
+	private final int maxLength;
+
+	public SymbolTable() {
+		this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+	}
+
+	/**
+	 * Create a new symbol table
+	 * 
+	 * @param capacity The maximum number of values to hold (which is rounded up
+	 *     to a power of two)
+	 * @param maxLength The length of the longest value to hold
+	 */
+	public SymbolTable(int capacity, int maxLength) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException(String.format(ERROR_CAPACITY_MUST_BE_POSITIVE, capacity));
+		}
+		int size = Integer.highestOneBit(Math.min(capacity, 1 << 30));
+		if(size < capacity) {
+			size <<= 1;
+		}
+		this.symbols = new AtomicReferenceArray<String>(size);
+		this.mask = size - 1;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * Look up the canonical instance of the value of the characters, creating
+	 * (and holding) it if it is not already in the table
+	 * 
+	 * @param characters The characters that hold the value
+	 * @param offset The offset of the first character of the value
+	 * @param length The number of characters in the value
+	 * 
+	 * @return the canonical instance of the value
+	 */
+	public String lookup(char[] characters, int offset, int length) {
+		if(length > maxLength) {
+			return(new String(characters, offset, length));
+		}
+
+		// the same hash as String.hashCode(), so that intern() finds the same slot
+		int hash = 0;
+		for(int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + characters[i];
+		}
+
+		int slot = slot(hash);
+		String symbol = symbols.get(slot);
+		if(null != symbol && matches(symbol, characters, offset, length)) {
+			return(symbol);
+		}
+
+		symbol = new String(characters, offset, length);
+		symbols.lazySet(slot, symbol);
+		return(symbol);
+	}
+
+	/**
+	 * Look up the canonical instance of a value that has already been created
+	 * (e.g. by the org.json parser), so that only one instance is held on to
+	 * 
+	 * @param value The value to look up
+	 * 
+	 * @return the canonical instance of the value, or null if the value was null
+	 */
+	public String intern(String value) {
+		if(null == value || value.length() > maxLength) {
+			return(value);
+		}
+
+		int slot = slot(value.hashCode());
+		String symbol = symbols.get(slot);
+		if(value.equals(symbol)) {
+			return(symbol);
+		}
+
+		symbols.lazySet(slot, value);
+		return(value);
+	}
+
+	/**
+	 * Get the number of values that this table can hold
+	 * 
+	 * @return the capacity of this table
+	 */
+	public int getCapacity() { return(symbols.length()); }
+
+	private int slot(int hash) {
+		return((hash ^ (hash >>> 16)) & mask);
+	}
+
+	private static boolean matches(String symbol, char[] characters, int offset, int length) {
+		if(symbol.length() != length) {
+			return(false);
+		}
+		for(int i = 0; i < length; i++) {
+			if(symbol.charAt(i) != characters[offset + i]) {
+				return(false);
+			}
+		}
+		return(true);
+	}
+}
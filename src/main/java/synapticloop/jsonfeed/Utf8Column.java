@@ -0,0 +1,165 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A column of (nullable) strings, held one after the other as UTF-8 bytes in 
+ * a single byte array, with the end offset of each value in an int array - so
+ * a column of a million strings is two arrays, rather than a million String 
+ * objects (and their char/byte arrays).  The strings are only decoded when 
+ * they are retrieved.  As the offsets are ints, a column can hold at most 
+ * (about) 2 GB of UTF-8 bytes - adding more throws an IllegalStateException.
+ * 
+ * This is not thread-safe, the values must not be retrieved while they are 
+ * still being added.
+ * 
+ * @author synapticloop
+ */
+class Utf8Column {
+	private static final String ERROR_COLUMN_IS_FULL = "Could not grow the column to %d, it can hold at most %d";
+
+	// the bytes of the values are grown as they are added, rather than guessed
+	private static final int INITIAL_NUM_BYTES = 256;
+	// the largest array that can be allocated on most JVMs
+	static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+	private byte[] bytes;
+	private int numBytes = 0;
+	// the end offset of each value, the start is the end of the value before
+	private int[] ends;
+	private int size = 0;
+	private final BitSet nulls = new BitSet();
+
+	/**
+	 * Create a new column
+	 * 
+	 * @param initialCapacity The number of values that the column can hold 
+	 *     before it needs to grow
+	 */
+	Utf8Column(int initialCapacity) {
+		this.ends = new int[Math.max(initialCapacity, 1)];
+		this.bytes = new byte[INITIAL_NUM_BYTES];
+	}
+
+	/**
+	 * Add a value to the end of the column
+	 * 
+	 * @param value The value to add, which may be null
+	 * 
+	 * @return the index of the value
+	 */
+	int add(String value) {
+		return(add(value, 0));
+	}
+
+	/**
+	 * Add a value to the end of the column, without its first characters (e.g.
+	 * a prefix that is shared with a lot of the other values, and is held 
+	 * elsewhere)
+	 * 
+	 * @param value The value to add, which may be null
+	 * @param beginIndex The index of the first character of the value to add
+	 * 
+	 * @return the index of the value
+	 */
+	int add(String value, int beginIndex) {
+		if(size == ends.length) {
+			ends = Arrays.copyOf(ends, newLength(ends.length, size + 1L));
+		}
+
+		if(null == value) {
+			nulls.set(size);
+		} else {
+			byte[] encoded = (0 == beginIndex ? value : value.substring(beginIndex)).getBytes(StandardCharsets.UTF_8);
+			if(numBytes + (long)encoded.length > bytes.length) {
+				bytes = Arrays.copyOf(bytes, newLength(bytes.length, numBytes + (long)encoded.length));
+			}
+			System.arraycopy(encoded, 0, bytes, numBytes, encoded.length);
+			numBytes += encoded.length;
+		}
+
+		ends[size] = numBytes;
+		return(size++);
+	}
+
+	/**
+	 * Remove the values from the index to the end of the column, so that a 
+	 * row that could not be added to all of the columns can be rolled back
+	 * 
+	 * @param size The number of values to keep
+	 */
+	void truncate(int size) {
+		if(size >= this.size) {
+			return;
+		}
+
+		nulls.clear(size, this.size);
+		numBytes = 0 == size ? 0 : ends[size - 1];
+		this.size = size;
+	}
+
+	/**
+	 * Get the length to grow an array to - double its length, but at least the 
+	 * minimum length and at most the largest array that can be allocated
+	 * 
+	 * @param length The current length of the array
+	 * @param minLength The length that the array must have
+	 * 
+	 * @return the new length of the array
+	 * 
+	 * @throws IllegalStateException If the minimum length is larger than the 
+	 *     largest array that can be allocated
+	 */
+	static int newLength(int length, long minLength) {
+		if(minLength > MAX_ARRAY_LENGTH) {
+			throw new IllegalStateException(String.format(ERROR_COLUMN_IS_FULL, minLength, MAX_ARRAY_LENGTH));
+		}
+		return((int)Math.max(minLength, Math.min(length * 2L, MAX_ARRAY_LENGTH)));
+	}
+
+	/**
+	 * Get (and decode) the value at the index
+	 * 
+	 * @param index The index of the value
+	 * 
+	 * @return the value, or null if a null value was added
+	 */
+	String get(int index) {
+		if(nulls.get(index)) {
+			return(null);
+		}
+		int start = 0 == index ? 0 : ends[index - 1];
+		return(new String(bytes, start, ends[index] - start, StandardCharsets.UTF_8));
+	}
+
+	boolean isNull(int index) { return(nulls.get(index)); }
+
+	int size() { return(size); }
+
+	/**
+	 * Release the spare capacity of the column, once all of the values have 
+	 * been added
+	 */
+	void trimToSize() {
+		ends = Arrays.copyOf(ends, Math.max(size, 1));
+		bytes = Arrays.copyOf(bytes, numBytes);
+	}
+}
@@ -0,0 +1,55 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+/**
+ * A single validation error, which is addressed by the path (from the object
+ * that was validated) of the key that is in error, e.g. 
+ * <code>$.items[3].author.name</code>.  The path is only built when the error
+ * is found, so valid objects cost nothing.
+ * 
+ * @author synapticloop
+ */
+public final class ValidationError {
+	private final String path;
+	private final String message;
+
+	ValidationError(String path, String message) {
+		this.path = path;
+		this.message = message;
+	}
+
+	/**
+	 * Get the path of the key (or object) that is in error, starting with '$' 
+	 * for the object that was validated
+	 * 
+	 * @return The path
+	 */
+	public String getPath() { return(path); }
+
+	/**
+	 * Get the message that describes the error
+	 * 
+	 * @return The message
+	 */
+	public String getMessage() { return(message); }
+
+	@Override
+	public String toString() {
+		return("[" + path + "] " + message);
+	}
+}
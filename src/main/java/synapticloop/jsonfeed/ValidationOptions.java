@@ -0,0 +1,109 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The options that control how a JSON feed is validated, see 
+ * {@link BaseJsonFeedObject#validate(ValidationOptions)}.  The options are
+ * immutable, each of the <code>with</code> methods returns a new set of
+ * options, so they can be safely shared between threads.
+ * 
+ * <ul>
+ *   <li><code>maxErrors</code> - the maximum number of errors to collect, once
+ *     this many errors have been found validation stops (the default is no 
+ *     limit).</li>
+ *   <li><code>failFast</code> - whether validation stops at the first error, 
+ *     which is the cheapest way to find out whether a feed is valid (the 
+ *     default is false).</li>
+ *   <li><code>executor</code> - the executor to validate the items of a feed
+ *     on in parallel, or null to validate them on the calling thread (the 
+ *     default).  The errors are always reported in the same order as they 
+ *     would be if validated sequentially.</li>
+ * </ul>
+ * 
+ * @author synapticloop
+ */
+public class ValidationOptions {
+	/** The default options - collect all of the errors */
+	public static final ValidationOptions DEFAULT = new ValidationOptions(Integer.MAX_VALUE, false, null);
+	/** Stop at the first error */
+	public static final ValidationOptions FAIL_FAST = new ValidationOptions(Integer.MAX_VALUE, true, null);
+	/** Collect all of the errors, validating the items of a feed in parallel on the common fork join pool */
+	public static final ValidationOptions PARALLEL = new ValidationOptions(Integer.MAX_VALUE, false, ForkJoinPool.commonPool());
+
+	private static final String ERROR_MAX_ERRORS_MUST_BE_POSITIVE = "The maximum number of errors must be at least 1, was %d";
+
+	private final int maxErrors;
+	private final boolean failFast;
+	private final Executor executor;
+
+	private ValidationOptions(int maxErrors, boolean failFast, Executor executor) {
+		this.maxErrors = maxErrors;
+		this.failFast = failFast;
+		this.executor = executor;
+	}
+
+	/**
+	 * Return a copy of these options with the maximum number of errors set
+	 * 
+	 * @param maxErrors the maximum number of errors to collect before validation
+	 *     stops
+	 * 
+	 * @return the new options
+	 */
+	public ValidationOptions withMaxErrors(int maxErrors) {
+		if(maxErrors < 1) {
+			throw new IllegalArgumentException(String.format(ERROR_MAX_ERRORS_MUST_BE_POSITIVE, maxErrors));
+		}
+		return(new ValidationOptions(maxErrors, failFast, executor));
+	}
+
+	/**
+	 * Return a copy of these options with the fail fast flag set
+	 * 
+	 * @param failFast whether validation stops at the first error
+	 * 
+	 * @return the new options
+	 */
+	public ValidationOptions withFailFast(boolean failFast) {
+		return(new ValidationOptions(maxErrors, failFast, executor));
+	}
+
+	/**
+	 * Return a copy of these options with the executor set
+	 * 
+	 * @param executor the executor to validate the items of a feed on in 
+	 *     parallel (e.g. a ForkJoinPool), or null to validate them on the 
+	 *     calling thread
+	 * 
+	 * @return the new options
+	 */
+	public ValidationOptions withExecutor(Executor executor) {
+		return(new ValidationOptions(maxErrors, failFast, executor));
+	}
+
+	public int getMaxErrors() { return(maxErrors); }
+
+	public boolean isFailFast() { return(failFast); }
+
+	public Executor getExecutor() { return(executor); }
+
+	public boolean isParallel() { return(null != executor); }
+}
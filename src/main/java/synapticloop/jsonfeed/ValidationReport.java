@@ -0,0 +1,198 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The result of validating an object (see 
+ * {@link BaseJsonFeedObject#validate(ValidationOptions)}) - the errors that 
+ * were found, each with the path to the key that was in error.
+ * 
+ * Whilst validating, the report keeps track of the path to the object that is
+ * currently being validated (see {@link #enter(String)} and {@link #exit()}) 
+ * as a stack of names and indexes, so that no strings are built unless an 
+ * error is found.  Once the maximum number of errors has been found (or at the
+ * first error when failing fast) the report is stopped, and the objects stop
+ * validating - in which case the report is not complete.
+ * 
+ * @author synapticloop
+ */
+public final class ValidationReport {
+	private static final int NO_INDEX = -1;
+
+	private final ValidationOptions validationOptions;
+	private final int maxErrors;
+	private final List<ValidationError> errors = new ArrayList<ValidationError>();
+	private boolean stopped = false;
+	// whether a report that this report is part of has been stopped, see ParallelValidator
+	private final BooleanSupplier cancelled;
+
+	// the path to the object that is currently being validated
+	private String[] pathNames = new String[8];
+	private int[] pathIndexes = new int[8];
+	private int depth = 0;
+
+	ValidationReport(ValidationOptions validationOptions) {
+		this.validationOptions = validationOptions;
+		this.maxErrors = validationOptions.isFailFast() ? 1 : validationOptions.getMaxErrors();
+		this.cancelled = null;
+	}
+
+	/**
+	 * Create a report for validating part of the objects of another report (on 
+	 * another thread), starting at the same path.  The errors are added back to
+	 * the other report with {@link #addAll(ValidationReport)}.
+	 * 
+	 * @param parent The report that this report is part of
+	 * @param cancelled Whether this report should stop, as the errors that it 
+	 *     would find are no longer needed
+	 */
+	ValidationReport(ValidationReport parent, BooleanSupplier cancelled) {
+		this.validationOptions = parent.validationOptions;
+		this.maxErrors = parent.maxErrors - parent.errors.size();
+		this.cancelled = cancelled;
+		this.pathNames = Arrays.copyOf(parent.pathNames, parent.pathNames.length);
+		this.pathIndexes = Arrays.copyOf(parent.pathIndexes, parent.pathIndexes.length);
+		this.depth = parent.depth;
+	}
+
+	/**
+	 * Whether no errors were found
+	 * 
+	 * @return true if the object is valid
+	 */
+	public boolean isValid() { return(errors.isEmpty()); }
+
+	/**
+	 * Whether every object was validated, this is false if validation was 
+	 * stopped early (either failing fast, or on reaching the maximum number of 
+	 * errors) so there may be more errors than were reported.
+	 * 
+	 * @return true if validation ran to completion
+	 */
+	public boolean isComplete() { return(!stopped); }
+
+	/**
+	 * Get the errors that were found, in the order that they were found
+	 * 
+	 * @return The errors
+	 */
+	public List<ValidationError> getErrors() { return(Collections.unmodifiableList(errors)); }
+
+	/**
+	 * Get the number of errors that were found
+	 * 
+	 * @return The number of errors
+	 */
+	public int getNumErrors() { return(errors.size()); }
+
+	/**
+	 * Whether validation should stop, as enough errors have been found
+	 * 
+	 * @return true if validation should stop
+	 */
+	boolean isStopped() { return(stopped || (null != cancelled && cancelled.getAsBoolean())); }
+
+	ValidationOptions getValidationOptions() { return(validationOptions); }
+
+	/**
+	 * Add the errors of another report to this one, up to the maximum number of
+	 * errors
+	 * 
+	 * @param report The report to add the errors from
+	 * 
+	 * @return false if validation should stop
+	 */
+	boolean addAll(ValidationReport report) {
+		for (ValidationError validationError : report.errors) {
+			if(stopped) {
+				break;
+			}
+			errors.add(validationError);
+			stopped = errors.size() >= maxErrors;
+		}
+		return(!stopped);
+	}
+
+	/**
+	 * Enter a (non-array) child object, e.g. <code>author</code>
+	 * 
+	 * @param name The key of the child object
+	 */
+	void enter(String name) {
+		enter(name, NO_INDEX);
+	}
+
+	/**
+	 * Enter an element of an array of child objects, e.g. 
+	 * <code>items[3]</code>
+	 * 
+	 * @param name The key of the array
+	 * @param index The index of the element in the array
+	 */
+	void enter(String name, int index) {
+		if(depth == pathNames.length) {
+			pathNames = Arrays.copyOf(pathNames, depth * 2);
+			pathIndexes = Arrays.copyOf(pathIndexes, depth * 2);
+		}
+		pathNames[depth] = name;
+		pathIndexes[depth] = index;
+		depth++;
+	}
+
+	/**
+	 * Exit the child object that was last entered
+	 */
+	void exit() {
+		depth--;
+	}
+
+	/**
+	 * Add an error for the key of the object that is currently being validated
+	 * 
+	 * @param key The key that is in error, or null if the error is for the 
+	 *     object as a whole
+	 * @param message The message that describes the error
+	 * 
+	 * @return false if validation should stop
+	 */
+	boolean error(String key, String message) {
+		if(stopped) {
+			return(false);
+		}
+
+		StringBuilder stringBuilder = new StringBuilder("$");
+		for(int i = 0; i < depth; i++) {
+			stringBuilder.append('.').append(pathNames[i]);
+			if(pathIndexes[i] != NO_INDEX) {
+				stringBuilder.append('[').append(pathIndexes[i]).append(']');
+			}
+		}
+		if(null != key) {
+			stringBuilder.append('.').append(key);
+		}
+
+		errors.add(new ValidationError(stringBuilder.toString(), message));
+		stopped = errors.size() >= maxErrors;
+		return(!stopped);
+	}
+}
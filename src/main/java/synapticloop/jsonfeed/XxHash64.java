@@ -0,0 +1,191 @@
+package synapticloop.jsonfeed;
+
+/*
+ * Copyright (c) 2017 Synapticloop.
+ * 
+ * All rights reserved.
+ * 
+ * This code may contain contributions from other parties which, where 
+ * applicable, will be listed in the default build file for the project 
+ * ~and/or~ in a file named CONTRIBUTORS.txt in the root of the project.
+ * 
+ * This source code and any derived binaries are covered by the terms and 
+ * conditions of the Licence agreement ("the Licence").  You may not use this 
+ * source code or any derived binaries except in compliance with the Licence.  
+ * A copy of the Licence is available in the file named LICENSE.txt shipped with 
+ * this source code or binaries.
+ */
+
+import java.io.OutputStream;
+
+/**
+ * A streaming implementation of the 64-bit xxHash (see 
+ * https://github.com/Cyan4973/xxHash), which is written to as an output stream
+ * so that JSON can be hashed as it is serialized, without being buffered.
+ * 
+ * @author synapticloop
+ */
+final class XxHash64 extends OutputStream {
+	private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME_3 = 0x165667B19E3779F9L;
+	private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+	private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+	private static final int STRIPE_LENGTH = 32;
+
+	private final long seed;
+	private long accumulator1;
+	private long accumulator2;
+	private long accumulator3;
+	private long accumulator4;
+
+	// the bytes that do not (yet) make up a whole stripe
+	private final byte[] buffer = new byte[STRIPE_LENGTH];
+	private int bufferLength = 0;
+	private long totalLength = 0L;
+
+	/**
+	 * Create a new hash with a seed of 0
+	 */
+	XxHash64() {
+		this(0L);
+	}
+
+	/**
+	 * Create a new hash with the passed in seed
+	 * 
+	 * @param seed The seed for the hash
+	 */
+	XxHash64(long seed) {
+		this.seed = seed;
+		this.accumulator1 = seed + PRIME_1 + PRIME_2;
+		this.accumulator2 = seed + PRIME_2;
+		this.accumulator3 = seed;
+		this.accumulator4 = seed - PRIME_1;
+	}
+
+	@Override
+	public void write(int b) {
+		buffer[bufferLength++] = (byte)b;
+		totalLength++;
+		if(bufferLength == STRIPE_LENGTH) {
+			processStripe(buffer, 0);
+			bufferLength = 0;
+		}
+	}
+
+	@Override
+	public void write(byte[] bytes, int offset, int length) {
+		totalLength += length;
+
+		if(bufferLength > 0) {
+			int numBytes = Math.min(length, STRIPE_LENGTH - bufferLength);
+			System.arraycopy(bytes, offset, buffer, bufferLength, numBytes);
+			bufferLength += numBytes;
+			offset += numBytes;
+			length -= numBytes;
+			if(bufferLength < STRIPE_LENGTH) {
+				return;
+			}
+			processStripe(buffer, 0);
+			bufferLength = 0;
+		}
+
+		while(length >= STRIPE_LENGTH) {
+			processStripe(bytes, offset);
+			offset += STRIPE_LENGTH;
+			length -= STRIPE_LENGTH;
+		}
+
+		System.arraycopy(bytes, offset, buffer, 0, length);
+		bufferLength = length;
+	}
+
+	/**
+	 * Write a long (as 8 little-endian bytes) to the hash
+	 * 
+	 * @param value The value to write
+	 */
+	void writeLong(long value) {
+		for(int i = 0; i < 8; i++) {
+			write((int)(value >>> (i * 8)));
+		}
+	}
+
+	/**
+	 * Get the hash of all of the bytes that have been written so far, more 
+	 * bytes may be written after this.
+	 * 
+	 * @return The hash
+	 */
+	long getValue() {
+		long hash;
+		if(totalLength >= STRIPE_LENGTH) {
+			hash = Long.rotateLeft(accumulator1, 1) + Long.rotateLeft(accumulator2, 7) + Long.rotateLeft(accumulator3, 12) + Long.rotateLeft(accumulator4, 18);
+			hash = mergeRound(hash, accumulator1);
+			hash = mergeRound(hash, accumulator2);
+			hash = mergeRound(hash, accumulator3);
+			hash = mergeRound(hash, accumulator4);
+		} else {
+			hash = seed + PRIME_5;
+		}
+
+		hash += totalLength;
+
+		int index = 0;
+		while(index + 8 <= bufferLength) {
+			hash ^= round(0L, getLong(buffer, index));
+			hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+			index += 8;
+		}
+
+		if(index + 4 <= bufferLength) {
+			hash ^= (getInt(buffer, index) & 0xFFFFFFFFL) * PRIME_1;
+			hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+			index += 4;
+		}
+
+		while(index < bufferLength) {
+			hash ^= (buffer[index] & 0xFF) * PRIME_5;
+			hash = Long.rotateLeft(hash, 11) * PRIME_1;
+			index++;
+		}
+
+		hash ^= hash >>> 33;
+		hash *= PRIME_2;
+		hash ^= hash >>> 29;
+		hash *= PRIME_3;
+		hash ^= hash >>> 32;
+		return(hash);
+	}
+
+	private void processStripe(byte[] bytes, int offset) {
+		accumulator1 = round(accumulator1, getLong(bytes, offset));
+		accumulator2 = round(accumulator2, getLong(bytes, offset + 8));
+		accumulator3 = round(accumulator3, getLong(bytes, offset + 16));
+		accumulator4 = round(accumulator4, getLong(bytes, offset + 24));
+	}
+
+	private static long round(long accumulator, long input) {
+		accumulator += input * PRIME_2;
+		accumulator = Long.rotateLeft(accumulator, 31);
+		return(accumulator * PRIME_1);
+	}
+
+	private static long mergeRound(long hash, long accumulator) {
+		hash ^= round(0L, accumulator);
+		return(hash * PRIME_1 + PRIME_4);
+	}
+
+	private static long getLong(byte[] bytes, int offset) {
+		return((getInt(bytes, offset) & 0xFFFFFFFFL) | ((long)getInt(bytes, offset + 4) << 32));
+	}
+
+	private static int getInt(byte[] bytes, int offset) {
+		return((bytes[offset] & 0xFF) | 
+				(bytes[offset + 1] & 0xFF) << 8 | 
+				(bytes[offset + 2] & 0xFF) << 16 | 
+				(bytes[offset + 3] & 0xFF) << 24);
+	}
+}
@@ -1,6 +1,9 @@
 package synapticloop.jsonfeed;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +21,20 @@ public class ExtensionTest {
 	private static final String LITE_JSON = "{\"key\": \"value\", \"something\": \"else\", \"boolean\": false}";
 	private static final String JSON_BAD_KEY_1 = "{\"_bad_key\": \"OK\"}";
 	private static final String JSON_BAD_KEY_2 = "{\"bad.key\": \"OK\", \"another.bad.key\": \"OK\"}";
+	private static final String ITEM_JSON = "{\"id\": \"1\", \"_blue_shed\": {\"about\": \"https://blueshed-podcasts.com/{docs}\", \"explicit\": true, \"nested\": {\"list\": [1, \"}\"]}}, \"_other\": {\"key\": \"value\"}, \"_not_an_object\": 42}";
+	private static final String FEED_JSON = "{\"title\": \"title\", \"items\": [" + ITEM_JSON + "]}";
+
+	private static final ExtensionCodecs BLUE_SHED_CODECS = ExtensionCodecs.NONE.with("_blue_shed", jsonObject -> new BlueShed(jsonObject.getString("about"), jsonObject.getBoolean("explicit")));
+
+	private static class BlueShed {
+		private final String about;
+		private final boolean explicit;
+
+		private BlueShed(String about, boolean explicit) {
+			this.about = about;
+			this.explicit = explicit;
+		}
+	}
 
 	@Test
 	public void testEmptyJSON() throws ValidationException {
@@ -71,5 +88,90 @@ public class ExtensionTest {
 		assertEquals(2, extension.getValidationErrors().size());
 	}
 
+	@Test
+	public void testLazyStreaming() throws IOException {
+		Feed feed = new FeedParser(ParseOptions.DEFAULT.withExtensionCodecs(BLUE_SHED_CODECS)).parse(new StringReader(FEED_JSON));
+		assertLazy(feed.getItems().get(0));
+	}
+
+	@Test
+	public void testLazyJSONObject() {
+		assertLazy(new Item(new JSONObject(ITEM_JSON), ParseOptions.DEFAULT.withExtensionCodecs(BLUE_SHED_CODECS)));
+	}
+
+	private static void assertLazy(Item item) {
+		Extension extension = item.getExtension("_blue_shed");
+		assertFalse(extension.isDecoded());
+
+		BlueShed blueShed = item.getExtension("_blue_shed", BlueShed.class);
+		assertEquals("https://blueshed-podcasts.com/{docs}", blueShed.about);
+		assertTrue(blueShed.explicit);
+		assertSame(blueShed, item.getExtension("_blue_shed", BlueShed.class));
+		assertFalse(extension.isDecoded());
+
+		// there is no codec for the other extension, or an extension that is not an object
+		assertNull(item.getExtension("_other", BlueShed.class));
+		assertEquals("value", item.getExtension("_other").getValue("key"));
+		assertNull(item.getExtension("_not_an_object"));
+
+		assertEquals("}", ((JSONObject)extension.getValue("nested")).getJSONArray("list").get(1));
+		assertTrue(extension.isDecoded());
+		assertSame(blueShed, item.getExtension("_blue_shed", BlueShed.class));
+	}
+
+	@Test
+	public void testDropUnregistered() throws IOException {
+		ParseOptions parseOptions = ParseOptions.DEFAULT.withExtensionCodecs(BLUE_SHED_CODECS.withKeepUnregistered(false));
+		Item item = new FeedParser(parseOptions).parse(new StringReader(FEED_JSON)).getItems().get(0);
+		assertNotNull(item.getExtension("_blue_shed", BlueShed.class));
+		assertNull(item.getExtension("_other"));
+		assertEquals(1, item.getExtensions().size());
+
+		item = new Item(new JSONObject(ITEM_JSON), parseOptions);
+		assertNull(item.getExtension("_other"));
+		assertEquals(1, item.getExtensions().size());
+	}
+
+	@Test
+	public void testRawObjectAcrossBuffers() throws IOException {
+		JsonTokenizer tokenizer = new JsonTokenizer(new StringReader(ITEM_JSON), 4);
+		tokenizer.beginObject();
+		assertEquals("id", tokenizer.nextName());
+		assertEquals("1", tokenizer.nextString());
+		assertEquals("_blue_shed", tokenizer.nextName());
+		String rawObject = tokenizer.nextRawObject();
+		assertTrue(new JSONObject(ITEM_JSON).getJSONObject("_blue_shed").similar(new JSONObject(rawObject)));
+		assertEquals("_other", tokenizer.nextName());
+	}
+
+	@Test
+	public void testLazyWrite() throws IOException {
+		Item item = new FeedParser().parse(new StringReader(FEED_JSON)).getItems().get(0);
+		Item expected = new Item(new JSONObject(ITEM_JSON));
+		ByteArrayOutputStream expectedBytes = new ByteArrayOutputStream();
+		expected.writeCanonicalTo(expectedBytes);
+		ByteArrayOutputStream itemBytes = new ByteArrayOutputStream();
+		item.writeCanonicalTo(itemBytes);
+		assertEquals(expectedBytes.toString("UTF-8"), itemBytes.toString("UTF-8"));
+	}
+
+	@Test
+	public void testWriteWithoutDecoding() throws IOException {
+		Item streamed = new FeedParser().parse(new StringReader(FEED_JSON)).getItems().get(0);
+		Item parsed = new Item(new JSONObject(ITEM_JSON));
+		JSONObject expected = new JSONObject(ITEM_JSON).getJSONObject("_blue_shed");
+
+		for (Item item : new Item[] { streamed, parsed }) {
+			ByteArrayOutputStream itemBytes = new ByteArrayOutputStream();
+			item.writeTo(itemBytes, false);
+			assertFalse(item.getExtension("_blue_shed").isDecoded());
+			assertTrue(expected.similar(new JSONObject(itemBytes.toString("UTF-8")).getJSONObject("_blue_shed")));
+
+			// the keys of a canonical writer are sorted, so it is decoded
+			item.writeCanonicalTo(new ByteArrayOutputStream());
+			assertTrue(item.getExtension("_blue_shed").isDecoded());
+		}
+	}
+
 
 }
@@ -0,0 +1,95 @@
+package synapticloop.jsonfeed;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FeedDiffTest {
+	private static final String PREVIOUS_JSON = "{\"title\": \"title\", \"items\": [" + 
+			"{\"id\": \"1\", \"content_text\": \"one\", \"date_modified\": \"2017-05-28T00:37:21Z\"}, " + 
+			"{\"id\": \"2\", \"content_text\": \"two\"}, " + 
+			"{\"id\": \"3\", \"content_text\": \"three\"}, " + 
+			"{\"id\": \"4\", \"content_text\": \"four\", \"date_modified\": \"2017-05-28T00:37:21Z\"}, " + 
+			"{\"id\": \"5\", \"content_text\": \"five\"}]}";
+
+	// 1 has a new date, 2 has new content, 3 is unchanged (but re-ordered), 4 has
+	// new content but the same date (so is not modified), 5 is removed and 6 is added
+	private static final String CURRENT_JSON = "{\"title\": \"title\", \"items\": [" + 
+			"{\"id\": \"6\", \"content_text\": \"six\"}, " + 
+			"{\"content_text\": \"three\", \"id\": \"3\"}, " + 
+			"{\"id\": \"1\", \"content_text\": \"one\", \"date_modified\": \"2017-05-29T00:37:21Z\"}, " + 
+			"{\"id\": \"2\", \"content_text\": \"two changed\"}, " + 
+			"{\"id\": \"4\", \"content_text\": \"four changed\", \"date_modified\": \"2017-05-28T10:37:21+10:00\"}]}";
+
+	@Test
+	public void testCompute() throws IOException {
+		Feed previous = Feed.parse(new StringReader(PREVIOUS_JSON));
+		Feed current = Feed.parse(new StringReader(CURRENT_JSON));
+
+		FeedDiff feedDiff = FeedDiff.compute(previous, current);
+		assertTrue(feedDiff.hasChanges());
+		assertEquals(Arrays.asList("6"), ids(feedDiff.getAdded()));
+		assertEquals(Arrays.asList("5"), ids(feedDiff.getRemoved()));
+		assertEquals(Arrays.asList("1", "2"), ids(feedDiff.getModified()));
+		assertSame(current.getItems().get(2), feedDiff.getModified().get(0));
+
+		assertFalse(FeedDiff.compute(previous, Feed.parse(new StringReader(PREVIOUS_JSON))).hasChanges());
+	}
+
+	@Test
+	public void testItemsWithoutIdsAndDuplicates() throws IOException {
+		Feed previous = Feed.parse(new StringReader("{\"title\": \"title\", \"items\": [{\"content_text\": \"no id\"}, {\"id\": \"1\"}, {\"id\": \"1\", \"content_text\": \"duplicate\"}]}"));
+		Feed current = Feed.parse(new StringReader("{\"title\": \"title\", \"items\": [{\"id\": \"1\"}, {\"id\": \"1\", \"content_text\": \"duplicate\"}, {\"content_text\": \"no id\"}]}"));
+
+		FeedDiff feedDiff = FeedDiff.compute(previous, current);
+		assertEquals(1, feedDiff.getAdded().size());
+		assertNull(feedDiff.getAdded().get(0).getId());
+		assertEquals(1, feedDiff.getRemoved().size());
+		assertNull(feedDiff.getRemoved().get(0).getId());
+		assertTrue(feedDiff.getModified().isEmpty());
+	}
+
+	@Test
+	public void testSnapshotDiff() throws IOException {
+		FeedDiff.Snapshot snapshot = FeedDiff.snapshot(Feed.parse(new StringReader(PREVIOUS_JSON)));
+		assertEquals(5, snapshot.size());
+		assertTrue(snapshot.contains("5"));
+		assertFalse(snapshot.contains("6"));
+
+		// the incoming items are diffed as they are parsed
+		FeedDiff.SnapshotDiff snapshotDiff = snapshot.diff();
+		FeedPushParser feedPushParser = new FeedPushParser(snapshotDiff);
+		byte[] bytes = CURRENT_JSON.getBytes(StandardCharsets.UTF_8);
+		for(int i = 0; i < bytes.length; i += 10) {
+			feedPushParser.feed(ByteBuffer.wrap(bytes, i, Math.min(10, bytes.length - i)));
+		}
+		feedPushParser.end();
+
+		assertEquals(Arrays.asList("6"), ids(snapshotDiff.getAdded()));
+		assertEquals(Arrays.asList("5"), snapshotDiff.getRemovedIds());
+		assertEquals(Arrays.asList("1", "2"), ids(snapshotDiff.getModified()));
+
+		// a snapshot can be diffed any number of times
+		FeedDiff.SnapshotDiff unchanged = snapshot.diff();
+		Feed.parse(new StringReader(PREVIOUS_JSON)).getItems().forEach(unchanged);
+		assertTrue(unchanged.getAdded().isEmpty());
+		assertTrue(unchanged.getModified().isEmpty());
+		assertTrue(unchanged.getRemovedIds().isEmpty());
+	}
+
+	private List<String> ids(List<Item> items) {
+		List<String> ids = new ArrayList<String>();
+		for (Item item : items) {
+			ids.add(item.getId());
+		}
+		return(ids);
+	}
+}
@@ -0,0 +1,102 @@
+package synapticloop.jsonfeed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FeedMergerTest {
+	private static Item item(String id, long datePublished) {
+		Item item = new Item(id);
+		item.setDatePublished(new Date(datePublished));
+		return(item);
+	}
+
+	private static Feed feed(Item... items) {
+		Feed feed = new Feed("https://jsonfeed.org/version/1", "title");
+		feed.setItems(new ArrayList<Item>(Arrays.asList(items)));
+		return(feed);
+	}
+
+	private static List<String> ids(List<Item> items) {
+		return(items.stream().map(Item::getId).collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testMerge() {
+		List<Item> items = new FeedMerger()
+				.addFeed(feed(item("a3", 3000), item("a1", 1000)))
+				.addFeed(feed(item("b4", 4000), item("b2", 2000), new Item("b0")))
+				.addFeed(feed())
+				.addFeed(feed(item("c3", 3000)))
+				.merge()
+				.collect(Collectors.toList());
+		assertEquals(Arrays.asList("b4", "a3", "c3", "b2", "a1", "b0"), ids(items));
+	}
+
+	@Test
+	public void testUnorderedFeedIsSorted() {
+		List<Item> items = new FeedMerger()
+				.addFeed(feed(item("a1", 1000), new Item("a0"), item("a3", 3000)))
+				.addFeed(feed(item("b2", 2000)))
+				.latest(10);
+		assertEquals(Arrays.asList("a3", "b2", "a1", "a0"), ids(items));
+	}
+
+	@Test
+	public void testSinceAndDeduplicate() {
+		List<Item> items = new FeedMerger()
+				.since(2000)
+				.deduplicate(true)
+				.addFeed(feed(item("1", 4000), item("2", 3000), item("3", 1000)))
+				.addFeed(feed(item("2", 3500), item("1", 2000), new Item("0")))
+				.latest(10);
+		assertEquals(Arrays.asList("1", "2"), ids(items));
+		assertEquals(3500, items.get(1).getDatePublishedMillis());
+	}
+
+	@Test
+	public void testOnlyTouchesNeededItems() {
+		AtomicInteger touched = new AtomicInteger();
+		AtomicInteger closed = new AtomicInteger();
+		FeedMerger feedMerger = new FeedMerger();
+		for(int i = 0; i < 1000; i++) {
+			int feed = i;
+			Stream<Item> items = IntStream.range(0, 1000)
+					.mapToObj(j -> item(feed + ":" + j, 1000000L - j * 1000L - feed))
+					.peek(item -> touched.incrementAndGet())
+					.onClose(closed::incrementAndGet);
+			feedMerger.addItems(items);
+		}
+
+		Stream<Item> merged = feedMerger.merge();
+		assertEquals(0, touched.get());
+
+		List<Item> latest;
+		try (Stream<Item> stream = merged) {
+			latest = stream.limit(100).collect(Collectors.toList());
+		}
+		assertEquals(100, latest.size());
+		assertEquals("0:0", latest.get(0).getId());
+		for(int i = 1; i < latest.size(); i++) {
+			assertTrue(latest.get(i - 1).getDatePublishedMillis() >= latest.get(i).getDatePublishedMillis());
+		}
+		assertTrue(touched.get() + " <= 1100", touched.get() <= 1100);
+		assertEquals(1000, closed.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMergedOnce() {
+		FeedMerger feedMerger = new FeedMerger().addFeed(feed(item("1", 1000)));
+		feedMerger.latest(1);
+		feedMerger.merge();
+	}
+}
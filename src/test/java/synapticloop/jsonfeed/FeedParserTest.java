@@ -0,0 +1,245 @@
+package synapticloop.jsonfeed;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import synapticloop.jsonfeed.util.Utils;
+
+import static org.junit.Assert.*;
+
+public class FeedParserTest {
+	private static final String EXTENSION_JSON = "{\"version\": \"https://jsonfeed.org/version/1\", \"title\": \"title\", \"_blue_shed\": { \"about\": \"https://blueshed-podcasts.com/json-feed-extension-docs\", \"explicit\": false, \"count\": 4, \"nested\": [1, \"two\", null] }, \"items\": [ { \"id\": 1234, \"content_text\": \"escaped \\\"quote\\\" \\u00e9\", \"tags\": [\"one\", \"two\"], \"attachments\": [ { \"url\": \"http://some-url.com/\", \"mime_type\": \"audio/mpeg\", \"size_in_bytes\": 100, \"duration_in_seconds\": 400 } ] } ], \"hubs\": [ { \"type\": \"WebSub\", \"url\": \"http://hub.com/\" } ] }";
+
+	@Test
+	public void testDaringFireballFeed() throws IOException {
+		assertSameAsJSONObject("/daringfireball.com.json");
+	}
+
+	@Test
+	public void testBitSplittingFeed() throws IOException {
+		assertSameAsJSONObject("/bitsplitting.org.json");
+	}
+
+	@Test
+	public void testExtensionsHubsAndAttachments() throws IOException {
+		Feed feed = Feed.parse(new StringReader(EXTENSION_JSON));
+		Utils.assertFeedEquals(new Feed(new JSONObject(EXTENSION_JSON)), feed);
+
+		assertEquals(false, feed.getExtension("_blue_shed").getValue("explicit"));
+		assertEquals(4, feed.getExtension("_blue_shed").getValue("count"));
+
+		Item item = feed.getItems().get(0);
+		assertEquals("1234", item.getId());
+		assertEquals("escaped \"quote\" \u00e9", item.getContentText());
+		assertEquals(2, item.getTags().size());
+		assertEquals(new Long(100), item.getAttachments().get(0).getSizeInBytes());
+		assertEquals("WebSub", feed.getHubs().get(0).getType());
+	}
+
+	@Test
+	public void testSmallBuffer() throws IOException {
+		// force strings and escapes to span the buffer boundaries
+		String json = Utils.resourceToString(FeedParserTest.class.getResourceAsStream("/bitsplitting.org.json"));
+		JsonTokenizer tokenizer = new JsonTokenizer(new StringReader(json), 7);
+		Feed feed = new FeedParser().readFeed(tokenizer);
+		Utils.assertFeedEquals(new Feed(new JSONObject(json)), feed);
+	}
+
+	@Test(expected = JSONException.class)
+	public void testMalformed() throws IOException {
+		Feed.parse(new StringReader("{\"version\": \"https://jsonfeed.org/version/1\", \"items\": [ {\"id\": \"1\" ]}"));
+	}
+
+	@Test
+	public void testElementsThatAreNotObjects() throws IOException {
+		String json = "{\"title\": \"title\", \"hubs\": [1, {\"type\": \"WebSub\", \"url\": \"http://hub.com/\"}, \"hub\", null], \"items\": [ {\"id\": \"1\", \"attachments\": [1, {\"url\": \"http://some-url.com/\", \"mime_type\": \"audio/mpeg\"}, [2], {\"url\": \"http://other-url.com/\", \"mime_type\": \"audio/mpeg\"}]} ] }";
+
+		// the same as the JSON Object parsing, the elements that are not objects are skipped
+		Feed expected = new Feed(new JSONObject(json));
+		assertEquals(1, expected.getHubs().size());
+		assertEquals(2, expected.getItems().get(0).getAttachments().size());
+
+		Feed feed = Feed.parse(new StringReader(json));
+		Utils.assertFeedEquals(expected, feed);
+		assertEquals(1, feed.getHubs().size());
+		assertEquals(2, feed.getItems().get(0).getAttachments().size());
+		assertEquals("http://other-url.com/", feed.getItems().get(0).getAttachments().get(1).getUrl());
+
+		Utils.assertFeedEquals(expected, Feed.parseLazy(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Test
+	public void testUnmappedKeys() throws IOException {
+		String json = "{\"title\": \"title\", \"unknown\": { \"a\": [1, 2] }, \"_ext\": {}, \"items\": [ { \"id\": \"1\", \"another\": true, \"_ext\": {} } ] }";
+		Feed feed = Feed.parse(new StringReader(json));
+		assertEquals(1, feed.getUnMappedKeys());
+		List<Item> items = feed.getItems();
+		assertEquals(1, items.get(0).getUnMappedKeys());
+
+		// the extensions are mapped, the same as the JSON Object parsing
+		Feed expected = new Feed(new JSONObject(json));
+		assertEquals(1, expected.getUnMappedKeys());
+		assertEquals(1, expected.getItems().get(0).getUnMappedKeys());
+		Feed nonDestructive = new Feed(new JSONObject(json), ParseOptions.NON_DESTRUCTIVE);
+		assertEquals(1, nonDestructive.getUnMappedKeys());
+		assertEquals(1, nonDestructive.getItems().get(0).getUnMappedKeys());
+	}
+
+	@Test
+	public void testStringFieldsThatAreObjects() throws IOException {
+		String json = "{\"title\": {\"a\": 1}, \"description\": [\"b\", 2], \"items\": [ {\"id\": \"1\", \"summary\": [\"a\"], \"tags\": [\"one\", [\"two\"]], \"date_published\": [\"c\"], \"author\": {\"name\": {\"d\": null}}} ] }";
+
+		// the same as the JSON Object parsing, the values are coerced to their JSON text
+		Feed expected = new Feed(new JSONObject(json));
+		assertEquals("{\"a\":1}", expected.getTitle());
+		assertEquals("[\"a\"]", expected.getItems().get(0).getSummary());
+
+		Utils.assertFeedEquals(expected, Feed.parse(new StringReader(json)));
+		Utils.assertFeedEquals(expected, Feed.parseLazy(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8))));
+		Utils.assertItemEquals(expected.getItems().get(0), FeedReader.items(new StringReader(json)).next());
+	}
+
+	@Test
+	public void testWithFields() throws IOException {
+		String json = Utils.resourceToString(FeedParserTest.class.getResourceAsStream("/daringfireball.com.json"));
+		Feed expected = new Feed(new JSONObject(json));
+		Feed feed = new FeedParser().withFields("id", "url", "title", "date_published", "date_modified").parse(new StringReader(json));
+
+		assertEquals(expected.getTitle(), feed.getTitle());
+		assertEquals(expected.getItems().size(), feed.getItems().size());
+		for(int i = 0; i < feed.getItems().size(); i++) {
+			Item expectedItem = expected.getItems().get(i);
+			Item item = feed.getItems().get(i);
+			assertEquals(expectedItem.getId(), item.getId());
+			assertEquals(expectedItem.getUrl(), item.getUrl());
+			assertEquals(expectedItem.getTitle(), item.getTitle());
+			assertEquals(expectedItem.getDatePublished(), item.getDatePublished());
+			assertEquals(expectedItem.getDateModified(), item.getDateModified());
+			assertNull(item.getContentHtml());
+			assertNull(item.getAuthor());
+			assertEquals(0, item.getUnMappedKeys());
+		}
+	}
+
+	@Test
+	public void testProbe() throws IOException {
+		String json = Utils.resourceToString(FeedParserTest.class.getResourceAsStream("/bitsplitting.org.json"));
+		Feed expected = new Feed(new JSONObject(json));
+		FeedHeader feedHeader = new FeedParser().probe(new StringReader(json));
+		assertEquals(expected.getVersion(), feedHeader.getVersion());
+		assertEquals(expected.getTitle(), feedHeader.getTitle());
+		assertEquals(expected.getFeedUrl(), feedHeader.getFeedUrl());
+		assertEquals(expected.getNextUrl(), feedHeader.getNextUrl());
+		assertEquals(expected.getItems().size(), feedHeader.getNumItems());
+
+		// stops as soon as all of the header fields have been found, so the
+		// trailing garbage is never read
+		feedHeader = new FeedParser().probe(new StringReader("{\"version\": \"v\", \"title\": \"t\", \"feed_url\": \"f\", \"next_url\": \"n\", \"items\": [ {}, {\"id\": \"1\"} ], !!!"));
+		assertEquals("n", feedHeader.getNextUrl());
+		assertEquals(2, feedHeader.getNumItems());
+	}
+
+	@Test
+	public void testParseFromBytes() throws IOException {
+		String json = Utils.resourceToString(FeedParserTest.class.getResourceAsStream("/daringfireball.com.json"));
+		Feed expected = new Feed(new JSONObject(json));
+
+		try (InputStream inputStream = FeedParserTest.class.getResourceAsStream("/daringfireball.com.json")) {
+			Utils.assertFeedEquals(expected, Feed.parse(inputStream));
+		}
+
+		try (InputStream inputStream = FeedParserTest.class.getResourceAsStream("/daringfireball.com.json")) {
+			Utils.assertFeedEquals(expected, Feed.parse(Channels.newChannel(inputStream)));
+		}
+
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer heapBuffer = ByteBuffer.wrap(bytes);
+		Utils.assertFeedEquals(expected, Feed.parse(heapBuffer));
+		// the position of the buffer is left alone
+		assertEquals(0, heapBuffer.position());
+
+		ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length);
+		directBuffer.put(bytes).flip();
+		Utils.assertFeedEquals(expected, Feed.parse(directBuffer));
+	}
+
+	@Test
+	public void testByteBufferMultiByteCharacters() throws IOException {
+		// two, three and four byte characters (the last is a surrogate pair)
+		String json = "{\"title\": \"\u00e9\u20ac\ud83d\ude00\", \"items\": [] }";
+		ByteBuffer byteBuffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+		assertEquals("\u00e9\u20ac\ud83d\ude00", Feed.parse(byteBuffer).getTitle());
+		assertEquals("\u00e9\u20ac\ud83d\ude00", Feed.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))).getTitle());
+
+		// read a character at a time, so the surrogate pair is split
+		ByteBufferReader reader = new ByteBufferReader(byteBuffer);
+		StringBuilder stringBuilder = new StringBuilder();
+		int character;
+		while((character = reader.read()) != -1) {
+			stringBuilder.append((char)character);
+		}
+		assertEquals(json, stringBuilder.toString());
+	}
+
+	@Test
+	public void testParseFromPath() throws IOException {
+		String json = Utils.resourceToString(FeedParserTest.class.getResourceAsStream("/daringfireball.com.json"));
+		// make sure that there are multi-byte characters to split across the windows
+		json = json.replace("\"title\": \"", "\"title\": \"\u00e9\u20ac\ud83d\ude00");
+		Feed expected = new Feed(new JSONObject(json));
+
+		Path path = Files.createTempFile("feed", ".json");
+		try {
+			Files.write(path, json.getBytes(StandardCharsets.UTF_8));
+			Utils.assertFeedEquals(expected, Feed.parse(path));
+			assertSameWithWindows(expected, path, 4096);
+
+			// tiny windows (on a small feed, as each window is a mapping), so that 
+			// the characters span the windows
+			String smallJson = EXTENSION_JSON.replace("\"title\": \"", "\"title\": \"\u00e9\u20ac\ud83d\ude00");
+			Files.write(path, smallJson.getBytes(StandardCharsets.UTF_8));
+			for (int windowSize : new int[] { 4, 5, 7 }) {
+				assertSameWithWindows(new Feed(new JSONObject(smallJson)), path, windowSize);
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	private void assertSameWithWindows(Feed expected, Path path, int windowSize) throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			Utils.assertFeedEquals(expected, new FeedParser().parse(new MappedFileReader(fileChannel, windowSize)));
+		}
+	}
+
+	private void assertSameAsJSONObject(String resource) throws IOException {
+		String json = Utils.resourceToString(FeedParserTest.class.getResourceAsStream(resource));
+		Feed expected = new Feed(new JSONObject(json));
+		Feed actual = Feed.parse(new StringReader(json));
+		Utils.assertFeedEquals(expected, actual);
+	}
+
+	@Test
+	public void testItemsThatAreNotObjects() throws IOException {
+		String json = "{\"title\": \"title\", \"items\": [1, {\"id\": \"2\"}, \"three\", [4], null, {\"id\": \"5\"}]}";
+		assertEquals(2, new Feed(new JSONObject(json)).getItems().size());
+
+		Feed feed = Feed.parse(new StringReader(json));
+		assertEquals(2, feed.getItems().size());
+		assertEquals("5", feed.getItems().get(1).getId());
+	}
+}
@@ -0,0 +1,95 @@
+package synapticloop.jsonfeed;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import synapticloop.jsonfeed.util.Utils;
+
+import static org.junit.Assert.*;
+
+public class FeedPushParserTest {
+	private static final String ESCAPE_JSON = "{ \"title\" : \"t\\u00e9\\\"\" , \"expired\":true,\"items\" : [ { \"id\" : 12 , \"content_text\" : \"a\\\\b\\\"c\\u20ac é€😀 ]}\" } , {\"id\":\"2\"} ] , \"_ext\": { \"a\": [1, { \"b\": null }] } }";
+
+	@Test
+	public void testChunks() {
+		for (String resource : new String[] { "/daringfireball.com.json", "/bitsplitting.org.json" }) {
+			String json = Utils.resourceToString(FeedPushParserTest.class.getResourceAsStream(resource));
+			for (int chunkSize : new int[] { 1, 3, 7, 1000, Integer.MAX_VALUE }) {
+				assertSameAsJSONObject(json, chunkSize);
+			}
+		}
+	}
+
+	@Test
+	public void testEscapesAcrossChunks() {
+		for(int chunkSize = 1; chunkSize < 20; chunkSize++) {
+			assertSameAsJSONObject(ESCAPE_JSON, chunkSize);
+		}
+	}
+
+	@Test
+	public void testItemsAreHandedOverAsTheyComplete() {
+		List<Item> items = new ArrayList<Item>();
+		FeedPushParser feedPushParser = new FeedPushParser(items::add);
+		feedPushParser.feed(ByteBuffer.wrap("{\"title\": \"title\", \"items\": [ {\"id\": \"1\"}, {\"id\": ".getBytes(StandardCharsets.UTF_8)));
+		assertEquals(1, items.size());
+		assertEquals("1", items.get(0).getId());
+		assertEquals("title", feedPushParser.getFeed().getTitle());
+
+		feedPushParser.feed(ByteBuffer.wrap("\"2\"} ] }".getBytes(StandardCharsets.UTF_8)));
+		assertEquals(2, items.size());
+		assertEquals(2, feedPushParser.getNumItems());
+		assertEquals("title", feedPushParser.end().getTitle());
+	}
+
+	@Test(expected = JSONException.class)
+	public void testIncomplete() {
+		FeedPushParser feedPushParser = new FeedPushParser(item -> {});
+		feedPushParser.feed(ByteBuffer.wrap("{\"title\": \"title\", \"items\": [ {\"id\": \"1\"}".getBytes(StandardCharsets.UTF_8)));
+		feedPushParser.end();
+	}
+
+	@Test(expected = JSONException.class)
+	public void testMalformed() {
+		FeedPushParser feedPushParser = new FeedPushParser(item -> {});
+		feedPushParser.feed(ByteBuffer.wrap("{\"title\": \"title\" \"items\": []}".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private void assertSameAsJSONObject(String json, int chunkSize) {
+		Feed expected = new Feed(new JSONObject(json));
+		byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+		List<Item> items = new ArrayList<Item>();
+		FeedPushParser feedPushParser = new FeedPushParser(items::add);
+		for(int i = 0; i < bytes.length; i += chunkSize) {
+			feedPushParser.feed(ByteBuffer.wrap(bytes, i, Math.min(chunkSize, bytes.length - i)));
+		}
+
+		Feed feed = feedPushParser.end();
+		feed.setItems(items);
+		Utils.assertFeedEquals(expected, feed);
+	}
+
+	@Test
+	public void testItemsThatAreNotObjects() {
+		String json = "{\"title\": \"title\", \"items\": [1, {\"id\": \"2\"}, \"three\", [4], null, {\"id\": \"5\"}]}";
+		for(int chunkSize = 1; chunkSize < 8; chunkSize++) {
+			List<Item> items = new ArrayList<Item>();
+			FeedPushParser feedPushParser = new FeedPushParser(items::add);
+			byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+			for(int i = 0; i < bytes.length; i += chunkSize) {
+				feedPushParser.feed(ByteBuffer.wrap(bytes, i, Math.min(chunkSize, bytes.length - i)));
+			}
+			assertEquals("title", feedPushParser.end().getTitle());
+			assertEquals(2, items.size());
+			assertEquals("2", items.get(0).getId());
+			assertEquals("5", items.get(1).getId());
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package synapticloop.jsonfeed;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import synapticloop.jsonfeed.util.Utils;
+
+import static org.junit.Assert.*;
+
+public class FeedReaderTest {
+	private static final String TRAILING_FIELDS_JSON = "{\"version\": \"https://jsonfeed.org/version/1\", \"items\": [ { \"id\": \"1\", \"content_text\": \"one\" }, { \"id\": \"2\", \"content_text\": \"two\" } ], \"title\": \"after the items\" }";
+
+	@Test
+	public void testIterateDaringFireball() throws IOException {
+		String json = Utils.resourceToString(FeedReaderTest.class.getResourceAsStream("/daringfireball.com.json"));
+		Feed expected = new Feed(new JSONObject(json));
+
+		try(FeedReader feedReader = FeedReader.items(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+			int index = 0;
+			while(feedReader.hasNext()) {
+				Utils.assertItemEquals(expected.getItems().get(index++), feedReader.next());
+				// the header fields appear before the items
+				assertEquals("Daring Fireball", feedReader.getFeed().getTitle());
+			}
+			assertEquals(expected.getItems().size(), index);
+			assertTrue(feedReader.isFinished());
+			Utils.assertAuthorEquals(expected.getAuthor(), feedReader.getFeed().getAuthor());
+		}
+	}
+
+	@Test
+	public void testFieldsAfterItems() {
+		FeedReader feedReader = FeedReader.items(new StringReader(TRAILING_FIELDS_JSON));
+		assertTrue(feedReader.hasNext());
+		assertEquals("https://jsonfeed.org/version/1", feedReader.getFeed().getVersion());
+		assertNull(feedReader.getFeed().getTitle());
+
+		assertEquals(2, feedReader.stream().count());
+		assertEquals("https://jsonfeed.org/version/1", feedReader.getFeed().getVersion());
+		assertEquals("after the items", feedReader.getFeed().getTitle());
+		assertTrue(feedReader.isFinished());
+		assertFalse(feedReader.hasNext());
+	}
+
+	@Test
+	public void testParallelStream() {
+		String json = Utils.resourceToString(FeedReaderTest.class.getResourceAsStream("/daringfireball.com.json"));
+		Feed expected = new Feed(new JSONObject(json));
+
+		FeedReader feedReader = FeedReader.items(new StringReader(json));
+		feedReader.setBatchSize(5);
+		List<String> ids = feedReader.parallelStream().map(Item::getId).collect(Collectors.toList());
+
+		assertEquals(expected.getItems().size(), ids.size());
+		for(int i = 0; i < ids.size(); i++) {
+			assertEquals(expected.getItems().get(i).getId(), ids.get(i));
+		}
+	}
+
+	@Test
+	public void testNoItems() {
+		FeedReader feedReader = FeedReader.items(new StringReader("{\"title\": \"empty\", \"items\": []}"));
+		assertFalse(feedReader.hasNext());
+		assertEquals("empty", feedReader.getFeed().getTitle());
+	}
+
+	@Test
+	public void testItemsThatAreNotObjects() {
+		String json = "{\"title\": \"title\", \"items\": [1, {\"id\": \"2\"}, \"three\", [4], null, {\"id\": \"5\"}]}";
+		List<String> ids = FeedReader.items(new StringReader(json)).stream().map(Item::getId).collect(Collectors.toList());
+		assertEquals(2, ids.size());
+		assertEquals("2", ids.get(0));
+		assertEquals("5", ids.get(1));
+	}
+
+	@Test
+	public void testParallelStreamIsBounded() {
+		FeedReader feedReader = countingFeedReader(2000);
+		feedReader.setBatchSize(16);
+		feedReader.setMaxOutstandingBatches(4);
+		AtomicInteger numConsumed = new AtomicInteger();
+		AtomicInteger maxOutstanding = new AtomicInteger();
+		feedReader.parallelStream().forEach(item -> {
+			int consumed = numConsumed.incrementAndGet();
+			maxOutstanding.accumulateAndGet(numRead.get() - consumed, Math::max);
+			try {
+				Thread.sleep(1L);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+
+		assertEquals(2000, numConsumed.get());
+		// the outstanding batches, and the one being read
+		assertTrue(maxOutstanding.get() <= (4 + 1) * 16);
+	}
+
+	@Test
+	public void testShortCircuitParallelStream() {
+		FeedReader feedReader = countingFeedReader(20000);
+		feedReader.setBatchSize(16);
+		feedReader.setMaxOutstandingBatches(2);
+		assertTrue(feedReader.parallelStream().anyMatch(item -> "100".equals(item.getId())));
+	}
+
+	private final AtomicInteger numRead = new AtomicInteger();
+
+	private FeedReader countingFeedReader(int numItems) {
+		StringBuilder stringBuilder = new StringBuilder("{\"title\": \"title\", \"items\": [");
+		for(int i = 0; i < numItems; i++) {
+			stringBuilder.append(i == 0 ? "" : ",").append("{\"id\": \"").append(i).append("\"}");
+		}
+		stringBuilder.append("]}");
+
+		return(new FeedReader(new StringReader(stringBuilder.toString())) {
+			@Override
+			public Item next() {
+				Item item = super.next();
+				numRead.incrementAndGet();
+				return(item);
+			}
+		});
+	}
+}
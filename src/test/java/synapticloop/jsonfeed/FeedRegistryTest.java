@@ -0,0 +1,119 @@
+package synapticloop.jsonfeed;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FeedRegistryTest {
+
+	private static FeedSnapshot feedSnapshot(String feedUrl) {
+		Feed feed = new Feed("https://jsonfeed.org/version/1", "title");
+		feed.setFeedUrl(feedUrl);
+		return(FeedSnapshot.of(feed));
+	}
+
+	@Test
+	public void testPutAndGet() {
+		FeedRegistry feedRegistry = new FeedRegistry();
+		FeedSnapshot first = feedSnapshot("https://example.org/feed.json");
+		assertNull(feedRegistry.put(first));
+		assertSame(first, feedRegistry.get("https://example.org/feed.json"));
+		assertSame(first, feedRegistry.putIfAbsent(feedSnapshot("https://example.org/feed.json")));
+		assertNull(feedRegistry.get("https://example.org/other.json"));
+		assertNull(feedRegistry.addItem("https://example.org/other.json", new Item("1")));
+		assertEquals(1, feedRegistry.size());
+		assertEquals(1, feedRegistry.getNumUpdates());
+
+		assertSame(first, feedRegistry.remove("https://example.org/feed.json"));
+		assertEquals(0, feedRegistry.size());
+	}
+
+	@Test
+	public void testCompareAndSet() {
+		FeedRegistry feedRegistry = new FeedRegistry();
+		FeedSnapshot first = feedSnapshot("https://example.org/feed.json");
+		feedRegistry.put(first);
+
+		FeedSnapshot second = first.withItem(new Item("1"));
+		assertTrue(feedRegistry.compareAndSet(first, second));
+		assertFalse(feedRegistry.compareAndSet(first, first.withItem(new Item("2"))));
+		assertSame(second, feedRegistry.get("https://example.org/feed.json"));
+		assertEquals(1, feedRegistry.getNumFailedCompareAndSets());
+	}
+
+	@Test
+	public void testFeedUrlCanNotChange() {
+		FeedRegistry feedRegistry = new FeedRegistry();
+		FeedSnapshot first = feedSnapshot("https://example.org/feed.json");
+		feedRegistry.put(first);
+		FeedSnapshot moved = first.toBuilder().feed(feed -> feed.setFeedUrl("https://example.org/moved.json")).build();
+
+		try {
+			feedRegistry.update("https://example.org/feed.json", feedSnapshot -> moved);
+			fail("Expected the changed feed_url to be rejected");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+
+		try {
+			feedRegistry.compareAndSet(first, moved);
+			fail("Expected the changed feed_url to be rejected");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+
+		assertSame(first, feedRegistry.get("https://example.org/feed.json"));
+		assertNull(feedRegistry.get("https://example.org/moved.json"));
+		assertEquals(1, feedRegistry.getNumUpdates());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoFeedUrl() {
+		new FeedRegistry().put(feedSnapshot(null));
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws Exception {
+		FeedRegistry feedRegistry = new FeedRegistry();
+		feedRegistry.put(feedSnapshot("https://example.org/0.json"));
+		feedRegistry.put(feedSnapshot("https://example.org/1.json"));
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for(int i = 0; i < 4; i++) {
+				String feedUrl = "https://example.org/" + (i % 2) + ".json";
+				int writer = i;
+				futures.add(executorService.submit(() -> {
+					for(int j = 0; j < 500; j++) {
+						feedRegistry.addItem(feedUrl, new Item(writer + ":" + j));
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executorService.shutdown();
+		}
+
+		// no update was lost
+		Set<String> ids = new HashSet<String>();
+		feedRegistry.forEach((feedUrl, feedSnapshot) -> {
+			assertEquals(1000, feedSnapshot.size());
+			for (Item item : feedSnapshot.getItems()) {
+				ids.add(item.getId());
+			}
+		});
+		assertEquals(2000, ids.size());
+		assertEquals(2002, feedRegistry.getNumUpdates());
+	}
+}
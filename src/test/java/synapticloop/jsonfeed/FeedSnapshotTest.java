@@ -0,0 +1,155 @@
+package synapticloop.jsonfeed;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FeedSnapshotTest {
+	private static final String FEED_JSON = "{\"version\": \"https://jsonfeed.org/version/1\", \"title\": \"title\", \"description\": \"description\", \"_extension\": {\"key\": \"value\"}, \"items\": [{\"id\": \"1\"}, {\"id\": \"2\"}]}";
+
+	@Test
+	public void testWithItem() throws IOException {
+		Feed feed = Feed.parse(new StringReader(FEED_JSON));
+		FeedSnapshot first = FeedSnapshot.of(feed);
+		FeedSnapshot second = first.withItem(new Item("3"));
+		FeedSnapshot third = second.withItem(0, new Item("one"));
+
+		assertEquals(2, first.size());
+		assertEquals(3, second.size());
+		assertEquals("1", second.getItems().get(0).getId());
+		assertEquals("one", third.getFeed().getItems().get(0).getId());
+		assertSame(second.getItems().get(1), third.getItems().get(1));
+
+		// the snapshot does not change with the feed that it was created from
+		feed.addItem(new Item("4"));
+		assertEquals(2, first.getFeed().getItems().size());
+
+		assertEquals("description", third.getFeed().getDescription());
+		assertEquals("value", third.getFeed().getExtension("_extension").getValue("key"));
+		assertEquals(3, new JSONObject(third.getFeed().toJSON().toString()).getJSONArray("items").length());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testItemsCanNotBeChanged() throws IOException {
+		FeedSnapshot.of(Feed.parse(new StringReader(FEED_JSON))).getFeed().addItem(new Item("3"));
+	}
+
+	@Test
+	public void testBuilder() throws IOException {
+		FeedSnapshot feedSnapshot = FeedSnapshot.of(Feed.parse(new StringReader(FEED_JSON)));
+		FeedSnapshot built = feedSnapshot.toBuilder()
+				.feed(feed -> feed.setDescription("changed"))
+				.addItem(new Item("3"))
+				.setItem(0, new Item("one"))
+				.build();
+
+		assertEquals("description", feedSnapshot.getFeed().getDescription());
+		assertEquals("1", feedSnapshot.getItems().get(0).getId());
+		assertEquals("changed", built.getFeed().getDescription());
+		assertEquals("one", built.getItems().get(0).getId());
+		assertEquals(3, built.size());
+	}
+
+	@Test
+	public void testHubsAndExtensionsAreCopied() throws IOException {
+		Feed feed = Feed.parse(new StringReader(FEED_JSON));
+		feed.addHub(new Hub("https://example.org/hub", "WebSub"));
+		FeedSnapshot first = FeedSnapshot.of(feed);
+
+		// the feed that the snapshot was created from can still be changed
+		feed.addHub(new Hub("https://example.org/other", "WebSub"));
+		feed.getExtensions().put("_other", new Extension(new JSONObject("{\"key\": \"other\"}")));
+		assertEquals(1, first.getFeed().getHubs().size());
+		assertNull(first.getFeed().getExtension("_other"));
+
+		FeedSnapshot second = first.toBuilder()
+				.feed(changed -> changed.addHub(new Hub("https://example.org/added", "WebSub")))
+				.feed(changed -> changed.getExtensions().remove("_extension"))
+				.build();
+		assertEquals(1, first.getFeed().getHubs().size());
+		assertNotNull(first.getFeed().getExtension("_extension"));
+		assertEquals(2, second.getFeed().getHubs().size());
+		assertNull(second.getFeed().getExtension("_extension"));
+	}
+
+	@Test
+	public void testEmptyExtensionsCanNotBeChanged() {
+		Feed snapshotFeed = FeedSnapshot.of(new Feed("https://jsonfeed.org/version/1", "title")).getFeed();
+		assertTrue(snapshotFeed.getExtensions().isEmpty());
+		try {
+			snapshotFeed.getExtensions().put("_other", new Extension(new JSONObject("{\"key\": \"other\"}")));
+			fail("The extensions of a snapshot can not be changed");
+		} catch (UnsupportedOperationException ex) {
+			// expected
+		}
+		try {
+			snapshotFeed.addExtension("_other", new Extension(new JSONObject("{\"key\": \"other\"}")));
+			fail("The extensions of a snapshot can not be changed");
+		} catch (UnsupportedOperationException ex) {
+			// expected
+		}
+		assertTrue(snapshotFeed.getExtensions().isEmpty());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testHubsCanNotBeChanged() throws IOException {
+		Feed feed = Feed.parse(new StringReader(FEED_JSON));
+		feed.addHub(new Hub("https://example.org/hub", "WebSub"));
+		FeedSnapshot.of(feed).getFeed().addHub(new Hub("https://example.org/other", "WebSub"));
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+		FeedPublisher feedPublisher = new FeedPublisher(FeedSnapshot.of(new Feed("https://jsonfeed.org/version/1", "title")));
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+			for(int i = 0; i < 3; i++) {
+				readers.add(executorService.submit(() -> {
+					int numReads = 0;
+					do {
+						FeedSnapshot feedSnapshot = feedPublisher.get();
+						StringWriter stringWriter = new StringWriter();
+						feedSnapshot.getFeed().writeTo(stringWriter, true);
+						assertEquals(feedSnapshot.size(), new JSONObject(stringWriter.toString()).getJSONArray("items").length());
+						numReads++;
+					} while(writing.get());
+					return(numReads);
+				}));
+			}
+
+			for(int i = 0; i < 2000; i++) {
+				feedPublisher.addItem(new Item(Integer.toString(i)));
+			}
+			writing.set(false);
+
+			for (Future<Integer> reader : readers) {
+				assertTrue(reader.get() > 0);
+			}
+			assertEquals(2000, feedPublisher.get().size());
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void testCompareAndSet() throws IOException {
+		FeedSnapshot feedSnapshot = FeedSnapshot.of(Feed.parse(new StringReader(FEED_JSON)));
+		FeedPublisher feedPublisher = new FeedPublisher(feedSnapshot);
+		assertTrue(feedPublisher.compareAndSet(feedSnapshot, feedSnapshot.withItem(new Item("3"))));
+		assertFalse(feedPublisher.compareAndSet(feedSnapshot, feedSnapshot.withItem(new Item("4"))));
+		assertEquals("3", feedPublisher.update(current -> current).getItems().get(2).getId());
+	}
+}
@@ -1,5 +1,9 @@
 package synapticloop.jsonfeed;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import synapticloop.jsonfeed.exception.ValidationException;
@@ -37,4 +41,101 @@ public class FeedTest {
 		assertEquals(0, feed.getValidationErrors().size());
 	}
 
+	@Test
+	public void testNonDestructiveParse() {
+		for (String resource : new String[] { "/daringfireball.com.json", "/bitsplitting.org.json" }) {
+			String json = Utils.resourceToString(FeedTest.class.getResourceAsStream(resource));
+			JSONObject jsonObject = new JSONObject(json);
+			Feed feed = new Feed(jsonObject, ParseOptions.NON_DESTRUCTIVE);
+
+			// the JSON Object is left untouched - and can be parsed again
+			assertTrue(new JSONObject(json).similar(jsonObject));
+			Utils.assertFeedEquals(new Feed(new JSONObject(json)), feed);
+			Utils.assertFeedEquals(feed, new Feed(jsonObject, ParseOptions.NON_DESTRUCTIVE));
+		}
+	}
+
+	@Test
+	public void testNonDestructiveUnmappedKeys() {
+		JSONObject authorObject = new JSONObject("{ \"name\": \"synapticloop\", \"unknown\": 1, \"another\": \"value\" }");
+		Author author = new Author(authorObject, ParseOptions.NON_DESTRUCTIVE);
+		assertEquals("synapticloop", author.getName());
+		assertEquals(2, author.getUnMappedKeys());
+		assertEquals(3, authorObject.length());
+
+		// the destructive parse counts the same keys
+		Author destructiveAuthor = new Author(authorObject, ParseOptions.DEFAULT.withLogging(false));
+		assertEquals(2, destructiveAuthor.getUnMappedKeys());
+		assertEquals(2, authorObject.length());
+	}
+
+	@Test
+	public void testCanonicalFormIgnoresKeyOrder() throws IOException {
+		String first = "{\"version\": \"https://jsonfeed.org/version/1\", \"title\": \"title\", \"_b\": {\"y\": 1, \"x\": [1, {\"q\": 1, \"p\": 2}]}, \"_a\": {\"about\": \"a\"}, " + 
+				"\"items\": [{\"id\": \"1\", \"content_text\": \"text\", \"date_published\": \"2010-02-07T14:04:00-05:00\"}]}";
+		String second = "{\"items\": [{\"date_published\": \"2010-02-07T19:04:00Z\", \"content_text\": \"text\", \"id\": \"1\"}], " + 
+				"\"_a\": {\"about\": \"a\"}, \"_b\": {\"x\": [1, {\"p\": 2, \"q\": 1}], \"y\": 1}, \"title\": \"title\", \"version\": \"https://jsonfeed.org/version/1\"}";
+
+		Feed firstFeed = Feed.parse(new StringReader(first));
+		Feed secondFeed = Feed.parse(new StringReader(second));
+		assertEquals(canonical(firstFeed), canonical(secondFeed));
+		assertEquals(firstFeed.getFingerprint(), secondFeed.getFingerprint());
+		assertEquals(firstFeed.getETag(), secondFeed.getETag());
+		assertTrue(canonical(firstFeed).contains("\"2010-02-07T19:04:00Z\""));
+
+		// the canonical form is still the same feed
+		Utils.assertFeedEquals(firstFeed, Feed.parse(new StringReader(canonical(firstFeed))));
+
+		secondFeed.setDescription("changed");
+		assertNotEquals(firstFeed.getFingerprint(), secondFeed.getFingerprint());
+	}
+
+	@Test
+	public void testItemFingerprints() throws IOException {
+		String json = Utils.resourceToString(FeedTest.class.getResourceAsStream("/bitsplitting.org.json"));
+		Feed feed = new Feed(new JSONObject(json));
+		Feed reparsed = Feed.parse(new StringReader(json));
+		assertEquals(feed.getETag(), reparsed.getETag());
+		assertEquals(18, feed.getETag().length());
+
+		long[] fingerprints = new long[feed.getItems().size()];
+		for(int i = 0; i < fingerprints.length; i++) {
+			fingerprints[i] = feed.getItems().get(i).getFingerprint();
+			assertEquals(fingerprints[i], reparsed.getItems().get(i).getFingerprint());
+		}
+
+		// only the fingerprint of the changed item changes
+		String eTag = feed.getETag();
+		Item item = feed.getItems().get(1);
+		item.setAuthor(new Author("name", null, null));
+		assertNotEquals(fingerprints[1], item.getFingerprint());
+		assertNotEquals(eTag, feed.getETag());
+		for(int i = 0; i < fingerprints.length; i++) {
+			if(i != 1) {
+				assertEquals(fingerprints[i], feed.getItems().get(i).getFingerprint());
+			}
+		}
+
+		// changing the author changes the item, changing it back restores it
+		long withAuthor = item.getFingerprint();
+		item.getAuthor().setName("changed");
+		assertNotEquals(withAuthor, item.getFingerprint());
+		item.getAuthor().setName("name");
+		assertEquals(withAuthor, item.getFingerprint());
+	}
+
+	@Test
+	public void testNonObjectArrayElementsAreSkipped() {
+		Feed feed = new Feed(new JSONObject("{\"title\": \"title\", \"items\": [{\"id\": \"1\", \"attachments\": [1, {\"url\": \"url\"}]}, \"not an item\", {\"id\": \"2\"}]}"), ParseOptions.NON_DESTRUCTIVE);
+		assertEquals(2, feed.getItems().size());
+		assertEquals("2", feed.getItems().get(1).getId());
+		assertEquals(1, feed.getItems().get(0).getAttachments().size());
+		assertEquals("url", feed.getItems().get(0).getAttachments().get(0).getUrl());
+	}
+
+	private String canonical(BaseJsonFeedObject baseJsonFeedObject) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		baseJsonFeedObject.writeCanonicalTo(outputStream);
+		return(new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+	}
 }
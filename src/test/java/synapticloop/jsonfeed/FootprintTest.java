@@ -0,0 +1,104 @@
+package synapticloop.jsonfeed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measure the retained size of the model objects with JOL.  The dates of an
+ * item and the numbers of an attachment are held as primitives (with a bit
+ * for whether they are present), and the extensions and validation errors
+ * are only created when they are needed.  As measured on a 64 bit JVM with 
+ * compressed references, a parsed item with an attachment retains 304 bytes 
+ * besides its strings - the item (112 bytes), the attachment (72 bytes) and 
+ * the lists of attachments and tags, none of the state of parsing them is 
+ * kept.  Holding the two dates as Rfc3339Dates 
+ * (32 bytes each), the two numbers as Longs (24 bytes each) and a map of 
+ * extensions (56 bytes) and list of validation errors (24 bytes) for both 
+ * objects would retain another 272 bytes, less the 38 bytes of the primitive
+ * fields - i.e. 538 bytes rather than 304.
+ */
+public class FootprintTest {
+	private static final String ITEM_STRING = "{\"id\": \"1\", \"url\": \"https://example.org/1\", \"title\": \"One\", \"content_text\": \"The first item\", \"date_published\": \"2010-02-07T14:04:00-05:00\", \"date_modified\": \"2017-05-28T00:37:21Z\", \"attachments\": [{\"url\": \"https://example.org/1.mp3\", \"mime_type\": \"audio/mpeg\", \"size_in_bytes\": 89970236, \"duration_in_seconds\": 6629}]}";
+
+	private static Item parseItem() {
+		return(new Item(new JSONObject(ITEM_STRING)));
+	}
+
+	@Test
+	public void testNoBoxedFieldsAreRetained() {
+		Item item = parseItem();
+		GraphLayout graphLayout = GraphLayout.parseInstance(item);
+
+		assertTrue(graphLayout.getClasses().contains(Item.class));
+		assertTrue(graphLayout.getClasses().contains(Attachment.class));
+		assertFalse(graphLayout.getClasses().contains(Date.class));
+		assertFalse(graphLayout.getClasses().contains(Rfc3339Date.class));
+		assertFalse(graphLayout.getClasses().contains(Long.class));
+		assertFalse(graphLayout.getClasses().contains(LinkedHashMap.class));
+	}
+
+	@Test
+	public void testValuesAreUnchanged() {
+		Item item = parseItem();
+		assertEquals("2010-02-07T14:04:00-05:00", Rfc3339Codec.format(item.getDatePublished()));
+		assertEquals("2017-05-28T00:37:21Z", Rfc3339Codec.format(item.getDateModified()));
+		assertEquals(item.getDateModified().getTime(), item.getDateModifiedMillis());
+
+		Attachment attachment = item.getAttachments().get(0);
+		assertEquals(Long.valueOf(89970236L), attachment.getSizeInBytes());
+		assertEquals(6629L, attachment.getDurationInSeconds(-1L));
+		JSONObject jsonObject = item.toJSON();
+		assertEquals("2010-02-07T14:04:00-05:00", jsonObject.getString("date_published"));
+		assertEquals(89970236L, jsonObject.getJSONArray("attachments").getJSONObject(0).getLong("size_in_bytes"));
+		assertEquals(6629L, jsonObject.getJSONArray("attachments").getJSONObject(0).getLong("duration_in_seconds"));
+	}
+
+	@Test
+	public void testRetainedSize() {
+		Item item = parseItem();
+		Attachment attachment = item.getAttachments().get(0);
+
+		// everything that the item retains, apart from its strings and the 
+		// (shared) empty map of extensions
+		GraphLayout retained = GraphLayout.parseInstance(item).subtract(GraphLayout.parseInstance(BaseJsonFeedObject.NO_EXTENSIONS, 
+				item.getId(), item.getUrl(), item.getTitle(), item.getContentText(), attachment.getUrl(), attachment.getMimeType()));
+
+		// which is only the item, the attachment and the two lists (and their arrays)
+		assertEquals(6, retained.totalCount());
+		assertEquals(new HashSet<Class<?>>(Arrays.asList(Item.class, Attachment.class, ArrayList.class, Object[].class)), retained.getClasses());
+		long listsSize = GraphLayout.parseInstance(item.getTags(), item.getAttachments())
+				.subtract(GraphLayout.parseInstance(attachment, attachment.getUrl(), attachment.getMimeType()))
+				.totalSize();
+		long instanceSize = ClassLayout.parseClass(Item.class).instanceSize() + ClassLayout.parseClass(Attachment.class).instanceSize();
+		assertEquals(instanceSize + listsSize, retained.totalSize());
+
+		// the figures in the description of this test are for compressed references
+		assumeTrue(VM.current().sizeOfField("oop") == 4 && VM.current().objectHeaderSize() == 12 && VM.current().objectAlignment() == 8);
+		assertEquals(112 + 72, instanceSize);
+		assertTrue(retained.totalSize() + " <= 304", retained.totalSize() <= 304);
+	}
+
+	@Test
+	public void testCollectionsAreCreatedWhenNeeded() throws Exception {
+		Attachment attachment = new Attachment("https://example.org/1.mp3", "audio/mpeg");
+		attachment.validate();
+		assertEquals(0, attachment.getValidationErrors().size());
+		assertFalse(GraphLayout.parseInstance(attachment).getClasses().contains(ArrayList.class));
+
+		attachment.addExtension("_extension", new Extension(new JSONObject("{\"about\": \"https://example.org/\"}")));
+		assertNotNull(attachment.getExtension("_extension"));
+		assertTrue(GraphLayout.parseInstance(attachment).getClasses().contains(LinkedHashMap.class));
+	}
+}
@@ -0,0 +1,116 @@
+package synapticloop.jsonfeed;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import synapticloop.jsonfeed.util.Utils;
+
+import static org.junit.Assert.*;
+
+public class InlineValidatorTest {
+	private static final String INVALID_JSON = "{\"version\": \"https://jsonfeed.org/version/1\", \"items\": [" + 
+			"{\"id\": \"1\", \"content_text\": \"text\"}, " + 
+			"{\"content_text\": \"text\", \"author\": {}}, " + 
+			"{\"id\": \"3\", \"attachments\": [{\"url\": \"http://example.com/a.mp3\"}]}, " + 
+			"{\"id\": \"4\", \"content_html\": \"html\", \"_ext\": {\"a.b\": 1}}], " + 
+			"\"hubs\": [{\"url\": \"http://example.com/hub\"}]}";
+
+	private static final ParseOptions VALIDATING = ParseOptions.DEFAULT.withValidation(ValidationOptions.DEFAULT);
+
+	@Test
+	public void testSameAsValidatingAfterwards() throws IOException {
+		List<String> expected = paths(Feed.parse(new StringReader(INVALID_JSON)).validate(ValidationOptions.DEFAULT));
+		assertEquals(7, expected.size());
+
+		Feed feed = new FeedParser(VALIDATING).parse(new StringReader(INVALID_JSON));
+		assertEquals(expected, paths(feed.getValidationReport()));
+		assertEquals(4, feed.getItems().size());
+		assertTrue(feed.getItems().get(0).getValidationReport().isValid());
+		assertEquals(Arrays.asList("$.items[1].id", "$.items[1].author"), paths(feed.getItems().get(1).getValidationReport()));
+		assertEquals(Arrays.asList("$.items[3]._ext.a.b"), paths(feed.getItems().get(3).getValidationReport()));
+
+		feed = new Feed(new JSONObject(INVALID_JSON), VALIDATING);
+		assertEquals(expected, paths(feed.getValidationReport()));
+		assertEquals(4, feed.getItems().size());
+
+		// not validated inline
+		assertNull(Feed.parse(new StringReader(INVALID_JSON)).getValidationReport());
+	}
+
+	@Test
+	public void testValidFeeds() throws IOException {
+		for (String resource : new String[] { "/daringfireball.com.json", "/bitsplitting.org.json" }) {
+			String json = Utils.resourceToString(InlineValidatorTest.class.getResourceAsStream(resource));
+			Feed feed = new FeedParser(VALIDATING.withInvalidItems(ParseOptions.InvalidItems.REJECT)).parse(new StringReader(json));
+			assertTrue(feed.getValidationReport().isValid());
+			Utils.assertFeedEquals(Feed.parse(new StringReader(json)), feed);
+		}
+	}
+
+	@Test
+	public void testSkipInvalidItems() throws IOException {
+		ParseOptions parseOptions = VALIDATING.withInvalidItems(ParseOptions.InvalidItems.SKIP);
+
+		Feed feed = new FeedParser(parseOptions).parse(new StringReader(INVALID_JSON));
+		assertEquals(Arrays.asList("1"), ids(feed.getItems()));
+		// the errors of the skipped items are still reported
+		assertEquals(7, feed.getValidationReport().getNumErrors());
+
+		feed = new Feed(new JSONObject(INVALID_JSON), parseOptions);
+		assertEquals(Arrays.asList("1"), ids(feed.getItems()));
+
+		List<Item> items = new ArrayList<Item>();
+		FeedPushParser feedPushParser = new FeedPushParser(new FeedParser(parseOptions), items::add);
+		feedPushParser.feed(ByteBuffer.wrap(INVALID_JSON.getBytes(StandardCharsets.UTF_8)));
+		feed = feedPushParser.end();
+		assertEquals(Arrays.asList("1"), ids(items));
+		assertEquals(1, feedPushParser.getNumItems());
+		assertEquals(7, feed.getValidationReport().getNumErrors());
+	}
+
+	@Test
+	public void testRejectInvalidItems() throws IOException {
+		ParseOptions parseOptions = VALIDATING.withInvalidItems(ParseOptions.InvalidItems.REJECT);
+		try {
+			new FeedParser(parseOptions).parse(new StringReader(INVALID_JSON));
+			fail("Expected the feed to be rejected");
+		} catch (JSONException ex) {
+			assertEquals("Item 1 is not valid, [$.items[1].id] _MUST_NOT_ be null", ex.getMessage());
+		}
+
+		List<Item> items = new ArrayList<Item>();
+		FeedPushParser feedPushParser = new FeedPushParser(new FeedParser(parseOptions), items::add);
+		try {
+			feedPushParser.feed(ByteBuffer.wrap(INVALID_JSON.getBytes(StandardCharsets.UTF_8)));
+			fail("Expected the feed to be rejected");
+		} catch (JSONException ex) {
+			// expected
+		}
+		assertEquals(1, items.size());
+	}
+
+	private List<String> ids(List<Item> items) {
+		List<String> ids = new ArrayList<String>();
+		for (Item item : items) {
+			ids.add(item.getId());
+		}
+		return(ids);
+	}
+
+	private List<String> paths(ValidationReport report) {
+		List<String> paths = new ArrayList<String>();
+		for (ValidationError validationError : report.getErrors()) {
+			paths.add(validationError.getPath());
+		}
+		return(paths);
+	}
+}
@@ -0,0 +1,146 @@
+package synapticloop.jsonfeed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import synapticloop.jsonfeed.ItemDeduplicator.Key;
+
+import static org.junit.Assert.*;
+
+public class ItemDeduplicatorTest {
+	private static Item item(String id, String url, String externalUrl) {
+		Item item = new Item(id);
+		item.setUrl(url);
+		item.setExternalUrl(externalUrl);
+		return(item);
+	}
+
+	@Test
+	public void testKeys() {
+		ItemDeduplicator itemDeduplicator = new ItemDeduplicator();
+		assertTrue(itemDeduplicator.add(item("https://example.org/1", "https://example.org/1", null)));
+		assertFalse(itemDeduplicator.add(item("https://example.org/1", null, null)));
+		assertFalse(itemDeduplicator.add(item("tag:other.org,2017:1", "https://example.org/1", null)));
+		assertTrue(itemDeduplicator.add(item("2", null, "https://elsewhere.org/article")));
+		assertFalse(itemDeduplicator.add(item("3", null, "https://elsewhere.org/article")));
+		assertTrue(itemDeduplicator.mightContain(item("tag:other.org,2017:1", null, null)));
+		assertFalse(itemDeduplicator.mightContain(item("4", null, null)));
+
+		assertEquals(5, itemDeduplicator.getNumItems());
+		assertEquals(3, itemDeduplicator.getNumExactDuplicates());
+		assertEquals(0, itemDeduplicator.getNumProbableDuplicates());
+	}
+
+	@Test
+	public void testOnlyIds() {
+		ItemDeduplicator itemDeduplicator = new ItemDeduplicator(16, 1000, 0.01, Long.MAX_VALUE, Key.ID);
+		assertTrue(itemDeduplicator.add(item("1", "https://example.org/1", null)));
+		assertTrue(itemDeduplicator.add(item("2", "https://example.org/1", null)));
+		assertFalse(itemDeduplicator.add(item("2", null, null)));
+	}
+
+	@Test
+	public void testHistoryIsInTheBloomFilters() {
+		ItemDeduplicator itemDeduplicator = new ItemDeduplicator(100, 1000, 0.01, Long.MAX_VALUE, Key.ID);
+		for(int i = 0; i < 10000; i++) {
+			itemDeduplicator.add(item(Integer.toString(i), null, null));
+		}
+
+		// some distinct ids were false positives while the filters filled up
+		long probableDuplicates = itemDeduplicator.getNumProbableDuplicates();
+		assertTrue(probableDuplicates + " < 100", probableDuplicates < 100);
+
+		// the recent table has been replaced many times
+		assertFalse(itemDeduplicator.add(item("0", null, null)));
+		assertEquals(probableDuplicates + 1, itemDeduplicator.getNumProbableDuplicates());
+		assertEquals(0, itemDeduplicator.getNumExactDuplicates());
+		assertTrue(itemDeduplicator.getNumBloomFilters() > 1);
+
+		int falsePositives = 0;
+		for(int i = 10000; i < 20000; i++) {
+			if(itemDeduplicator.mightContain(item(Integer.toString(i), null, null))) {
+				falsePositives++;
+			}
+		}
+		double estimated = itemDeduplicator.getEstimatedFalsePositiveRate();
+		assertTrue(estimated + " < 0.01", estimated < 0.01);
+		assertTrue(falsePositives + " < 200", falsePositives < 200);
+	}
+
+	@Test
+	public void testMaximumSize() {
+		ItemDeduplicator itemDeduplicator = new ItemDeduplicator(16, 1000, 0.01, 1024, Key.ID);
+		for(int i = 0; i < 10000; i++) {
+			itemDeduplicator.add(item(Integer.toString(i), null, null));
+		}
+		assertTrue(itemDeduplicator.getBloomSizeInBytes() <= 1024);
+		assertTrue(itemDeduplicator.getNumRetiredBloomFilters() > 0);
+		assertTrue(itemDeduplicator.getEstimatedFalsePositiveRate() <= 0.01);
+	}
+
+	@Test
+	public void testPastMaximumSize() {
+		ItemDeduplicator itemDeduplicator = new ItemDeduplicator(1024, 1000, 0.01, 64 * 1024, Key.ID);
+		int numAdded = 0;
+		for(int i = 0; i < 200000; i++) {
+			if(itemDeduplicator.add(item(Integer.toString(i), null, null))) {
+				numAdded++;
+			}
+		}
+		assertTrue(itemDeduplicator.getBloomSizeInBytes() <= 64 * 1024);
+		assertTrue(itemDeduplicator.getNumRetiredBloomFilters() > 0);
+		// the oldest filters are retired, rather than the last one filling up
+		assertTrue(itemDeduplicator.getEstimatedFalsePositiveRate() <= 0.01);
+		assertTrue(numAdded > 200000 * 0.99);
+
+		// the recently seen items are still found
+		assertFalse(itemDeduplicator.add(item("199999", null, null)));
+		assertTrue(itemDeduplicator.mightContain(item("199000", null, null)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidFalsePositiveRate() {
+		new ItemDeduplicator(16, 1000, 1d, Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testConcurrentAdds() throws Exception {
+		ItemDeduplicator itemDeduplicator = new ItemDeduplicator(1 << 14, 1 << 14, 0.001, Long.MAX_VALUE);
+		Set<String> ids = ConcurrentHashMap.newKeySet();
+		AtomicInteger added = new AtomicInteger();
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for(int i = 0; i < 4; i++) {
+				futures.add(executorService.submit(() -> {
+					for(int j = 0; j < 5000; j++) {
+						String id = "https://example.org/" + j;
+						if(itemDeduplicator.add(item(id, null, null))) {
+							ids.add(id);
+							added.incrementAndGet();
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executorService.shutdown();
+		}
+
+		// each item is added by exactly one of the threads
+		assertEquals(5000, added.get());
+		assertEquals(5000, ids.size());
+		assertEquals(15000, itemDeduplicator.getNumExactDuplicates());
+		assertEquals(0, itemDeduplicator.getNumProbableDuplicates());
+	}
+}
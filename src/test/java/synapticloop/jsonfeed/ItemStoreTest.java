@@ -0,0 +1,187 @@
+package synapticloop.jsonfeed;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import static org.junit.Assert.*;
+
+public class ItemStoreTest {
+	private static final String FEED_JSON = "{\"title\": \"title\", \"feed_url\": \"https://example.org/feed.json\", \"home_page_url\": \"https://example.org/\", \"items\": [" +
+			"{\"id\": \"1\", \"url\": \"https://example.org/posts/1\", \"title\": \"One\", \"date_published\": \"2010-02-07T14:04:00-05:00\", \"author\": {\"name\": \"Someone\"}, \"tags\": [\"one\", \"odd\"]}, " +
+			"{\"id\": \"2\", \"url\": \"https://elsewhere.org/2\", \"title\": \"Two\", \"date_modified\": \"2017-05-28T00:37:21Z\", \"tags\": [\"even\"]}, " +
+			"{\"id\": \"3\", \"title\": \"Three – ünïcödé\", \"author\": {\"name\": \"Someone\"}, \"tags\": [\"odd\"]}]}";
+
+	@Test
+	public void testAddFeed() throws IOException, ParseException {
+		ItemStore itemStore = new ItemStore(1);
+		assertEquals(0, itemStore.addFeed(Feed.parse(new StringReader(FEED_JSON))));
+		assertEquals(1, itemStore.getNumFeeds());
+		assertEquals(3, itemStore.size());
+		assertEquals("https://example.org/feed.json", itemStore.getFeedUrl(0));
+
+		ItemView itemView = itemStore.view(0);
+		assertEquals("1", itemView.getId());
+		assertEquals("https://example.org/posts/1", itemView.getUrl());
+		assertEquals("One", itemView.getTitle());
+		assertEquals("2010-02-07T14:04:00-05:00", Rfc3339Codec.format(itemView.getDatePublished()));
+		assertEquals(ItemStore.NO_DATE, itemView.getDateModifiedMillis());
+		assertNull(itemView.getDateModified());
+		assertEquals("Someone", itemView.getAuthorName());
+		assertEquals(Arrays.asList("one", "odd"), itemView.getTags());
+
+		itemView.moveTo(1);
+		assertEquals("https://elsewhere.org/2", itemView.getUrl());
+		assertEquals(ItemStore.NO_DATE, itemView.getDatePublishedMillis());
+		assertEquals(Rfc3339Codec.parseEpochMillis("2017-05-28T00:37:21Z"), itemView.getDateModifiedMillis());
+		assertNull(itemView.getAuthorName());
+
+		itemView.moveTo(2);
+		assertNull(itemView.getUrl());
+		assertEquals("Three – ünïcödé", itemView.getTitle());
+		assertEquals(itemStore.getTagId("odd"), itemView.getTagId(0));
+		assertEquals(-1, itemStore.getTagId("none"));
+	}
+
+	@Test
+	public void testForEachAndToItem() throws IOException {
+		Feed feed = Feed.parse(new StringReader(FEED_JSON));
+		ItemStore itemStore = new ItemStore();
+		itemStore.addFeed(feed);
+		itemStore.addFeed(feed);
+		itemStore.trimToSize();
+
+		List<String> ids = new ArrayList<String>();
+		itemStore.forEach(itemView -> ids.add(itemView.getFeedIndex() + ":" + itemView.getId()));
+		assertEquals(Arrays.asList("0:1", "0:2", "0:3", "1:1", "1:2", "1:3"), ids);
+
+		Item item = itemStore.view(3).toItem();
+		Item original = feed.getItems().get(0);
+		assertEquals(original.getId(), item.getId());
+		assertEquals(original.getUrl(), item.getUrl());
+		assertEquals(original.getDatePublished(), item.getDatePublished());
+		assertEquals(original.getTags(), item.getTags());
+		assertEquals("Someone", item.getAuthor().getName());
+		assertEquals(0, item.getExtensions().size());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		new ItemStore().view(0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testUnknownFeed() {
+		new ItemStore().addItem(0, new Item("1"));
+	}
+
+	@Test
+	public void testSmallerThanItems() {
+		List<Item> items = new ArrayList<Item>();
+		ItemStore itemStore = new ItemStore();
+		int feedIndex = itemStore.addFeed("https://example.org/feed.json", "https://example.org/");
+		for(int i = 0; i < 1000; i++) {
+			Item item = new Item("https://example.org/posts/" + i);
+			item.setUrl("https://example.org/posts/" + i);
+			item.setTitle("Post number " + i);
+			item.setDatePublished(new Date(1500000000000L + i * 60000L));
+			item.setAuthor(new Author("Author " + (i % 10), null, null));
+			item.setTags(new ArrayList<String>(Collections.singletonList("tag" + (i % 20))));
+			items.add(item);
+			itemStore.addItem(feedIndex, item);
+		}
+		itemStore.trimToSize();
+
+		// like parsed items, each item holds its own copy of the repeated strings
+		long itemsSize = GraphLayout.parseInstance(items).totalSize();
+		long itemStoreSize = GraphLayout.parseInstance(itemStore).totalSize();
+		assertTrue(itemStoreSize + " < " + itemsSize + " / 3", itemStoreSize < itemsSize / 3);
+	}
+
+	@Test
+	public void testCapacityIsNotReservedForBytes() {
+		// the bytes of the strings are only allocated as they are added
+		long itemStoreSize = GraphLayout.parseInstance(new ItemStore(100000)).totalSize();
+		assertTrue(itemStoreSize + " < 6 MB", itemStoreSize < 6L * 1024 * 1024);
+	}
+
+	@Test
+	public void testColumnGrowth() {
+		Utf8Column utf8Column = new Utf8Column(1);
+		StringBuilder stringBuilder = new StringBuilder();
+		for(int i = 0; i < 100; i++) {
+			stringBuilder.append("ünïcödé ");
+		}
+		for(int i = 0; i < 100; i++) {
+			utf8Column.add(stringBuilder.toString() + i);
+		}
+		assertEquals(100, utf8Column.size());
+		assertEquals(stringBuilder.toString() + 99, utf8Column.get(99));
+
+		assertEquals(64, Utf8Column.newLength(32, 33));
+		assertEquals(1000, Utf8Column.newLength(32, 1000));
+		assertEquals(Utf8Column.MAX_ARRAY_LENGTH, Utf8Column.newLength(Integer.MAX_VALUE / 2 + 1, Integer.MAX_VALUE / 2 + 2));
+	}
+
+	@Test
+	public void testItemThatCanNotBeAdded() throws IOException {
+		ItemStore itemStore = new ItemStore(1);
+		int feedIndex = itemStore.addFeed("https://example.org/feed.json", "https://example.org/");
+		// the item is added to all of the other columns before the tags fail
+		Item failing = new Item("failing") {
+			@Override
+			public List<String> getTags() {
+				return(new AbstractList<String>() {
+					@Override
+					public String get(int index) {
+						if(index > 0) {
+							throw new IllegalStateException("Could not grow the column");
+						}
+						return("failing");
+					}
+
+					@Override
+					public int size() { return(2); }
+				});
+			}
+		};
+		failing.setUrl("https://example.org/failing");
+		failing.setTitle("Failing");
+
+		try {
+			itemStore.addItem(feedIndex, failing);
+			fail("Expected the item to not be added");
+		} catch (IllegalStateException ex) {
+			// expected
+		}
+		assertEquals(0, itemStore.size());
+
+		// none of the columns hold any of the item that could not be added
+		itemStore.addFeed(Feed.parse(new StringReader(FEED_JSON)));
+		assertEquals(3, itemStore.size());
+		ItemView itemView = itemStore.view(0);
+		assertEquals("1", itemView.getId());
+		assertEquals("https://example.org/posts/1", itemView.getUrl());
+		assertEquals("One", itemView.getTitle());
+		assertEquals(Arrays.asList("one", "odd"), itemView.getTags());
+		itemView.moveTo(2);
+		assertEquals("3", itemView.getId());
+		assertNull(itemView.getUrl());
+		assertEquals("Three – ünïcödé", itemView.getTitle());
+		assertEquals(Arrays.asList("odd"), itemView.getTags());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testColumnIsFull() {
+		Utf8Column.newLength(Utf8Column.MAX_ARRAY_LENGTH, Utf8Column.MAX_ARRAY_LENGTH + 1L);
+	}
+}
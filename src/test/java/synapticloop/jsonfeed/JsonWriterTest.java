@@ -0,0 +1,184 @@
+package synapticloop.jsonfeed;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import synapticloop.jsonfeed.util.Utils;
+
+import static org.junit.Assert.*;
+
+public class JsonWriterTest {
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		for (String resource : new String[] { "/daringfireball.com.json", "/bitsplitting.org.json" }) {
+			String json = Utils.resourceToString(JsonWriterTest.class.getResourceAsStream(resource));
+			Feed feed = new Feed(new JSONObject(json));
+
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			feed.writeTo(outputStream);
+			String written = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+			Utils.assertFeedEquals(feed, Feed.parse(new StringReader(written)));
+			Utils.assertFeedEquals(feed, new Feed(new JSONObject(written)));
+
+			StringWriter stringWriter = new StringWriter();
+			feed.writeTo(stringWriter);
+			assertEquals(written, stringWriter.toString());
+		}
+	}
+
+	@Test
+	public void testSameAsToJSON() throws IOException {
+		String json = Utils.resourceToString(JsonWriterTest.class.getResourceAsStream("/bitsplitting.org.json"));
+		Feed feed = new Feed(new JSONObject(json));
+		for (Item item : feed.getItems()) {
+			StringWriter stringWriter = new StringWriter();
+			item.writeTo(stringWriter);
+			assertTrue(item.toJSON().similar(new JSONObject(stringWriter.toString())));
+		}
+	}
+
+	@Test
+	public void testCachedFragments() throws IOException {
+		String json = Utils.resourceToString(JsonWriterTest.class.getResourceAsStream("/bitsplitting.org.json"));
+		Feed feed = new Feed(new JSONObject(json));
+		Item first = feed.getItems().get(0);
+		Item second = feed.getItems().get(1);
+		first.setAuthor(new Author("name", null, null));
+		second.getAttachments().add(new Attachment("http://example.com/a.mp3", "audio/mpeg", null, 10L, null, null));
+
+		assertEquals(write(feed, false), write(feed, true));
+		for (Item item : feed.getItems()) {
+			assertTrue(item.isFragmentValid());
+		}
+
+		// only the changed items are invalidated
+		first.setTitle("changed title");
+		assertFalse(first.isFragmentValid());
+		assertTrue(second.isFragmentValid());
+		assertEquals(write(feed, false), write(feed, true));
+		assertTrue(first.isFragmentValid());
+
+		// changes to the author and attachments invalidate the item that holds them
+		first.getAuthor().setName("changed name");
+		second.getAttachments().get(0).setTitle("changed title");
+		assertFalse(first.isFragmentValid());
+		assertFalse(second.isFragmentValid());
+		assertTrue(feed.getItems().get(2).isFragmentValid());
+		String written = write(feed, true);
+		assertEquals(write(feed, false), written);
+		assertTrue(written.contains("changed name"));
+
+		first.addExtension("_extension", new Extension(new JSONObject("{\"key\": \"value\"}")));
+		assertFalse(first.isFragmentValid());
+		assertEquals(write(feed, false), write(feed, true));
+
+		// as do changes to the extensions (of the item and the objects it holds)
+		long fingerprint = first.getFingerprint();
+		first.getExtension("_extension").addKeyValue("added", 2);
+		assertFalse(first.isFragmentValid());
+		assertNotEquals(fingerprint, first.getFingerprint());
+		written = write(feed, true);
+		assertEquals(write(feed, false), written);
+		assertTrue(written.contains("\"added\""));
+
+		second.getAttachments().get(0).addExtension("_attachment", new Extension(new JSONObject("{\"key\": \"value\"}")));
+		assertEquals(write(feed, false), write(feed, true));
+		second.getAttachments().get(0).getExtension("_attachment").addKeyValue("nested", 3);
+		assertFalse(second.isFragmentValid());
+		written = write(feed, true);
+		assertEquals(write(feed, false), written);
+		assertTrue(written.contains("\"nested\""));
+	}
+
+	@Test
+	public void testEscapes() throws IOException {
+		String value = "quote \" backslash \\ slash / control \n\r\t\b\f\u0001\u001f 2 byte é 3 byte € 4 byte 😀";
+		StringWriter stringWriter = new StringWriter();
+		JsonWriter jsonWriter = new JsonWriter(stringWriter);
+		jsonWriter.beginArray().value(value).value("").value((String)null).endArray().close();
+		JSONArray jsonArray = new JSONArray(stringWriter.toString());
+		assertEquals(value, jsonArray.getString(0));
+		assertEquals("", jsonArray.getString(1));
+		assertTrue(jsonArray.isNull(2));
+
+		// an unpaired surrogate can't be encoded
+		stringWriter = new StringWriter();
+		jsonWriter = new JsonWriter(stringWriter);
+		jsonWriter.value("a\ud83db").close();
+		assertEquals("\"a?b\"", stringWriter.toString());
+	}
+
+	@Test
+	public void testValues() throws IOException {
+		Map<String, Object> map = new LinkedHashMap<String, Object>();
+		map.put("long", Long.MIN_VALUE);
+		map.put("int", -12);
+		map.put("zero", 0);
+		map.put("double", 1.5d);
+		map.put("boolean", true);
+		map.put("null", JSONObject.NULL);
+		map.put("array", new JSONArray("[1, \"two\", {\"three\": [3]}, []]"));
+		map.put("object", new JSONObject("{}"));
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		JsonWriter jsonWriter = new JsonWriter(outputStream);
+		jsonWriter.value(map).close();
+		assertEquals("{\"long\":-9223372036854775808,\"int\":-12,\"zero\":0,\"double\":1.5,\"boolean\":true,\"null\":null,\"array\":[1,\"two\",{\"three\":[3]},[]],\"object\":{}}", 
+				new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testLargeValuesAcrossTheBuffer() throws IOException {
+		StringBuilder stringBuilder = new StringBuilder();
+		for(int i = 0; i < 5000; i++) {
+			stringBuilder.append("aé€😀");
+		}
+		String value = stringBuilder.toString();
+
+		StringWriter stringWriter = new StringWriter();
+		JsonWriter jsonWriter = new JsonWriter(stringWriter);
+		jsonWriter.beginArray().value(value).value(value).endArray().close();
+		JSONArray jsonArray = new JSONArray(stringWriter.toString());
+		assertEquals(value, jsonArray.getString(0));
+		assertEquals(value, jsonArray.getString(1));
+	}
+
+	@Test
+	public void testDeeplyNestedExtension() throws IOException {
+		for (int depth : new int[] { 70, 200 }) {
+			StringBuilder stringBuilder = new StringBuilder();
+			for(int i = 0; i < depth; i++) {
+				stringBuilder.append(i % 2 == 0 ? "{\"first\": 1, \"nested\": " : "[1, ");
+			}
+			stringBuilder.append("{}");
+			for(int i = depth - 1; i >= 0; i--) {
+				stringBuilder.append(i % 2 == 0 ? ", \"last\": []}" : ", 2]");
+			}
+
+			Feed feed = new Feed(new JSONObject("{\"version\": \"https://jsonfeed.org/version/1\", \"title\": \"title\", \"_deep\": " + stringBuilder + "}"));
+			JSONObject expected = feed.toJSON().getJSONObject("_deep");
+			assertTrue(new JSONObject(write(feed, false)).getJSONObject("_deep").similar(expected));
+
+			ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+			feed.writeCanonicalTo(outputStream);
+			assertTrue(new JSONObject(new String(outputStream.toByteArray(), StandardCharsets.UTF_8)).getJSONObject("_deep").similar(expected));
+			assertNotNull(feed.getETag());
+		}
+	}
+
+	private String write(Feed feed, boolean cacheFragments) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		feed.writeTo(outputStream, cacheFragments);
+		return(new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+	}
+}
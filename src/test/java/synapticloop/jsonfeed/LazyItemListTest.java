@@ -0,0 +1,138 @@
+package synapticloop.jsonfeed;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import synapticloop.jsonfeed.util.Utils;
+
+import static org.junit.Assert.*;
+
+public class LazyItemListTest {
+
+	@Test
+	public void testSameAsJSONObject() throws IOException {
+		for (String resource : new String[] { "/daringfireball.com.json", "/bitsplitting.org.json" }) {
+			String json = Utils.resourceToString(LazyItemListTest.class.getResourceAsStream(resource));
+			Feed expected = new Feed(new JSONObject(json));
+			ByteBuffer byteBuffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+			Utils.assertFeedEquals(expected, Feed.parseLazy(byteBuffer));
+			Utils.assertFeedEquals(expected, new FeedParser().parseLazy(byteBuffer, false));
+		}
+	}
+
+	@Test
+	public void testOnlyAccessedItemsAreDecoded() throws IOException {
+		StringBuilder stringBuilder = new StringBuilder("{ \"version\": \"https://jsonfeed.org/version/1\", \"title\": \"title\", \"items\": [");
+		for(int i = 0; i < 5000; i++) {
+			if(i > 0) {
+				stringBuilder.append(", ");
+			}
+			stringBuilder.append("{ \"id\": \"").append(i).append("\", \"content_text\": \"text [with] {brackets} and \\\"quotes\\\"\", \"tags\": [\"a\", \"b\"] }");
+		}
+		stringBuilder.append("], \"next_url\": \"http://example.com/2\" }");
+
+		Feed feed = Feed.parseLazy(ByteBuffer.wrap(stringBuilder.toString().getBytes(StandardCharsets.UTF_8)));
+		assertEquals("http://example.com/2", feed.getNextUrl());
+		LazyItemList items = (LazyItemList)feed.getItems();
+		assertEquals(5000, items.size());
+
+		for(int i = 0; i < 20; i++) {
+			assertEquals(Integer.toString(i), items.get(i).getId());
+		}
+
+		for(int i = 0; i < 5000; i++) {
+			assertEquals(i < 20, items.isCached(i));
+		}
+
+		// cached items are the same instance
+		assertSame(items.get(0), items.get(0));
+		assertEquals("text [with] {brackets} and \"quotes\"", items.get(4999).getContentText());
+	}
+
+	@Test
+	public void testMappedFileWindows() throws IOException {
+		String json = Utils.resourceToString(LazyItemListTest.class.getResourceAsStream("/bitsplitting.org.json"));
+		json = json.replace("\"title\": \"", "\"title\": \"é€😀");
+		Feed expected = new Feed(new JSONObject(json));
+
+		Path path = Files.createTempFile("feed", ".json");
+		try {
+			Files.write(path, json.getBytes(StandardCharsets.UTF_8));
+			Utils.assertFeedEquals(expected, Feed.parseLazy(path));
+
+			// small windows, so that the items span the windows
+			for (int windowSize : new int[] { 1000, 4096 }) {
+				ByteSource byteSource;
+				try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+					byteSource = ByteSource.map(fileChannel, windowSize);
+				}
+				Utils.assertFeedEquals(expected, new FeedParser().parseLazy(byteSource, true));
+			}
+		} finally {
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testMalformedItemOnAccess() throws IOException {
+		Feed feed = Feed.parseLazy(ByteBuffer.wrap("{\"items\": [ {\"id\": \"1\"}, {\"id\" \"2\"} ]}".getBytes(StandardCharsets.UTF_8)));
+		assertEquals("1", feed.getItems().get(0).getId());
+		try {
+			feed.getItems().get(1);
+			fail("Expected the malformed item to throw");
+		} catch (JSONException ex) {
+			// expected
+		}
+	}
+
+	@Test(expected = JSONException.class)
+	public void testMalformedStructure() throws IOException {
+		Feed.parseLazy(ByteBuffer.wrap("{\"items\": [ {\"id\": \"1\"} }".getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testTrailingAndMissingValues() throws IOException {
+		String[] malformed = {
+				"{\"items\": [{\"id\": \"1\"},]}",
+				"{\"items\": [],}",
+				"{\"items\": [,]}",
+				"{\"title\": ,\"items\": []}"
+		};
+
+		// the same as the streaming parser
+		for (String json : malformed) {
+			try {
+				Feed.parseLazy(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+				fail("Expected " + json + " to throw");
+			} catch (JSONException ex) {
+				// expected
+			}
+
+			try {
+				Feed.parse(new StringReader(json));
+				fail("Expected " + json + " to throw");
+			} catch (JSONException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testItemsThatAreNotObjects() throws IOException {
+		String json = "{\"title\": \"title\", \"items\": [1, {\"id\": \"2\"}, \"three\", [4], null, {\"id\": \"5\"}]}";
+		Feed feed = Feed.parseLazy(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(2, feed.getItems().size());
+		assertEquals("2", feed.getItems().get(0).getId());
+		assertEquals("5", feed.getItems().get(1).getId());
+	}
+}
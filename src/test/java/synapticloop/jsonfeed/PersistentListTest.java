@@ -0,0 +1,57 @@
+package synapticloop.jsonfeed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PersistentListTest {
+
+	@Test
+	public void testPlus() {
+		// enough elements for the tree to grow three levels
+		List<Integer> expected = new ArrayList<Integer>();
+		PersistentList<Integer> list = PersistentList.empty();
+		for(int i = 0; i < 40000; i++) {
+			PersistentList<Integer> previous = list;
+			list = list.plus(i);
+			expected.add(i);
+			assertEquals(i, previous.size());
+			assertEquals(Integer.valueOf(i), list.get(i));
+		}
+		assertEquals(expected, list);
+	}
+
+	@Test
+	public void testWith() {
+		PersistentList<Integer> list = PersistentList.of(Arrays.asList(new Integer[2000]));
+		PersistentList<Integer> changed = list;
+		for(int i = 0; i < 2000; i += 7) {
+			changed = changed.with(i, i);
+		}
+
+		for(int i = 0; i < 2000; i++) {
+			assertNull(list.get(i));
+			assertEquals(i % 7 == 0 ? Integer.valueOf(i) : null, changed.get(i));
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		assertTrue(PersistentList.empty().isEmpty());
+		assertEquals(Arrays.asList("one"), PersistentList.<String>empty().plus("one"));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		PersistentList.of(Arrays.asList(1, 2, 3)).get(3);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testImmutable() {
+		PersistentList.of(Arrays.asList(1, 2, 3)).add(4);
+	}
+}
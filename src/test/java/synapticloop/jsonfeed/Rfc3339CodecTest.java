@@ -0,0 +1,127 @@
+package synapticloop.jsonfeed;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class Rfc3339CodecTest {
+	private static final String[] DATES = {
+			"2017-05-28T00:37:21Z",
+			"2017-05-25T17:14:26+00:00",
+			"2010-02-07T14:04:00-05:00",
+			"1969-12-31T23:59:59+10:30",
+			"2000-02-29T12:00:00-09:45",
+			"2099-12-31T23:59:59Z"
+	};
+
+	@Test
+	public void testSameAsSimpleDateFormat() throws ParseException {
+		SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+		for (String date : DATES) {
+			assertEquals(date, simpleDateFormat.parse(date).getTime(), Rfc3339Codec.parseEpochMillis(date));
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws ParseException {
+		assertEquals("2017-05-28T00:37:21Z", Rfc3339Codec.parse("2017-05-28T00:37:21Z").toString());
+		assertEquals("2010-02-07T14:04:00-05:00", Rfc3339Codec.parse("2010-02-07T14:04:00-05:00").toString());
+		assertEquals("1969-12-31T23:59:59+10:30", Rfc3339Codec.format(Rfc3339Codec.parse("1969-12-31T23:59:59+10:30")));
+		// +00:00 and Z are the same offset
+		assertEquals("2017-05-25T17:14:26Z", Rfc3339Codec.parse("2017-05-25T17:14:26+00:00").toString());
+	}
+
+	@Test
+	public void testFractionalSeconds() throws ParseException {
+		Rfc3339Date date = Rfc3339Codec.parse("2017-05-28T00:37:21.5+02:00");
+		assertEquals(Rfc3339Codec.parseEpochMillis("2017-05-28T00:37:21+02:00") + 500, date.getTime());
+		assertEquals(120, date.getOffsetMinutes());
+		assertEquals("2017-05-28T00:37:21.500+02:00", date.toString());
+
+		// anything past the milliseconds is truncated
+		assertEquals(Rfc3339Codec.parseEpochMillis("2017-05-28T00:37:21Z") + 123, Rfc3339Codec.parseEpochMillis("2017-05-28T00:37:21.123456789z"));
+	}
+
+	@Test
+	public void testInvalid() {
+		String[] invalidDates = {
+				"",
+				"2017-05-28",
+				"2017-05-28T00:37:21",
+				"2017-13-28T00:37:21Z",
+				"2017-02-29T00:37:21Z",
+				"2017-05-28T24:37:21Z",
+				"2017-05-28T00:37:21.Z",
+				"2017-05-28T00:37:21+0200",
+				"2017-05-28X00:37:21Z",
+				"2017-05-28T00:37:21 Z"
+		};
+
+		for (String invalidDate : invalidDates) {
+			try {
+				Rfc3339Codec.parse(invalidDate);
+				fail("Expected '" + invalidDate + "' to be invalid");
+			} catch (ParseException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testYearRange() throws ParseException {
+		long first = Rfc3339Codec.parseEpochMillis("0000-01-01T00:00:00Z");
+		long last = Rfc3339Codec.parseEpochMillis("9999-12-31T23:59:59Z");
+		assertEquals("0000-01-01T00:00:00Z", Rfc3339Codec.format(first, 0));
+		assertEquals("9999-12-31T23:59:59Z", Rfc3339Codec.format(last, 0));
+
+		long[][] outOfRange = {
+				{ first - 1000, 0 },
+				{ last + 1000, 0 },
+				{ last, 60 },
+				{ first, -60 },
+				{ Long.MAX_VALUE, 0 },
+				{ Long.MIN_VALUE / 2, 0 }
+		};
+		for (long[] date : outOfRange) {
+			try {
+				Rfc3339Codec.format(date[0], (int)date[1]);
+				fail("Expected " + date[0] + " to be out of range");
+			} catch (IllegalArgumentException ex) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentParsing() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+			for(int i = 0; i < 8; i++) {
+				futures.add(executorService.submit(() -> {
+					for(int j = 0; j < 10000; j++) {
+						String date = DATES[j % DATES.length];
+						if(!date.equals(Rfc3339Codec.format(Rfc3339Codec.parse(date))) && !date.endsWith("+00:00")) {
+							return(false);
+						}
+					}
+					return(true);
+				}));
+			}
+
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package synapticloop.jsonfeed;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import synapticloop.jsonfeed.SymbolTable.Field;
+
+import static org.junit.Assert.*;
+
+public class SymbolTableTest {
+	private static final String FEED_JSON = "{\"version\": \"https://jsonfeed.org/version/1\", \"title\": \"title\", \"items\": [" +
+			"{\"id\": \"1\", \"author\": {\"name\": \"Someone\"}, \"tags\": [\"news\"], \"attachments\": [{\"url\": \"https://example.org/1.mp3\", \"mime_type\": \"audio/mpeg\"}]}, " +
+			"{\"id\": \"2\", \"author\": {\"name\": \"Someone\"}, \"tags\": [\"news\"], \"attachments\": [{\"url\": \"https://example.org/2.mp3\", \"mime_type\": \"audio/mpeg\"}]}]}";
+
+	@Test
+	public void testLookup() {
+		SymbolTable symbolTable = new SymbolTable();
+		char[] characters = "xxaudio/mpegxx".toCharArray();
+		String symbol = symbolTable.lookup(characters, 2, 10);
+		assertEquals("audio/mpeg", symbol);
+		assertSame(symbol, symbolTable.lookup("audio/mpeg".toCharArray(), 0, 10));
+		assertSame(symbol, symbolTable.intern(new String("audio/mpeg")));
+		assertEquals("audio/mpe", symbolTable.lookup(characters, 2, 9));
+		assertEquals("", symbolTable.lookup(characters, 0, 0));
+		assertNull(symbolTable.intern(null));
+	}
+
+	@Test
+	public void testBounded() {
+		SymbolTable symbolTable = new SymbolTable(3, 4);
+		assertEquals(4, symbolTable.getCapacity());
+
+		// longer values are never held
+		String value = symbolTable.lookup("abcde".toCharArray(), 0, 5);
+		assertNotSame(value, symbolTable.lookup("abcde".toCharArray(), 0, 5));
+
+		// more values than slots, each one replaces another, but are still correct
+		for(int i = 0; i < 100; i++) {
+			assertEquals(Integer.toString(i), symbolTable.lookup(Integer.toString(i).toCharArray(), 0, Integer.toString(i).length()));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroCapacity() {
+		new SymbolTable(0, 10);
+	}
+
+	@Test
+	public void testConcurrentLookup() throws Exception {
+		SymbolTable symbolTable = new SymbolTable(16, 32);
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+			for(int i = 0; i < 4; i++) {
+				futures.add(executorService.submit(() -> {
+					for(int j = 0; j < 10000; j++) {
+						String expected = "tag" + (j % 64);
+						if(!expected.equals(symbolTable.lookup(expected.toCharArray(), 0, expected.length()))) {
+							return(false);
+						}
+					}
+					return(true);
+				}));
+			}
+			for (Future<Boolean> future : futures) {
+				assertTrue(future.get());
+			}
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	@Test
+	public void testStreamingParse() throws IOException {
+		Feed feed = new FeedParser(ParseOptions.DEFAULT.withSymbolTable(new SymbolTable())).parse(new StringReader(FEED_JSON));
+		assertSymbols(feed, true, true);
+	}
+
+	@Test
+	public void testJSONObjectParse() {
+		Feed feed = new Feed(new JSONObject(FEED_JSON), ParseOptions.DEFAULT.withSymbolTable(new SymbolTable()));
+		assertSymbols(feed, true, true);
+	}
+
+	@Test
+	public void testFields() throws IOException {
+		ParseOptions parseOptions = ParseOptions.DEFAULT.withSymbolTable(new SymbolTable(), Field.TAG);
+		assertNull(parseOptions.getSymbolTable(Field.AUTHOR_NAME));
+		assertSymbols(new FeedParser(parseOptions).parse(new StringReader(FEED_JSON)), true, false);
+		assertSymbols(new FeedParser().parse(new StringReader(FEED_JSON)), false, false);
+		assertNull(ParseOptions.DEFAULT.withSymbolTable(null).getSymbolTable(Field.TAG));
+	}
+
+	private static void assertSymbols(Feed feed, boolean tags, boolean others) {
+		Item first = feed.getItems().get(0);
+		Item second = feed.getItems().get(1);
+		assertEquals(first.getTags().get(0), second.getTags().get(0));
+		assertEquals(tags, first.getTags().get(0) == second.getTags().get(0));
+		assertEquals(first.getAuthor().getName(), second.getAuthor().getName());
+		assertEquals(others, first.getAuthor().getName() == second.getAuthor().getName());
+		assertEquals(others, first.getAttachments().get(0).getMimeType() == second.getAttachments().get(0).getMimeType());
+	}
+}
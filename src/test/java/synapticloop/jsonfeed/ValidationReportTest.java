@@ -0,0 +1,150 @@
+package synapticloop.jsonfeed;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import synapticloop.jsonfeed.exception.ValidationException;
+import synapticloop.jsonfeed.util.Utils;
+
+import static org.junit.Assert.*;
+
+public class ValidationReportTest {
+	private static final String INVALID_JSON = "{\"version\": \"https://jsonfeed.org/version/1\", \"items\": [" + 
+			"{\"id\": \"1\", \"content_text\": \"text\"}, " + 
+			"{\"content_text\": \"text\", \"author\": {}}, " + 
+			"{\"id\": \"3\", \"attachments\": [{\"url\": \"http://example.com/a.mp3\"}]}], " + 
+			"\"hubs\": [{\"url\": \"http://example.com/hub\"}], " + 
+			"\"_ext\": {\"_bad\": 1, \"ok\": 2}}";
+
+	@Test
+	public void testValidFeeds() {
+		for (String resource : new String[] { "/daringfireball.com.json", "/bitsplitting.org.json" }) {
+			Feed feed = new Feed(new JSONObject(Utils.resourceToString(ValidationReportTest.class.getResourceAsStream(resource))));
+			ValidationReport report = feed.validate(ValidationOptions.DEFAULT);
+			assertTrue(report.isValid());
+			assertTrue(report.isComplete());
+			assertEquals(0, report.getNumErrors());
+		}
+	}
+
+	@Test
+	public void testPathAddressedErrors() throws IOException {
+		Feed feed = Feed.parse(new StringReader(INVALID_JSON));
+		ValidationReport report = feed.validate(ValidationOptions.DEFAULT);
+		assertFalse(report.isValid());
+		assertTrue(report.isComplete());
+		assertEquals(Arrays.asList(
+				"$.title", 
+				"$.items[1].id", 
+				"$.items[1].author", 
+				"$.items[2]", 
+				"$.items[2].attachments[0].mime_type", 
+				"$.hubs[0].type", 
+				"$._ext._bad"), paths(report));
+
+		// an item without an author is valid
+		assertTrue(feed.getItems().get(0).validate(ValidationOptions.DEFAULT).isValid());
+		assertEquals("[$.id] _MUST_NOT_ be null", feed.getItems().get(1).validate(ValidationOptions.DEFAULT).getErrors().get(0).toString());
+	}
+
+	@Test
+	public void testMaxErrorsAndFailFast() throws IOException {
+		Feed feed = Feed.parse(new StringReader(INVALID_JSON));
+
+		ValidationReport report = feed.validate(ValidationOptions.DEFAULT.withMaxErrors(3));
+		assertFalse(report.isComplete());
+		assertEquals(Arrays.asList("$.title", "$.items[1].id", "$.items[1].author"), paths(report));
+
+		report = feed.validate(ValidationOptions.FAIL_FAST);
+		assertFalse(report.isComplete());
+		assertEquals(Arrays.asList("$.title"), paths(report));
+
+		try {
+			ValidationOptions.DEFAULT.withMaxErrors(0);
+			fail("Expected the maximum number of errors to be invalid");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testValidateWrapper() throws IOException {
+		Feed feed = Feed.parse(new StringReader(INVALID_JSON));
+		try {
+			feed.validate();
+			fail("Expected the feed to be invalid");
+		} catch (ValidationException ex) {
+			// expected
+		}
+		assertEquals(7, feed.getValidationErrors().size());
+		assertEquals("[$.title] _MUST_NOT_ be null", feed.getValidationErrors().get(0));
+	}
+
+	@Test
+	public void testParallelSameAsSequential() throws IOException {
+		Feed feed = Feed.parse(new StringReader(largeFeed(5000)));
+		ExecutorService executorService = Executors.newFixedThreadPool(3);
+		try {
+			ValidationOptions[] validationOptions = {
+					ValidationOptions.DEFAULT, 
+					ValidationOptions.DEFAULT.withMaxErrors(3), 
+					ValidationOptions.DEFAULT.withMaxErrors(40), 
+					ValidationOptions.FAIL_FAST 
+			};
+
+			for (ValidationOptions options : validationOptions) {
+				ValidationReport sequential = feed.validate(options);
+				for (Executor executor : new Executor[] { ForkJoinPool.commonPool(), executorService }) {
+					ValidationReport parallel = feed.validate(options.withExecutor(executor));
+					assertEquals(paths(sequential), paths(parallel));
+					assertEquals(sequential.isComplete(), parallel.isComplete());
+				}
+			}
+
+			assertEquals(50, feed.validate(ValidationOptions.PARALLEL).getNumErrors());
+			assertEquals("$.items[99].id", feed.validate(ValidationOptions.PARALLEL).getErrors().get(0).getPath());
+
+			// lazy items are decoded by the thread that validates them
+			Feed lazyFeed = Feed.parseLazy(ByteBuffer.wrap(largeFeed(5000).getBytes(StandardCharsets.UTF_8)));
+			assertEquals(paths(feed.validate(ValidationOptions.DEFAULT)), paths(lazyFeed.validate(ValidationOptions.PARALLEL)));
+		} finally {
+			executorService.shutdown();
+		}
+	}
+
+	// every 100th item has no id
+	private String largeFeed(int numItems) {
+		StringBuilder stringBuilder = new StringBuilder("{\"version\": \"https://jsonfeed.org/version/1\", \"title\": \"title\", \"items\": [");
+		for(int i = 0; i < numItems; i++) {
+			if(i > 0) {
+				stringBuilder.append(',');
+			}
+			stringBuilder.append("{\"content_text\": \"text\"");
+			if(i % 100 != 99) {
+				stringBuilder.append(", \"id\": \"").append(i).append('"');
+			}
+			stringBuilder.append('}');
+		}
+		return(stringBuilder.append("]}").toString());
+	}
+
+	private List<String> paths(ValidationReport report) {
+		List<String> paths = new ArrayList<String>();
+		for (ValidationError validationError : report.getErrors()) {
+			paths.add(validationError.getPath());
+		}
+		return(paths);
+	}
+}
@@ -0,0 +1,50 @@
+package synapticloop.jsonfeed;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class XxHash64Test {
+
+	@Test
+	public void testKnownValues() {
+		assertEquals(0xef46db3751d8e999L, hash(""));
+		assertEquals(0xd24ec4f1a98c6e5bL, hash("a"));
+		assertEquals(0x44bc2cf5ad770999L, hash("abc"));
+		assertEquals(0xfbcea83c8a378bf1L, hash("Nobody inspects the spammish repetition"));
+	}
+
+	@Test
+	public void testWritesInAnyChunks() {
+		byte[] bytes = new byte[1000];
+		new Random(42).nextBytes(bytes);
+
+		XxHash64 bulk = new XxHash64();
+		bulk.write(bytes, 0, bytes.length);
+
+		XxHash64 single = new XxHash64();
+		for (byte b : bytes) {
+			single.write(b);
+		}
+		assertEquals(bulk.getValue(), single.getValue());
+
+		XxHash64 chunked = new XxHash64();
+		int offset = 0;
+		for(int length = 1; offset < bytes.length; length++) {
+			int numBytes = Math.min(length, bytes.length - offset);
+			chunked.write(bytes, offset, numBytes);
+			offset += numBytes;
+		}
+		assertEquals(bulk.getValue(), chunked.getValue());
+	}
+
+	private long hash(String value) {
+		XxHash64 xxHash64 = new XxHash64();
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		xxHash64.write(bytes, 0, bytes.length);
+		return(xxHash64.getValue());
+	}
+}
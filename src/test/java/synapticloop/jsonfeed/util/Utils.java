@@ -1,12 +1,23 @@
 package synapticloop.jsonfeed.util;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Scanner;
 
+import synapticloop.jsonfeed.Attachment;
+import synapticloop.jsonfeed.Author;
+import synapticloop.jsonfeed.BaseJsonFeedObject;
+import synapticloop.jsonfeed.Feed;
+import synapticloop.jsonfeed.Hub;
+import synapticloop.jsonfeed.Item;
+
 public class Utils {
 	public static String resourceToString(InputStream inputStream) {
-		Scanner scanner = new Scanner(inputStream).useDelimiter("\\A");
+		Scanner scanner = new Scanner(inputStream, "UTF-8").useDelimiter("\\A");
 		String retVal = scanner.hasNext() ? scanner.next() : "";
 		scanner.close();
 		try {
@@ -16,4 +27,83 @@ public class Utils {
 		}
 		return(retVal);
 	}
+
+	public static void assertFeedEquals(Feed expected, Feed actual) {
+		assertEquals(expected.getVersion(), actual.getVersion());
+		assertEquals(expected.getTitle(), actual.getTitle());
+		assertEquals(expected.getHomePageUrl(), actual.getHomePageUrl());
+		assertEquals(expected.getFeedUrl(), actual.getFeedUrl());
+		assertEquals(expected.getDescription(), actual.getDescription());
+		assertEquals(expected.getUserComment(), actual.getUserComment());
+		assertEquals(expected.getNextUrl(), actual.getNextUrl());
+		assertEquals(expected.getIcon(), actual.getIcon());
+		assertEquals(expected.getFavicon(), actual.getFavicon());
+		assertEquals(expected.getExpired(), actual.getExpired());
+		assertAuthorEquals(expected.getAuthor(), actual.getAuthor());
+		assertExtensionsEquals(expected, actual);
+
+		List<Hub> expectedHubs = expected.getHubs();
+		List<Hub> actualHubs = actual.getHubs();
+		assertEquals(expectedHubs.size(), actualHubs.size());
+		for(int i = 0; i < expectedHubs.size(); i++) {
+			assertEquals(expectedHubs.get(i).getType(), actualHubs.get(i).getType());
+			assertEquals(expectedHubs.get(i).getUrl(), actualHubs.get(i).getUrl());
+			assertExtensionsEquals(expectedHubs.get(i), actualHubs.get(i));
+		}
+
+		List<Item> expectedItems = expected.getItems();
+		List<Item> actualItems = actual.getItems();
+		assertEquals(expectedItems.size(), actualItems.size());
+		for(int i = 0; i < expectedItems.size(); i++) {
+			assertItemEquals(expectedItems.get(i), actualItems.get(i));
+		}
+	}
+
+	public static void assertItemEquals(Item expected, Item actual) {
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getUrl(), actual.getUrl());
+		assertEquals(expected.getExternalUrl(), actual.getExternalUrl());
+		assertEquals(expected.getTitle(), actual.getTitle());
+		assertEquals(expected.getContentHtml(), actual.getContentHtml());
+		assertEquals(expected.getContentText(), actual.getContentText());
+		assertEquals(expected.getSummary(), actual.getSummary());
+		assertEquals(expected.getImage(), actual.getImage());
+		assertEquals(expected.getBannerImage(), actual.getBannerImage());
+		assertEquals(expected.getDatePublished(), actual.getDatePublished());
+		assertEquals(expected.getDateModified(), actual.getDateModified());
+		assertEquals(expected.getTags(), actual.getTags());
+		assertAuthorEquals(expected.getAuthor(), actual.getAuthor());
+		assertExtensionsEquals(expected, actual);
+
+		List<Attachment> expectedAttachments = expected.getAttachments();
+		List<Attachment> actualAttachments = actual.getAttachments();
+		assertEquals(expectedAttachments.size(), actualAttachments.size());
+		for(int i = 0; i < expectedAttachments.size(); i++) {
+			Attachment expectedAttachment = expectedAttachments.get(i);
+			Attachment actualAttachment = actualAttachments.get(i);
+			assertEquals(expectedAttachment.getUrl(), actualAttachment.getUrl());
+			assertEquals(expectedAttachment.getMimeType(), actualAttachment.getMimeType());
+			assertEquals(expectedAttachment.getTitle(), actualAttachment.getTitle());
+			assertEquals(expectedAttachment.getSizeInBytes(), actualAttachment.getSizeInBytes());
+			assertEquals(expectedAttachment.getDurationInSeconds(), actualAttachment.getDurationInSeconds());
+			assertExtensionsEquals(expectedAttachment, actualAttachment);
+		}
+	}
+
+	public static void assertAuthorEquals(Author expected, Author actual) {
+		if(null == expected) {
+			assertNull(actual);
+			return;
+		}
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getUrl(), actual.getUrl());
+		assertEquals(expected.getAvatar(), actual.getAvatar());
+	}
+
+	private static void assertExtensionsEquals(BaseJsonFeedObject expected, BaseJsonFeedObject actual) {
+		assertEquals(expected.getExtensions().keySet(), actual.getExtensions().keySet());
+		for (String key : expected.getExtensions().keySet()) {
+			assertEquals(expected.getExtension(key).toJSON().toString(), actual.getExtension(key).toJSON().toString());
+		}
+	}
 }